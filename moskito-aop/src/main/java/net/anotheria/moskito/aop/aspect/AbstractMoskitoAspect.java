@@ -9,6 +9,7 @@ import net.anotheria.moskito.aop.util.MoskitoUtils;
 import net.anotheria.moskito.core.annotations.StatName;
 import net.anotheria.moskito.core.dynamic.IOnDemandStatsFactory;
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
 import net.anotheria.moskito.core.logging.DefaultStatsLogger;
 import net.anotheria.moskito.core.logging.IntervalStatsLogger;
 import net.anotheria.moskito.core.logging.SLF4JLogOutput;
@@ -18,6 +19,7 @@ import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
 import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.util.annotation.AnnotationUtils;
 import net.anotheria.util.StringUtils;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.reflect.MethodSignature;
@@ -40,10 +42,19 @@ public class AbstractMoskitoAspect<S extends IStats> {
 	 */
 	public static final char DOT = '.';
 
+	/**
+	 * Max amount of cached call sites, further call sites are resolved on each call.
+	 */
+	private static final int MAX_CALL_SITES = 10000;
+
 	/**
 	 * Map with created producers.
 	 */
 	private final ConcurrentMap<String, OnDemandStatsProducer<S>> producers = new ConcurrentHashMap<>();
+	/**
+	 * Resolved call sites by join point static part.
+	 */
+	private final ConcurrentMap<JoinPoint.StaticPart, CallSite<S>> callSites = new ConcurrentHashMap<>();
 	/**
 	 * Common {@link MoskitoAspectConfiguration}.
 	 */
@@ -128,6 +139,47 @@ public class AbstractMoskitoAspect<S extends IStats> {
 
 	}
 
+	/**
+	 * Returns the resolved producer and stats for the join point. The producer id, the method stat name and the stats
+	 * are resolved on the first call of a join point only, further calls reuse the call site.
+	 *
+	 * @param pjp
+	 * 		the pjp, its static part identifies the call site.
+	 * @param aProducerId
+	 * 		submitted producer id, used if configured in aop.
+	 * @param aCategory
+	 * 		submitted category.
+	 * @param aSubsystem
+	 * 		submitted subsystem.
+	 * @param withMethod
+	 * 		if true the name of the method will be part of the automatically generated producer id.
+	 * @param factory
+	 * 		OnDemandStatsProducer factory
+	 * @param tracingSupported
+	 * 		is tracing supported
+	 * @param withMethodStats
+	 * 		if true the stats of the method are resolved too.
+	 * @return {@link CallSite}
+	 * @throws OnDemandStatsProducerException
+	 * 		if the method stats can't be created
+	 */
+	protected CallSite<S> getCallSite(final ProceedingJoinPoint pjp, final String aProducerId, final String aCategory, final String aSubsystem, final boolean withMethod,
+									  final IOnDemandStatsFactory<S> factory, final boolean tracingSupported, final boolean withMethodStats) throws OnDemandStatsProducerException {
+		final JoinPoint.StaticPart staticPart = pjp.getStaticPart();
+		CallSite<S> callSite = callSites.get(staticPart);
+		//the same join point can be advised with different annotation values, for example on class and on method.
+		if (callSite != null && callSite.matches(aProducerId, aCategory, aSubsystem))
+			return callSite;
+
+		final OnDemandStatsProducer<S> producer = getProducer(pjp, aProducerId, aCategory, aSubsystem, withMethod, factory, tracingSupported);
+		final String methodName = getMethodStatName(pjp.getSignature());
+		final S methodStats = withMethodStats ? producer.getStats(methodName) : null;
+		callSite = new CallSite<>(aProducerId, aCategory, aSubsystem, producer, methodName, methodStats);
+		if (callSites.size() < MAX_CALL_SITES)
+			callSites.put(staticPart, callSite);
+		return callSite;
+	}
+
 	/**
 	 * Returns method name or method stats name by aop signature considering {@link StatName} annotation.
 	 *
@@ -308,7 +360,83 @@ public class AbstractMoskitoAspect<S extends IStats> {
 	 * Perform inner storage cleanUp.
 	 */
 	public void reset() {
+		callSites.clear();
 		producers.clear();
 	}
 
+	/**
+	 * Producer and stats of a join point, resolved once.
+	 *
+	 * @param <S>
+	 * 		stats type
+	 */
+	protected static final class CallSite<S extends IStats> {
+		/**
+		 * Submitted producer id, category and subsystem the call site was resolved for.
+		 */
+		private final String submittedProducerId;
+		private final String submittedCategory;
+		private final String submittedSubsystem;
+		/**
+		 * The producer.
+		 */
+		private final OnDemandStatsProducer<S> producer;
+		/**
+		 * Id of the producer.
+		 */
+		private final String producerId;
+		/**
+		 * Stat name of the method.
+		 */
+		private final String methodName;
+		/**
+		 * Default stats of the producer.
+		 */
+		private final S defaultStats;
+		/**
+		 * Stats of the method, null if not resolved.
+		 */
+		private final S methodStats;
+
+		private CallSite(String aSubmittedProducerId, String aSubmittedCategory, String aSubmittedSubsystem,
+						 OnDemandStatsProducer<S> aProducer, String aMethodName, S someMethodStats) {
+			submittedProducerId = aSubmittedProducerId;
+			submittedCategory = aSubmittedCategory;
+			submittedSubsystem = aSubmittedSubsystem;
+			producer = aProducer;
+			producerId = aProducer.getProducerId();
+			methodName = aMethodName;
+			defaultStats = aProducer.getDefaultStats();
+			methodStats = someMethodStats;
+		}
+
+		private boolean matches(String aProducerId, String aCategory, String aSubsystem) {
+			return equal(submittedProducerId, aProducerId) && equal(submittedCategory, aCategory) && equal(submittedSubsystem, aSubsystem);
+		}
+
+		private static boolean equal(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+		public OnDemandStatsProducer<S> getProducer() {
+			return producer;
+		}
+
+		public String getProducerId() {
+			return producerId;
+		}
+
+		public String getMethodName() {
+			return methodName;
+		}
+
+		public S getDefaultStats() {
+			return defaultStats;
+		}
+
+		public S getMethodStats() {
+			return methodStats;
+		}
+	}
+
 }
@@ -38,7 +38,8 @@ public class CounterAspect extends AbstractMoskitoAspect<CounterStats> {
 
 	private Object countByParameter(ProceedingJoinPoint pjp, String aProducerId, String aSubsystem, String aCategory) throws Throwable {
 
-		OnDemandStatsProducer<CounterStats> producer = getProducer(pjp, aProducerId, aCategory, aSubsystem, true, FACTORY, false);
+		CallSite<CounterStats> callSite = getCallSite(pjp, aProducerId, aCategory, aSubsystem, true, FACTORY, false, false);
+		OnDemandStatsProducer<CounterStats> producer = callSite.getProducer();
 
 		final Object[] args = pjp.getArgs();
 
@@ -47,7 +48,7 @@ public class CounterAspect extends AbstractMoskitoAspect<CounterStats> {
 			caseName = args[0].toString();
 
 
-		CounterStats defaultStats = producer.getDefaultStats();
+		CounterStats defaultStats = callSite.getDefaultStats();
 		CounterStats methodStats = null;
 		if (caseName!=null){
 			methodStats = producer.getStats(caseName);
@@ -68,11 +69,9 @@ public class CounterAspect extends AbstractMoskitoAspect<CounterStats> {
 
 	private Object count(ProceedingJoinPoint pjp, String aProducerId, String aSubsystem, String aCategory) throws Throwable {
 
-		OnDemandStatsProducer<CounterStats> producer = getProducer(pjp, aProducerId, aCategory, aSubsystem, false, FACTORY, false);
-
-		String methodName = getMethodStatName(pjp.getSignature());
-    	CounterStats defaultStats = producer.getDefaultStats();
-		CounterStats methodStats = producer.getStats(methodName);
+		CallSite<CounterStats> callSite = getCallSite(pjp, aProducerId, aCategory, aSubsystem, false, FACTORY, false, true);
+    	CounterStats defaultStats = callSite.getDefaultStats();
+		CounterStats methodStats = callSite.getMethodStats();
 
         defaultStats.inc();
         if (methodStats != null) {
@@ -36,14 +36,15 @@ public class MonitoringBaseAspect extends AbstractMoskitoAspect<ServiceStats>{
     /*  */
     protected Object doProfiling(ProceedingJoinPoint pjp, String aProducerId, String aSubsystem, String aCategory) throws Throwable {
 
-        OnDemandStatsProducer<ServiceStats> producer = getProducer(pjp, aProducerId, aCategory, aSubsystem, false, FACTORY, true);
-        String producerId = producer.getProducerId();
+        CallSite<ServiceStats> callSite = getCallSite(pjp, aProducerId, aCategory, aSubsystem, false, FACTORY, true, true);
+        OnDemandStatsProducer<ServiceStats> producer = callSite.getProducer();
+        String producerId = callSite.getProducerId();
         String prevProducerId = lastProducerId.get();
         lastProducerId.set(producerId);
 
-        String methodName = getMethodStatName(pjp.getSignature());
-        ServiceStats defaultStats = producer.getDefaultStats();
-        ServiceStats methodStats = producer.getStats(methodName);
+        String methodName = callSite.getMethodName();
+        ServiceStats defaultStats = callSite.getDefaultStats();
+        ServiceStats methodStats = callSite.getMethodStats();
 
         final Object[] args = pjp.getArgs();
         defaultStats.addRequest();
@@ -140,10 +141,9 @@ public class MonitoringBaseAspect extends AbstractMoskitoAspect<ServiceStats>{
             }
 
             if (tracePassingOfThisProducer) {
-                call.append(" = ").append(TracingUtil.parameter2string(ret));
-                trace.setCall(call.toString());
+                //result conversion and stack trace are deferred until the tracer keeps the trace.
+                trace.setCall(call, ret, currentTrace.getJourneyConfig());
                 trace.setDuration(exTime);
-                trace.setElements(Thread.currentThread().getStackTrace());
 
                 if (journeyStartedByMe) {
                     //now finish the journey.
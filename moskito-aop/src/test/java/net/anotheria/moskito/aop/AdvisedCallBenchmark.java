@@ -0,0 +1,75 @@
+package net.anotheria.moskito.aop;
+
+import net.anotheria.moskito.aop.annotation.Monitor;
+
+/**
+ * Measures the overhead of a call advised by the MonitoringAspect compared to the same call without advice, with
+ * tracing off. Test classes are woven by the aspectj plugin, so the benchmark has to run from the test classpath.
+ * Not a unit test, run it manually via main method.
+ */
+public class AdvisedCallBenchmark {
+
+	private static final int CALLS = 10000000;
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String a[]){
+		Advised advised = new Advised();
+		Plain plain = new Plain();
+
+		//warmup
+		long sink = 0;
+		for (int i=0; i<ROUNDS; i++){
+			sink += runAdvised(advised);
+			sink += runPlain(plain);
+		}
+
+		System.out.println("call\tns/call");
+		long time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			sink += runPlain(plain);
+		long plainNanos = System.nanoTime() - time;
+		print("plain", plainNanos);
+
+		time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			sink += runAdvised(advised);
+		long advisedNanos = System.nanoTime() - time;
+		print("advised", advisedNanos);
+		print("overhead", advisedNanos - plainNanos);
+
+		//prevents dead code elimination.
+		System.out.println("(sink "+sink+")");
+	}
+
+	private static long runAdvised(Advised advised){
+		long ret = 0;
+		for (int i=0; i<CALLS; i++)
+			ret += advised.call(i);
+		return ret;
+	}
+
+	private static long runPlain(Plain plain){
+		long ret = 0;
+		for (int i=0; i<CALLS; i++)
+			ret += plain.call(i);
+		return ret;
+	}
+
+	private static void print(String call, long nanos){
+		System.out.println(call+"\t"+((double)nanos/ROUNDS/CALLS));
+	}
+
+	@Monitor(producerId = "AdvisedCallBenchmark")
+	public static class Advised {
+		public int call(int value){
+			return value & 7;
+		}
+	}
+
+	public static class Plain {
+		public int call(int value){
+			return value & 7;
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.util.NumericStrings;
+
+/**
+ * Ring buffer with the values of an accumulator. Timestamps and values are stored in primitive arrays, numeric values
+ * as long or as raw double bits, only non-numeric values are stored as strings. The buffer keeps between amount and
+ * max values the same way the previous list based implementation did, but trimming only moves the start index.
+ * The arrays have twice the size of max values, so a view taken by a reader stays intact for at least max further appends.
+ * Appends are serialized, readers never lock, they read a consistent state via a single volatile reference.
+ */
+final class AccumulatedValueBuffer {
+
+	static final byte TYPE_LONG = 1;
+	static final byte TYPE_DOUBLE = 2;
+	static final byte TYPE_STRING = 3;
+
+	/**
+	 * Arrays of the ring.
+	 */
+	static final class Storage {
+		final long[] timestamps;
+		final long[] values;
+		final byte[] types;
+		/**
+		 * String values, only allocated if a non-numeric value is added.
+		 */
+		String[] strings;
+
+		Storage(int aCapacity){
+			timestamps = new long[aCapacity];
+			values = new long[aCapacity];
+			types = new byte[aCapacity];
+		}
+
+		int capacity(){
+			return timestamps.length;
+		}
+
+		int slot(long anIndex){
+			return (int)(anIndex % timestamps.length);
+		}
+	}
+
+	/**
+	 * Current content, start and end are logical indexes since creation of the buffer.
+	 */
+	static final class State {
+		final Storage storage;
+		final long start;
+		final long end;
+
+		State(Storage aStorage, long aStart, long anEnd){
+			storage = aStorage;
+			start = aStart;
+			end = anEnd;
+		}
+	}
+
+	/**
+	 * Current state, replaced on each append.
+	 */
+	private volatile State state = new State(null, 0, 0);
+
+	/**
+	 * Store numeric values are persisted to, null if persistence is disabled.
+	 */
+	private AccumulatorHistoryStore store;
+
+	/**
+	 * Name the values are persisted under.
+	 */
+	private String storeName;
+
+	/**
+	 * Persists all further numeric values to the store.
+	 * @param aStore the store.
+	 * @param aName name of the accumulator in the store.
+	 */
+	synchronized void persistTo(AccumulatorHistoryStore aStore, String aName){
+		store = aStore;
+		storeName = aName;
+	}
+
+	/**
+	 * Adds a value with the most specific type.
+	 * @param aTimestamp timestamp of the value.
+	 * @param aValue the value.
+	 * @param anAmount amount of values to keep after trimming.
+	 * @param aMax maximal amount of values before trimming.
+	 */
+	void add(long aTimestamp, String aValue, int anAmount, int aMax){
+		if (NumericStrings.isLong(aValue)){
+			add(aTimestamp, TYPE_LONG, Long.parseLong(aValue), null, anAmount, aMax);
+			return;
+		}
+		if (NumericStrings.mayBeDouble(aValue)){
+			try{
+				add(aTimestamp, TYPE_DOUBLE, Double.doubleToRawLongBits(Double.parseDouble(aValue)), null, anAmount, aMax);
+				return;
+			}catch(NumberFormatException ignored){
+				//not a double
+			}
+		}
+		add(aTimestamp, TYPE_STRING, 0, aValue, anAmount, aMax);
+	}
+
+	void add(long aTimestamp, long aValue, int anAmount, int aMax){
+		add(aTimestamp, TYPE_LONG, aValue, null, anAmount, aMax);
+	}
+
+	void add(long aTimestamp, double aValue, int anAmount, int aMax){
+		add(aTimestamp, TYPE_DOUBLE, Double.doubleToRawLongBits(aValue), null, anAmount, aMax);
+	}
+
+	synchronized void add(long aTimestamp, byte aType, long aValue, String aString, int anAmount, int aMax){
+		State current = state;
+		Storage storage = current.storage;
+		int capacity = Math.max(2, aMax * 2);
+		if (storage == null || storage.capacity() != capacity)
+			storage = copy(current, capacity);
+		long end = current.end;
+		int slot = storage.slot(end);
+		storage.timestamps[slot] = aTimestamp;
+		storage.values[slot] = aValue;
+		storage.types[slot] = aType;
+		if (aString != null || storage.strings != null){
+			if (storage.strings == null)
+				storage.strings = new String[storage.capacity()];
+			storage.strings[slot] = aString;
+		}
+		end++;
+		long start = current.start;
+		if (end - start > aMax)
+			start = end - anAmount;
+		state = new State(storage, start, end);
+		if (store != null && aType != TYPE_STRING)
+			store.append(storeName, aTimestamp, aType, aValue);
+	}
+
+	/**
+	 * Copies the current values into a new storage, used on first append and if the configured amount changes.
+	 */
+	private static Storage copy(State aState, int aCapacity){
+		Storage ret = new Storage(aCapacity);
+		Storage old = aState.storage;
+		if (old == null)
+			return ret;
+		long start = Math.max(aState.start, aState.end - aCapacity);
+		for (long i = start; i < aState.end; i++){
+			int from = old.slot(i);
+			int to = ret.slot(i);
+			ret.timestamps[to] = old.timestamps[from];
+			ret.values[to] = old.values[from];
+			ret.types[to] = old.types[from];
+			if (old.strings != null){
+				if (ret.strings == null)
+					ret.strings = new String[aCapacity];
+				ret.strings[to] = old.strings[from];
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns a view on all current values.
+	 * @return the view.
+	 */
+	AccumulatedValuesView view(){
+		State current = state;
+		return new AccumulatedValuesView(this, current.storage, current.start, current.end);
+	}
+
+	/**
+	 * Returns the amount of current values.
+	 * @return amount of values.
+	 */
+	int size(){
+		State current = state;
+		return (int)(current.end - current.start);
+	}
+
+	/**
+	 * Returns true if the value at the given index is not yet overwritten. A replaced storage is not written anymore.
+	 * @param aStorage storage of the view.
+	 * @param anIndex logical index.
+	 * @return true if the slot still contains the value.
+	 */
+	boolean isIntact(Storage aStorage, long anIndex){
+		State current = state;
+		return current.storage != aStorage || current.end - aStorage.capacity() <= anIndex;
+	}
+}
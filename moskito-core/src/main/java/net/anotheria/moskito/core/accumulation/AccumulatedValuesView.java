@@ -0,0 +1,186 @@
+package net.anotheria.moskito.core.accumulation;
+
+/**
+ * Read only view on the values of an accumulator at the moment of the view creation. The view doesn't copy the values,
+ * it reads them directly from the ring buffer of the accumulator, hence it should be used right away, for example to
+ * render a chart. A view stays intact for at least as many further values as the accumulator keeps, use
+ * {@link #isIntact()} to check whether the accumulator overwrote values of the view in the meantime.
+ */
+public final class AccumulatedValuesView {
+
+	/**
+	 * View without values.
+	 */
+	private static final AccumulatedValuesView EMPTY = new AccumulatedValuesView(null, null, 0, 0);
+
+	/**
+	 * The buffer of the accumulator.
+	 */
+	private final AccumulatedValueBuffer buffer;
+
+	/**
+	 * Storage of the buffer at view creation.
+	 */
+	private final AccumulatedValueBuffer.Storage storage;
+
+	/**
+	 * Logical index of the first value.
+	 */
+	private final long start;
+
+	/**
+	 * Logical index after the last value.
+	 */
+	private final long end;
+
+	AccumulatedValuesView(AccumulatedValueBuffer aBuffer, AccumulatedValueBuffer.Storage aStorage, long aStart, long anEnd){
+		buffer = aBuffer;
+		storage = aStorage;
+		start = aStart;
+		end = anEnd;
+	}
+
+	/**
+	 * Returns the amount of values.
+	 * @return amount of values.
+	 */
+	public int size(){
+		return (int)(end - start);
+	}
+
+	public boolean isEmpty(){
+		return end == start;
+	}
+
+	/**
+	 * Returns the timestamp of the value, values are in order of their addition.
+	 * @param anIndex index of the value between 0 and size()-1.
+	 * @return the timestamp.
+	 */
+	public long getTimestamp(int anIndex){
+		return storage.timestamps[slot(anIndex)];
+	}
+
+	/**
+	 * Returns the value as double, values that aren't numeric are returned as NaN.
+	 * @param anIndex index of the value between 0 and size()-1.
+	 * @return the value.
+	 */
+	public double getValueAsDouble(int anIndex){
+		int slot = slot(anIndex);
+		switch (storage.types[slot]){
+			case AccumulatedValueBuffer.TYPE_LONG:
+				return storage.values[slot];
+			case AccumulatedValueBuffer.TYPE_DOUBLE:
+				return Double.longBitsToDouble(storage.values[slot]);
+			default:
+				return Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns the value as it was added to the accumulator.
+	 * @param anIndex index of the value between 0 and size()-1.
+	 * @return the value.
+	 */
+	public String getValue(int anIndex){
+		int slot = slot(anIndex);
+		switch (storage.types[slot]){
+			case AccumulatedValueBuffer.TYPE_LONG:
+				return String.valueOf(storage.values[slot]);
+			case AccumulatedValueBuffer.TYPE_DOUBLE:
+				return String.valueOf(Double.longBitsToDouble(storage.values[slot]));
+			default:
+				return storage.strings[slot];
+		}
+	}
+
+	/**
+	 * Returns a view on the values with a timestamp between from (inclusive) and to (exclusive). Timestamps are
+	 * expected in ascending order.
+	 * @param aFrom start timestamp.
+	 * @param aTo end timestamp.
+	 * @return the view.
+	 */
+	public AccumulatedValuesView window(long aFrom, long aTo){
+		int from = firstIndexNotBefore(aFrom);
+		int to = firstIndexNotBefore(aTo);
+		if (from >= to)
+			return EMPTY;
+		return new AccumulatedValuesView(buffer, storage, start + from, start + to);
+	}
+
+	/**
+	 * Returns a view on the last values.
+	 * @param anAmount maximal amount of values.
+	 * @return the view.
+	 */
+	public AccumulatedValuesView last(int anAmount){
+		if (anAmount >= size())
+			return this;
+		return new AccumulatedValuesView(buffer, storage, end - anAmount, end);
+	}
+
+	/**
+	 * Reduces the values to at most the given amount of buckets with min, max and average of consecutive values.
+	 * Values that aren't numeric are ignored.
+	 * @param aBuckets maximal amount of buckets.
+	 * @return the downsampled values.
+	 */
+	public DownsampledValues downsample(int aBuckets){
+		int size = size();
+		int buckets = Math.max(1, Math.min(aBuckets, size));
+		DownsampledValues ret = new DownsampledValues(size == 0 ? 0 : buckets);
+		if (size == 0)
+			return ret;
+		for (int b = 0; b < buckets; b++){
+			int from = (int)((long)b * size / buckets);
+			int to = (int)((long)(b + 1) * size / buckets);
+			double min = Double.NaN, max = Double.NaN, sum = 0;
+			int count = 0;
+			for (int i = from; i < to; i++){
+				double value = getValueAsDouble(i);
+				if (Double.isNaN(value))
+					continue;
+				if (count == 0 || value < min)
+					min = value;
+				if (count == 0 || value > max)
+					max = value;
+				sum += value;
+				count++;
+			}
+			ret.set(b, getTimestamp(from), min, max, count == 0 ? Double.NaN : sum / count);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns false if the accumulator overwrote some values of this view since its creation.
+	 * @return true if all values of the view are intact.
+	 */
+	public boolean isIntact(){
+		return isEmpty() || buffer.isIntact(storage, start);
+	}
+
+	private int firstIndexNotBefore(long aTimestamp){
+		int low = 0, high = size();
+		while (low < high){
+			int mid = (low + high) >>> 1;
+			if (getTimestamp(mid) < aTimestamp)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	private int slot(int anIndex){
+		if (anIndex < 0 || anIndex >= size())
+			throw new IndexOutOfBoundsException("Index: "+anIndex+", size: "+size());
+		return storage.slot(start + anIndex);
+	}
+
+	@Override public String toString(){
+		return "AccumulatedValuesView size: "+size();
+	}
+}
@@ -3,13 +3,14 @@ package net.anotheria.moskito.core.accumulation;
 import net.anotheria.moskito.core.helper.AbstractTieable;
 import net.anotheria.moskito.core.helper.Tieable;
 import net.anotheria.moskito.core.producers.IStats;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * An accumulator accumulates value from a defined producer over some period of time or series of values.
@@ -25,16 +26,19 @@ public class Accumulator extends AbstractTieable<AccumulatorDefinition> implemen
 	/**
 	 * Stored values.
 	 */
-	private List<AccumulatedValue> values;
+	private final AccumulatedValueBuffer values = new AccumulatedValueBuffer();
 	/**
 	 * Attached stats.
 	 */
 	private IStats stats;
-
 	/**
-	 * Lock.
+	 * Accessor to the value of the attached stats, resolved on first update.
+	 */
+	private StatValueAccessor valueAccessor;
+	/**
+	 * The interval of the definition, resolved together with the accessor.
 	 */
-	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	private Interval valueInterval;
 
 	/**
 	 * Creates a new Accumulator.
@@ -42,38 +46,56 @@ public class Accumulator extends AbstractTieable<AccumulatorDefinition> implemen
 	 */
 	public Accumulator(AccumulatorDefinition aDefinition){
 		super(aDefinition);
-		values = new ArrayList<AccumulatedValue>(aDefinition.getMaxAmountOfAccumulatedItems());
 	}
 	
 	public void addValue(AccumulatedValue value){
-		try{
-			lock.writeLock().lock();
-			values.add(value);
-			if (values.size()>getDefinition().getMaxAmountOfAccumulatedItems()){
-				ArrayList<AccumulatedValue> newValues = new ArrayList<AccumulatedValue>(values.size());
-				for (int i=getDefinition().getMaxAmountOfAccumulatedItems()-getDefinition().getAccumulationAmount()+1; i<values.size(); i++){
-					newValues.add(values.get(i));
-				}
-				values = newValues;
-			}
-		}finally{
-			lock.writeLock().unlock();
-		}
+		values.add(value.getTimestamp(), value.getValue(), getDefinition().getAccumulationAmount(), getDefinition().getMaxAmountOfAccumulatedItems());
 	}
 	
 	public void addValue(String aValue){
-		addValue(new AccumulatedValue(aValue));
+		values.add(System.currentTimeMillis(), aValue, getDefinition().getAccumulationAmount(), getDefinition().getMaxAmountOfAccumulatedItems());
 	}
-	
+
+	public void addValue(long aValue){
+		values.add(System.currentTimeMillis(), aValue, getDefinition().getAccumulationAmount(), getDefinition().getMaxAmountOfAccumulatedItems());
+	}
+
+	public void addValue(double aValue){
+		values.add(System.currentTimeMillis(), aValue, getDefinition().getAccumulationAmount(), getDefinition().getMaxAmountOfAccumulatedItems());
+	}
+
+	/**
+	 * Adds a value restored from the persisted history.
+	 */
+	void restoreValue(long aTimestamp, byte aType, long aValue){
+		values.add(aTimestamp, aType, aValue, null, getDefinition().getAccumulationAmount(), getDefinition().getMaxAmountOfAccumulatedItems());
+	}
+
+	/**
+	 * Persists all further numeric values to the store.
+	 */
+	void persistTo(AccumulatorHistoryStore aStore){
+		values.persistTo(aStore, getName());
+	}
+
+	/**
+	 * Returns a copy of the values as objects. Prefer {@link #getValuesView()} to read the values without copying.
+	 * @return list of values.
+	 */
 	public List<AccumulatedValue> getValues(){
-		try{
-			lock.readLock().lock();
-			ArrayList<AccumulatedValue> ret = new ArrayList<AccumulatedValue>(values.size());
-			ret.addAll(values);
-			return ret;
-		}finally{
-			lock.readLock().unlock();
-		}
+		AccumulatedValuesView view = values.view();
+		ArrayList<AccumulatedValue> ret = new ArrayList<AccumulatedValue>(view.size());
+		for (int i=0; i<view.size(); i++)
+			ret.add(new AccumulatedValue(view.getValue(i), view.getTimestamp(i)));
+		return ret;
+	}
+
+	/**
+	 * Returns a view on the current values without copying them.
+	 * @return the view.
+	 */
+	public AccumulatedValuesView getValuesView(){
+		return values.view();
 	}
 
 	@Override
@@ -82,11 +104,25 @@ public class Accumulator extends AbstractTieable<AccumulatorDefinition> implemen
 			return;
 		}
 		
-		String currentValue = stats.getValueByNameAsString(getDefinition().getValueName(), getDefinition().getIntervalName(), getDefinition().getTimeUnit());
+		StatValueAccessor accessor = valueAccessor;
+		if (accessor == null){
+			valueInterval = IntervalRegistry.getInstance().resolveInterval(getDefinition().getIntervalName());
+			accessor = stats.resolveValueAccessor(getDefinition().getValueName());
+			valueAccessor = accessor;
+		}
+		Interval interval = valueInterval;
+		switch (accessor.getType()){
+			case LONG:
+				addValue(accessor.getValueAsLong(interval, getDefinition().getTimeUnit()));
+				break;
+			case DOUBLE:
+				addValue(accessor.getValueAsDouble(interval, getDefinition().getTimeUnit()));
+				break;
+			default:
+				addValue(accessor.getValueAsString(interval, getDefinition().getTimeUnit()));
+		}
 		if (log!=null && log.isDebugEnabled())
-			log.debug("UPDATED "+this+" with "+currentValue);
-		addValue(currentValue);
-		
+			log.debug("UPDATED "+this);
 	}
 
 	@Override
@@ -96,10 +132,11 @@ public class Accumulator extends AbstractTieable<AccumulatorDefinition> implemen
 
 	@Override
 	public void tieToStats(IStats aStatsObject){
+		valueAccessor = null;
 		stats = aStatsObject;
 	}
 
 	@Override public String toString(){
-		return getId()+ ' ' +getName()+ ' ' +" Def: "+getDefinition()+" active: "+isActivated()+", Values: "+(values==null?"none": String.valueOf(values.size()));
+		return getId()+ ' ' +getName()+ ' ' +" Def: "+getDefinition()+" active: "+isActivated()+", Values: "+values.size();
 	}
 }
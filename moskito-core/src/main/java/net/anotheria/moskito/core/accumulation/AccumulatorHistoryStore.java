@@ -0,0 +1,581 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.config.accumulators.AccumulatorsPersistenceConfig;
+import net.anotheria.moskito.core.threshold.ThresholdStatus;
+import net.anotheria.moskito.core.threshold.alerts.AlertHistory;
+import net.anotheria.moskito.core.threshold.alerts.AlertHistoryListener;
+import net.anotheria.moskito.core.threshold.alerts.ThresholdAlert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists accumulated values in memory-mapped segment files and restores them after restart.
+ * Each value is a fixed-width record of {@value #RECORD_SIZE} bytes: key of the accumulator name (int), type (byte),
+ * padding, timestamp (long) and the value (long or raw double bits). The keys are resolved by the names file, in which
+ * the line number is the key. A record is valid if its timestamp is not 0, the timestamp is written last.
+ * Values that are neither long nor double are not persisted.
+ * Segments are named by their creation time, a new segment is created on startup and when the current segment is
+ * full. Segments that only contain values older than the retention time, and the oldest segments if all segments
+ * exceed the max total size, are deleted. The mapping of a segment is released as soon as it is not written or read
+ * anymore, so no deleted file stays mapped.
+ * Names may contain any character, line breaks and backslashes are escaped in the names file.
+ * Threshold alerts of the {@link AlertHistory} have variable-length values, they are appended to a separate alerts
+ * file as length-prefixed records: timestamp, flip count, threshold name, old and new status, old and new value.
+ * On startup the alerts within the retention time are restored, up to the configured size of the alert history,
+ * and the file is compacted to these alerts. Restored alerts are bound to their thresholds by name.
+ */
+final class AccumulatorHistoryStore implements AlertHistoryListener {
+
+	/**
+	 * Logger.
+	 */
+	private static Logger log = LoggerFactory.getLogger(AccumulatorHistoryStore.class);
+
+	/**
+	 * Size of a record in bytes.
+	 */
+	static final int RECORD_SIZE = 24;
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".dat";
+	private static final String NAMES_FILE = "names.txt";
+	private static final String ALERTS_FILE = "alerts.dat";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Directory with the segments.
+	 */
+	private final File directory;
+	/**
+	 * Size of a segment in bytes, multiple of RECORD_SIZE.
+	 */
+	private final int segmentSize;
+	/**
+	 * Retention time in milliseconds.
+	 */
+	private final long retention;
+	/**
+	 * Max size of all segments in bytes.
+	 */
+	private final long maxTotalSize;
+	/**
+	 * Max amount of restored values per accumulator.
+	 */
+	private final int restoreAmount;
+
+	/**
+	 * Keys by accumulator name.
+	 */
+	private final Map<String, Integer> keys = new HashMap<>();
+	/**
+	 * Writer for new names.
+	 */
+	private Writer namesWriter;
+
+	/**
+	 * The segment values are appended to.
+	 */
+	private MappedByteBuffer segment;
+
+	/**
+	 * Values read on startup that are not yet restored into an accumulator.
+	 */
+	private final Map<String, LoadedHistory> loaded = new HashMap<>();
+
+	/**
+	 * Max amount of restored alerts.
+	 */
+	private final int alertRestoreAmount;
+	/**
+	 * Alerts read on startup that are not yet restored, oldest first.
+	 */
+	private List<LoadedAlert> loadedAlerts = new ArrayList<>();
+	/**
+	 * Stream new alerts are appended to, opened on the first alert.
+	 */
+	private DataOutputStream alertsOut;
+
+	/**
+	 * Opens the store and reads the existing segments.
+	 * @param config the persistence configuration.
+	 * @param aRestoreAmount max amount of restored values per accumulator.
+	 * @param anAlertRestoreAmount max amount of restored alerts.
+	 * @throws IOException if the directory, the names or the alerts file are not accessible.
+	 */
+	AccumulatorHistoryStore(AccumulatorsPersistenceConfig config, int aRestoreAmount, int anAlertRestoreAmount) throws IOException{
+		directory = new File(config.getDirectory());
+		segmentSize = Math.max(1, config.getSegmentSizeInKb() * 1024 / RECORD_SIZE) * RECORD_SIZE;
+		retention = config.getRetentionInHours() * 60L * 60 * 1000;
+		maxTotalSize = config.getMaxTotalSizeInMb() * 1024L * 1024;
+		restoreAmount = Math.max(1, aRestoreAmount);
+		alertRestoreAmount = Math.max(0, anAlertRestoreAmount);
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Can't create directory "+directory);
+
+		long start = System.currentTimeMillis();
+		List<String> names = readNames();
+		applyRetention(start);
+		int records = 0;
+		for (File file : listSegments())
+			records += readSegment(file, names);
+		namesWriter = new OutputStreamWriter(new FileOutputStream(new File(directory, NAMES_FILE), true), UTF8);
+		readAlerts(start);
+		log.info("Loaded "+records+" accumulated values of "+loaded.size()+" accumulators and "+loadedAlerts.size()+" alerts from "+directory+" in "+(System.currentTimeMillis()-start)+" ms");
+	}
+
+	/**
+	 * Appends a value.
+	 * @param aName name of the accumulator.
+	 * @param aTimestamp timestamp of the value.
+	 * @param aType type of the value, see AccumulatedValueBuffer.
+	 * @param aValue the value.
+	 */
+	synchronized void append(String aName, long aTimestamp, byte aType, long aValue){
+		try{
+			int key = getKey(aName);
+			if (segment == null || segment.remaining() < RECORD_SIZE)
+				startSegment(aTimestamp);
+			int position = segment.position();
+			segment.putInt(position, key);
+			segment.put(position + 4, aType);
+			segment.putLong(position + 16, aValue);
+			segment.putLong(position + 8, aTimestamp);
+			segment.position(position + RECORD_SIZE);
+		}catch(IOException e){
+			log.warn("Can't persist value of accumulator "+aName, e);
+		}
+	}
+
+	/**
+	 * Adds the values read on startup to the accumulator. Each value is restored once.
+	 * @param anAccumulator the accumulator.
+	 */
+	void restore(Accumulator anAccumulator){
+		LoadedHistory history;
+		synchronized(this){
+			history = loaded.remove(anAccumulator.getName());
+		}
+		if (history == null)
+			return;
+		for (long i = Math.max(0, history.end - history.timestamps.length); i < history.end; i++){
+			int slot = (int)(i % history.timestamps.length);
+			anAccumulator.restoreValue(history.timestamps[slot], history.types[slot], history.values[slot]);
+		}
+	}
+
+	/**
+	 * Appends an alert to the alerts file.
+	 * @param alert the alert.
+	 */
+	@Override public synchronized void alertAdded(ThresholdAlert alert){
+		try{
+			ByteArrayOutputStream record = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(record);
+			out.writeLong(alert.getTimestamp());
+			out.writeInt(alert.getFlipCount());
+			out.writeUTF(alert.getThreshold().getName());
+			out.writeUTF(alert.getOldStatus().name());
+			out.writeUTF(alert.getNewStatus().name());
+			writeNullableString(out, alert.getOldValue());
+			writeNullableString(out, alert.getNewValue());
+			if (alertsOut == null)
+				alertsOut = new DataOutputStream(new FileOutputStream(new File(directory, ALERTS_FILE), true));
+			alertsOut.writeInt(record.size());
+			record.writeTo(alertsOut);
+			alertsOut.flush();
+		}catch(IOException e){
+			log.warn("Can't persist alert "+alert, e);
+		}
+	}
+
+	/**
+	 * Adds the alerts read on startup to the {@link AlertHistory}. Each alert is restored once.
+	 */
+	void restoreAlerts(){
+		List<LoadedAlert> alerts;
+		synchronized(this){
+			alerts = loadedAlerts;
+			loadedAlerts = new ArrayList<>();
+		}
+		for (LoadedAlert a : alerts)
+			AlertHistory.INSTANCE.restoreAlert(a.thresholdName, a.timestamp, a.oldStatus, a.newStatus, a.oldValue, a.newValue, a.flipCount);
+	}
+
+	/**
+	 * Flushes and releases the current segment and closes the names and alerts files.
+	 */
+	synchronized void close(){
+		releaseSegment();
+		try{
+			namesWriter.close();
+		}catch(IOException e){
+			log.warn("Can't close names file", e);
+		}
+		if (alertsOut == null)
+			return;
+		try{
+			alertsOut.close();
+		}catch(IOException e){
+			log.warn("Can't close alerts file", e);
+		}
+	}
+
+	private int getKey(String aName) throws IOException{
+		Integer key = keys.get(aName);
+		if (key != null)
+			return key;
+		key = keys.size();
+		namesWriter.write(escapeName(aName));
+		namesWriter.write('\n');
+		namesWriter.flush();
+		keys.put(aName, key);
+		return key;
+	}
+
+	private void startSegment(long aTimestamp) throws IOException{
+		long name = aTimestamp;
+		File file;
+		while ((file = segmentFile(name)).exists())
+			name++;
+		releaseSegment();
+		try(RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+			segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+		applyRetention(aTimestamp);
+	}
+
+	private void releaseSegment(){
+		if (segment == null)
+			return;
+		MappedByteBuffer current = segment;
+		segment = null;
+		current.force();
+		unmap(current);
+	}
+
+	/**
+	 * Releases the mapping of the buffer instead of waiting for its garbage collection. There is no public api for
+	 * this before Java 9, so the cleaner is invoked via reflection: Unsafe.invokeCleaner on Java 9 and later, the
+	 * cleaner of the buffer on Java 7 and 8. The buffer must not be accessed afterwards.
+	 * @param aBuffer the buffer.
+	 * @return true if the mapping was released, false if the mapping is released on garbage collection.
+	 */
+	static boolean unmap(MappedByteBuffer aBuffer){
+		try{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), aBuffer);
+			return true;
+		}catch(NoSuchMethodException e){
+			//before Java 9.
+		}catch(Exception e){
+			log.debug("Can't unmap buffer via Unsafe", e);
+			return false;
+		}
+		try{
+			Method cleanerMethod = aBuffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(aBuffer);
+			if (cleaner == null)
+				return false;
+			Method clean = cleaner.getClass().getMethod("clean");
+			clean.setAccessible(true);
+			clean.invoke(cleaner);
+			return true;
+		}catch(Exception e){
+			log.debug("Can't unmap buffer via cleaner", e);
+			return false;
+		}
+	}
+
+	private File segmentFile(long aTimestamp){
+		return new File(directory, SEGMENT_PREFIX+String.format("%019d", aTimestamp)+SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Returns the segments in chronological order.
+	 */
+	private List<File> listSegments(){
+		File[] files = directory.listFiles();
+		List<File> ret = new ArrayList<>();
+		if (files == null)
+			return ret;
+		Arrays.sort(files);
+		for (File f : files){
+			if (f.getName().startsWith(SEGMENT_PREFIX) && f.getName().endsWith(SEGMENT_SUFFIX))
+				ret.add(f);
+		}
+		return ret;
+	}
+
+	private static long segmentTimestamp(File aSegment){
+		String name = aSegment.getName();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	/**
+	 * Deletes expired segments and the oldest segments if the total size is exceeded. The current segment is kept.
+	 */
+	private void applyRetention(long now){
+		List<File> segments = listSegments();
+		long totalSize = 0;
+		for (File f : segments)
+			totalSize += f.length();
+		//a segment only contains values older than the creation of the next segment.
+		for (int i = 0; i < segments.size() - 1; i++){
+			boolean expired = segmentTimestamp(segments.get(i + 1)) < now - retention;
+			if (!expired && totalSize <= maxTotalSize)
+				break;
+			totalSize -= segments.get(i).length();
+			if (!segments.get(i).delete())
+				log.warn("Can't delete segment "+segments.get(i));
+		}
+	}
+
+	private List<String> readNames() throws IOException{
+		List<String> names = new ArrayList<>();
+		File file = new File(directory, NAMES_FILE);
+		if (!file.exists())
+			return names;
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))){
+			String line;
+			while ((line = reader.readLine()) != null){
+				String name = unescapeName(line);
+				keys.put(name, names.size());
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Escapes line breaks and backslashes, so each name is exactly one line of the names file.
+	 */
+	static String escapeName(String aName){
+		StringBuilder ret = new StringBuilder(aName.length());
+		for (int i = 0; i < aName.length(); i++){
+			char c = aName.charAt(i);
+			switch (c){
+				case '\\':
+					ret.append("\\\\");
+					break;
+				case '\n':
+					ret.append("\\n");
+					break;
+				case '\r':
+					ret.append("\\r");
+					break;
+				default:
+					ret.append(c);
+			}
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Reverses {@link #escapeName(String)}.
+	 */
+	static String unescapeName(String aLine){
+		if (aLine.indexOf('\\') == -1)
+			return aLine;
+		StringBuilder ret = new StringBuilder(aLine.length());
+		for (int i = 0; i < aLine.length(); i++){
+			char c = aLine.charAt(i);
+			if (c == '\\' && i + 1 < aLine.length()){
+				char next = aLine.charAt(++i);
+				ret.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			}else{
+				ret.append(c);
+			}
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Reads the alerts within the retention time, keeps the newest and compacts the alerts file to them.
+	 */
+	private void readAlerts(long now) throws IOException{
+		File file = new File(directory, ALERTS_FILE);
+		if (!file.exists())
+			return;
+		int total = 0;
+		boolean complete = true;
+		List<LoadedAlert> alerts = new ArrayList<>();
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+			//the first byte of the length tells a clean end of file from a record that was not completely written.
+			int first;
+			while ((first = in.read()) != -1){
+				byte[] record;
+				try{
+					int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+					if (length < 0 || length > file.length())
+						throw new EOFException("Corrupt alert record length "+length);
+					record = new byte[length];
+					in.readFully(record);
+				}catch(EOFException e){
+					complete = false;
+					break;
+				}
+				total++;
+				LoadedAlert alert = LoadedAlert.read(record);
+				if (alert != null && alert.timestamp >= now - retention)
+					alerts.add(alert);
+			}
+		}
+		if (alerts.size() > alertRestoreAmount)
+			alerts = new ArrayList<>(alerts.subList(alerts.size() - alertRestoreAmount, alerts.size()));
+		loadedAlerts = alerts;
+		//a partially written record would corrupt the following appends.
+		if (alerts.size() < total || !complete)
+			rewriteAlerts(file, alerts);
+	}
+
+	private void rewriteAlerts(File file, List<LoadedAlert> alerts) throws IOException{
+		File tmp = new File(directory, ALERTS_FILE+".tmp");
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))){
+			for (LoadedAlert a : alerts){
+				out.writeInt(a.record.length);
+				out.write(a.record);
+			}
+		}
+		if (!file.delete() || !tmp.renameTo(file))
+			throw new IOException("Can't replace alerts file "+file);
+	}
+
+	private static void writeNullableString(DataOutputStream out, String s) throws IOException{
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException{
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Reads the valid records of a segment.
+	 * @return amount of read records.
+	 */
+	private int readSegment(File aSegment, List<String> names){
+		int records = 0;
+		try(RandomAccessFile raf = new RandomAccessFile(aSegment, "r")){
+			long length = raf.length();
+			MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+			try{
+				for (int position = 0; position + RECORD_SIZE <= length; position += RECORD_SIZE){
+					long timestamp = buffer.getLong(position + 8);
+					if (timestamp == 0)
+						break;
+					int key = buffer.getInt(position);
+					if (key < 0 || key >= names.size())
+						continue;
+					String name = names.get(key);
+					LoadedHistory history = loaded.get(name);
+					if (history == null){
+						history = new LoadedHistory(restoreAmount);
+						loaded.put(name, history);
+					}
+					history.add(timestamp, buffer.get(position + 4), buffer.getLong(position + 16));
+					records++;
+				}
+			}finally{
+				unmap(buffer);
+			}
+		}catch(IOException e){
+			log.warn("Can't read segment "+aSegment, e);
+		}
+		return records;
+	}
+
+	/**
+	 * The last values of one accumulator read on startup.
+	 */
+	private static final class LoadedHistory {
+		private final long[] timestamps;
+		private final byte[] types;
+		private final long[] values;
+		private long end;
+
+		private LoadedHistory(int aCapacity){
+			timestamps = new long[aCapacity];
+			types = new byte[aCapacity];
+			values = new long[aCapacity];
+		}
+
+		private void add(long aTimestamp, byte aType, long aValue){
+			int slot = (int)(end % timestamps.length);
+			timestamps[slot] = aTimestamp;
+			types[slot] = aType;
+			values[slot] = aValue;
+			end++;
+		}
+	}
+
+	/**
+	 * An alert read on startup.
+	 */
+	private static final class LoadedAlert {
+		private final byte[] record;
+		private final long timestamp;
+		private final int flipCount;
+		private final String thresholdName;
+		private final ThresholdStatus oldStatus;
+		private final ThresholdStatus newStatus;
+		private final String oldValue;
+		private final String newValue;
+
+		private LoadedAlert(byte[] aRecord, DataInputStream in) throws IOException{
+			record = aRecord;
+			timestamp = in.readLong();
+			flipCount = in.readInt();
+			thresholdName = in.readUTF();
+			oldStatus = ThresholdStatus.valueOf(in.readUTF());
+			newStatus = ThresholdStatus.valueOf(in.readUTF());
+			oldValue = readNullableString(in);
+			newValue = readNullableString(in);
+		}
+
+		/**
+		 * Decodes a record.
+		 * @return the alert or null if the record is corrupt.
+		 */
+		private static LoadedAlert read(byte[] aRecord){
+			try{
+				return new LoadedAlert(aRecord, new DataInputStream(new ByteArrayInputStream(aRecord)));
+			}catch(IOException | IllegalArgumentException e){
+				log.warn("Skipped corrupt alert record", e);
+				return null;
+			}
+		}
+	}
+}
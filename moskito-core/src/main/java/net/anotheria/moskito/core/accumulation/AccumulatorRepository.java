@@ -11,9 +11,11 @@ import net.anotheria.moskito.core.helper.TieableRepository;
 import net.anotheria.moskito.core.producers.IStats;
 import net.anotheria.moskito.core.producers.IStatsProducer;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.threshold.alerts.AlertHistory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -39,6 +41,11 @@ public final class AccumulatorRepository<S extends IStats> extends TieableReposi
 	 */
 	private List<AutoAccumulatorDefinition> autoAccumulatorDefinitions = new LinkedList<>();
 
+	/**
+	 * Persisted history of the accumulators, null if persistence is disabled.
+	 */
+	private final AccumulatorHistoryStore historyStore;
+
 
 
 	/**  
@@ -54,9 +61,40 @@ public final class AccumulatorRepository<S extends IStats> extends TieableReposi
 
 
 	private AccumulatorRepository(){
+		historyStore = openHistoryStore();
+		if (historyStore != null){
+			historyStore.restoreAlerts();
+			AlertHistory.INSTANCE.addListener(historyStore);
+		}
 		readConfig();
 	}
 
+	/**
+	 * Opens the history store if persistence is enabled. Values are restored up to the largest configured
+	 * accumulation amount, alerts up to the size of the alert history.
+	 */
+	private static AccumulatorHistoryStore openHistoryStore(){
+		AccumulatorsConfig config = MoskitoConfigurationHolder.getConfiguration().getAccumulatorsConfig();
+		if (config.getPersistence() == null || !config.getPersistence().isEnabled())
+			return null;
+		int amount = config.getAccumulationAmount();
+		if (config.getAccumulators() != null){
+			for (AccumulatorConfig ac : config.getAccumulators())
+				amount = Math.max(amount, ac.getAccumulationAmount());
+		}
+		if (config.getAutoAccumulators() != null){
+			for (AutoAccumulatorConfig aac : config.getAutoAccumulators())
+				amount = Math.max(amount, aac.getAccumulationAmount());
+		}
+		try{
+			int alertAmount = MoskitoConfigurationHolder.getConfiguration().getThresholdsAlertsConfig().getAlertHistoryConfig().getMaxNumberOfItems();
+			return new AccumulatorHistoryStore(config.getPersistence(), amount + amount/10 + 1, alertAmount);
+		}catch(IOException e){
+			log.error("Can't open accumulator history in "+config.getPersistence().getDirectory()+", persistence disabled", e);
+			return null;
+		}
+	}
+
 	@Override
 	protected boolean tie(Accumulator acc, IStatsProducer<? extends IStats> producer) {
 		AccumulatorDefinition definition = acc.getDefinition();
@@ -83,7 +121,10 @@ public final class AccumulatorRepository<S extends IStats> extends TieableReposi
 	
 	@Override
 	protected Accumulator create(TieableDefinition def){
-		return new Accumulator((AccumulatorDefinition)def);
+		Accumulator acc = new Accumulator((AccumulatorDefinition)def);
+		if (historyStore != null)
+			historyStore.restore(acc);
+		return acc;
 	}
 	/**
 	 * Returns configured accumulators.
@@ -94,7 +135,11 @@ public final class AccumulatorRepository<S extends IStats> extends TieableReposi
 	}
 
 	public Accumulator createAccumulator(TieableDefinition def){
-		return createTieable(def);
+		Accumulator acc = createTieable(def);
+		//the name is final after creation, restored values are not persisted again.
+		if (historyStore != null)
+			acc.persistTo(historyStore);
+		return acc;
 	}
 
 	/**
@@ -158,6 +203,10 @@ public final class AccumulatorRepository<S extends IStats> extends TieableReposi
 	@SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "This method is for unit testing only.")
     void reset() {
         cleanup();
+		if (historyStore != null){
+			AlertHistory.INSTANCE.removeListener(historyStore);
+			historyStore.close();
+		}
 		INSTANCE = new AccumulatorRepository<>();
 	}
 
@@ -0,0 +1,51 @@
+package net.anotheria.moskito.core.accumulation;
+
+/**
+ * Result of downsampling of accumulated values. Each bucket contains min, max and average of consecutive values and
+ * the timestamp of the first value of the bucket. Buckets without numeric values contain NaN.
+ */
+public final class DownsampledValues {
+
+	private final long[] timestamps;
+	private final double[] min;
+	private final double[] max;
+	private final double[] avg;
+
+	DownsampledValues(int aBuckets){
+		timestamps = new long[aBuckets];
+		min = new double[aBuckets];
+		max = new double[aBuckets];
+		avg = new double[aBuckets];
+	}
+
+	void set(int aBucket, long aTimestamp, double aMin, double aMax, double anAvg){
+		timestamps[aBucket] = aTimestamp;
+		min[aBucket] = aMin;
+		max[aBucket] = aMax;
+		avg[aBucket] = anAvg;
+	}
+
+	/**
+	 * Returns the amount of buckets.
+	 * @return amount of buckets.
+	 */
+	public int size(){
+		return timestamps.length;
+	}
+
+	public long getTimestamp(int aBucket){
+		return timestamps[aBucket];
+	}
+
+	public double getMin(int aBucket){
+		return min[aBucket];
+	}
+
+	public double getMax(int aBucket){
+		return max[aBucket];
+	}
+
+	public double getAvg(int aBucket){
+		return avg[aBucket];
+	}
+}
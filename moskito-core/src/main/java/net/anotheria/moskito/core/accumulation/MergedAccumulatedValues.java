@@ -0,0 +1,311 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.config.accumulators.ChartDownsampling;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Values of multiple accumulators on a common time axis, as needed for combined charts. The series are merged by
+ * timestamp buckets: each row contains the last value of every series within the bucket, series without a value in
+ * a bucket repeat their previous value. Values that aren't numeric are treated as missing.
+ */
+public final class MergedAccumulatedValues {
+
+	/**
+	 * Bucket start timestamps of the rows.
+	 */
+	private final long[] timestamps;
+
+	/**
+	 * Values by series and row.
+	 */
+	private final double[][] values;
+
+	private MergedAccumulatedValues(long[] aTimestamps, double[][] someValues){
+		timestamps = aTimestamps;
+		values = someValues;
+	}
+
+	/**
+	 * Merges the series with a k-way merge over the already time ordered values. If maxRows is not negative only the
+	 * latest maxRows rows are created, the values before them are only read to repeat the last known value.
+	 * @param series values of the accumulators, ordered by timestamp.
+	 * @param bucketLength length of the buckets in milliseconds.
+	 * @param maxRows max amount of rows, negative for all.
+	 * @return the merged values.
+	 */
+	public static MergedAccumulatedValues merge(List<AccumulatedValuesView> series, long bucketLength, int maxRows){
+		int k = series.size();
+		AccumulatedValuesView[] views = series.toArray(new AccumulatedValuesView[k]);
+		int[] position = new int[k];
+		if (maxRows >= 0)
+			findWindowStart(views, bucketLength, maxRows, position);
+
+		double[] last = new double[k];
+		for (int s=0; s<k; s++)
+			last[s] = initialValue(views[s], position[s]);
+
+		int capacity = 16;
+		long[] rowTimestamps = new long[capacity];
+		double[][] rowValues = new double[k][capacity];
+		int rows = 0;
+		while (true){
+			long bucket = Long.MAX_VALUE;
+			for (int s=0; s<k; s++){
+				if (position[s] < views[s].size())
+					bucket = Math.min(bucket, bucketOf(views[s].getTimestamp(position[s]), bucketLength));
+			}
+			if (bucket == Long.MAX_VALUE)
+				break;
+			if (rows == capacity){
+				capacity *= 2;
+				rowTimestamps = Arrays.copyOf(rowTimestamps, capacity);
+				for (int s=0; s<k; s++)
+					rowValues[s] = Arrays.copyOf(rowValues[s], capacity);
+			}
+			rowTimestamps[rows] = bucket;
+			for (int s=0; s<k; s++){
+				AccumulatedValuesView view = views[s];
+				while (position[s] < view.size() && bucketOf(view.getTimestamp(position[s]), bucketLength) == bucket){
+					double value = view.getValueAsDouble(position[s]++);
+					if (!Double.isNaN(value))
+						last[s] = value;
+				}
+				rowValues[s][rows] = last[s];
+			}
+			rows++;
+		}
+
+		for (int s=0; s<k; s++)
+			rowValues[s] = Arrays.copyOf(rowValues[s], rows);
+		return new MergedAccumulatedValues(Arrays.copyOf(rowTimestamps, rows), rowValues);
+	}
+
+	/**
+	 * Walks the series backwards until maxRows buckets are found and sets the positions to the first value of the
+	 * oldest of those buckets.
+	 */
+	private static void findWindowStart(AccumulatedValuesView[] views, long bucketLength, int maxRows, int[] position){
+		int k = views.length;
+		int[] cursor = new int[k];
+		for (int s=0; s<k; s++)
+			cursor[s] = views[s].size() - 1;
+		int rows = 0;
+		while (rows < maxRows){
+			long bucket = Long.MIN_VALUE;
+			for (int s=0; s<k; s++){
+				if (cursor[s] >= 0)
+					bucket = Math.max(bucket, bucketOf(views[s].getTimestamp(cursor[s]), bucketLength));
+			}
+			if (bucket == Long.MIN_VALUE)
+				break;
+			for (int s=0; s<k; s++){
+				while (cursor[s] >= 0 && bucketOf(views[s].getTimestamp(cursor[s]), bucketLength) == bucket)
+					cursor[s]--;
+			}
+			rows++;
+		}
+		for (int s=0; s<k; s++)
+			position[s] = cursor[s] + 1;
+	}
+
+	/**
+	 * Returns the last numeric value before the position, or the first numeric value from the position on if there is
+	 * none, or 0 if the series has no numeric values at all.
+	 */
+	private static double initialValue(AccumulatedValuesView view, int position){
+		for (int i=position-1; i>=0; i--){
+			double value = view.getValueAsDouble(i);
+			if (!Double.isNaN(value))
+				return value;
+		}
+		for (int i=position; i<view.size(); i++){
+			double value = view.getValueAsDouble(i);
+			if (!Double.isNaN(value))
+				return value;
+		}
+		return 0;
+	}
+
+	private static long bucketOf(long timestamp, long bucketLength){
+		return timestamp / bucketLength * bucketLength;
+	}
+
+	/**
+	 * Reduces the rows to at most the given amount.
+	 * @param maxRows max amount of rows.
+	 * @param downsampling the algorithm, NONE keeps the latest rows.
+	 * @return the downsampled values, this object if it doesn't contain more rows.
+	 */
+	public MergedAccumulatedValues downsample(int maxRows, ChartDownsampling downsampling){
+		int size = size();
+		if (size <= maxRows)
+			return this;
+		if (maxRows <= 0)
+			return new MergedAccumulatedValues(new long[0], new double[values.length][0]);
+		switch (downsampling){
+			case NONE:
+				return select(size - maxRows, size);
+			case LTTB:
+				return lttb(maxRows);
+			default:
+				return aggregate(maxRows, downsampling);
+		}
+	}
+
+	private MergedAccumulatedValues select(int from, int to){
+		double[][] selected = new double[values.length][];
+		for (int s=0; s<values.length; s++)
+			selected[s] = Arrays.copyOfRange(values[s], from, to);
+		return new MergedAccumulatedValues(Arrays.copyOfRange(timestamps, from, to), selected);
+	}
+
+	/**
+	 * Aggregates consecutive rows into buckets of equal size, the timestamp of a bucket is the one of its first row.
+	 */
+	private MergedAccumulatedValues aggregate(int buckets, ChartDownsampling downsampling){
+		int size = size();
+		long[] newTimestamps = new long[buckets];
+		double[][] newValues = new double[values.length][buckets];
+		for (int b=0; b<buckets; b++){
+			int from = (int)((long)b * size / buckets);
+			int to = (int)((long)(b + 1) * size / buckets);
+			newTimestamps[b] = timestamps[from];
+			for (int s=0; s<values.length; s++){
+				double[] series = values[s];
+				double result = series[from];
+				for (int i=from+1; i<to; i++){
+					switch (downsampling){
+						case MIN:
+							result = Math.min(result, series[i]);
+							break;
+						case MAX:
+							result = Math.max(result, series[i]);
+							break;
+						default:
+							result += series[i];
+					}
+				}
+				newValues[s][b] = downsampling == ChartDownsampling.AVERAGE ? result / (to - from) : result;
+			}
+		}
+		return new MergedAccumulatedValues(newTimestamps, newValues);
+	}
+
+	/**
+	 * Largest triangle three buckets. All series share the rows, so the area of a row is the sum of the areas in each
+	 * series, with values scaled to the range of the series so that series with large values don't dominate.
+	 */
+	private MergedAccumulatedValues lttb(int threshold){
+		int size = size();
+		if (threshold < 3)
+			return select(size - threshold, size);
+		double[] scale = new double[values.length];
+		for (int s=0; s<values.length; s++){
+			double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+			for (double v : values[s]){
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			scale[s] = max > min ? 1 / (max - min) : 0;
+		}
+
+		double[] avgY = new double[values.length];
+		int[] selected = new int[threshold];
+		selected[0] = 0;
+		selected[threshold - 1] = size - 1;
+		double bucketSize = (double)(size - 2) / (threshold - 2);
+		int a = 0;
+		for (int b=0; b<threshold-2; b++){
+			int from = (int)(b * bucketSize) + 1;
+			int to = (int)((b + 1) * bucketSize) + 1;
+			int nextFrom = to;
+			int nextTo = Math.min((int)((b + 2) * bucketSize) + 1, size);
+
+			double avgX = 0;
+			for (int i=nextFrom; i<nextTo; i++)
+				avgX += timestamps[i];
+			avgX /= nextTo - nextFrom;
+			for (int s=0; s<values.length; s++){
+				avgY[s] = 0;
+				for (int j=nextFrom; j<nextTo; j++)
+					avgY[s] += values[s][j];
+				avgY[s] /= nextTo - nextFrom;
+			}
+
+			double maxArea = -1;
+			int maxIndex = from;
+			for (int i=from; i<to; i++){
+				double area = 0;
+				for (int s=0; s<values.length; s++){
+					if (scale[s] == 0)
+						continue;
+					double[] series = values[s];
+					area += Math.abs((timestamps[a] - avgX) * (series[i] - series[a]) - (timestamps[a] - timestamps[i]) * (avgY[s] - series[a])) * scale[s];
+				}
+				if (area > maxArea){
+					maxArea = area;
+					maxIndex = i;
+				}
+			}
+			selected[b + 1] = maxIndex;
+			a = maxIndex;
+		}
+
+		long[] newTimestamps = new long[threshold];
+		double[][] newValues = new double[values.length][threshold];
+		for (int i=0; i<threshold; i++){
+			newTimestamps[i] = timestamps[selected[i]];
+			for (int s=0; s<values.length; s++)
+				newValues[s][i] = values[s][selected[i]];
+		}
+		return new MergedAccumulatedValues(newTimestamps, newValues);
+	}
+
+	/**
+	 * Scales each series to the range between 0 and the limit. Series with a single value are scaled to 0.
+	 * @param limit upper end of the range.
+	 * @return the normalized values.
+	 */
+	public MergedAccumulatedValues normalize(double limit){
+		double[][] normalized = new double[values.length][];
+		for (int s=0; s<values.length; s++){
+			double[] series = values[s];
+			double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+			for (double v : series){
+				min = Math.min(min, v);
+				max = Math.max(max, v);
+			}
+			double multiplier = max > min ? limit / (max - min) : 0;
+			normalized[s] = new double[series.length];
+			for (int i=0; i<series.length; i++)
+				normalized[s][i] = (series[i] - min) * multiplier;
+		}
+		return new MergedAccumulatedValues(timestamps, normalized);
+	}
+
+	/**
+	 * Returns the amount of rows.
+	 * @return amount of rows.
+	 */
+	public int size(){
+		return timestamps.length;
+	}
+
+	/**
+	 * Returns the amount of series.
+	 * @return amount of series.
+	 */
+	public int getSeriesCount(){
+		return values.length;
+	}
+
+	public long getTimestamp(int row){
+		return timestamps[row];
+	}
+
+	public double getValue(int series, int row){
+		return values[series][row];
+	}
+}
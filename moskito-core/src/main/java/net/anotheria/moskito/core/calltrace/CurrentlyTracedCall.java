@@ -39,10 +39,9 @@ import net.anotheria.moskito.core.config.journey.JourneyConfig;
 import net.anotheria.moskito.core.producers.IStatsProducer;
 
 import java.io.Serializable;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Queue;
 
 /**
  * A currently being traced call.
@@ -54,6 +53,10 @@ public class CurrentlyTracedCall implements TracedCall, Serializable{
 	 * SerialVersionUID.
 	 */
 	private static final long serialVersionUID = 3099062979275211864L;
+	/**
+	 * Estimated heap size of a step without its call text, the step object with its children list and string overhead.
+	 */
+	private static final int ESTIMATED_STEP_SIZE = 100;
 	/**
 	 * Name of the call.
 	 */
@@ -66,6 +69,14 @@ public class CurrentlyTracedCall implements TracedCall, Serializable{
 	 * Current step in the call.
 	 */
 	private TraceStep current;
+	/**
+	 * Number of steps started in this call.
+	 */
+	private int startedSteps;
+	/**
+	 * Estimated heap size of the steps, calculated on first request, 0 if not yet calculated.
+	 */
+	private transient long estimatedSize;
 	/**
 	 * Creation timestamp.
 	 */
@@ -99,6 +110,19 @@ public class CurrentlyTracedCall implements TracedCall, Serializable{
 		createdNanos = System.nanoTime();
 	}
 	
+	/**
+	 * Creates a finished call with an empty root step, used to restore stored calls.
+	 * @param aName name of the call.
+	 * @param aCreated creation timestamp.
+	 * @param aDurationNanos duration of the call in nanoseconds.
+	 */
+	public CurrentlyTracedCall(String aName, long aCreated, long aDurationNanos){
+		name = aName;
+		current = root;
+		created = aCreated;
+		endedNanos = aDurationNanos;
+	}
+
 	@Override public boolean callTraced(){
 		return true;
 	}
@@ -116,6 +140,7 @@ public class CurrentlyTracedCall implements TracedCall, Serializable{
 		//it actually happened in production, we are still investigating why, but this fix should at least prevent the NPE for now.
 		if (last!=null)
 			last.addChild(current);
+		startedSteps++;
 		return current;
 	}
 
@@ -183,27 +208,33 @@ public class CurrentlyTracedCall implements TracedCall, Serializable{
 	}
 
 	/**
-	 * Calculates the number of steps.
+	 * Returns the number of steps including the root step. Steps are counted when they are started by
+	 * {@link #startStep(String, IStatsProducer)}.
 	 *
 	 * @return the number of steps
 	 */
 	public int getNumberOfSteps() {
-		int result = 0;
-
-		final Queue<TraceStep> queue = new LinkedList<>();
-		queue.add(root);
-
-		while (!queue.isEmpty()) {
-			final TraceStep currentTraceStep = queue.poll();
-
-			result++;
+		return startedSteps + 1;
+	}
 
-			final List<TraceStep> children = currentTraceStep.getChildren();
-			if (!children.isEmpty()) {
-				queue.addAll(children);
+	/**
+	 * Returns the estimated heap size of the recorded steps in bytes. The size is calculated on first call, which
+	 * should happen after the call is finished.
+	 * @return estimated size in bytes.
+	 */
+	public long getEstimatedSize(){
+		if (estimatedSize == 0){
+			long size = 0;
+			Deque<TraceStep> toVisit = new ArrayDeque<>();
+			toVisit.push(root);
+			while (!toVisit.isEmpty()){
+				TraceStep step = toVisit.pop();
+				size += ESTIMATED_STEP_SIZE + 2L * step.getCallLength();
+				for (TraceStep child : step.getChildren())
+					toVisit.push(child);
 			}
+			estimatedSize = size;
 		}
-
-		return result;
+		return estimatedSize;
 	}
 }
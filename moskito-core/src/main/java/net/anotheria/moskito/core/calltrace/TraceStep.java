@@ -38,6 +38,7 @@ import net.anotheria.moskito.core.producers.IStatsProducer;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -55,17 +56,30 @@ public class TraceStep implements Serializable{
 	 */
 	private String call;
 	/**
-	 * Sub steps.
+	 * Text appended to the call description, null if nothing has been appended. Kept apart from the call, so appending
+	 * doesn't copy the description. The first appended string is kept as is, a StringBuilder collects further ones.
+	 */
+	private CharSequence callSuffix;
+	/**
+	 * Sub steps, null until the first child is added.
 	 */
 	private List<TraceStep> children;
 	/**
 	 * Parent step.
 	 */
 	private TraceStep parent;
+	/**
+	 * The step which has this step in its children list, its children duration is updated with the duration of this step.
+	 */
+	private TraceStep owner;
 	/**
 	 * Duration of this step.
 	 */
 	private long duration;
+	/**
+	 * Sum of the durations of the children.
+	 */
+	private long childrenDuration;
 	/**
 	 * If true the execution was aborted (by an exception).
 	 */
@@ -91,16 +105,26 @@ public class TraceStep implements Serializable{
 	 */
 	public TraceStep(String aCall, IStatsProducer aProducer){
 		call = aCall;
-		children = new ArrayList<>();
 		producer = aProducer;
 	}
 	
 	public String getCall(){
-		return call;
+		return callSuffix == null ? call : call + callSuffix;
 	}
-	
+
+	/**
+	 * Returns the length of the call description without building it.
+	 */
+	int getCallLength(){
+		return (call == null ? 0 : call.length()) + (callSuffix == null ? 0 : callSuffix.length());
+	}
+
+	/**
+	 * Returns the sub steps. Use {@link #addChild(TraceStep)} to add a step.
+	 * @return the sub steps, an empty list if there are none.
+	 */
 	public List<TraceStep> getChildren(){
-		return children;
+		return children == null ? Collections.<TraceStep>emptyList() : children;
 	}
 
 	/**
@@ -127,7 +151,7 @@ public class TraceStep implements Serializable{
 	public TraceStep getLastStep() {
 		TraceStep result = this;
 		while (true) {
-			if (result.children == null || result.children.size() == 0)
+			if (result.children == null)
 				return result;
 			result = result.children.get(result.children.size() - 1);
 		}
@@ -148,27 +172,44 @@ public class TraceStep implements Serializable{
 	 * @param p
 	 */
 	public void addChild(TraceStep p){
+		if (children == null)
+			children = new ArrayList<>();
 		children.add(p);
+		childrenDuration += p.duration;
+		p.owner = this;
 		p.setParent(this);
 	}
 	
 	public String generateTrace(){
-		return internalGenerateTrace().toString();
+		return appendTrace(new StringBuilder()).toString();
 	}
-	
-	private StringBuilder internalGenerateTrace(){
-		StringBuilder b = new StringBuilder(call);
-		if (children.size()>0){
+
+	/**
+	 * Appends the trace of this step and its children to the builder, all steps are rendered into the same builder.
+	 */
+	private StringBuilder appendTrace(StringBuilder b){
+		appendCall(b);
+		if (children != null){
 			b.append('[');
 			for (int i=0; i<children.size(); i++){
-				b.append(children.get(i).internalGenerateTrace());
+				children.get(i).appendTrace(b);
 				if (i<children.size()-1)
 					b.append(", ");
 			}
 			b.append(']');
 		}
-	
-		
+		return b;
+	}
+
+	/**
+	 * Appends the call description to the builder without building it first.
+	 */
+	private StringBuilder appendCall(StringBuilder b){
+		b.append(call);
+		if (callSuffix instanceof String)
+			b.append((String)callSuffix);
+		else if (callSuffix != null)
+			b.append(callSuffix);
 		return b;
 	}
 
@@ -194,12 +235,8 @@ public class TraceStep implements Serializable{
 	 */
 	public long getDuration() {
 		// If this is a root - calculate it's duration based on all children
-		if (parent == null) {
-			long rootDuration = 0;
-			for (TraceStep s : children)
-				rootDuration += s.getDuration();
-			return rootDuration;
-		}
+		if (parent == null)
+			return childrenDuration;
 
 		// If it's not a root - just return duration
 		return duration;
@@ -210,13 +247,12 @@ public class TraceStep implements Serializable{
 	 * @return
 	 */
 	public long getNetDuration(){
-		long ret = this.getDuration();
-		for (TraceStep s : children )
-			ret -= s.getDuration();
-		return ret;
+		return getDuration() - childrenDuration;
 	}
 
 	public void setDuration(long duration) {
+		if (owner != null)
+			owner.childrenDuration += duration - this.duration;
 		this.duration = duration;
 	}
 
@@ -225,7 +261,13 @@ public class TraceStep implements Serializable{
 	 * @param s string to append.
 	 */
 	public void appendToCall(String s){
-		call += s;
+		if (callSuffix == null){
+			callSuffix = s == null ? "null" : s;
+			return;
+		}
+		if (!(callSuffix instanceof StringBuilder))
+			callSuffix = new StringBuilder(callSuffix);
+		((StringBuilder)callSuffix).append(s);
 	}
 
 	/**
@@ -239,7 +281,8 @@ public class TraceStep implements Serializable{
 	public String toJSON(){
 		StringBuilder ret = new StringBuilder();
 		ret.append("{");
-		ret.append(quote("call")).append(":").append(quote(call)).append(',');
+		ret.append(quote("call")).append(":").append('"');
+		appendCall(ret).append('"').append(',');
 		if (producer!=null) {
 			ret.append(quote("producer")).append(":").append(quote(producer.getProducerId())).append(',');
 			ret.append(quote("category")).append(":").append(quote(producer.getCategory())).append(',');
@@ -249,11 +292,12 @@ public class TraceStep implements Serializable{
 		ret.append(quote("netDuration")).append(": ").append(getNetDuration()).append(',');
 
 		ret.append(quote("children")).append(": ").append("[");
-		for (int i=0; i<getChildren().size(); i++){
+		List<TraceStep> steps = getChildren();
+		for (int i=0; i<steps.size(); i++){
 			if (i>0) {
 				ret.append(',');
 			}
-			ret.append(getChildren().get(i).toJSON());
+			ret.append(steps.get(i).toJSON());
 		}
 		ret.append("]");
 		ret.append("}");
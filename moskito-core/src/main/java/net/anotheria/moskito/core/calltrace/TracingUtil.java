@@ -61,7 +61,13 @@ public final class TracingUtil {
 
 	}
 
-	private static StringBuilder parameter2string(Object parameter, JourneyConfig journeyConfig){
+	/**
+	 * Converts a parameter or result into its string representation as configured by the journey config.
+	 * @param parameter the parameter.
+	 * @param journeyConfig the config.
+	 * @return string representation.
+	 */
+	public static StringBuilder parameter2string(Object parameter, JourneyConfig journeyConfig){
 		if (parameter == null)
 			return new StringBuilder("null");
 		StringBuilder ret = new StringBuilder();
@@ -6,6 +6,7 @@ import net.anotheria.moskito.core.config.dashboards.DashboardsConfig;
 import net.anotheria.moskito.core.config.errorhandling.ErrorHandlingConfig;
 import net.anotheria.moskito.core.config.filter.FilterConfig;
 import net.anotheria.moskito.core.config.gauges.GaugesConfig;
+import net.anotheria.moskito.core.config.histogram.HistogramConfig;
 import net.anotheria.moskito.core.config.journey.JourneyConfig;
 import net.anotheria.moskito.core.config.plugins.PluginsConfig;
 import net.anotheria.moskito.core.config.producers.BuiltinProducersConfig;
@@ -14,6 +15,7 @@ import net.anotheria.moskito.core.config.producers.TomcatRequestProcessorProduce
 import net.anotheria.moskito.core.config.tagging.TaggingConfig;
 import net.anotheria.moskito.core.config.thresholds.ThresholdsAlertsConfig;
 import net.anotheria.moskito.core.config.thresholds.ThresholdsConfig;
+import net.anotheria.moskito.core.config.timing.UpdateTriggerConfig;
 import net.anotheria.moskito.core.config.tracing.TracingConfiguration;
 import org.configureme.annotations.Configure;
 import org.configureme.annotations.ConfigureMe;
@@ -132,6 +134,20 @@ public class MoskitoConfiguration implements Serializable{
 	@SerializedName("@taggingConfig")
 	private TaggingConfig taggingConfig = new TaggingConfig();
 
+	/**
+	 * Configuration of latency histograms.
+	 */
+	@Configure
+	@SerializedName("@histogramConfig")
+	private HistogramConfig histogramConfig = new HistogramConfig();
+
+	/**
+	 * Configuration of the interval update triggering.
+	 */
+	@Configure
+	@SerializedName("@updateTriggerConfig")
+	private UpdateTriggerConfig updateTriggerConfig = new UpdateTriggerConfig();
+
 
 	public ThresholdsAlertsConfig getThresholdsAlertsConfig() {
 		return thresholdsAlertsConfig;
@@ -263,6 +279,20 @@ public class MoskitoConfiguration implements Serializable{
 	public void setTaggingConfig(TaggingConfig taggingConfig) {
 		this.taggingConfig = taggingConfig;
 	}
-}
 
+	public HistogramConfig getHistogramConfig() {
+		return histogramConfig;
+	}
+
+	public void setHistogramConfig(HistogramConfig histogramConfig) {
+		this.histogramConfig = histogramConfig;
+	}
+
+	public UpdateTriggerConfig getUpdateTriggerConfig() {
+		return updateTriggerConfig;
+	}
 
+	public void setUpdateTriggerConfig(UpdateTriggerConfig updateTriggerConfig) {
+		this.updateTriggerConfig = updateTriggerConfig;
+	}
+}
@@ -29,6 +29,16 @@ public class AccumulatorsConfig implements Serializable {
 	 */
 	@Configure private int accumulationAmount = 200;
 
+	/**
+	 * Max amount of values in combined accumulator charts. Default 200.
+	 */
+	@Configure private int chartValuesAmount = 200;
+
+	/**
+	 * Downsampling of combined accumulator charts, NONE shows the latest chartValuesAmount values only.
+	 */
+	@Configure private ChartDownsampling chartDownsampling = ChartDownsampling.NONE;
+
 	/**
 	 * Configured accumulators.
 	 */
@@ -53,6 +63,12 @@ public class AccumulatorsConfig implements Serializable {
 	@Configure
 	private AccumulatorGraphColor[] accumulatorsColors;
 
+	/**
+	 * Persistence of accumulated values, off by default.
+	 */
+	@SerializedName("@persistence")
+	@Configure private AccumulatorsPersistenceConfig persistence = new AccumulatorsPersistenceConfig();
+
 	public AccumulatorConfig[] getAccumulators() {
 		return accumulators;
 	}
@@ -77,6 +93,22 @@ public class AccumulatorsConfig implements Serializable {
 		this.accumulationAmount = accumulationAmount;
 	}
 
+	public int getChartValuesAmount() {
+		return chartValuesAmount;
+	}
+
+	public void setChartValuesAmount(int chartValuesAmount) {
+		this.chartValuesAmount = chartValuesAmount;
+	}
+
+	public ChartDownsampling getChartDownsampling() {
+		return chartDownsampling;
+	}
+
+	public void setChartDownsampling(ChartDownsampling chartDownsampling) {
+		this.chartDownsampling = chartDownsampling;
+	}
+
 	public AccumulatorSetConfig[] getAccumulatorSets() {
 		return accumulatorSets;
 	}
@@ -93,6 +125,14 @@ public class AccumulatorsConfig implements Serializable {
 		this.accumulatorsColors = accumulatorsColors;
 	}
 
+	public AccumulatorsPersistenceConfig getPersistence() {
+		return persistence;
+	}
+
+	public void setPersistence(AccumulatorsPersistenceConfig persistence) {
+		this.persistence = persistence;
+	}
+
 	/**
 	 * Returns accumulator color by given accumulator name.
 	 *
@@ -117,6 +157,9 @@ public class AccumulatorsConfig implements Serializable {
 		return "Amount: " + accumulationAmount + ", " +
 				"accumulators: " + Arrays.toString(accumulators) +
 				", accumulatorSets: " + Arrays.toString(accumulatorSets) +
-				", accumulatorsColors: " + Arrays.toString(accumulatorsColors);
+				", accumulatorsColors: " + Arrays.toString(accumulatorsColors) +
+				", persistence: " + persistence +
+				", chartValuesAmount: " + chartValuesAmount +
+				", chartDownsampling: " + chartDownsampling;
 	}
 }
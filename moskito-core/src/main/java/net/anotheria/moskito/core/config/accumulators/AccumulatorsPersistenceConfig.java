@@ -0,0 +1,89 @@
+package net.anotheria.moskito.core.config.accumulators;
+
+import org.configureme.annotations.Configure;
+import org.configureme.annotations.ConfigureMe;
+
+import java.io.Serializable;
+
+/**
+ * This class configures the persistence of accumulated values. If enabled, accumulated values are written to segment
+ * files in the configured directory and restored after restart, together with the threshold alerts of the alert
+ * history. The retention time applies to both. The configuration is read once on startup.
+ */
+@ConfigureMe
+public class AccumulatorsPersistenceConfig implements Serializable {
+	/**
+	 * SerialVersionUID.
+	 */
+	private static final long serialVersionUID = -6160223370914557380L;
+
+	/**
+	 * If true accumulated values are persisted.
+	 */
+	@Configure private boolean enabled = false;
+
+	/**
+	 * Directory for the segment files. The directory must not be shared between multiple applications.
+	 */
+	@Configure private String directory = System.getProperty("java.io.tmpdir")+"/moskito-accumulators";
+
+	/**
+	 * Size of a segment file in kilobytes, a new segment is started if the current is full.
+	 */
+	@Configure private int segmentSizeInKb = 1024;
+
+	/**
+	 * Segments with values older than this amount of hours are deleted.
+	 */
+	@Configure private int retentionInHours = 48;
+
+	/**
+	 * Oldest segments are deleted if all segments together exceed this amount of megabytes.
+	 */
+	@Configure private int maxTotalSizeInMb = 64;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getSegmentSizeInKb() {
+		return segmentSizeInKb;
+	}
+
+	public void setSegmentSizeInKb(int segmentSizeInKb) {
+		this.segmentSizeInKb = segmentSizeInKb;
+	}
+
+	public int getRetentionInHours() {
+		return retentionInHours;
+	}
+
+	public void setRetentionInHours(int retentionInHours) {
+		this.retentionInHours = retentionInHours;
+	}
+
+	public int getMaxTotalSizeInMb() {
+		return maxTotalSizeInMb;
+	}
+
+	public void setMaxTotalSizeInMb(int maxTotalSizeInMb) {
+		this.maxTotalSizeInMb = maxTotalSizeInMb;
+	}
+
+	@Override public String toString(){
+		return "{enabled: "+enabled+", directory: "+directory+", segmentSizeInKb: "+segmentSizeInKb+
+				", retentionInHours: "+retentionInHours+", maxTotalSizeInMb: "+maxTotalSizeInMb+'}';
+	}
+}
@@ -0,0 +1,27 @@
+package net.anotheria.moskito.core.config.accumulators;
+
+/**
+ * Defines how the values of combined accumulator charts are reduced to the configured amount of chart values.
+ */
+public enum ChartDownsampling {
+	/**
+	 * Only the latest values are shown.
+	 */
+	NONE,
+	/**
+	 * The whole history is shown, each chart value is the average of consecutive values.
+	 */
+	AVERAGE,
+	/**
+	 * The whole history is shown, each chart value is the minimum of consecutive values.
+	 */
+	MIN,
+	/**
+	 * The whole history is shown, each chart value is the maximum of consecutive values.
+	 */
+	MAX,
+	/**
+	 * The whole history is shown, the chart values are picked by largest triangle three buckets, which keeps peaks.
+	 */
+	LTTB;
+}
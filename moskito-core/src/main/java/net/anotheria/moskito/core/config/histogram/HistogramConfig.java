@@ -0,0 +1,37 @@
+package net.anotheria.moskito.core.config.histogram;
+
+import org.configureme.annotations.Configure;
+import org.configureme.annotations.ConfigureMe;
+
+import java.io.Serializable;
+
+/**
+ * Configuration of latency histograms. A histogram needs about 4.9 kb for its counts and 9.7 kb per
+ * updated interval, with the default intervals about 60 kb per stats object, therefore they are off by default.
+ */
+@ConfigureMe
+public class HistogramConfig implements Serializable{
+	/**
+	 * SerialVersionUID.
+	 */
+	private static final long serialVersionUID = 4460312758034620911L;
+
+	/**
+	 * If true, request oriented stats (ServiceStats, ServletStats, FilterStats etc) record request durations into
+	 * a histogram and provide P50, P90, P99 and P999 values.
+	 */
+	@Configure
+	private boolean requestDurationHistogramsEnabled = false;
+
+	public boolean isRequestDurationHistogramsEnabled() {
+		return requestDurationHistogramsEnabled;
+	}
+
+	public void setRequestDurationHistogramsEnabled(boolean requestDurationHistogramsEnabled) {
+		this.requestDurationHistogramsEnabled = requestDurationHistogramsEnabled;
+	}
+
+	@Override public String toString(){
+		return "HistogramConfig: ("+requestDurationHistogramsEnabled+')';
+	}
+}
@@ -37,6 +37,53 @@ public class JourneyConfig implements Serializable{
 	@Configure
 	private boolean toStringMaps = true;
 
+	/**
+	 * Max number of journeys kept in memory. Least recently active journeys are removed or spilled to disk if there
+	 * are more. Default 0, which means no limit.
+	 */
+	@Configure
+	private int maxJourneys = 0;
+
+	/**
+	 * Max number of calls kept per journey, the oldest calls are removed if there are more. Default 0, which means no
+	 * limit.
+	 */
+	@Configure
+	private int maxCallsPerJourney = 0;
+
+	/**
+	 * Max estimated size of the calls of a journey in bytes, the oldest calls are removed if the journey grows larger.
+	 * Default 0, which means no limit.
+	 */
+	@Configure
+	private long maxJourneySize = 0;
+
+	/**
+	 * Max estimated size of all journeys in memory in bytes. Default 0, which means no limit.
+	 */
+	@Configure
+	private long maxTotalJourneySize = 0;
+
+	/**
+	 * Journeys without activity for longer than this amount of minutes are removed or spilled to disk. Default 0, which
+	 * means journeys don't expire.
+	 */
+	@Configure
+	private int maxJourneyAge = 0;
+
+	/**
+	 * Directory for evicted journeys. If set, evicted journeys are written to this directory and can still be viewed,
+	 * otherwise they are discarded. Default not set.
+	 */
+	@Configure
+	private String spillDirectory;
+
+	/**
+	 * Max number of journeys kept on disk, the files of the oldest journeys are deleted if there are more. Default 1000.
+	 */
+	@Configure
+	private int maxSpilledJourneys = 1000;
+
 	public int getParameterLengthLimit() {
 		return parameterLengthLimit;
 	}
@@ -61,7 +108,65 @@ public class JourneyConfig implements Serializable{
 		this.toStringMaps = toStringMaps;
 	}
 
+	public int getMaxJourneys() {
+		return maxJourneys;
+	}
+
+	public void setMaxJourneys(int maxJourneys) {
+		this.maxJourneys = maxJourneys;
+	}
+
+	public int getMaxCallsPerJourney() {
+		return maxCallsPerJourney;
+	}
+
+	public void setMaxCallsPerJourney(int maxCallsPerJourney) {
+		this.maxCallsPerJourney = maxCallsPerJourney;
+	}
+
+	public long getMaxJourneySize() {
+		return maxJourneySize;
+	}
+
+	public void setMaxJourneySize(long maxJourneySize) {
+		this.maxJourneySize = maxJourneySize;
+	}
+
+	public long getMaxTotalJourneySize() {
+		return maxTotalJourneySize;
+	}
+
+	public void setMaxTotalJourneySize(long maxTotalJourneySize) {
+		this.maxTotalJourneySize = maxTotalJourneySize;
+	}
+
+	public int getMaxJourneyAge() {
+		return maxJourneyAge;
+	}
+
+	public void setMaxJourneyAge(int maxJourneyAge) {
+		this.maxJourneyAge = maxJourneyAge;
+	}
+
+	public String getSpillDirectory() {
+		return spillDirectory;
+	}
+
+	public void setSpillDirectory(String spillDirectory) {
+		this.spillDirectory = spillDirectory;
+	}
+
+	public int getMaxSpilledJourneys() {
+		return maxSpilledJourneys;
+	}
+
+	public void setMaxSpilledJourneys(int maxSpilledJourneys) {
+		this.maxSpilledJourneys = maxSpilledJourneys;
+	}
+
 	public String toString(){
-		return "JourneyConfig: ("+parameterLengthLimit+", "+toStringCollections+", "+toStringMaps+ ')';
+		return "JourneyConfig: ("+parameterLengthLimit+", "+toStringCollections+", "+toStringMaps+", maxJourneys: "+maxJourneys+
+				", maxCallsPerJourney: "+maxCallsPerJourney+", maxJourneySize: "+maxJourneySize+", maxTotalJourneySize: "+maxTotalJourneySize+
+				", maxJourneyAge: "+maxJourneyAge+", spillDirectory: "+spillDirectory+", maxSpilledJourneys: "+maxSpilledJourneys+ ')';
 	}
 }
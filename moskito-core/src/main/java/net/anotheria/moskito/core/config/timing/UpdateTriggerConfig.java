@@ -0,0 +1,75 @@
+package net.anotheria.moskito.core.config.timing;
+
+import org.configureme.annotations.Configure;
+import org.configureme.annotations.ConfigureMe;
+
+import java.io.Serializable;
+
+/**
+ * Configuration of the update trigger service, which triggers interval updates and other periodic updates like
+ * thresholds and accumulators. The configuration is read once on startup.
+ */
+@ConfigureMe
+public class UpdateTriggerConfig implements Serializable{
+	/**
+	 * SerialVersionUID.
+	 */
+	private static final long serialVersionUID = -2385117300297658214L;
+
+	/**
+	 * If true, updates are triggered at wall clock boundaries, for example the 1m interval at the full minute and
+	 * the 1h interval at the full hour (UTC). Otherwise updates are triggered relative to their registration.
+	 */
+	@Configure
+	private boolean alignToWallClock = true;
+
+	/**
+	 * Amount of threads that execute updates. Updates that are due at the same time (for example 1m and 5m interval)
+	 * run in parallel, so a slow update does not delay others.
+	 */
+	@Configure
+	private int updaterThreadPoolSize = 4;
+
+	/**
+	 * Amount of threads that notify the listeners of an interval (snapshots, thresholds, accumulators etc) after the
+	 * values were rolled. With 1 the listeners are notified one after another by the updater thread.
+	 */
+	@Configure
+	private int listenerThreadPoolSize = 4;
+
+	public boolean isAlignToWallClock() {
+		return alignToWallClock;
+	}
+
+	public void setAlignToWallClock(boolean alignToWallClock) {
+		this.alignToWallClock = alignToWallClock;
+	}
+
+	/**
+	 * Returns the updaterThreadPoolSize. If the value is configured below 1, 1 is returned.
+	 * @return
+	 */
+	public int getUpdaterThreadPoolSize() {
+		return updaterThreadPoolSize < 1 ? 1 : updaterThreadPoolSize;
+	}
+
+	public void setUpdaterThreadPoolSize(int updaterThreadPoolSize) {
+		this.updaterThreadPoolSize = updaterThreadPoolSize;
+	}
+
+	/**
+	 * Returns the listenerThreadPoolSize. If the value is configured below 1, 1 is returned.
+	 * @return
+	 */
+	public int getListenerThreadPoolSize() {
+		return listenerThreadPoolSize < 1 ? 1 : listenerThreadPoolSize;
+	}
+
+	public void setListenerThreadPoolSize(int listenerThreadPoolSize) {
+		this.listenerThreadPoolSize = listenerThreadPoolSize;
+	}
+
+	@Override public String toString(){
+		return "UpdateTriggerConfig: (alignToWallClock: "+alignToWallClock+", updaterThreadPoolSize: "+updaterThreadPoolSize+", listenerThreadPoolSize: "+listenerThreadPoolSize+')';
+	}
+}
@@ -53,6 +53,25 @@ public class TracingConfiguration implements Serializable{
 	@Configure
 	private ShrinkingStrategy shrinkingStrategy = ShrinkingStrategy.KEEPLONGEST;
 
+	/**
+	 * Max number of stack trace elements stored with a trace, 0 means no limit.
+	 */
+	@Configure
+	private int stackTraceDepth = 0;
+
+	/**
+	 * Percentage of kept traces for which a stack trace is captured. Default is 100, all traces.
+	 */
+	@Configure
+	private int stackTraceSamplingPercentage = 100;
+
+	/**
+	 * Traces with a duration of at least this amount of milliseconds always get a stack trace, regardless of
+	 * sampling. 0 means no threshold.
+	 */
+	@Configure
+	private long stackTraceDurationThreshold = 0;
+
 	public boolean isInspectEnabled() {
 		return inspectEnabled;
 	}
@@ -106,4 +125,28 @@ public class TracingConfiguration implements Serializable{
 	public void setShrinkingStrategy(ShrinkingStrategy shrinkingStrategy) {
 		this.shrinkingStrategy = shrinkingStrategy;
 	}
+
+	public int getStackTraceDepth() {
+		return stackTraceDepth;
+	}
+
+	public void setStackTraceDepth(int stackTraceDepth) {
+		this.stackTraceDepth = stackTraceDepth;
+	}
+
+	public int getStackTraceSamplingPercentage() {
+		return stackTraceSamplingPercentage;
+	}
+
+	public void setStackTraceSamplingPercentage(int stackTraceSamplingPercentage) {
+		this.stackTraceSamplingPercentage = stackTraceSamplingPercentage;
+	}
+
+	public long getStackTraceDurationThreshold() {
+		return stackTraceDurationThreshold;
+	}
+
+	public void setStackTraceDurationThreshold(long stackTraceDurationThreshold) {
+		this.stackTraceDurationThreshold = stackTraceDurationThreshold;
+	}
 }
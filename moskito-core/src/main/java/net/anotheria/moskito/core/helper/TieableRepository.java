@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 /**
  * Basic class for repository that manages tieable objects.
  * @author lrosenberg
@@ -58,6 +59,11 @@ public abstract class TieableRepository<T extends Tieable, S extends IStats> imp
 	 */
 	private ConcurrentMap<String, String> id2nameMapping = new ConcurrentHashMap<>();
 
+	/**
+	 * Number of additions and removals of tieables, allows callers to detect changes of the tieable set cheaply.
+	 */
+	private final AtomicLong modificationCount = new AtomicLong();
+
 
 	public TieableRepository() {
 		ProducerRegistryFactory.getProducerRegistryInstance().addListener(this);
@@ -158,6 +164,7 @@ public abstract class TieableRepository<T extends Tieable, S extends IStats> imp
 		}
 
 		id2nameMapping.put(t.getId(), t.getName());
+		modificationCount.incrementAndGet();
 
 		return t;
 	}
@@ -178,6 +185,7 @@ public abstract class TieableRepository<T extends Tieable, S extends IStats> imp
         if (t==null)
             return;
         detachFromListener(t);
+        modificationCount.incrementAndGet();
         try{
             //in case its yet untied.
             yetUntied.remove(t);
@@ -191,6 +199,15 @@ public abstract class TieableRepository<T extends Tieable, S extends IStats> imp
 
 
 	
+	/**
+	 * Returns the number of additions and removals of tieables so far. If the value didn't change, the set of tieables
+	 * didn't change either.
+	 * @return modification count.
+	 */
+	public long getModificationCount(){
+		return modificationCount.get();
+	}
+
 	public T getByName(String name){
 		return tieables.get(name);
 	}
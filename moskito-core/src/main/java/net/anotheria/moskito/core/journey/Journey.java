@@ -1,24 +1,43 @@
 package net.anotheria.moskito.core.journey;
 
 import net.anotheria.moskito.core.calltrace.CurrentlyTracedCall;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.journey.JourneyConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * A monitoring journey at the runtime of recording.
+ * A monitoring journey at the runtime of recording. A journey keeps at most the configured amount and estimated size
+ * of calls, the oldest calls are removed first. Evicted journeys can be spilled to disk, in this case the calls are
+ * read from disk on access. Disk access happens outside of the journey monitor, so recording isn't blocked by it.
  * @author lrosenberg
  *
  */
 public class Journey {
+	/**
+	 * Logger.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(Journey.class);
 	/**
 	 * Name of the journey.
 	 */
 	private String name;
 	/**
-	 * UseCases (Calls) in this session.
+	 * UseCases (Calls) in this session in order of addition. Use cases are keyed by name for lookup and removal, a use
+	 * case whose name is already taken is keyed by an anonymous key and can't be found by name.
 	 */
-	private List<CurrentlyTracedCall> tracedCalls;
+	private final Map<Object, CurrentlyTracedCall> tracedCalls = new LinkedHashMap<>();
 	/**
 	 * True if the session is still actively recorded.
 	 */
@@ -31,6 +50,26 @@ public class Journey {
 	 * Timestamp of last activity in this session.
 	 */
 	private long lastActivityTimestamp;
+	/**
+	 * Estimated size of the calls in memory in bytes.
+	 */
+	private long estimatedSize;
+	/**
+	 * File with the calls spilled to disk or null.
+	 */
+	private File spillFile;
+	/**
+	 * Number of calls in the spill file.
+	 */
+	private int spilledCalls;
+	/**
+	 * True if calls were discarded because of the configured limits.
+	 */
+	private boolean callsDiscarded;
+	/**
+	 * Serializes writing and deletion of the spill file. Always acquired before the journey monitor.
+	 */
+	private final Object spillLock = new Object();
 	
 	/**
 	 * Creates a new monitoring session with a given name.
@@ -40,16 +79,35 @@ public class Journey {
 		name = aName;
 		createdTimestamp = System.currentTimeMillis();
 		active = true;
-		tracedCalls = new ArrayList<>();
 	}
 	
 	/**
-	 * Adds a use case (call) to this session.
+	 * Adds a use case (call) to this session. Removes the oldest calls if the journey exceeds the configured limits.
 	 * @param aTracedCall
 	 */
-	public void addUseCase(CurrentlyTracedCall aTracedCall){
-		tracedCalls.add(aTracedCall);
+	public synchronized void addUseCase(CurrentlyTracedCall aTracedCall){
+		Object key = tracedCalls.containsKey(aTracedCall.getName()) ? new Object() : aTracedCall.getName();
+		tracedCalls.put(key, aTracedCall);
+		estimatedSize += aTracedCall.getEstimatedSize();
 		lastActivityTimestamp = System.currentTimeMillis();
+
+		JourneyConfig config = aTracedCall.getJourneyConfig();
+		if (config == null)
+			config = MoskitoConfigurationHolder.getConfiguration().getJourneyConfig();
+		int maxCalls = config.getMaxCallsPerJourney();
+		long maxSize = config.getMaxJourneySize();
+		Iterator<CurrentlyTracedCall> it = tracedCalls.values().iterator();
+		while (tracedCalls.size() > 1 && ((maxCalls > 0 && tracedCalls.size() > maxCalls) || (maxSize > 0 && estimatedSize > maxSize))){
+			CurrentlyTracedCall discarded = it.next();
+			estimatedSize -= discarded.getEstimatedSize();
+			it.remove();
+			if (!callsDiscarded){
+				callsDiscarded = true;
+				log.info("Journey "+name+" exceeds maxCallsPerJourney "+maxCalls+" or maxJourneySize "+maxSize+", discarding oldest calls");
+			}else if (log.isDebugEnabled()){
+				log.debug("Discarded call "+discarded.getName()+" of journey "+name);
+			}
+		}
 	}
 	
 	public boolean isActive() {
@@ -78,37 +136,144 @@ public class Journey {
 	}
 	
 	/**
-	 * Returns contained use cases.
+	 * Returns a copy of the contained use cases. Calls of a spilled journey are read from disk.
 	 * @return
 	 */
 	public List<CurrentlyTracedCall> getTracedCalls() {
-		return tracedCalls;
+		File file;
+		int spilled;
+		List<CurrentlyTracedCall> inMemory;
+		synchronized(this){
+			file = spillFile;
+			spilled = spilledCalls;
+			inMemory = new ArrayList<>(tracedCalls.values());
+		}
+		List<CurrentlyTracedCall> ret = new ArrayList<>(spilled + inMemory.size());
+		ret.addAll(readSpilledCalls(file, spilled));
+		ret.addAll(inMemory);
+		return ret;
 	}
-	
-	@Override
-	public String toString(){
-		return getName()+" with "+getTracedCalls().size()+" calls.";
+
+	private List<CurrentlyTracedCall> readSpilledCalls(File file, int count){
+		if (file == null)
+			return Collections.emptyList();
+		try{
+			return JourneySpill.read(file, count);
+		}catch(IOException e){
+			log.warn("Can't read spilled calls of journey "+name+" from "+file, e);
+			return Collections.emptyList();
+		}
 	}
 
-	public void removeStepByName(String stepName){
-		for (int i=0; i<tracedCalls.size(); i++){
-			CurrentlyTracedCall ctc = tracedCalls.get(i);
-			if (ctc.getName().equals(stepName)){
-				tracedCalls.remove(i);
+	/**
+	 * Appends the calls in memory to the spill file of this journey, which is created in the given directory on first
+	 * spill, and removes them from memory. Calls added while writing are kept in memory until the next spill.
+	 * @param directory target directory.
+	 * @throws IOException if the journey couldn't be written, the journey is unchanged in this case.
+	 */
+	void spill(File directory) throws IOException{
+		synchronized(spillLock){
+			File file;
+			List<CurrentlyTracedCall> calls;
+			synchronized(this){
+				file = spillFile;
+				calls = new ArrayList<>(tracedCalls.values());
+			}
+			if (calls.isEmpty())
 				return;
+			boolean created = file == null;
+			if (created)
+				file = JourneySpill.create(directory);
+			try{
+				JourneySpill.append(file, calls);
+			}catch(IOException e){
+				if (created)
+					file.delete();
+				throw e;
 			}
 
+			Set<CurrentlyTracedCall> written = Collections.newSetFromMap(new IdentityHashMap<CurrentlyTracedCall, Boolean>());
+			written.addAll(calls);
+			synchronized(this){
+				spillFile = file;
+				spilledCalls += calls.size();
+				for (Iterator<CurrentlyTracedCall> it = tracedCalls.values().iterator(); it.hasNext(); ){
+					CurrentlyTracedCall call = it.next();
+					if (written.contains(call)){
+						estimatedSize -= call.getEstimatedSize();
+						it.remove();
+					}
+				}
+			}
 		}
 	}
 
-	public CurrentlyTracedCall getStepByName(String stepName){
-		for (int i=0; i<tracedCalls.size(); i++){
-			CurrentlyTracedCall ctc = tracedCalls.get(i);
-			if (ctc.getName().equals(stepName)){
-				return ctc;
+	/**
+	 * Deletes the spill file of this journey, the spilled calls are lost.
+	 */
+	void deleteSpillFile(){
+		synchronized(spillLock){
+			File file;
+			synchronized(this){
+				file = spillFile;
+				spillFile = null;
+				spilledCalls = 0;
 			}
+			if (file != null && !file.delete())
+				log.warn("Can't delete spill file "+file+" of journey "+name);
+		}
+	}
+
+	/**
+	 * Returns true if calls of this journey are stored on disk.
+	 * @return
+	 */
+	public synchronized boolean isSpilled(){
+		return spillFile != null;
+	}
+
+	/**
+	 * Returns the estimated size of the calls in memory in bytes.
+	 * @return
+	 */
+	public synchronized long getEstimatedSize(){
+		return estimatedSize;
+	}
+	
+	@Override
+	public String toString(){
+		return getName()+" with "+getNumberOfTracedCalls()+" calls.";
+	}
+
+	public synchronized int getNumberOfTracedCalls(){
+		return spilledCalls + tracedCalls.size();
+	}
 
+	/**
+	 * Removes the call with the given name from memory, spilled calls are not removed.
+	 * @param stepName
+	 */
+	public synchronized void removeStepByName(String stepName){
+		CurrentlyTracedCall removed = tracedCalls.remove(stepName);
+		if (removed != null)
+			estimatedSize -= removed.getEstimatedSize();
+	}
+
+	public CurrentlyTracedCall getStepByName(String stepName){
+		File file;
+		int spilled;
+		synchronized(this){
+			CurrentlyTracedCall ret = tracedCalls.get(stepName);
+			if (ret != null || spillFile == null)
+				return ret;
+			file = spillFile;
+			spilled = spilledCalls;
+		}
+		try{
+			return JourneySpill.find(file, spilled, stepName);
+		}catch(IOException e){
+			log.warn("Can't read spilled calls of journey "+name+" from "+file, e);
+			return null;
 		}
-		return null;
 	}
 }
@@ -7,7 +7,14 @@ public class JourneyManagerFactory {
 	/**
 	 * Internally stored singleton instance.
 	 */
-	private static JourneyManager instance = new JourneyManagerImpl();
+	private static JourneyManager instance = createInstance();
+
+	private static JourneyManager createInstance(){
+		JourneyManagerImpl manager = new JourneyManagerImpl();
+		manager.startEviction();
+		return manager;
+	}
+
 	/**
 	 * Returns the singleton instance.
 	 * @return
@@ -1,30 +1,84 @@
 package net.anotheria.moskito.core.journey;
 
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.journey.JourneyConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * An implementation of the JourneyManager..
+ * An implementation of the JourneyManager.. The number and estimated size of journeys in memory is limited by the
+ * {@link JourneyConfig}, least recently active and expired journeys are evicted by a background thread every
+ * {@link #EVICTION_INTERVAL}, so request threads never wait for disk access. Evicted journeys are spilled to disk if a
+ * spill directory is configured and removed otherwise.
  * @author lrosenberg
  */
 public class JourneyManagerImpl implements JourneyManager{
 
+	/**
+	 * Logger.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(JourneyManagerImpl.class);
+
+	/**
+	 * Time between two evictions in milliseconds.
+	 */
+	static final long EVICTION_INTERVAL = 1000;
+
+	/**
+	 * Orders candidates by last access, least recently accessed first.
+	 */
+	private static final Comparator<Candidate> BY_LAST_ACCESS = new Comparator<Candidate>() {
+		@Override
+		public int compare(Candidate c1, Candidate c2) {
+			return c1.lastAccess < c2.lastAccess ? -1 : (c1.lastAccess == c2.lastAccess ? 0 : 1);
+		}
+	};
+
 	/**
 	 * The map with stored sessions.
 	 */
-	private Map<String, Journey> journeys;
+	private ConcurrentMap<String, Journey> journeys;
+
 	/**
 	 * Creates a new JourneyManagerImpl.
 	 */
 	JourneyManagerImpl(){
 		journeys = new ConcurrentHashMap<>();
 	}
-	
+
+	/**
+	 * Starts the periodic eviction in a daemon thread.
+	 */
+	void startEviction(){
+		Timer timer = new Timer("MoskitoJourneyEviction", true);
+		timer.scheduleAtFixedRate(new TimerTask() {
+			@Override
+			public void run() {
+				try{
+					evict(MoskitoConfigurationHolder.getConfiguration().getJourneyConfig(), System.currentTimeMillis());
+				}catch(RuntimeException e){
+					log.warn("Journey eviction failed", e);
+				}
+			}
+		}, EVICTION_INTERVAL, EVICTION_INTERVAL);
+	}
+
 	@Override public Journey createJourney(String name) {
 		Journey s = new Journey(name);
-		journeys.put(s.getName(), s);
+		Journey old = journeys.put(s.getName(), s);
+		if (old != null)
+			old.deleteSpillFile();
 		return s;
 	}
 
@@ -41,8 +95,8 @@ public class JourneyManagerImpl implements JourneyManager{
 		if (s!=null)
 			return s;
 		s = new Journey(name);
-		journeys.put(s.getName(), s);
-		return s;
+		Journey old = journeys.putIfAbsent(s.getName(), s);
+		return old == null ? s : old;
 
 	}
 
@@ -53,11 +107,95 @@ public class JourneyManagerImpl implements JourneyManager{
 
 	@Override public void removeJourney(Journey journey) {
 		removeJourney(journey.getName());
-		
+
 	}
 
 	@Override public void removeJourney(String name) {
-		journeys.remove(name);		
+		Journey removed = journeys.remove(name);
+		if (removed != null)
+			removed.deleteSpillFile();
+	}
+
+	/**
+	 * Evicts expired journeys, the least recently active journeys until the journeys in memory are within the limits
+	 * and the oldest spilled journeys until the spilled journeys are within the limit.
+	 * @param config the journey config.
+	 * @param now current timestamp.
+	 */
+	void evict(JourneyConfig config, long now){
+		File spillDirectory = config.getSpillDirectory() == null || config.getSpillDirectory().isEmpty() ?
+				null : new File(config.getSpillDirectory());
+		long maxAge = config.getMaxJourneyAge() * 60000L;
+
+		List<Candidate> inMemory = new ArrayList<>();
+		long totalSize = 0;
+		for (Journey journey : journeys.values()){
+			Candidate candidate = new Candidate(journey);
+			if (journey.isSpilled() && candidate.size == 0)
+				continue;
+			if (maxAge > 0 && now - candidate.lastAccess > maxAge){
+				evict(journey, spillDirectory);
+				continue;
+			}
+			inMemory.add(candidate);
+			totalSize += candidate.size;
+		}
+
+		int maxJourneys = config.getMaxJourneys() > 0 ? config.getMaxJourneys() : Integer.MAX_VALUE;
+		long maxTotalSize = config.getMaxTotalJourneySize() > 0 ? config.getMaxTotalJourneySize() : Long.MAX_VALUE;
+		if (inMemory.size() > maxJourneys || totalSize > maxTotalSize){
+			Collections.sort(inMemory, BY_LAST_ACCESS);
+			int count = inMemory.size();
+			for (int i=0; i<inMemory.size() && (count > maxJourneys || totalSize > maxTotalSize); i++){
+				Candidate candidate = inMemory.get(i);
+				evict(candidate.journey, spillDirectory);
+				count--;
+				totalSize -= candidate.size;
+			}
+		}
+
+		List<Candidate> spilled = new ArrayList<>();
+		for (Journey journey : journeys.values()){
+			if (journey.isSpilled())
+				spilled.add(new Candidate(journey));
+		}
+		if (spilled.size() > config.getMaxSpilledJourneys()){
+			Collections.sort(spilled, BY_LAST_ACCESS);
+			for (int i=0; i<spilled.size() - config.getMaxSpilledJourneys(); i++){
+				log.info("Removing spilled journey "+spilled.get(i).journey.getName()+", more than maxSpilledJourneys "+config.getMaxSpilledJourneys());
+				removeJourney(spilled.get(i).journey);
+			}
+		}
+	}
+
+	private void evict(Journey journey, File spillDirectory){
+		if (spillDirectory != null){
+			try{
+				journey.spill(spillDirectory);
+				return;
+			}catch(IOException e){
+				log.warn("Can't spill journey "+journey.getName()+" to "+spillDirectory+", removing it", e);
+			}
+		}
+		if (journeys.remove(journey.getName(), journey)){
+			log.info("Removed journey "+journey.getName()+" with "+journey.getNumberOfTracedCalls()+" calls, no spill directory configured or spill failed");
+			journey.deleteSpillFile();
+		}
+	}
+
+	/**
+	 * Journey with the values relevant for eviction, which can't change during sorting.
+	 */
+	private static final class Candidate {
+		private final Journey journey;
+		private final long lastAccess;
+		private final long size;
+
+		Candidate(Journey aJourney){
+			journey = aJourney;
+			lastAccess = Math.max(aJourney.getCreatedTimestamp(), aJourney.getLastActivityTimestamp());
+			size = aJourney.getEstimatedSize();
+		}
 	}
 
 }
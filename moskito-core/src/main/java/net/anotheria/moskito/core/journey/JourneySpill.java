@@ -0,0 +1,257 @@
+package net.anotheria.moskito.core.journey;
+
+import net.anotheria.moskito.core.calltrace.CurrentlyTracedCall;
+import net.anotheria.moskito.core.calltrace.TraceStep;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the calls of a journey from and to disk. A spill file starts with a magic number and the format
+ * version, followed by one record per call. Each record is prefixed with its length, so calls can be appended to an
+ * existing file and skipped on lookup without decoding them. A record contains the name, creation time, duration and
+ * tags of the call and the step tree in preorder. Producers of the steps are not written.
+ */
+final class JourneySpill {
+
+	/**
+	 * Magic number at the start of each spill file.
+	 */
+	private static final int MAGIC = 0x4D4A5350;
+
+	/**
+	 * Version of the file format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Marker for a null string or map.
+	 */
+	private static final int NULL = -1;
+
+	private JourneySpill(){
+	}
+
+	/**
+	 * Creates a new empty spill file in the directory.
+	 * @param directory target directory, created if missing.
+	 * @return the created file.
+	 * @throws IOException on write errors.
+	 */
+	static File create(File directory) throws IOException{
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Can't create spill directory "+directory);
+		File file = File.createTempFile("journey-", ".calls", directory);
+		boolean written = false;
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))){
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			written = true;
+		}finally{
+			if (!written)
+				file.delete();
+		}
+		return file;
+	}
+
+	/**
+	 * Appends the calls to the end of the file.
+	 * @param file spill file created by {@link #create(File)}.
+	 * @param calls calls to append.
+	 * @throws IOException on write errors, the file is truncated to its previous length in this case.
+	 */
+	static void append(File file, List<CurrentlyTracedCall> calls) throws IOException{
+		long length = file.length();
+		boolean written = false;
+		try{
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))){
+				ByteArrayOutputStream record = new ByteArrayOutputStream();
+				for (CurrentlyTracedCall call : calls){
+					record.reset();
+					writeCall(new DataOutputStream(record), call);
+					out.writeInt(record.size());
+					record.writeTo(out);
+				}
+			}
+			written = true;
+		}finally{
+			if (!written)
+				truncate(file, length);
+		}
+	}
+
+	private static void truncate(File file, long length){
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+			raf.setLength(length);
+		}catch(IOException ignored){
+			//the append failed already, the caller reports it.
+		}
+	}
+
+	/**
+	 * Reads the first calls from the file.
+	 * @param file the spill file.
+	 * @param count number of calls to read, records appended later are ignored.
+	 * @return the calls in order of addition.
+	 * @throws IOException on read errors or unknown file format.
+	 */
+	static List<CurrentlyTracedCall> read(File file, int count) throws IOException{
+		try (DataInputStream in = open(file)){
+			List<CurrentlyTracedCall> ret = new ArrayList<>(count);
+			for (int i=0; i<count; i++){
+				in.readInt();
+				ret.add(readCall(in));
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Finds the first call with the given name among the first calls of the file. Only the names of other calls are
+	 * decoded.
+	 * @param file the spill file.
+	 * @param count number of calls to search.
+	 * @param callName name of the call.
+	 * @return the call or null if not found.
+	 * @throws IOException on read errors or unknown file format.
+	 */
+	static CurrentlyTracedCall find(File file, int count, String callName) throws IOException{
+		byte[] expected = callName.getBytes(StandardCharsets.UTF_8);
+		try (DataInputStream in = open(file)){
+			for (int i=0; i<count; i++){
+				int length = in.readInt();
+				int nameLength = in.readInt();
+				if (nameLength == expected.length){
+					byte[] name = new byte[nameLength];
+					in.readFully(name);
+					if (Arrays.equals(name, expected))
+						return readCallAfterName(in, callName);
+					skip(in, length - 4 - nameLength);
+				}else{
+					skip(in, length - 4);
+				}
+			}
+			return null;
+		}
+	}
+
+	private static DataInputStream open(File file) throws IOException{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try{
+			int magic = in.readInt();
+			if (magic != MAGIC)
+				throw new IOException("Not a spill file "+file);
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported spill file version "+version+" in "+file);
+			return in;
+		}catch(IOException e){
+			in.close();
+			throw e;
+		}
+	}
+
+	private static void skip(DataInput in, int bytes) throws IOException{
+		if (bytes < 0 || in.skipBytes(bytes) != bytes)
+			throw new EOFException("Truncated spill record");
+	}
+
+	private static void writeCall(DataOutput out, CurrentlyTracedCall call) throws IOException{
+		writeString(out, call.getName());
+		out.writeLong(call.getCreated());
+		out.writeLong(call.getDurationNanos());
+		Map<String, String> tags = call.getTags();
+		if (tags == null){
+			out.writeInt(NULL);
+		}else{
+			out.writeInt(tags.size());
+			for (Map.Entry<String, String> tag : tags.entrySet()){
+				writeString(out, tag.getKey());
+				writeString(out, tag.getValue());
+			}
+		}
+		writeStep(out, call.getRootStep());
+	}
+
+	private static void writeStep(DataOutput out, TraceStep step) throws IOException{
+		writeString(out, step.getCall());
+		out.writeLong(step.getDuration());
+		out.writeBoolean(step.isAborted());
+		List<TraceStep> children = step.getChildren();
+		out.writeInt(children.size());
+		for (TraceStep child : children)
+			writeStep(out, child);
+	}
+
+	private static CurrentlyTracedCall readCall(DataInput in) throws IOException{
+		return readCallAfterName(in, readString(in));
+	}
+
+	private static CurrentlyTracedCall readCallAfterName(DataInput in, String callName) throws IOException{
+		long created = in.readLong();
+		long duration = in.readLong();
+		CurrentlyTracedCall call = new CurrentlyTracedCall(callName, created, duration);
+		int tagCount = in.readInt();
+		if (tagCount != NULL){
+			Map<String, String> tags = new HashMap<>();
+			for (int i=0; i<tagCount; i++)
+				tags.put(readString(in), readString(in));
+			call.setTags(tags);
+		}
+		//the root step exists already, its description is fixed.
+		readString(in);
+		readStepContent(in, call, call.getRootStep());
+		return call;
+	}
+
+	/**
+	 * Reads the content of the step and replays its children as steps of the call, so the call counts them.
+	 */
+	private static void readStepContent(DataInput in, CurrentlyTracedCall call, TraceStep step) throws IOException{
+		step.setDuration(in.readLong());
+		step.setAborted(in.readBoolean());
+		int childCount = in.readInt();
+		for (int i=0; i<childCount; i++){
+			readStepContent(in, call, call.startStep(readString(in), null));
+			call.endStep();
+		}
+	}
+
+	private static void writeString(DataOutput out, String s) throws IOException{
+		if (s == null){
+			out.writeInt(NULL);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException{
+		int length = in.readInt();
+		if (length == NULL)
+			return null;
+		if (length < 0)
+			throw new IOException("Corrupt spill record, string length "+length);
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -38,10 +38,15 @@ import net.anotheria.moskito.core.calltrace.CurrentlyTracedCall;
 import net.anotheria.moskito.core.calltrace.RunningTraceContainer;
 import net.anotheria.moskito.core.calltrace.TraceStep;
 import net.anotheria.moskito.core.calltrace.TracedCall;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
 import net.anotheria.moskito.core.producers.AbstractCallExecution;
 import net.anotheria.moskito.core.producers.AbstractStats;
 import net.anotheria.moskito.core.producers.CallExecution;
+import net.anotheria.moskito.core.producers.DoubleStatValueAccessor;
+import net.anotheria.moskito.core.producers.LongStatValueAccessor;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
 import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.stats.HistogramStatValue;
 import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.StatValue;
 import net.anotheria.moskito.core.stats.TimeUnit;
@@ -110,6 +115,11 @@ public abstract class RequestOrientedStats extends AbstractStats {
 	 */
 	private StatValue maxTime;
 
+	/**
+	 * Request durations histogram, only present if enabled in the HistogramConfig.
+	 */
+	private HistogramStatValue durationHistogram;
+
 	/**
 	 * Value names for values collected by this stat.
 	 */
@@ -125,6 +135,25 @@ public abstract class RequestOrientedStats extends AbstractStats {
 			"Avg"
 	));
 
+	/**
+	 * Value names for values collected by this stat if the durations histogram is enabled.
+	 */
+	private static final List<String> VALUE_NAMES_WITH_PERCENTILES = Collections.unmodifiableList(Arrays.asList(
+			"TR",
+			"TT",
+			"CR",
+			"MCR",
+			"ERR",
+			"Last",
+			"Min",
+			"Max",
+			"Avg",
+			"P50",
+			"P90",
+			"P99",
+			"P999"
+	));
+
 	/**
 	 * Creates a new object with the given method name.
 	 * 
@@ -152,21 +181,29 @@ public abstract class RequestOrientedStats extends AbstractStats {
 		Long pattern = Long.valueOf(0);
 		selectedIntervals = Arrays.copyOf(aSelectedIntervals, aSelectedIntervals.length);
 
-		totalRequests = StatValueFactory.createStatValue(pattern, "requests", aSelectedIntervals);
-		totalTime = StatValueFactory.createStatValue(pattern, "totalTime", aSelectedIntervals);
+		//requests, time and errors are only increased, hence we can use striped values for them.
+		totalRequests = StatValueFactory.createStripedStatValue("requests", aSelectedIntervals);
+		totalTime = StatValueFactory.createStripedStatValue("totalTime", aSelectedIntervals);
 		currentRequests = StatValueFactory.createStatValue(pattern, "currentRequests", aSelectedIntervals);
-		maxCurrentRequests = StatValueFactory.createStatValue(pattern, "maxCurrentRequests", aSelectedIntervals);
-		errors = StatValueFactory.createStatValue(pattern, "errors", aSelectedIntervals);
+		maxCurrentRequests = StatValueFactory.createMaxStatValue("maxCurrentRequests", aSelectedIntervals);
+		maxCurrentRequests.setDefaultValueAsLong(0);
+		maxCurrentRequests.reset();
+		errors = StatValueFactory.createStripedStatValue("errors", aSelectedIntervals);
 		lastRequest = StatValueFactory.createStatValue(pattern, "last", aSelectedIntervals);
-		minTime = StatValueFactory.createStatValue(pattern, "minTime", aSelectedIntervals);
+		minTime = StatValueFactory.createMinStatValue("minTime", aSelectedIntervals);
 		minTime.setDefaultValueAsLong(Constants.MIN_TIME_DEFAULT);
 		minTime.reset();
 
-		maxTime = StatValueFactory.createStatValue(pattern, "maxTime", aSelectedIntervals);
+		maxTime = StatValueFactory.createMaxStatValue("maxTime", aSelectedIntervals);
 		maxTime.setDefaultValueAsLong(Constants.MAX_TIME_DEFAULT);
 		maxTime.reset();
 
 		addStatValues(totalRequests, totalTime, currentRequests, maxCurrentRequests, errors, lastRequest, minTime, maxTime);
+
+		if (MoskitoConfigurationHolder.getConfiguration().getHistogramConfig().isRequestDurationHistogramsEnabled()){
+			durationHistogram = StatValueFactory.createHistogramStatValue("durations", aSelectedIntervals);
+			addStatValues(durationHistogram);
+		}
 	}
 
 	/**
@@ -211,7 +248,8 @@ public abstract class RequestOrientedStats extends AbstractStats {
 		lastRequest.setValueAsLong(time);
 		minTime.setValueIfLesserThanCurrentAsLong(time);
 		maxTime.setValueIfGreaterThanCurrentAsLong(time);
-
+		if (durationHistogram != null)
+			durationHistogram.record(time);
 	}
 
 	/**
@@ -320,10 +358,85 @@ public abstract class RequestOrientedStats extends AbstractStats {
 			return String.valueOf(getAverageRequestDuration(intervalName, timeUnit));
 		if (valueName.equals("erate") || valueName.equals("errorrate") || valueName.equals("errrate"))
 			return String.valueOf(getErrorRate(intervalName));
+		if (durationHistogram != null){
+			if (valueName.equals("p50"))
+				return String.valueOf(timeUnit.transformNanos(getDurationPercentile(50, intervalName)));
+			if (valueName.equals("p90"))
+				return String.valueOf(timeUnit.transformNanos(getDurationPercentile(90, intervalName)));
+			if (valueName.equals("p99"))
+				return String.valueOf(timeUnit.transformNanos(getDurationPercentile(99, intervalName)));
+			if (valueName.equals("p999"))
+				return String.valueOf(timeUnit.transformNanos(getDurationPercentile(99.9, intervalName)));
+		}
 
 		return super.getValueByNameAsString(valueName, intervalName, timeUnit);
 	}
 
+	@Override public StatValueAccessor resolveValueAccessor(String valueName){
+		if (valueName==null || valueName.isEmpty())
+			throw new AssertionError("Value name can not be empty");
+		switch (valueName.toLowerCase()){
+			case "tr":
+			case "req":
+				return new StatValueLongAccessor(totalRequests, false);
+			case "tt":
+			case "time":
+			case "totaltime":
+				return new StatValueLongAccessor(totalTime, true);
+			case "cr":
+				return new StatValueLongAccessor(currentRequests, false);
+			case "mcr":
+				return new StatValueLongAccessor(maxCurrentRequests, false);
+			case "err":
+				return new StatValueLongAccessor(errors, false);
+			case "last":
+				return new StatValueLongAccessor(lastRequest, true);
+			case "min":
+				return new StatValueLongAccessor(minTime, true);
+			case "max":
+				return new StatValueLongAccessor(maxTime, true);
+			case "avg":
+				return new DoubleStatValueAccessor() {
+					@Override
+					public double getValueAsDouble(Interval interval, TimeUnit timeUnit) {
+						return timeUnit.transformNanos(totalTime.getIntervalValueAsLong(interval)) / totalRequests.getIntervalValueAsDouble(interval);
+					}
+				};
+			case "erate":
+			case "errorrate":
+			case "errrate":
+				return new DoubleStatValueAccessor() {
+					@Override
+					public double getValueAsDouble(Interval interval, TimeUnit timeUnit) {
+						long tr = totalRequests.getIntervalValueAsLong(interval);
+						double errorRate = tr == 0 ? 0 : ((double)errors.getIntervalValueAsLong(interval))/tr;
+						return (double)((int)(errorRate * 10000))/100;
+					}
+				};
+			case "p50":
+				return resolvePercentileAccessor(valueName, 50);
+			case "p90":
+				return resolvePercentileAccessor(valueName, 90);
+			case "p99":
+				return resolvePercentileAccessor(valueName, 99);
+			case "p999":
+				return resolvePercentileAccessor(valueName, 99.9);
+			default:
+				return super.resolveValueAccessor(valueName);
+		}
+	}
+
+	private StatValueAccessor resolvePercentileAccessor(String valueName, final double percentile){
+		if (durationHistogram == null)
+			return super.resolveValueAccessor(valueName);
+		return new LongStatValueAccessor() {
+			@Override
+			public long getValueAsLong(Interval interval, TimeUnit timeUnit) {
+				return timeUnit.transformNanos(getDurationPercentile(percentile, interval == null ? null : interval.getName()));
+			}
+		};
+	}
+
 
 	/**
 	 * Returns a toString representation with values fo the given interval.
@@ -463,6 +576,25 @@ public abstract class RequestOrientedStats extends AbstractStats {
 		return maxTime.getValueAsLong(null);
 	}
 
+	/**
+	 * Returns true if request durations are recorded in a histogram.
+	 * @return true if percentiles are available.
+	 */
+	public boolean isDurationHistogramEnabled() {
+		return durationHistogram != null;
+	}
+
+	/**
+	 * Returns the request duration in nanoseconds at the given percentile, for example 99.9 for the p999.
+	 * The value is an approximation, see {@link HistogramStatValue}.
+	 * @param percentile percentile between 0 and 100.
+	 * @param intervalName the target interval.
+	 * @return the duration at percentile or 0 if the histogram is not enabled or there were no requests.
+	 */
+	public long getDurationPercentile(double percentile, String intervalName) {
+		return durationHistogram == null ? 0 : durationHistogram.getValueAtPercentile(percentile, intervalName);
+	}
+
 	/**
 	 * Returns the name of this request (effectively method name).
 	 * @return
@@ -561,7 +693,7 @@ public abstract class RequestOrientedStats extends AbstractStats {
 
 	@Override
 	public List<String> getAvailableValueNames() {
-		return VALUE_NAMES;
+		return durationHistogram == null ? VALUE_NAMES : VALUE_NAMES_WITH_PERCENTILES;
 	}
 	
 	@Override
@@ -569,4 +701,22 @@ public abstract class RequestOrientedStats extends AbstractStats {
 		return getCurrentRequests(intervalName) == 0;
 	}
 
+	/**
+	 * Accessor to a long stat value, time values are transformed from nanoseconds into the requested time unit.
+	 */
+	private static final class StatValueLongAccessor extends LongStatValueAccessor {
+		private final StatValue value;
+		private final boolean nanos;
+
+		private StatValueLongAccessor(StatValue aValue, boolean isNanos){
+			value = aValue;
+			nanos = isNanos;
+		}
+
+		@Override
+		public long getValueAsLong(Interval interval, TimeUnit timeUnit) {
+			long ret = value.getIntervalValueAsLong(interval);
+			return nanos ? timeUnit.transformNanos(ret) : ret;
+		}
+	}
 }
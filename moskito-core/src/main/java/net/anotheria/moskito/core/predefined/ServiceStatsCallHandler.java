@@ -133,10 +133,9 @@ public class ServiceStatsCallHandler implements IOnDemandCallHandler {
 				currentTrace.endStep();
 
 			if (tracePassingOfThisProducer) {
-				call.append(" = ").append(TracingUtil.parameter2string(ret));
-				trace.setCall(call.toString());
+				//result conversion and stack trace are deferred until the tracer keeps the trace.
+				trace.setCall(call, ret, currentTrace.getJourneyConfig());
 				trace.setDuration(exTime);
-				trace.setElements(Thread.currentThread().getStackTrace());
 
 				if (journeyStartedByMe) {
 					//now finish the journey.
@@ -66,6 +66,11 @@ public abstract class AbstractStats implements IStats, StatsMXBean{
 	 */
 	private LinkedList<StatValue> statValuesList = new LinkedList<StatValue>();
 
+	/**
+	 * Accessors resolved by resolveValueAccessors together with the value names they were resolved for.
+	 */
+	private volatile ResolvedAccessors resolvedAccessors;
+
 	/**
 	 * Creates a new AbstractStats object.
 	 */
@@ -109,6 +114,26 @@ public abstract class AbstractStats implements IStats, StatsMXBean{
 		return null;
 	}
 
+	/**
+	 * Returns an accessor that reads the value by name, stats with frequently read values should override it.
+	 */
+	@Override
+	public StatValueAccessor resolveValueAccessor(String valueName){
+		return new ValueByNameAccessor(this, valueName);
+	}
+
+	@Override
+	public StatValueAccessor[] resolveValueAccessors(List<String> valueNames){
+		ResolvedAccessors resolved = resolvedAccessors;
+		if (resolved != null && (resolved.valueNames == valueNames || resolved.valueNames.equals(valueNames)))
+			return resolved.accessors;
+		StatValueAccessor[] accessors = new StatValueAccessor[valueNames.size()];
+		for (int i = 0; i < accessors.length; i++)
+			accessors[i] = resolveValueAccessor(valueNames.get(i));
+		resolvedAccessors = new ResolvedAccessors(valueNames, accessors);
+		return accessors;
+	}
+
 	@Override
 	public List<String> getAvailableValueNames() {
 		return EMPTY_LIST;
@@ -135,4 +160,17 @@ public abstract class AbstractStats implements IStats, StatsMXBean{
 			return;
 		Collections.addAll(statValuesList, values);
 	}
+
+	/**
+	 * Resolved accessors and the value names they were resolved for.
+	 */
+	private static final class ResolvedAccessors {
+		private final List<String> valueNames;
+		private final StatValueAccessor[] accessors;
+
+		private ResolvedAccessors(List<String> someValueNames, StatValueAccessor[] someAccessors){
+			valueNames = someValueNames;
+			accessors = someAccessors;
+		}
+	}
 }
@@ -0,0 +1,25 @@
+package net.anotheria.moskito.core.producers;
+
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.TimeUnit;
+
+/**
+ * Base class for accessors to double values.
+ */
+public abstract class DoubleStatValueAccessor implements StatValueAccessor {
+
+	@Override
+	public Type getType() {
+		return Type.DOUBLE;
+	}
+
+	@Override
+	public long getValueAsLong(Interval interval, TimeUnit timeUnit) {
+		return (long)getValueAsDouble(interval, timeUnit);
+	}
+
+	@Override
+	public String getValueAsString(Interval interval, TimeUnit timeUnit) {
+		return String.valueOf(getValueAsDouble(interval, timeUnit));
+	}
+}
@@ -92,6 +92,22 @@ public interface IStats {
 	CallExecution createCallExecution();
 	
 	String getValueByNameAsString(String valueName, String intervalName, TimeUnit timeUnit);
+
+	/**
+	 * Resolves the value name once into an accessor that reads the value without matching the name again.
+	 * @param valueName name of the value as accepted by getValueByNameAsString.
+	 * @return the accessor.
+	 */
+	StatValueAccessor resolveValueAccessor(String valueName);
+
+	/**
+	 * Returns the accessors for the given value names. The accessors are resolved once and cached as long as the
+	 * same value names are requested.
+	 * @param valueNames names of the values, usually getAvailableValueNames().
+	 * @return the accessors in the order of the value names, the array must not be modified.
+	 */
+	StatValueAccessor[] resolveValueAccessors(List<String> valueNames);
+
 	/**
 	 * Returns the names of all contained stats.
 	 * @return
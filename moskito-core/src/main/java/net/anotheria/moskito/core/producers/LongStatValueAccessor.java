@@ -0,0 +1,25 @@
+package net.anotheria.moskito.core.producers;
+
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.TimeUnit;
+
+/**
+ * Base class for accessors to long values.
+ */
+public abstract class LongStatValueAccessor implements StatValueAccessor {
+
+	@Override
+	public Type getType() {
+		return Type.LONG;
+	}
+
+	@Override
+	public double getValueAsDouble(Interval interval, TimeUnit timeUnit) {
+		return getValueAsLong(interval, timeUnit);
+	}
+
+	@Override
+	public String getValueAsString(Interval interval, TimeUnit timeUnit) {
+		return String.valueOf(getValueAsLong(interval, timeUnit));
+	}
+}
@@ -0,0 +1,50 @@
+package net.anotheria.moskito.core.producers;
+
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.TimeUnit;
+
+/**
+ * Accessor to a single value of a stats object, resolved once by {@link IStats#resolveValueAccessor(String)}. Consumers
+ * that read the same value periodically (thresholds, accumulators, snapshots) hold the accessor instead of matching the
+ * value name on each read. The type tells which getter returns the value without conversion. The interval is passed
+ * as handle (see {@link net.anotheria.moskito.core.stats.impl.IntervalRegistry#resolveInterval(String)}), so reading a
+ * stat value doesn't need to look up the interval by name.
+ */
+public interface StatValueAccessor {
+
+	/**
+	 * Native type of the value.
+	 */
+	enum Type {
+		/**
+		 * The value is a long, use getValueAsLong.
+		 */
+		LONG,
+		/**
+		 * The value is a double, use getValueAsDouble.
+		 */
+		DOUBLE,
+		/**
+		 * The type is unknown, use getValueAsString.
+		 */
+		STRING
+	}
+
+	/**
+	 * Returns the native type of the value.
+	 * @return the type.
+	 */
+	Type getType();
+
+	long getValueAsLong(Interval interval, TimeUnit timeUnit);
+
+	double getValueAsDouble(Interval interval, TimeUnit timeUnit);
+
+	/**
+	 * Returns the value in the same format as {@link IStats#getValueByNameAsString(String, String, TimeUnit)}.
+	 * @param interval the interval, null for the absolute value.
+	 * @param timeUnit time unit for time values.
+	 * @return the value as string.
+	 */
+	String getValueAsString(Interval interval, TimeUnit timeUnit);
+}
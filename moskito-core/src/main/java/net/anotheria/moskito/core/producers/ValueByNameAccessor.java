@@ -0,0 +1,55 @@
+package net.anotheria.moskito.core.producers;
+
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.util.NumericStrings;
+
+/**
+ * Accessor for stats that don't resolve their values, reads the value via
+ * {@link IStats#getValueByNameAsString(String, String, TimeUnit)} on each call.
+ */
+public class ValueByNameAccessor implements StatValueAccessor {
+
+	private final IStats stats;
+	private final String valueName;
+
+	public ValueByNameAccessor(IStats aStats, String aValueName){
+		stats = aStats;
+		valueName = aValueName;
+	}
+
+	@Override
+	public Type getType() {
+		return Type.STRING;
+	}
+
+	@Override
+	public long getValueAsLong(Interval interval, TimeUnit timeUnit) {
+		String value = getValueAsString(interval, timeUnit);
+		return NumericStrings.isLong(value) ? Long.parseLong(value) : (long)parseDouble(value);
+	}
+
+	@Override
+	public double getValueAsDouble(Interval interval, TimeUnit timeUnit) {
+		return parseDouble(getValueAsString(interval, timeUnit));
+	}
+
+	@Override
+	public String getValueAsString(Interval interval, TimeUnit timeUnit) {
+		return stats.getValueByNameAsString(valueName, interval == null ? null : interval.getName(), timeUnit);
+	}
+
+	private static double parseDouble(String value){
+		if (!NumericStrings.mayBeDouble(value))
+			return Double.NaN;
+		try{
+			return Double.parseDouble(value);
+		}catch(NumberFormatException e){
+			return Double.NaN;
+		}
+	}
+
+	@Override public String toString(){
+		return "ValueByNameAccessor "+valueName+" of "+stats.getName();
+	}
+}
@@ -48,11 +48,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Implementation of the public api for the producer registry.
+ * Implementation of the public api for the producer registry. Reads are served from an immutable snapshot of the
+ * registered producers with indexes by id, category and subsystem, so they don't lock and cost O(1) or O(result).
+ * Registrations only update the producer map and invalidate the snapshot, it is rebuilt on the next read.
  * @author lrosenberg
  *
  */
@@ -66,13 +69,13 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 	private static final Logger log = LoggerFactory.getLogger(ProducerRegistryAPIImpl.class);
 	
 	/**
-	 * Cached producer list - used internally to reduce overhead.
+	 * Registered producers by id in order of registration, null until first access. Guarded by cacheLock.
 	 */
-	private List<ProducerReference> _cachedProducerList;
+	private Map<String,ProducerReference> _cachedProducerMap;
 	/**
-	 * Cached producer map - used internally to reduce overhead.
+	 * Current snapshot of the producers, null if it has to be rebuilt.
 	 */
-	private Map<String,ProducerReference> _cachedProducerMap;
+	private volatile Snapshot snapshot;
 	/**
 	 * Cached interval infos - used internally to reduce overhead.
 	 */
@@ -100,7 +103,6 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 	 * Creates and sets up the ProducerRegistryAPIImpl. ProducerRegistryAPIImpl is meant to be a singleton.
 	 */
 	ProducerRegistryAPIImpl(){
-		_cachedProducerList = null;
 		_cachedProducerMap = null;
 		_cachedIntervalInfos = null;
 		
@@ -110,16 +112,21 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 		intervalRegistry = IntervalRegistry.getInstance();
 		
 	}
-	
+
 	/**
-	 * Rebuilds the caches upon change.
+	 * Returns the current snapshot, rebuilds it if the producers changed since it was built.
 	 */
-	private void buildProducerCacheFromScratch(){
-		log.debug("rebuilding producer cache");
+	private Snapshot getSnapshot(){
+		Snapshot current = snapshot;
+		if (current != null)
+			return current;
 		synchronized(cacheLock){
-			if (_cachedProducerList!=null)
-				return;
-			rebuildProducerCache(registry.getProducers());
+			if (snapshot == null){
+				if (_cachedProducerMap == null)
+					rebuildProducerCache(registry.getProducers());
+				snapshot = new Snapshot(_cachedProducerMap.values());
+			}
+			return snapshot;
 		}
 	}
 	
@@ -130,49 +137,33 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 		log.debug("Rebuilding producer cache with "+producers.size()+" producers.");
 		log.debug("Following producers known: "+producers);
 
-        synchronized(cacheLock){
-			//lets create lists with more place to store as actually need, we will probably need it.
-			final int approxSize = (int)(producers.size()*1.5);
-
-            _cachedProducerList = new ArrayList<ProducerReference>(approxSize);
-            _cachedProducerMap = new HashMap<String,ProducerReference>(approxSize);
-
-            for (IStatsProducer sp : producers){
-				final ProducerReference reference = new ProducerReference(sp);
-
-                _cachedProducerList.add(reference);
-                _cachedProducerMap.put(sp.getProducerId(), reference);
-            }
+		//lets create maps with more place to store as actually need, we will probably need it.
+		final int approxSize = (int)(producers.size()*1.5);
+		_cachedProducerMap = new LinkedHashMap<String,ProducerReference>(approxSize);
+		for (IStatsProducer sp : producers){
+			_cachedProducerMap.put(sp.getProducerId(), new ProducerReference(sp));
 		}
 
 		if (log.isDebugEnabled()){
-			log.debug("Cachedproducer list contains "+_cachedProducerList.size()+" producers: ");
-			log.debug(String.valueOf(_cachedProducerList));
 			log.debug("Cached producer map contains: "+_cachedProducerMap.size()+" producers");
 			log.debug(String.valueOf(_cachedProducerMap));
 		}
 	}
 
-	//we should look into synchronizing access to this method, since the listener can possible remove a 
-	//producer during processing.
 	@Override public List<IStatsProducer> getAllProducers() {
-		if (_cachedProducerList==null)
-			buildProducerCacheFromScratch();
-		List<IStatsProducer> ret = new ArrayList<>();
-		for (ProducerReference pr : _cachedProducerList){
-			if (pr.get()!=null)
-				ret.add(pr.get());
-		}
-		return ret;
-		
+		return new ArrayList<>(getSnapshot().producers);
 	}
 
 	@Override public List<IStatsProducer> getAllProducersByCategory(String category) {
-		return getProducers(new CategoryFilter(category));
+		if (category == null)
+			return getAllProducers();
+		return getSnapshot().byCategory(category);
 	}
 
 	@Override public List<IStatsProducer> getAllProducersBySubsystem(String subsystem) {
-		return getProducers(new SubsystemFilter(subsystem));
+		if (subsystem == null)
+			return getAllProducers();
+		return getSnapshot().bySubsystem(subsystem);
 	}
 
 	@Override public List<IntervalInfo> getPresentIntervals() {
@@ -214,28 +205,24 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 	}
 
 	@Override public IStatsProducer getProducer(String producerId) {
-		if (_cachedProducerList==null)
-			buildProducerCacheFromScratch();
-
-		synchronized(cacheLock){
-			ProducerReference ref = _cachedProducerMap.get(producerId);
-			if (ref==null)
-				throw new NoSuchProducerException(producerId);
-			return ref.get();
-		}
+		IStatsProducer producer = getSnapshot().byId.get(producerId);
+		if (producer==null)
+			throw new NoSuchProducerException(producerId);
+		return producer;
 	}
 
 	@Override public List<IStatsProducer> getProducers(IProducerFilter... filters) {
-		if (_cachedProducerList==null)
-			buildProducerCacheFromScratch();
+		Snapshot current = getSnapshot();
+		List<IStatsProducer> candidates = current.producers;
+		//a single category or subsystem filter is answered by the index.
+		if (filters.length == 1 && filters[0] instanceof CategoryFilter && ((CategoryFilter)filters[0]).getCategory() != null)
+			return current.byCategory(((CategoryFilter) filters[0]).getCategory());
+		if (filters.length == 1 && filters[0] instanceof SubsystemFilter && ((SubsystemFilter)filters[0]).getSubsystem() != null)
+			return current.bySubsystem(((SubsystemFilter) filters[0]).getSubsystem());
+
 		List <IStatsProducer> ret = new ArrayList<>();
-		@SuppressWarnings("unchecked")
-		List<ProducerReference> workCopy = (List<ProducerReference>)((ArrayList<ProducerReference>)_cachedProducerList).clone();
-		for (ProducerReference p  : workCopy){
-			IStatsProducer pp = p.get();
+		for (IStatsProducer pp : candidates){
 			boolean fit = true;
-			if (pp==null)
-				continue;
 			for(IProducerFilter filter: filters)
 				if (!filter.doesFit(pp)){
 					fit = false;
@@ -249,46 +236,99 @@ public class ProducerRegistryAPIImpl implements IProducerRegistryAPI, IProducerR
 
 	@Override public void notifyProducerRegistered(IStatsProducer producer) {
 		log.info("Producer registered: "+producer.getProducerId()+" / "+producer);
-		if (_cachedProducerList==null)
-			return;
 		synchronized(cacheLock){
-			ProducerReference pr = new ProducerReference(producer);
-			_cachedProducerList.add(pr);
-			_cachedProducerMap.put(producer.getProducerId(), pr);
+			if (_cachedProducerMap==null)
+				return;
+			_cachedProducerMap.put(producer.getProducerId(), new ProducerReference(producer));
+			snapshot = null;
 		}
 	}
 
 	@Override public void notifyProducerUnregistered(IStatsProducer producer) {
 		log.info("Producer unregistered: "+producer.getProducerId()+" / "+producer);
-		if (_cachedProducerList==null)
-			return;
 		synchronized(cacheLock){
-			ProducerReference ref = _cachedProducerMap.remove(producer.getProducerId());
-			if (ref!=null)
-				_cachedProducerList.remove(ref);
-
+			if (_cachedProducerMap==null)
+				return;
+			if (_cachedProducerMap.remove(producer.getProducerId())!=null)
+				snapshot = null;
 		}
 	}
 
 	@Override public List<String> getCategories() {
-		List<String> ret = new ArrayList<>();
-		List<IStatsProducer> producers = getAllProducers();
-		for (IStatsProducer p : producers){
-			if (! (ret.contains(p.getCategory())))
-				ret.add(p.getCategory());
-		}
-       Collections.sort(ret);
-       return ret;
+		return new ArrayList<>(getSnapshot().categories);
 	}
 
 	@Override public List<String> getSubsystems() {
-		List<String> ret = new ArrayList<>();
-		List<IStatsProducer> producers = getAllProducers();
-		for (IStatsProducer p : producers){
-			if (! (ret.contains(p.getSubsystem())))
-				ret.add(p.getSubsystem());
+		return new ArrayList<>(getSnapshot().subsystems);
+	}
+
+	/**
+	 * Immutable view of the registered producers with prebuilt indexes.
+	 */
+	private static final class Snapshot {
+		/**
+		 * All producers in order of registration.
+		 */
+		private final List<IStatsProducer> producers;
+		private final Map<String, IStatsProducer> byId;
+		private final Map<String, List<IStatsProducer>> byCategory;
+		private final Map<String, List<IStatsProducer>> bySubsystem;
+		/**
+		 * Sorted category names.
+		 */
+		private final List<String> categories;
+		/**
+		 * Sorted subsystem names.
+		 */
+		private final List<String> subsystems;
+
+		Snapshot(Collection<ProducerReference> references){
+			producers = new ArrayList<>(references.size());
+			byId = new HashMap<>(references.size() * 2);
+			byCategory = new HashMap<>();
+			bySubsystem = new HashMap<>();
+			for (ProducerReference reference : references){
+				IStatsProducer producer = reference.get();
+				if (producer == null)
+					continue;
+				producers.add(producer);
+				byId.put(producer.getProducerId(), producer);
+				add(byCategory, producer.getCategory(), producer);
+				add(bySubsystem, producer.getSubsystem(), producer);
+			}
+			categories = sortedKeys(byCategory);
+			subsystems = sortedKeys(bySubsystem);
+		}
+
+		private static void add(Map<String, List<IStatsProducer>> index, String key, IStatsProducer producer){
+			List<IStatsProducer> list = index.get(key);
+			if (list == null){
+				list = new ArrayList<>();
+				index.put(key, list);
+			}
+			list.add(producer);
+		}
+
+		private static List<String> sortedKeys(Map<String, List<IStatsProducer>> index){
+			List<String> ret = new ArrayList<>(index.keySet());
+			//producers without category or subsystem are indexed under null, which can't be sorted.
+			boolean containsNull = ret.remove(null);
+			Collections.sort(ret);
+			if (containsNull)
+				ret.add(0, null);
+			return ret;
+		}
+
+		List<IStatsProducer> byCategory(String category){
+			return copy(byCategory.get(category));
+		}
+
+		List<IStatsProducer> bySubsystem(String subsystem){
+			return copy(bySubsystem.get(subsystem));
+		}
+
+		private static List<IStatsProducer> copy(List<IStatsProducer> list){
+			return list == null ? new ArrayList<IStatsProducer>() : new ArrayList<>(list);
 		}
-        Collections.sort(ret);
-		return ret;
 	}
 }
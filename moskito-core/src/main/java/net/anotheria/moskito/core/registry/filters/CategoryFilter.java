@@ -55,6 +55,14 @@ public class CategoryFilter implements IProducerFilter {
 		category = aCategory;
 	}
 	
+	/**
+	 * Returns the category to filter, null matches all producers.
+	 * @return
+	 */
+	public String getCategory(){
+		return category;
+	}
+
 	@Override public String toString(){
 		return "CategoryFilter: "+category;
 	}
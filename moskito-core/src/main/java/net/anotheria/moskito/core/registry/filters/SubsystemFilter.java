@@ -54,6 +54,14 @@ public class SubsystemFilter implements IProducerFilter {
 		subsystem = aSubsystem;
 	}
 	
+	/**
+	 * Returns the subsystem to filter, null matches all producers.
+	 * @return
+	 */
+	public String getSubsystem(){
+		return subsystem;
+	}
+
 	@Override public String toString(){
 		return "Subsystem Filter: "+subsystem;
 	}
@@ -0,0 +1,291 @@
+package net.anotheria.moskito.core.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * Snapshots of all producers for one interval update in a columnar layout. Producers, stats and values are stored in
+ * parallel arrays, producer p owns the stats from getFirstStat(p) to getFirstStat(p+1) exclusive, stat s owns the values
+ * from getFirstValue(s) to getFirstValue(s+1) exclusive. Value names are stored as indexes of {@link SnapshotValueNames}
+ * and numeric values as primitives, so a batch consists of a few arrays regardless of the amount of values.
+ * A batch is filled by the {@link SnapshotCreator} and must not be modified afterwards.
+ */
+public final class SnapshotBatch {
+
+	/**
+	 * Type of a value that is not available.
+	 */
+	public static final byte TYPE_NONE = 0;
+	/**
+	 * Type of a long value.
+	 */
+	public static final byte TYPE_LONG = 1;
+	/**
+	 * Type of a double value.
+	 */
+	public static final byte TYPE_DOUBLE = 2;
+	/**
+	 * Type of a value that is neither long nor double.
+	 */
+	public static final byte TYPE_STRING = 3;
+
+	/**
+	 * Name of the interval.
+	 */
+	private final String intervalName;
+	/**
+	 * Creation time.
+	 */
+	private final long timestamp;
+
+	private int producerCount;
+	private String[] producerIds;
+	private String[] categories;
+	private String[] subsystems;
+	private String[] statClassNames;
+	/**
+	 * Index of the first stat of each producer, one more entry than producers.
+	 */
+	private int[] firstStat;
+
+	private int statCount;
+	private String[] statNames;
+	/**
+	 * Index of the first value of each stat, one more entry than stats.
+	 */
+	private int[] firstValue;
+
+	private int valueCount;
+	private int[] valueNameIndexes;
+	private byte[] valueTypes;
+	/**
+	 * Long values, double values are stored as raw long bits.
+	 */
+	private long[] values;
+	/**
+	 * String values, only allocated if a string value is added.
+	 */
+	private String[] stringValues;
+
+	/**
+	 * Creates a new empty batch.
+	 * @param anIntervalName name of the interval.
+	 * @param aTimestamp creation time.
+	 * @param anExpectedStatCount expected amount of stats, used as initial capacity.
+	 */
+	SnapshotBatch(String anIntervalName, long aTimestamp, int anExpectedStatCount){
+		intervalName = anIntervalName;
+		timestamp = aTimestamp;
+		producerIds = new String[16];
+		categories = new String[16];
+		subsystems = new String[16];
+		statClassNames = new String[16];
+		firstStat = new int[17];
+		int stats = Math.max(16, anExpectedStatCount);
+		statNames = new String[stats];
+		firstValue = new int[stats + 1];
+		int expectedValues = stats * 8;
+		valueNameIndexes = new int[expectedValues];
+		valueTypes = new byte[expectedValues];
+		values = new long[expectedValues];
+	}
+
+	void addProducer(String aProducerId, String aCategory, String aSubsystem, String aStatClassName){
+		if (producerCount == producerIds.length){
+			int newLength = producerIds.length * 2;
+			producerIds = Arrays.copyOf(producerIds, newLength);
+			categories = Arrays.copyOf(categories, newLength);
+			subsystems = Arrays.copyOf(subsystems, newLength);
+			statClassNames = Arrays.copyOf(statClassNames, newLength);
+			firstStat = Arrays.copyOf(firstStat, newLength + 1);
+		}
+		producerIds[producerCount] = aProducerId;
+		categories[producerCount] = aCategory;
+		subsystems[producerCount] = aSubsystem;
+		statClassNames[producerCount] = aStatClassName;
+		firstStat[producerCount] = statCount;
+		producerCount++;
+		firstStat[producerCount] = statCount;
+	}
+
+	void addStat(String aStatName){
+		if (statCount == statNames.length){
+			statNames = Arrays.copyOf(statNames, statNames.length * 2);
+			firstValue = Arrays.copyOf(firstValue, statNames.length + 1);
+		}
+		statNames[statCount] = aStatName;
+		firstValue[statCount] = valueCount;
+		statCount++;
+		firstValue[statCount] = valueCount;
+		firstStat[producerCount] = statCount;
+	}
+
+	void addLongValue(int aValueNameIndex, long aValue){
+		addValue(aValueNameIndex, TYPE_LONG, aValue);
+	}
+
+	void addDoubleValue(int aValueNameIndex, double aValue){
+		addValue(aValueNameIndex, TYPE_DOUBLE, Double.doubleToRawLongBits(aValue));
+	}
+
+	void addStringValue(int aValueNameIndex, String aValue){
+		if (aValue == null){
+			addValue(aValueNameIndex, TYPE_NONE, 0);
+			return;
+		}
+		addValue(aValueNameIndex, TYPE_STRING, 0);
+		if (stringValues == null || stringValues.length < values.length)
+			stringValues = stringValues == null ? new String[values.length] : Arrays.copyOf(stringValues, values.length);
+		stringValues[valueCount - 1] = aValue;
+	}
+
+	private void addValue(int aValueNameIndex, byte aType, long aValue){
+		if (valueCount == values.length){
+			int newLength = values.length * 2;
+			valueNameIndexes = Arrays.copyOf(valueNameIndexes, newLength);
+			valueTypes = Arrays.copyOf(valueTypes, newLength);
+			values = Arrays.copyOf(values, newLength);
+		}
+		valueNameIndexes[valueCount] = aValueNameIndex;
+		valueTypes[valueCount] = aType;
+		values[valueCount] = aValue;
+		valueCount++;
+		firstValue[statCount] = valueCount;
+	}
+
+	public String getIntervalName() {
+		return intervalName;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public int getProducerCount() {
+		return producerCount;
+	}
+
+	public String getProducerId(int aProducer) {
+		return producerIds[aProducer];
+	}
+
+	public String getCategory(int aProducer) {
+		return categories[aProducer];
+	}
+
+	public String getSubsystem(int aProducer) {
+		return subsystems[aProducer];
+	}
+
+	public String getStatClassName(int aProducer) {
+		return statClassNames[aProducer];
+	}
+
+	public int getFirstStat(int aProducer) {
+		return firstStat[aProducer];
+	}
+
+	public int getStatCount() {
+		return statCount;
+	}
+
+	public String getStatName(int aStat) {
+		return statNames[aStat];
+	}
+
+	public int getFirstValue(int aStat) {
+		return firstValue[aStat];
+	}
+
+	public int getValueCount() {
+		return valueCount;
+	}
+
+	/**
+	 * Returns the value name index of a value, use {@link SnapshotValueNames#nameOf(int)} to get the name.
+	 * @param aValue index of the value.
+	 * @return the value name index.
+	 */
+	public int getValueNameIndex(int aValue) {
+		return valueNameIndexes[aValue];
+	}
+
+	public byte getValueType(int aValue) {
+		return valueTypes[aValue];
+	}
+
+	/**
+	 * Returns a value as long, double values are truncated, other values are returned as 0.
+	 * @param aValue index of the value.
+	 * @return the value.
+	 */
+	public long getLongValue(int aValue) {
+		switch (valueTypes[aValue]){
+			case TYPE_LONG:
+				return values[aValue];
+			case TYPE_DOUBLE:
+				return (long)Double.longBitsToDouble(values[aValue]);
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Returns a value as double, other values than long and double are returned as NaN.
+	 * @param aValue index of the value.
+	 * @return the value.
+	 */
+	public double getDoubleValue(int aValue) {
+		switch (valueTypes[aValue]){
+			case TYPE_LONG:
+				return values[aValue];
+			case TYPE_DOUBLE:
+				return Double.longBitsToDouble(values[aValue]);
+			default:
+				return Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns a value as string in the same format as IStats.getValueByNameAsString.
+	 * @param aValue index of the value.
+	 * @return the value or null if not available.
+	 */
+	public String getStringValue(int aValue) {
+		switch (valueTypes[aValue]){
+			case TYPE_LONG:
+				return String.valueOf(values[aValue]);
+			case TYPE_DOUBLE:
+				return String.valueOf(Double.longBitsToDouble(values[aValue]));
+			case TYPE_STRING:
+				return stringValues[aValue];
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Creates a snapshot of one producer in the map based format.
+	 * @param aProducer index of the producer.
+	 * @return a new ProducerSnapshot.
+	 */
+	public ProducerSnapshot toProducerSnapshot(int aProducer){
+		ProducerSnapshot ret = new ProducerSnapshot();
+		ret.setProducerId(producerIds[aProducer]);
+		ret.setCategory(categories[aProducer]);
+		ret.setSubsystem(subsystems[aProducer]);
+		ret.setStatClassName(statClassNames[aProducer]);
+		ret.setIntervalName(intervalName);
+		ret.setTimestamp(timestamp);
+		for (int s = firstStat[aProducer]; s < firstStat[aProducer + 1]; s++){
+			StatSnapshot statSnapshot = new StatSnapshot(statNames[s]);
+			for (int v = firstValue[s]; v < firstValue[s + 1]; v++)
+				statSnapshot.setValue(SnapshotValueNames.nameOf(valueNameIndexes[v]), getStringValue(v));
+			ret.addSnapshot(statSnapshot);
+		}
+		return ret;
+	}
+
+	@Override public String toString(){
+		return "SnapshotBatch Int: "+intervalName+", producers: "+producerCount+", stats: "+statCount+", values: "+valueCount;
+	}
+}
@@ -0,0 +1,10 @@
+package net.anotheria.moskito.core.snapshot;
+
+/**
+ * A class that wants to consume all snapshots of an interval update at once in the typed {@link SnapshotBatch} format
+ * has to implement this interface. Batches are delivered in a separate thread per consumer, a slow consumer delays
+ * the dispatching of later batches instead of losing them, see {@link SnapshotRepository}.
+ */
+public interface SnapshotBatchConsumer {
+	void consumeSnapshotBatch(SnapshotBatch batch);
+}
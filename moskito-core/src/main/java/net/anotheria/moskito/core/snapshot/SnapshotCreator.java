@@ -2,7 +2,11 @@ package net.anotheria.moskito.core.snapshot;
 
 import net.anotheria.moskito.core.producers.IStats;
 import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
+import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
+import net.anotheria.moskito.core.util.NumericStrings;
 
 import java.util.List;
 
@@ -20,48 +24,92 @@ public class SnapshotCreator {
 	 * @return
 	 */
 	public static ProducerSnapshot createSnapshot(IStatsProducer producer, String intervalName){
-		ProducerSnapshot ret = new ProducerSnapshot();
-		ret.setCategory(producer.getCategory());
-		ret.setSubsystem(producer.getSubsystem());
-		ret.setProducerId(producer.getProducerId());
-		ret.setIntervalName(intervalName);
-
+		SnapshotBatch batch = new SnapshotBatch(intervalName, System.currentTimeMillis(), 0);
+		addProducerSnapshot(batch, producer, IntervalRegistry.getInstance().resolveInterval(intervalName));
+		return batch.toProducerSnapshot(0);
+	}
 
-		List<IStats> stats = producer.getStats();
-		if (stats!=null && stats.size()>0)
-			ret.setStatClassName(stats.get(0).getClass().getName());
+	/**
+	 * Creates a snapshot batch for all given producers.
+	 * @param producers the producers.
+	 * @param intervalName name of the interval.
+	 * @return the batch.
+	 */
+	public static SnapshotBatch createSnapshotBatch(List<IStatsProducer> producers, String intervalName){
+		SnapshotBatch batch = new SnapshotBatch(intervalName, System.currentTimeMillis(), producers.size() * 2);
+		Interval interval = IntervalRegistry.getInstance().resolveInterval(intervalName);
+		for (IStatsProducer producer : producers){
+			addProducerSnapshot(batch, producer, interval);
+		}
+		return batch;
+	}
 
+	/**
+	 * Adds the snapshot of a producer to a batch.
+	 * @param batch target batch.
+	 * @param producer the producer.
+	 * @param interval the interval, null for the absolute values.
+	 */
+	private static void addProducerSnapshot(SnapshotBatch batch, IStatsProducer<?> producer, Interval interval){
+		List<? extends IStats> stats = producer.getStats();
+		boolean empty = stats==null || stats.size()==0;
+		batch.addProducer(producer.getProducerId(), producer.getCategory(), producer.getSubsystem(), empty ? null : stats.get(0).getClass().getName());
 
 		//optimization
-		if (stats==null || stats.size()==0)
-			return ret;
+		if (empty)
+			return;
 		List<String> cachedValueNames = stats.get(0).getAvailableValueNames();
-
+		int[] valueNameIndexes = SnapshotValueNames.indexesOf(cachedValueNames);
 
 		for (IStats stat : stats){
-			ret.addSnapshot(createStatSnapshot(stat, intervalName, cachedValueNames));
+			addStatSnapshot(batch, stat, interval, stat.resolveValueAccessors(cachedValueNames), valueNameIndexes);
 		}
-
-		return ret;
 	}
 
 	/**
-	 * Creates a snapshot for one stat object.
+	 * Adds the snapshot of one stat object to a batch.
+	 * @param batch
 	 * @param stat
-	 * @param intervalName
-	 * @param valueNames
-	 * @return
+	 * @param interval the interval, null for the absolute values.
+	 * @param accessors accessors of the values, cached by the stats object.
+	 * @param valueNameIndexes
 	 */
-	private static StatSnapshot createStatSnapshot(IStats stat, String intervalName, List<String> valueNames){
-		StatSnapshot snapshot = new StatSnapshot(stat.getName());
-
-		for (String valueName : valueNames){
-			snapshot.setValue(valueName, stat.getValueByNameAsString(valueName, intervalName, TimeUnit.NANOSECONDS));
+	private static void addStatSnapshot(SnapshotBatch batch, IStats stat, Interval interval, StatValueAccessor[] accessors, int[] valueNameIndexes){
+		batch.addStat(stat.getName());
+		for (int i = 0; i < valueNameIndexes.length; i++){
+			StatValueAccessor accessor = accessors[i];
+			switch (accessor.getType()){
+				case LONG:
+					batch.addLongValue(valueNameIndexes[i], accessor.getValueAsLong(interval, TimeUnit.NANOSECONDS));
+					break;
+				case DOUBLE:
+					batch.addDoubleValue(valueNameIndexes[i], accessor.getValueAsDouble(interval, TimeUnit.NANOSECONDS));
+					break;
+				default:
+					addValue(batch, valueNameIndexes[i], accessor.getValueAsString(interval, TimeUnit.NANOSECONDS));
+			}
 		}
+	}
 
-
-		return snapshot;
-
-
+	/**
+	 * Adds a value to the batch with the most specific type.
+	 * @param batch
+	 * @param valueNameIndex
+	 * @param value
+	 */
+	static void addValue(SnapshotBatch batch, int valueNameIndex, String value){
+		if (NumericStrings.isLong(value)){
+			batch.addLongValue(valueNameIndex, Long.parseLong(value));
+			return;
+		}
+		if (NumericStrings.mayBeDouble(value)){
+			try{
+				batch.addDoubleValue(valueNameIndex, Double.parseDouble(value));
+				return;
+			}catch(NumberFormatException ignored){
+				//not a double
+			}
+		}
+		batch.addStringValue(valueNameIndex, value);
 	}
 }
@@ -7,19 +7,26 @@ import net.anotheria.moskito.core.stats.IIntervalListener;
 import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.IntervalRegistryListener;
 import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
-import net.anotheria.util.queue.IQueueWorker;
-import net.anotheria.util.queue.QueuedProcessor;
-import net.anotheria.util.queue.UnrecoverableQueueOverflowException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This repository creates snapshots and delivers them to snapshot consumer.
  * Whenever an interval is updated, all producer are queried for stats, the snapshots are created and delivered to
- * consumers.
+ * consumers. The interval update only hands the batch over to a dispatcher thread. The dispatcher puts the batch into
+ * a bounded queue per consumer, each consumer is served by its own thread. If the queue of a slow consumer is full,
+ * the dispatcher waits for it (back-pressure) while the other consumers already have the batch. A consumer only loses
+ * a batch if it doesn't accept it within {@value #DELIVERY_TIMEOUT} seconds, the interval update drops a batch only
+ * if the dispatcher itself is {@value #QUEUE_CAPACITY} batches behind. Dropped batches are logged and counted.
  *
  * @author lrosenberg
  * @since 20.03.13 14:32
@@ -27,9 +34,20 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public final class SnapshotRepository {
 
 	/**
-	 * Consumuers for snapshots.
+	 * Amount of batches that can wait for dispatching, and for delivery per consumer. Each interval update creates
+	 * one batch.
 	 */
-	private final List<SnapshotConsumer> consumers = new CopyOnWriteArrayList<SnapshotConsumer>();
+	private static final int QUEUE_CAPACITY = 16;
+
+	/**
+	 * Seconds the dispatcher waits for free space in the queue of a consumer before the batch is dropped for it.
+	 */
+	private static final long DELIVERY_TIMEOUT = 30;
+
+	/**
+	 * Deliveries to the consumers, one per consumer.
+	 */
+	private final List<ConsumerDelivery> deliveries = new CopyOnWriteArrayList<ConsumerDelivery>();
 
 	/**
 	 * Link to api.
@@ -37,9 +55,24 @@ public final class SnapshotRepository {
 	private IProducerRegistryAPI producerRegistryAPI;
 
 	/**
-	 * Processor for de-coupling snapshot creation and snapshot creation.
+	 * Queue for de-coupling snapshot creation and dispatching to the consumers.
+	 */
+	private final BlockingQueue<SnapshotBatch> queue = new ArrayBlockingQueue<SnapshotBatch>(QUEUE_CAPACITY);
+
+	/**
+	 * Amount of batches that wait for dispatching plus the amount of deliveries that are queued or running.
+	 */
+	private final AtomicInteger pendingBatches = new AtomicInteger(0);
+
+	/**
+	 * Amount of batches that were dropped, because the consumers were too slow.
 	 */
-	private QueuedProcessor<ProducerSnapshot> snapshotQueuedProcessor;
+	private final AtomicLong droppedBatches = new AtomicLong(0);
+
+	/**
+	 * Number of the next delivery thread.
+	 */
+	private final AtomicInteger deliveryThreadNumber = new AtomicInteger(0);
 
 	/**
 	 * Logger.
@@ -53,19 +86,14 @@ public final class SnapshotRepository {
 	private boolean inTestMode = false;
 
 	private SnapshotRepository(){
-		snapshotQueuedProcessor = new QueuedProcessor<ProducerSnapshot>("SnapshotConsumers", new IQueueWorker<ProducerSnapshot>() {
+		Thread dispatcherThread = new Thread(new Runnable() {
 			@Override
-			public void doWork(ProducerSnapshot producerSnapshot) throws Exception {
-				for (SnapshotConsumer consumer : consumers){
-					try{
-						consumer.consumeSnapshot(producerSnapshot);
-					}catch(Exception e){
-						log.warn("consumer "+consumer+" failed to process snapshot "+producerSnapshot);
-					}
-				}
+			public void run() {
+				dispatchBatches();
 			}
-		}, 1000, 50,  log);
-		snapshotQueuedProcessor.start();
+		}, "SnapshotDispatcher");
+		dispatcherThread.setDaemon(true);
+		dispatcherThread.start();
 		inTestMode = System.getProperty("JUNITTEST", "false").equals("true");
 		producerRegistryAPI = new ProducerRegistryAPIFactory().createProducerRegistryAPI();
 		List<Interval> intervals =  IntervalRegistry.getInstance().getIntervals();
@@ -80,25 +108,21 @@ public final class SnapshotRepository {
 	}
 
 	private void intervalUpdated(Interval aCaller){
-		if (consumers.size()==0)
+		if (deliveries.size()==0)
 			return;
 		List<IStatsProducer> producers = producerRegistryAPI.getAllProducers();
 		if (producers.size()==0)
 			return;
-		String intervalName = aCaller.getName();
-		for (IStatsProducer<?> producer : producers){
-			ProducerSnapshot snapshot = SnapshotCreator.createSnapshot(producer, intervalName);
-			try{
-				snapshotQueuedProcessor.addToQueue(snapshot);
-			} catch (UnrecoverableQueueOverflowException e) {
-				log.warn("Queue overflow - throw away snapshot: "+snapshot,e );
-			}
+		SnapshotBatch batch = SnapshotCreator.createSnapshotBatch(producers, aCaller.getName());
+		pendingBatches.incrementAndGet();
+		if (!queue.offer(batch)){
+			pendingBatches.decrementAndGet();
+			log.warn("Snapshot dispatcher is "+QUEUE_CAPACITY+" batches behind, dropped "+batch+", dropped batches total: "+droppedBatches.incrementAndGet());
 		}
 		if (inTestMode){
-			//if we are in a unittest, we have to wait for producer to empty its queue, because
-			//this producer doesn't support sync mode like queuedeventsender.
+			//if we are in a unittest, we have to wait for the delivery threads to deliver the batch.
 			//Yes, having Thread.sleep() in test is a bad thing to do, but what is the alternative?
-			while(snapshotQueuedProcessor.getQueueSize()!=0){
+			while(pendingBatches.get()!=0){
 				try{
 					Thread.sleep(50);
 				}catch(InterruptedException ignored){}
@@ -107,6 +131,204 @@ public final class SnapshotRepository {
 
 	}
 
+	/**
+	 * Hands queued batches over to the consumer queues, runs in the dispatcher thread.
+	 */
+	private void dispatchBatches(){
+		while (true){
+			SnapshotBatch batch;
+			try{
+				batch = queue.take();
+			}catch(InterruptedException e){
+				return;
+			}
+			try{
+				dispatchBatch(batch);
+			}finally{
+				pendingBatches.decrementAndGet();
+			}
+		}
+	}
+
+	private void dispatchBatch(SnapshotBatch batch){
+		List<ConsumerDelivery> full = null;
+		//first serve all consumers with free space, then wait for the slow ones.
+		for (ConsumerDelivery delivery : deliveries){
+			if (!delivery.offer(batch)){
+				if (full == null)
+					full = new ArrayList<ConsumerDelivery>(1);
+				full.add(delivery);
+			}
+		}
+		if (full == null)
+			return;
+		for (ConsumerDelivery delivery : full){
+			boolean accepted = false;
+			try{
+				accepted = delivery.offer(batch, DELIVERY_TIMEOUT);
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			if (!accepted)
+				log.warn("Snapshot consumer "+delivery+" didn't accept "+batch+" within "+DELIVERY_TIMEOUT+" seconds, dropped batches total: "+droppedBatches.incrementAndGet());
+		}
+	}
+
+	/**
+	 * Returns the amount of snapshot batches that were dropped because the consumers could not keep up.
+	 * A batch that was dropped for one consumer only is counted as well.
+	 * @return amount of dropped batches since start.
+	 */
+	public long getDroppedBatchesCount(){
+		return droppedBatches.get();
+	}
+
+	/**
+	 * Queue and thread that deliver the batches to one consumer.
+	 */
+	private abstract class ConsumerDelivery implements Runnable{
+		/**
+		 * Batches waiting for delivery.
+		 */
+		private final BlockingQueue<SnapshotBatch> batches = new ArrayBlockingQueue<SnapshotBatch>(QUEUE_CAPACITY);
+		/**
+		 * True after the consumer was removed, queued batches are discarded then.
+		 */
+		private volatile boolean stopped;
+
+		/**
+		 * Starts the delivery thread.
+		 */
+		void start(){
+			Thread thread = new Thread(this, "SnapshotDelivery-"+deliveryThreadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		/**
+		 * Stops the delivery thread after the queued batches are discarded.
+		 */
+		void stop(){
+			stopped = true;
+		}
+
+		boolean offer(SnapshotBatch batch){
+			pendingBatches.incrementAndGet();
+			return accepted(batch, batches.offer(batch));
+		}
+
+		boolean offer(SnapshotBatch batch, long timeoutInSeconds) throws InterruptedException{
+			pendingBatches.incrementAndGet();
+			boolean queued = false;
+			try{
+				queued = batches.offer(batch, timeoutInSeconds, TimeUnit.SECONDS);
+			}finally{
+				accepted(batch, queued);
+			}
+			return queued;
+		}
+
+		private boolean accepted(SnapshotBatch batch, boolean queued){
+			//the delivery thread may have ended before the batch was queued.
+			if (!queued || (stopped && batches.remove(batch)))
+				pendingBatches.decrementAndGet();
+			return queued;
+		}
+
+		@Override public void run(){
+			while (true){
+				SnapshotBatch batch;
+				try{
+					batch = batches.poll(1, TimeUnit.SECONDS);
+				}catch(InterruptedException e){
+					return;
+				}
+				if (batch == null){
+					if (stopped)
+						return;
+					continue;
+				}
+				try{
+					if (!stopped)
+						deliver(batch);
+				}finally{
+					pendingBatches.decrementAndGet();
+				}
+			}
+		}
+
+		/**
+		 * Delivers the batch to the consumer.
+		 * @param batch the batch.
+		 */
+		abstract void deliver(SnapshotBatch batch);
+
+		/**
+		 * Returns the consumer.
+		 * @return the consumer.
+		 */
+		abstract Object getConsumer();
+
+		@Override public String toString(){
+			return String.valueOf(getConsumer());
+		}
+	}
+
+	/**
+	 * Delivers whole batches to a {@link SnapshotBatchConsumer}.
+	 */
+	private final class BatchDelivery extends ConsumerDelivery{
+		/**
+		 * The consumer.
+		 */
+		private final SnapshotBatchConsumer consumer;
+
+		private BatchDelivery(SnapshotBatchConsumer aConsumer){
+			consumer = aConsumer;
+		}
+
+		@Override void deliver(SnapshotBatch batch){
+			try{
+				consumer.consumeSnapshotBatch(batch);
+			}catch(Exception e){
+				log.warn("consumer "+consumer+" failed to process snapshot batch "+batch, e);
+			}
+		}
+
+		@Override Object getConsumer(){
+			return consumer;
+		}
+	}
+
+	/**
+	 * Delivers the snapshots of a batch one by one to a {@link SnapshotConsumer}.
+	 */
+	private final class SnapshotDelivery extends ConsumerDelivery{
+		/**
+		 * The consumer.
+		 */
+		private final SnapshotConsumer consumer;
+
+		private SnapshotDelivery(SnapshotConsumer aConsumer){
+			consumer = aConsumer;
+		}
+
+		@Override void deliver(SnapshotBatch batch){
+			for (int p = 0; p < batch.getProducerCount(); p++){
+				ProducerSnapshot producerSnapshot = batch.toProducerSnapshot(p);
+				try{
+					consumer.consumeSnapshot(producerSnapshot);
+				}catch(Exception e){
+					log.warn("consumer "+consumer+" failed to process snapshot "+producerSnapshot);
+				}
+			}
+		}
+
+		@Override Object getConsumer(){
+			return consumer;
+		}
+	}
+
 	/**
 	 * Snapshot repository's interval listener that triggers creation of new snapshots when interval gets updated.
 	 */
@@ -144,9 +366,7 @@ public final class SnapshotRepository {
 	 * @param consumer
 	 */
 	public void addConsumer(SnapshotConsumer consumer){
-		if (consumers.contains(consumer))
-			consumers.remove(consumer);
-		consumers.add(consumer);
+		addDelivery(new SnapshotDelivery(consumer));
 	}
 
 	/**
@@ -154,6 +374,37 @@ public final class SnapshotRepository {
 	 * @param consumer
 	 */
 	public void removeConsumer(SnapshotConsumer consumer){
-		consumers.remove(consumer);
+		removeDelivery(consumer);
+	}
+
+	/**
+	 * Adds a new snapshot batch consumer.
+	 * @param consumer
+	 */
+	public void addBatchConsumer(SnapshotBatchConsumer consumer){
+		addDelivery(new BatchDelivery(consumer));
+	}
+
+	/**
+	 * Removes a previously registered batch consumer.
+	 * @param consumer
+	 */
+	public void removeBatchConsumer(SnapshotBatchConsumer consumer){
+		removeDelivery(consumer);
+	}
+
+	private synchronized void addDelivery(ConsumerDelivery delivery){
+		removeDelivery(delivery.getConsumer());
+		deliveries.add(delivery);
+		delivery.start();
+	}
+
+	private synchronized void removeDelivery(Object consumer){
+		for (ConsumerDelivery delivery : deliveries){
+			if (delivery.getConsumer().equals(consumer)){
+				deliveries.remove(delivery);
+				delivery.stop();
+			}
+		}
 	}
 }
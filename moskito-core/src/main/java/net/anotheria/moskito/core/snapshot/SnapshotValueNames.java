@@ -0,0 +1,69 @@
+package net.anotheria.moskito.core.snapshot;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * VM-wide dictionary of value names used in snapshot batches. Each value name gets an index on first usage, which never
+ * changes afterwards, hence consumers can store value names as ints and resolve them once.
+ */
+public final class SnapshotValueNames {
+
+	/**
+	 * Indexes by value name.
+	 */
+	private static final ConcurrentMap<String, Integer> indexes = new ConcurrentHashMap<>();
+
+	/**
+	 * Value names by index.
+	 */
+	private static volatile String[] names = new String[0];
+
+	private SnapshotValueNames(){
+	}
+
+	/**
+	 * Returns the index of the value name, assigns a new index if the name is unknown.
+	 * @param aValueName the value name.
+	 * @return the index.
+	 */
+	public static int indexOf(String aValueName){
+		Integer index = indexes.get(aValueName);
+		return index == null ? register(aValueName) : index;
+	}
+
+	/**
+	 * Returns the indexes of the value names.
+	 * @param someValueNames the value names.
+	 * @return the indexes in the same order.
+	 */
+	public static int[] indexesOf(List<String> someValueNames){
+		int[] ret = new int[someValueNames.size()];
+		for (int i = 0; i < ret.length; i++)
+			ret[i] = indexOf(someValueNames.get(i));
+		return ret;
+	}
+
+	/**
+	 * Returns the value name for an index.
+	 * @param anIndex the index.
+	 * @return the value name.
+	 */
+	public static String nameOf(int anIndex){
+		return names[anIndex];
+	}
+
+	private static synchronized int register(String aValueName){
+		Integer index = indexes.get(aValueName);
+		if (index != null)
+			return index;
+		String[] newNames = Arrays.copyOf(names, names.length + 1);
+		newNames[names.length] = aValueName;
+		//names must be published before the index to make nameOf safe for every returned index.
+		names = newNames;
+		indexes.put(aValueName, names.length - 1);
+		return names.length - 1;
+	}
+}
@@ -0,0 +1,30 @@
+package net.anotheria.moskito.core.stats;
+
+/**
+ * A StatValue that records the distribution of the submitted values (typically durations in nanoseconds) per interval
+ * instead of a single number. Values are recorded into fixed log-linear buckets, hence the memory is bounded and
+ * returned percentiles are approximations with a bounded relative error.
+ */
+public interface HistogramStatValue extends TypeAwareStatValue {
+
+	/**
+	 * Records a value in all intervals.
+	 * @param aValue the value, negative values are recorded as 0.
+	 */
+	void record(long aValue);
+
+	/**
+	 * Returns the value at the given percentile, for example 99.9 for the p999.
+	 * @param aPercentile percentile between 0 and 100.
+	 * @param aIntervalName the name of the interval or <code>null</code> to get the absolute value.
+	 * @return the highest value of the bucket the percentile falls into, 0 if nothing was recorded.
+	 */
+	long getValueAtPercentile(double aPercentile, String aIntervalName);
+
+	/**
+	 * Returns the amount of recorded values.
+	 * @param aIntervalName the name of the interval or <code>null</code> to get the absolute value.
+	 * @return the amount of recorded values.
+	 */
+	long getCount(String aIntervalName);
+}
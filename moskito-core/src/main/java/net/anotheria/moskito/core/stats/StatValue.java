@@ -85,6 +85,30 @@ public interface StatValue {
 	 */
 	double getValueAsDouble(String aIntervalName);
 
+	/**
+	 * This method returns the current value of a specific Interval as int. Reading by Interval avoids the name lookup.
+	 *
+	 * @param aInterval the Interval or <code>null</code> to get the absolute value
+	 * @return the current value
+	 */
+	int getIntervalValueAsInt(Interval aInterval);
+
+	/**
+	 * This method returns the current value of a specific Interval as long. Reading by Interval avoids the name lookup.
+	 *
+	 * @param aInterval the Interval or <code>null</code> to get the absolute value
+	 * @return the current value
+	 */
+	long getIntervalValueAsLong(Interval aInterval);
+
+	/**
+	 * This method returns the current value of a specific Interval as double. Reading by Interval avoids the name lookup.
+	 *
+	 * @param aInterval the Interval or <code>null</code> to get the absolute value
+	 * @return the current value
+	 */
+	double getIntervalValueAsDouble(Interval aInterval);
+
 	/**
 	 * This method sets the given int value to be the current value of all registered Intervals.
 	 * Particularly, this includes the absolute value.<br> 
@@ -29,5 +29,11 @@ public enum StatValueTypes {
 	/**
 	 * This is a type used in CPU Counter. It doesn't keep an absolute long value, but rather the diff to previous value.
 	 */
-	DIFFLONG;
+	DIFFLONG,
+	/**
+	 * Latency histogram. Records the distribution of submitted values (usually durations) and provides percentiles.
+	 * The plain value of a histogram is the amount of recorded values.
+	 * @see HistogramStatValue
+	 */
+	HISTOGRAM;
 }
@@ -5,8 +5,12 @@ package net.anotheria.moskito.core.stats.impl;
 
 import net.anotheria.moskito.core.stats.Interval;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class implements a ValueHolder that is able to process double values.
+ * The current value is stored as raw long bits in an AtomicLong and updated in a compare-and-set loop,
+ * so concurrent updates and interval updates don't lose values and no objects are allocated on update.
  * 
  * @author Michael König
  */
@@ -20,17 +24,17 @@ public class DoubleValueHolder extends AbstractValueHolder {
     /**
      * This attribute stores the current value supporting concurrent access.
      */
-    private double currentValue;
+    private final AtomicLong currentValue;
 
     /**
      * The value measured in the last interval.
      */
-    private double lastValue;
+    private volatile double lastValue;
 
     /**
      * This is the default value that this ValueHolder contains after a reset.
      */
-    private double defaultValue;
+    private volatile double defaultValue;
 
     /**
      * Constructs an instance of DoubleValueHolder.
@@ -40,6 +44,43 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     public DoubleValueHolder(Interval aInterval) {
         super(aInterval);
+        defaultValue = DEFAULT_DEFAULT_VALUE;
+        lastValue = DEFAULT_DEFAULT_VALUE;
+        currentValue = new AtomicLong(Double.doubleToRawLongBits(DEFAULT_DEFAULT_VALUE));
+    }
+
+    /**
+     * Adds the given value to the current value.
+     * 
+     * @param aValue
+     *            the value to add, may be negative
+     */
+    private void add(double aValue) {
+        long current;
+        long next;
+        do {
+            current = currentValue.get();
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + aValue);
+        } while (!currentValue.compareAndSet(current, next));
+    }
+
+    /**
+     * Returns the current value.
+     * 
+     * @return the current value
+     */
+    private double current() {
+        return Double.longBitsToDouble(currentValue.get());
+    }
+
+    /**
+     * Sets the current value.
+     * 
+     * @param aValue
+     *            the new value
+     */
+    private void setCurrent(double aValue) {
+        currentValue.set(Double.doubleToRawLongBits(aValue));
     }
 
     /**
@@ -47,8 +88,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void intervalUpdated(Interval aCaller) {
-        lastValue = currentValue;
-        currentValue = defaultValue;
+        lastValue = Double.longBitsToDouble(currentValue.getAndSet(Double.doubleToRawLongBits(defaultValue)));
     }
 
     /**
@@ -56,7 +96,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void reset() {
-        currentValue = defaultValue;
+        setCurrent(defaultValue);
         lastValue = defaultValue;
     }
 
@@ -113,7 +153,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public int getCurrentValueAsInt() {
-        return (int) Math.rint(currentValue);
+        return (int) Math.rint(current());
     }
 
     /**
@@ -121,7 +161,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public long getCurrentValueAsLong() {
-        return Math.round(currentValue);
+        return Math.round(current());
     }
 
     /**
@@ -129,7 +169,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public double getCurrentValueAsDouble() {
-        return currentValue;
+        return current();
     }
 
     /**
@@ -137,7 +177,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public String getCurrentValueAsString() {
-        return String.valueOf(currentValue);
+        return String.valueOf(current());
     }
 
     /**
@@ -145,7 +185,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void setValueAsInt(int aValue) {
-        currentValue = aValue;
+        setCurrent(aValue);
     }
 
     /**
@@ -153,7 +193,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void setValueAsString(String aValue) {
-        currentValue = Double.parseDouble(aValue);
+        setCurrent(Double.parseDouble(aValue));
     }
 
     /**
@@ -161,7 +201,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void setValueAsLong(long aValue) {
-        currentValue = aValue;
+        setCurrent(aValue);
     }
 
     /**
@@ -169,7 +209,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void setValueAsDouble(double aValue) {
-        currentValue = aValue;
+        setCurrent(aValue);
     }
 
     /**
@@ -177,7 +217,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void increaseByInt(int aValue) {
-        currentValue += aValue;
+        add(aValue);
     }
 
     /**
@@ -185,7 +225,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void increaseByLong(long aValue) {
-        currentValue += aValue;
+        add(aValue);
     }
 
     /**
@@ -193,7 +233,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void increaseByDouble(double aValue) {
-        currentValue += aValue;
+        add(aValue);
     }
 
     /**
@@ -201,7 +241,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void decreaseByInt(int aValue) {
-        currentValue -= aValue;
+        add(-aValue);
     }
 
     /**
@@ -209,7 +249,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void decreaseByLong(long aValue) {
-        currentValue -= aValue;
+        add(-aValue);
     }
 
     /**
@@ -217,7 +257,7 @@ public class DoubleValueHolder extends AbstractValueHolder {
      */
     @Override
     public void decreaseByDouble(double aValue) {
-        currentValue -= aValue;
+        add(-aValue);
     }
 
     /**
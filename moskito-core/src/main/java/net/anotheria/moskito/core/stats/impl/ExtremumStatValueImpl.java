@@ -0,0 +1,62 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.StatValueTypes;
+import net.anotheria.moskito.core.stats.ValueHolder;
+
+/**
+ * Long StatValue that tracks the minimum or maximum of the submitted values per interval. The setValueIfLesser (MIN)
+ * or setValueIfGreater (MAX) methods are mapped to the lock-free {@link ExtremumValueHolder#accumulate(long)},
+ * all other methods behave like in a regular long StatValue.
+ */
+class ExtremumStatValueImpl extends TypeAwareStatValueImpl {
+
+	/**
+	 * The tracked extremum.
+	 */
+	private final ExtremumValueHolder.Direction direction;
+
+	/**
+	 * Creates a new extremum value.
+	 * @param aName the name of the statistic value.
+	 * @param aFactory the factory for the tracked extremum.
+	 */
+	ExtremumStatValueImpl(String aName, ExtremumValueHolderFactory aFactory){
+		super(aName, StatValueTypes.LONG, aFactory);
+		direction = aFactory.getDirection();
+	}
+
+	private void accumulate(long aValue){
+		for (ValueHolder holder : valuesAsList)
+			((ExtremumValueHolder)holder).accumulate(aValue);
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsLong(long aValue){
+		if (direction == ExtremumValueHolder.Direction.MAX)
+			accumulate(aValue);
+		else
+			super.setValueIfGreaterThanCurrentAsLong(aValue);
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsInt(int aValue){
+		setValueIfGreaterThanCurrentAsLong(aValue);
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsDouble(double aValue){
+		setValueIfGreaterThanCurrentAsLong((long) aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsLong(long aValue){
+		if (direction == ExtremumValueHolder.Direction.MIN)
+			accumulate(aValue);
+		else
+			super.setValueIfLesserThanCurrentAsLong(aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsInt(int aValue){
+		setValueIfLesserThanCurrentAsLong(aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsDouble(double aValue){
+		setValueIfLesserThanCurrentAsLong((long) aValue);
+	}
+}
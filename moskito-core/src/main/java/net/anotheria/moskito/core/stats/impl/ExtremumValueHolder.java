@@ -0,0 +1,203 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long value holder for monotonic extremum values like min or max request duration. In contrary to the
+ * read-then-set sequence of the regular holders, {@link #accumulate(long)} updates the value in a compare-and-set loop
+ * and therefore doesn't lose extrema under concurrency. Since most values are not new extrema, the usual case is a
+ * single read without any write.
+ */
+class ExtremumValueHolder extends AbstractValueHolder {
+
+	/**
+	 * Which extremum is tracked by the holder.
+	 */
+	enum Direction {
+		/**
+		 * Tracks the smallest value.
+		 */
+		MIN(Long.MAX_VALUE),
+		/**
+		 * Tracks the greatest value.
+		 */
+		MAX(Long.MIN_VALUE);
+
+		/**
+		 * Value that is neither smaller nor greater than any value for this direction.
+		 */
+		private final long neutralValue;
+
+		Direction(long aNeutralValue){
+			neutralValue = aNeutralValue;
+		}
+
+		/**
+		 * Returns true if the candidate is a new extremum compared to current.
+		 */
+		boolean isBetter(long candidate, long current){
+			return this == MIN ? candidate < current : candidate > current;
+		}
+
+		long getNeutralValue(){
+			return neutralValue;
+		}
+	}
+
+	/**
+	 * The tracked extremum.
+	 */
+	private final Direction direction;
+
+	/**
+	 * The extremum of the current interval.
+	 */
+	private final AtomicLong currentValue;
+
+	/**
+	 * The extremum of the last interval.
+	 */
+	private volatile long lastValue;
+
+	/**
+	 * This is the default value that this ValueHolder contains after a reset.
+	 */
+	private volatile long defaultValue;
+
+	/**
+	 * Creates a new holder.
+	 * @param aInterval the interval this holder is responsible for.
+	 * @param aDirection the tracked extremum.
+	 */
+	ExtremumValueHolder(Interval aInterval, Direction aDirection) {
+		super(aInterval);
+		direction = aDirection;
+		defaultValue = direction.getNeutralValue();
+		currentValue = new AtomicLong(defaultValue);
+		lastValue = defaultValue;
+	}
+
+	/**
+	 * Sets the value as current value, if it is a new extremum.
+	 * @param aValue the value.
+	 */
+	void accumulate(long aValue){
+		long current;
+		do{
+			current = currentValue.get();
+			if (!direction.isBetter(aValue, current))
+				return;
+		}while(!currentValue.compareAndSet(current, aValue));
+	}
+
+	Direction getDirection(){
+		return direction;
+	}
+
+	@Override public void intervalUpdated(Interval caller) {
+		lastValue = currentValue.getAndSet(defaultValue);
+	}
+
+	@Override public String toString() {
+		return super.toString() + " " + direction + " " + lastValue + " / " + currentValue.get();
+	}
+
+	@Override public void increase() {
+		currentValue.incrementAndGet();
+	}
+
+	@Override public void decrease() {
+		currentValue.decrementAndGet();
+	}
+
+	@Override public void increaseByInt(int aValue) {
+		increaseByLong(aValue);
+	}
+
+	@Override public void increaseByLong(long aValue) {
+		currentValue.addAndGet(aValue);
+	}
+
+	@Override public void increaseByDouble(double aValue) {
+		increaseByLong((long) aValue);
+	}
+
+	@Override public void decreaseByInt(int aValue) {
+		decreaseByLong(aValue);
+	}
+
+	@Override public void decreaseByLong(long aValue) {
+		currentValue.addAndGet(-aValue);
+	}
+
+	@Override public void decreaseByDouble(double aValue) {
+		decreaseByLong((long) aValue);
+	}
+
+	@Override public int getValueAsInt() {
+		return (int) getValueAsLong();
+	}
+
+	@Override public long getValueAsLong() {
+		return lastValue;
+	}
+
+	@Override public double getValueAsDouble() {
+		return getValueAsLong();
+	}
+
+	@Override public String getValueAsString() {
+		return String.valueOf(lastValue);
+	}
+
+	@Override public int getCurrentValueAsInt() {
+		return (int) getCurrentValueAsLong();
+	}
+
+	@Override public long getCurrentValueAsLong() {
+		return currentValue.get();
+	}
+
+	@Override public double getCurrentValueAsDouble() {
+		return getCurrentValueAsLong();
+	}
+
+	@Override public String getCurrentValueAsString() {
+		return String.valueOf(currentValue.get());
+	}
+
+	@Override public void setValueAsInt(int aValue) {
+		setValueAsLong(aValue);
+	}
+
+	@Override public void setValueAsLong(long aValue) {
+		currentValue.set(aValue);
+	}
+
+	@Override public void setValueAsDouble(double aValue) {
+		setValueAsLong((long) aValue);
+	}
+
+	@Override public void setValueAsString(String aValue) {
+		setValueAsLong(Long.parseLong(aValue));
+	}
+
+	@Override public void setDefaultValueAsInt(int aValue) {
+		setDefaultValueAsLong(aValue);
+	}
+
+	@Override public void setDefaultValueAsLong(long aValue) {
+		defaultValue = aValue;
+	}
+
+	@Override public void setDefaultValueAsDouble(double aValue) {
+		setDefaultValueAsLong((long) aValue);
+	}
+
+	@Override public void reset() {
+		currentValue.set(defaultValue);
+		lastValue = defaultValue;
+	}
+}
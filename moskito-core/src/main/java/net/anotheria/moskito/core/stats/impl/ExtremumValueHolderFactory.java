@@ -0,0 +1,35 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+/**
+ * This ValueHolderFactory implementation creates ExtremumValueHolder instances for one direction.
+ */
+class ExtremumValueHolderFactory extends AbstractValueHolderFactory {
+
+	/**
+	 * Factory instance for min values.
+	 */
+	static final ExtremumValueHolderFactory MIN = new ExtremumValueHolderFactory(ExtremumValueHolder.Direction.MIN);
+	/**
+	 * Factory instance for max values.
+	 */
+	static final ExtremumValueHolderFactory MAX = new ExtremumValueHolderFactory(ExtremumValueHolder.Direction.MAX);
+
+	/**
+	 * Direction of the created holders.
+	 */
+	private final ExtremumValueHolder.Direction direction;
+
+	private ExtremumValueHolderFactory(ExtremumValueHolder.Direction aDirection){
+		direction = aDirection;
+	}
+
+	@Override protected AbstractValueHolder createValueHolderObject(Interval aInterval) {
+		return new ExtremumValueHolder(aInterval, direction);
+	}
+
+	ExtremumValueHolder.Direction getDirection(){
+		return direction;
+	}
+}
@@ -0,0 +1,113 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cumulative bucket counts of a histogram stat value. The buckets are log-linear: values below 16 have an own bucket,
+ * each further power of two is split into 16 linear sub buckets, which bounds the relative error to 1/16 (6.25%).
+ * Values of 2^41 (about 36 minutes in nanoseconds) and above are counted in an overflow bucket and reported as 2^41.
+ * This makes {@value #BUCKETS} buckets, about 4.9 kb for the shared counts. Each updated interval adds two
+ * arrays of the same size (see {@link HistogramValueHolder}), with the default intervals a histogram needs about
+ * 60 kb. Recording is a single atomic increment and allocates nothing.
+ * The counts are never reset, the interval holders derive their windows by subtracting snapshots.
+ */
+final class HistogramBuckets {
+
+	/**
+	 * Bits of precision per power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * Amount of linear sub buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Highest power of two that is still resolved.
+	 */
+	private static final int MAX_MAGNITUDE = 40;
+
+	/**
+	 * Index of the overflow bucket, all buckets below are resolved.
+	 */
+	private static final int OVERFLOW_BUCKET = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	/**
+	 * Total amount of buckets.
+	 */
+	static final int BUCKETS = OVERFLOW_BUCKET + 1;
+
+	/**
+	 * The counts.
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Records a value.
+	 * @param aValue the value.
+	 */
+	void record(long aValue){
+		counts.incrementAndGet(bucketIndex(aValue));
+	}
+
+	/**
+	 * Returns the cumulative count of a bucket.
+	 * @param bucket index of the bucket.
+	 * @return count since creation.
+	 */
+	long get(int bucket){
+		return counts.get(bucket);
+	}
+
+	/**
+	 * Returns the bucket index for the given value.
+	 * @param aValue the value.
+	 * @return the bucket index.
+	 */
+	static int bucketIndex(long aValue){
+		if (aValue < SUB_BUCKETS)
+			return aValue < 0 ? 0 : (int)aValue;
+		int magnitude = 63 - Long.numberOfLeadingZeros(aValue);
+		if (magnitude > MAX_MAGNITUDE)
+			return OVERFLOW_BUCKET;
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int subBucket = (int)(aValue >>> shift);
+		return (shift + 1) * SUB_BUCKETS + subBucket - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the highest value that is counted in the given bucket.
+	 * @param bucket the bucket index.
+	 * @return the highest value of the bucket.
+	 */
+	static long highestValueInBucket(int bucket){
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		if (bucket == OVERFLOW_BUCKET)
+			return 1L << (MAX_MAGNITUDE + 1);
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the value at the given percentile from window counts.
+	 * @param aPercentile percentile between 0 and 100.
+	 * @param windowCounts counts of the window per bucket.
+	 * @param totalCount sum of all window counts.
+	 * @return the highest value of the bucket the percentile falls into or 0 if the window is empty.
+	 */
+	static long valueAtPercentile(double aPercentile, long[] windowCounts, long totalCount){
+		if (totalCount == 0)
+			return 0;
+		long rank = Math.max(1, (long)Math.ceil(Math.min(100, Math.max(0, aPercentile)) / 100 * totalCount));
+		long seen = 0;
+		for (int i = 0; i < windowCounts.length; i++){
+			seen += windowCounts[i];
+			if (seen >= rank)
+				return highestValueInBucket(i);
+		}
+		return highestValueInBucket(windowCounts.length - 1);
+	}
+}
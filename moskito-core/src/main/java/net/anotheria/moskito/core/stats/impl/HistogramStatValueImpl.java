@@ -0,0 +1,117 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.HistogramStatValue;
+import net.anotheria.moskito.core.stats.StatValueTypes;
+
+/**
+ * Implementation of the {@link HistogramStatValue}. All intervals share one set of cumulative {@link HistogramBuckets},
+ * so recording a value is a single atomic increment regardless of the amount of intervals.
+ * The generic StatValue methods are mapped to the histogram: set, setIf and increaseBy methods record the value once,
+ * increase, decrease and decreaseBy methods are ignored.
+ */
+class HistogramStatValueImpl extends TypeAwareStatValueImpl implements HistogramStatValue {
+
+	/**
+	 * The shared buckets.
+	 */
+	private final HistogramBuckets buckets;
+
+	/**
+	 * Creates a new histogram value.
+	 * @param aName the name of the statistic value.
+	 */
+	HistogramStatValueImpl(String aName){
+		this(aName, new HistogramBuckets());
+	}
+
+	private HistogramStatValueImpl(String aName, HistogramBuckets someBuckets){
+		super(aName, StatValueTypes.HISTOGRAM, new HistogramValueHolderFactory(someBuckets));
+		buckets = someBuckets;
+	}
+
+	@Override public void record(long aValue){
+		buckets.record(aValue);
+	}
+
+	@Override public long getValueAtPercentile(double aPercentile, String aIntervalName){
+		HistogramValueHolder holder = aIntervalName == null ? (HistogramValueHolder)absoluteValue : getHolder(aIntervalName);
+		//the absolute value is never updated, it always shows the current window.
+		return holder == absoluteValue ? holder.getCurrentValueAtPercentile(aPercentile) : holder.getValueAtPercentile(aPercentile);
+	}
+
+	@Override public long getCount(String aIntervalName){
+		return getValueAsLong(aIntervalName);
+	}
+
+	private HistogramValueHolder getHolder(String aIntervalName){
+		return (HistogramValueHolder)getHolderByIntervalName(aIntervalName);
+	}
+
+	@Override public void setValueAsInt(int aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueAsLong(long aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueAsDouble(double aValue){
+		record((long) aValue);
+	}
+
+	@Override public void setValueAsString(String aValue){
+		record(Long.parseLong(aValue));
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsLong(long aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsInt(int aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueIfGreaterThanCurrentAsDouble(double aValue){
+		record((long) aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsLong(long aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsInt(int aValue){
+		record(aValue);
+	}
+
+	@Override public void setValueIfLesserThanCurrentAsDouble(double aValue){
+		record((long) aValue);
+	}
+
+	@Override public void increaseByInt(int aValue){
+		record(aValue);
+	}
+
+	@Override public void increaseByLong(long aValue){
+		record(aValue);
+	}
+
+	@Override public void increaseByDouble(double aValue){
+		record((long) aValue);
+	}
+
+	//a recorded value can't be taken back.
+	@Override public void increase(){
+	}
+
+	@Override public void decrease(){
+	}
+
+	@Override public void decreaseByInt(int aValue){
+	}
+
+	@Override public void decreaseByLong(long aValue){
+	}
+
+	@Override public void decreaseByDouble(double aValue){
+	}
+}
@@ -0,0 +1,217 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+/**
+ * Value holder of a {@link HistogramStatValueImpl} for one interval. The holder reads the shared cumulative
+ * {@link HistogramBuckets} and remembers the bucket counts at the start of the current window. On interval update
+ * the finished window (counts minus start counts) is published as last window. The start counts are allocated on
+ * the first interval update, so the holder for the absolute value, which is never updated, costs no bucket memory
+ * until it is reset or the percentiles of the current window are read. Each updated holder keeps the start counts
+ * and the last window, two arrays of {@value HistogramBuckets#BUCKETS} longs, about 9.7 kb.
+ * The plain value of the holder (getValueAsLong etc) is the amount of recorded values. Set and increaseBy methods
+ * record a value, increase, decrease and decreaseBy methods are ignored, since a recorded value can't be taken back.
+ */
+class HistogramValueHolder extends AbstractValueHolder {
+
+	/**
+	 * Shared cumulative counts.
+	 */
+	private final HistogramBuckets buckets;
+
+	/**
+	 * Cumulative counts at the start of the current window, null means zero for all buckets.
+	 */
+	private long[] windowStart;
+
+	/**
+	 * The last finished window, null if there is none yet.
+	 */
+	private volatile Window lastWindow;
+
+	/**
+	 * Buffer for the counts of the current window, reused by getCurrentValueAtPercentile.
+	 */
+	private long[] currentWindow;
+
+	/**
+	 * Creates a new holder.
+	 * @param aInterval the interval this holder is responsible for.
+	 * @param someBuckets the shared counts.
+	 */
+	HistogramValueHolder(Interval aInterval, HistogramBuckets someBuckets) {
+		super(aInterval);
+		buckets = someBuckets;
+	}
+
+	@Override public synchronized void intervalUpdated(Interval caller) {
+		long[] start = windowStart;
+		if (start == null){
+			start = new long[HistogramBuckets.BUCKETS];
+			windowStart = start;
+		}
+		//the published window is never modified, readers may still use the previous one.
+		long[] last = new long[HistogramBuckets.BUCKETS];
+		long count = 0;
+		for (int i = 0; i < HistogramBuckets.BUCKETS; i++){
+			long current = buckets.get(i);
+			last[i] = current - start[i];
+			start[i] = current;
+			count += last[i];
+		}
+		lastWindow = new Window(last, count);
+	}
+
+	/**
+	 * Returns the value at the given percentile in the last finished window.
+	 * @param aPercentile percentile between 0 and 100.
+	 * @return the value at percentile.
+	 */
+	long getValueAtPercentile(double aPercentile){
+		Window last = lastWindow;
+		return last == null ? 0 : HistogramBuckets.valueAtPercentile(aPercentile, last.counts, last.count);
+	}
+
+	/**
+	 * Returns the value at the given percentile in the current window.
+	 * @param aPercentile percentile between 0 and 100.
+	 * @return the value at percentile.
+	 */
+	synchronized long getCurrentValueAtPercentile(double aPercentile){
+		long[] window = currentWindow;
+		if (window == null){
+			window = new long[HistogramBuckets.BUCKETS];
+			currentWindow = window;
+		}
+		long count = 0;
+		for (int i = 0; i < HistogramBuckets.BUCKETS; i++){
+			window[i] = buckets.get(i) - (windowStart == null ? 0 : windowStart[i]);
+			count += window[i];
+		}
+		return HistogramBuckets.valueAtPercentile(aPercentile, window, count);
+	}
+
+	@Override public String toString() {
+		return super.toString() + " H " + getValueAsLong() + " / " + getCurrentValueAsLong();
+	}
+
+	@Override public synchronized void reset() {
+		if (windowStart != null){
+			for (int i = 0; i < HistogramBuckets.BUCKETS; i++)
+				windowStart[i] = buckets.get(i);
+		}else{
+			//the absolute holder has no window start, it has to be created to be able to reset.
+			intervalUpdated(null);
+		}
+		lastWindow = null;
+	}
+
+	@Override public void increase() {
+	}
+
+	@Override public void decrease() {
+	}
+
+	@Override public void increaseByInt(int aValue) {
+		buckets.record(aValue);
+	}
+
+	@Override public void increaseByLong(long aValue) {
+		buckets.record(aValue);
+	}
+
+	@Override public void increaseByDouble(double aValue) {
+		buckets.record((long) aValue);
+	}
+
+	@Override public void decreaseByInt(int aValue) {
+	}
+
+	@Override public void decreaseByLong(long aValue) {
+	}
+
+	@Override public void decreaseByDouble(double aValue) {
+	}
+
+	@Override public int getValueAsInt() {
+		return (int) getValueAsLong();
+	}
+
+	@Override public long getValueAsLong() {
+		Window last = lastWindow;
+		return last == null ? 0 : last.count;
+	}
+
+	@Override public double getValueAsDouble() {
+		return getValueAsLong();
+	}
+
+	@Override public String getValueAsString() {
+		return String.valueOf(getValueAsLong());
+	}
+
+	@Override public int getCurrentValueAsInt() {
+		return (int) getCurrentValueAsLong();
+	}
+
+	@Override public synchronized long getCurrentValueAsLong() {
+		long count = 0;
+		for (int i = 0; i < HistogramBuckets.BUCKETS; i++)
+			count += buckets.get(i) - (windowStart == null ? 0 : windowStart[i]);
+		return count;
+	}
+
+	@Override public double getCurrentValueAsDouble() {
+		return getCurrentValueAsLong();
+	}
+
+	@Override public String getCurrentValueAsString() {
+		return String.valueOf(getCurrentValueAsLong());
+	}
+
+	//set methods record the value, the buckets are shared, so this affects all holders of the stat value.
+	@Override public void setValueAsInt(int aValue) {
+		buckets.record(aValue);
+	}
+
+	@Override public void setValueAsLong(long aValue) {
+		buckets.record(aValue);
+	}
+
+	@Override public void setValueAsDouble(double aValue) {
+		buckets.record((long) aValue);
+	}
+
+	@Override public void setValueAsString(String aValue) {
+		buckets.record(Long.parseLong(aValue));
+	}
+
+	//histograms have no default value.
+	@Override public void setDefaultValueAsInt(int aValue) {
+	}
+
+	@Override public void setDefaultValueAsLong(long aValue) {
+	}
+
+	@Override public void setDefaultValueAsDouble(double aValue) {
+	}
+
+	/**
+	 * Counts of a finished window and their sum, published together.
+	 */
+	private static final class Window {
+		/**
+		 * Counts per bucket.
+		 */
+		private final long[] counts;
+		/**
+		 * Sum of the counts.
+		 */
+		private final long count;
+
+		private Window(long[] someCounts, long aCount){
+			counts = someCounts;
+			count = aCount;
+		}
+	}
+}
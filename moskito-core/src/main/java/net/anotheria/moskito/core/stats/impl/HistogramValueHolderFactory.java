@@ -0,0 +1,24 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+/**
+ * This ValueHolderFactory implementation creates HistogramValueHolder instances. Each instance is bound to the
+ * buckets of exactly one stat value.
+ */
+class HistogramValueHolderFactory extends AbstractValueHolderFactory {
+
+	/**
+	 * The buckets all created holders are reading from.
+	 */
+	private final HistogramBuckets buckets;
+
+	HistogramValueHolderFactory(HistogramBuckets someBuckets){
+		buckets = someBuckets;
+	}
+
+	@Override protected AbstractValueHolder createValueHolderObject(Interval aInterval) {
+		return new HistogramValueHolder(aInterval, buckets);
+	}
+
+}
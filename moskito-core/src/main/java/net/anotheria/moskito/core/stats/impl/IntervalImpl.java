@@ -14,7 +14,7 @@ package net.anotheria.moskito.core.stats.impl;
 
 import net.anotheria.moskito.core.stats.IIntervalListener;
 import net.anotheria.moskito.core.stats.Interval;
-import net.anotheria.moskito.core.timing.IUpdateable;
+import net.anotheria.moskito.core.timing.IFanOutUpdateable;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -28,7 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * 
  * @author lrosenberg
  */
-class IntervalImpl implements IUpdateable, Interval {
+class IntervalImpl implements IFanOutUpdateable<IIntervalListener>, Interval {
 	
 	/**
 	 * This is the human readable name of this Interval. 
@@ -101,9 +101,25 @@ class IntervalImpl implements IUpdateable, Interval {
 	}
 
 	@Override public void update() {
+		updateBeforeListeners();
+		notifyListeners(secondaryIntervalListeners);
+	}
+
+	/**
+	 * Notifies the primary listeners, which roll the values. The secondary listeners are notified afterwards,
+	 * in parallel if updated by the UpdateTriggerService.
+	 */
+	@Override public void updateBeforeListeners() {
 		lastUpdateTimestamp.set(System.currentTimeMillis());
 		notifyListeners(primaryIntervalListeners);
-		notifyListeners(secondaryIntervalListeners);
+	}
+
+	@Override public List<IIntervalListener> getListeners() {
+		return secondaryIntervalListeners;
+	}
+
+	@Override public void notifyListener(IIntervalListener aListener) {
+		aListener.intervalUpdated(this);
 	}
 
 	/**
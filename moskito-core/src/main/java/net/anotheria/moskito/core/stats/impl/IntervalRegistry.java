@@ -34,7 +34,6 @@
  */
 package net.anotheria.moskito.core.stats.impl;
 
-import net.anotheria.moskito.core.stats.IIntervalListener;
 import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.IntervalRegistryListener;
 import net.anotheria.moskito.core.stats.UnknownIntervalException;
@@ -70,11 +69,6 @@ public final class IntervalRegistry {
 	 */
 	private Map<String, Interval> intervalsByName = new ConcurrentHashMap<>();
 	
-	/**
-	 * This map stores last update timestamps for registered intervals by name.
-	 */
-	private Map<String, Long> intervalUpdateTimestamp = new ConcurrentHashMap<>();
-
 	/**
 	 * This is a Thread-safe counter to generate VM-wide uniqe ids for new Interval instances.
 	 */
@@ -157,6 +151,24 @@ public final class IntervalRegistry {
 		return interval;
 	}
 
+	/**
+	 * This method retrieves an existing Interval by name, to be used as handle for reads by Interval (for example
+	 * {@link net.anotheria.moskito.core.stats.StatValue#getIntervalValueAsLong(Interval)}). Unlike getInterval(String)
+	 * no Interval is created.
+	 *
+	 * @param aName the Interval name or null for the absolute value
+	 * @return the existing Interval or null if the name is null
+	 * @throws UnknownIntervalException if no Interval with the given name exists
+	 */
+	public Interval resolveInterval(String aName) {
+		if (aName == null)
+			return null;
+		Interval interval = intervalsByName.get(aName);
+		if (interval == null)
+			throw new UnknownIntervalException(aName);
+		return interval;
+	}
+
 	/**
 	 * This method creates a new Interval with the given name and length.
 	 * 
@@ -175,14 +187,6 @@ public final class IntervalRegistry {
 		for (IntervalRegistryListener listener : registryListeners) {
 			listener.intervalCreated(interval);
 		}
-		
-		//add new listener to each interval to store update timestamps
-		interval.addSecondaryIntervalListener(new IIntervalListener() {
-			@Override
-			public void intervalUpdated(Interval aCaller) {
-				intervalUpdateTimestamp.put(aCaller.getName(), System.currentTimeMillis());
-			}
-		});
 		return interval;
 	}
 
@@ -208,7 +212,11 @@ public final class IntervalRegistry {
 	 * @return returns the timestamp in milliseconds since 1970 for the interval update.
 	 */
 	public Long getUpdateTimestamp(String intervalName){
-		return intervalName == null ? Long.valueOf(0) : intervalUpdateTimestamp.get(intervalName);
+		if (intervalName == null)
+			return Long.valueOf(0);
+		Interval interval = intervalsByName.get(intervalName);
+		//null if the interval wasn't updated yet.
+		return interval == null || interval.getLastUpdateTimestamp() == 0 ? null : Long.valueOf(interval.getLastUpdateTimestamp());
 	}
 	
 	//this method is used by unit testing and force an interval to be updated
@@ -219,4 +227,8 @@ public final class IntervalRegistry {
 	public void addIntervalRegistryListener(IntervalRegistryListener listener){
 		registryListeners.add(listener);
 	}
+
+	public void removeIntervalRegistryListener(IntervalRegistryListener listener){
+		registryListeners.remove(listener);
+	}
 }
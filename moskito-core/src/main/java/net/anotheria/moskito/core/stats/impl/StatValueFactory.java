@@ -37,6 +37,7 @@ package net.anotheria.moskito.core.stats.impl;
 import java.util.Collection;
 
 import net.anotheria.moskito.core.stats.DetailedStatValue;
+import net.anotheria.moskito.core.stats.HistogramStatValue;
 import net.anotheria.moskito.core.stats.IValueHolderFactory;
 import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.StatValue;
@@ -71,8 +72,13 @@ public class StatValueFactory {
 	 * @return the StatValue instance
 	 */
 	public static TypeAwareStatValue createStatValue(StatValueTypes aType, String aName, Interval[] aIntervals) {
-		IValueHolderFactory valueHolderFactory = StatValueTypeUtility.createValueHolderFactory(aType);
-		TypeAwareStatValue value = new TypeAwareStatValueImpl(aName, aType, valueHolderFactory);
+		TypeAwareStatValue value;
+		if (aType == StatValueTypes.HISTOGRAM) {
+			value = new HistogramStatValueImpl(aName);
+		} else {
+			IValueHolderFactory valueHolderFactory = StatValueTypeUtility.createValueHolderFactory(aType);
+			value = new TypeAwareStatValueImpl(aName, aType, valueHolderFactory);
+		}
 		// now we have to add the Intervals to the new value....
 		for (int i = 0; i < aIntervals.length; i++) {
 			value.addInterval(aIntervals[i]);
@@ -80,6 +86,65 @@ public class StatValueFactory {
 		return value;
 	}
 	
+	/**
+	 * This method creates a histogram StatValue instance.
+	 *
+	 * @param aName the name of the value
+	 * @param aIntervals the list of Intervals to be used
+	 * @return the StatValue instance
+	 */
+	public static HistogramStatValue createHistogramStatValue(String aName, Interval[] aIntervals) {
+		return (HistogramStatValue) createStatValue(StatValueTypes.HISTOGRAM, aName, aIntervals);
+	}
+
+	/**
+	 * This method creates a long StatValue instance that records increase/decrease operations into a striped counter
+	 * once instead of updating every interval separately. Use it for heavily updated counters.
+	 *
+	 * @param aName the name of the value
+	 * @param aIntervals the list of Intervals to be used
+	 * @return the StatValue instance
+	 */
+	public static TypeAwareStatValue createStripedStatValue(String aName, Interval[] aIntervals) {
+		TypeAwareStatValue value = new StripedStatValueImpl(aName);
+		for (Interval aInterval : aIntervals) {
+			value.addInterval(aInterval);
+		}
+		return value;
+	}
+
+	/**
+	 * This method creates a long StatValue instance that tracks the minimum of the values submitted via
+	 * setValueIfLesserThanCurrent without losing updates under concurrency.
+	 *
+	 * @param aName the name of the value
+	 * @param aIntervals the list of Intervals to be used
+	 * @return the StatValue instance
+	 */
+	public static TypeAwareStatValue createMinStatValue(String aName, Interval[] aIntervals) {
+		return createExtremumStatValue(ExtremumValueHolderFactory.MIN, aName, aIntervals);
+	}
+
+	/**
+	 * This method creates a long StatValue instance that tracks the maximum of the values submitted via
+	 * setValueIfGreaterThanCurrent without losing updates under concurrency.
+	 *
+	 * @param aName the name of the value
+	 * @param aIntervals the list of Intervals to be used
+	 * @return the StatValue instance
+	 */
+	public static TypeAwareStatValue createMaxStatValue(String aName, Interval[] aIntervals) {
+		return createExtremumStatValue(ExtremumValueHolderFactory.MAX, aName, aIntervals);
+	}
+
+	private static TypeAwareStatValue createExtremumStatValue(ExtremumValueHolderFactory aFactory, String aName, Interval[] aIntervals) {
+		TypeAwareStatValue value = new ExtremumStatValueImpl(aName, aFactory);
+		for (Interval aInterval : aIntervals) {
+			value.addInterval(aInterval);
+		}
+		return value;
+	}
+
 	public static TypeAwareStatValue createStatValue(StatValueTypes aType, String aName,
 			Collection<String> aIntervals) {
 		Interval[] arrayIntervals = new Interval[aIntervals.size()];
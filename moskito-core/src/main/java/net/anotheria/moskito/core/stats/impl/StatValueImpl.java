@@ -42,6 +42,7 @@ import net.anotheria.moskito.core.stats.UnknownIntervalException;
 import net.anotheria.moskito.core.stats.ValueHolder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,7 +76,12 @@ class StatValueImpl implements StatValue {
 	 * This List contains a redundant copy of the values Map values. It will be maintained 
 	 * on adding new Intervals.  
 	 */
-	private List<ValueHolder> valuesAsList; 
+	protected List<ValueHolder> valuesAsList;
+
+	/**
+	 * The ValueHolders indexed by the id of their Interval, used for reads. Replaced on adding new Intervals.
+	 */
+	private volatile IntervalHolders holdersByIntervalId = new IntervalHolders(new Interval[0], new ValueHolder[0]);
 
 	/**
 	 * This is the name of statistic value represented by this instance.
@@ -103,6 +109,7 @@ class StatValueImpl implements StatValue {
 		absoluteValue = factory.createValueHolder(ABSOLUTE_VALUE);
 		values.put(ABSOLUTE_VALUE.getName(), absoluteValue);
 		valuesAsList.add(absoluteValue);
+		addHolderById(ABSOLUTE_VALUE, absoluteValue);
 	}
 
 	@Override
@@ -110,6 +117,17 @@ class StatValueImpl implements StatValue {
 		ValueHolder h = factory.createValueHolder(aInterval);
 		values.put(aInterval.getName(), h);
 		valuesAsList.add(h);
+		addHolderById(aInterval, h);
+	}
+
+	private synchronized void addHolderById(Interval aInterval, ValueHolder aHolder){
+		IntervalHolders current = holdersByIntervalId;
+		int length = Math.max(current.holders.length, aInterval.getId() + 1);
+		Interval[] intervals = Arrays.copyOf(current.intervals, length);
+		ValueHolder[] holders = Arrays.copyOf(current.holders, length);
+		intervals[aInterval.getId()] = aInterval;
+		holders[aInterval.getId()] = aHolder;
+		holdersByIntervalId = new IntervalHolders(intervals, holders);
 	}
 	
 	/**
@@ -144,13 +162,31 @@ class StatValueImpl implements StatValue {
 	 * @return the stored ValueHolder
 	 * @throws UnknownIntervalException if there is no ValueHolder stored for an Interval with the given name
 	 */
-	private ValueHolder getHolderByIntervalName(String aIntervalName){
-		ValueHolder h = values.get(aIntervalName);
+	protected ValueHolder getHolderByIntervalName(String aIntervalName){
+		ValueHolder h = holdersByIntervalId.get(aIntervalName);
+		if (h == null)
+			h = values.get(aIntervalName);
 		if (h == null)
 			throw new UnknownIntervalException(aIntervalName);
 		return h;
 	}
 
+	/**
+	 * This method returns the ValueHolder that is stored for the given Interval.
+	 *
+	 * @param aInterval the interval
+	 * @return the stored ValueHolder
+	 * @throws UnknownIntervalException if there is no ValueHolder stored for the Interval
+	 */
+	protected ValueHolder getHolder(Interval aInterval){
+		ValueHolder h = holdersByIntervalId.get(aInterval);
+		if (h == null)
+			h = values.get(aInterval.getName());
+		if (h == null)
+			throw new UnknownIntervalException(aInterval.getName());
+		return h;
+	}
+
  	@Override public int getValueAsInt(){
 		return getValueAsInt(null);
 	}
@@ -189,6 +225,27 @@ class StatValueImpl implements StatValue {
 		return getHolderByIntervalName(aIntervalName).getValueAsDouble();
 	}
 
+	@Override
+	public int getIntervalValueAsInt(Interval aInterval){
+		if (aInterval==null || aInterval == ABSOLUTE_VALUE)
+			return absoluteValue.getCurrentValueAsInt();
+		return getHolder(aInterval).getValueAsInt();
+	}
+
+	@Override
+	public long getIntervalValueAsLong(Interval aInterval){
+		if (aInterval==null || aInterval == ABSOLUTE_VALUE)
+			return absoluteValue.getCurrentValueAsLong();
+		return getHolder(aInterval).getValueAsLong();
+	}
+
+	@Override
+	public double getIntervalValueAsDouble(Interval aInterval){
+		if (aInterval==null || aInterval == ABSOLUTE_VALUE)
+			return absoluteValue.getCurrentValueAsDouble();
+		return getHolder(aInterval).getValueAsDouble();
+	}
+
 	@Override
 	public void setValueAsInt(int aValue){
 		for (ValueHolder holder : valuesAsList)
@@ -332,4 +389,32 @@ class StatValueImpl implements StatValue {
 				reg.getInterval(entry.getKey()).removePrimaryIntervalListener((IIntervalListener)entry.getValue());
 		}
 	}
+
+	/**
+	 * ValueHolders and their Intervals indexed by Interval id. Holders are only returned for the same Interval
+	 * instance, Intervals created outside of the IntervalRegistry may share ids. Lookups by name scan the few
+	 * Intervals of the value instead of hashing the name.
+	 */
+	private static final class IntervalHolders {
+		private final Interval[] intervals;
+		private final ValueHolder[] holders;
+
+		private IntervalHolders(Interval[] someIntervals, ValueHolder[] someHolders){
+			intervals = someIntervals;
+			holders = someHolders;
+		}
+
+		private ValueHolder get(Interval aInterval){
+			int id = aInterval.getId();
+			return id >= 0 && id < intervals.length && intervals[id] == aInterval ? holders[id] : null;
+		}
+
+		private ValueHolder get(String aIntervalName){
+			for (int i = 0; i < intervals.length; i++){
+				if (intervals[i] != null && aIntervalName.equals(intervals[i].getName()))
+					return holders[i];
+			}
+			return null;
+		}
+	}
 }
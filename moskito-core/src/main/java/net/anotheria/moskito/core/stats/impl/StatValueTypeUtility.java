@@ -94,6 +94,9 @@ final class StatValueTypeUtility {
 		    return doubleValueHolderFactory;
 		case DIFFLONG:
 			return diffLongValueHolderFactory;
+		case HISTOGRAM:
+			//histogram holders share the buckets of their stat value, hence there is no stateless factory.
+			throw new AssertionError("Histogram values are created by StatValueFactory.createStatValue");
 		default:
 			throw new AssertionError("Unsupported type: " + aType);
 		}
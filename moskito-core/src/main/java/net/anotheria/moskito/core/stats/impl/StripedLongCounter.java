@@ -0,0 +1,105 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A monotonic sum that is spread over multiple cache-line padded cells under contention.
+ * As long as there is no contention all updates go to a single base value. After the first failed
+ * compare-and-set the counter inflates into a fixed amount of stripes and each thread updates the
+ * stripe selected by its thread id. Reading the sum walks all stripes, hence reads are more expensive
+ * than updates, which is exactly what we need for stat values (millions of updates, a few reads per interval).
+ * This is a java 7 compatible variant of the idea behind LongAdder.
+ */
+final class StripedLongCounter {
+
+	/**
+	 * Amount of longs per stripe. 8 longs fill one 64 byte cache line, so neighbour stripes never share a line.
+	 */
+	private static final int PADDING = 8;
+
+	/**
+	 * Max amount of stripes a counter can inflate to.
+	 */
+	private static final int MAX_STRIPES = 64;
+
+	/**
+	 * Amount of stripes used after inflation, power of two, derived from the amount of available processors.
+	 */
+	static final int STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Uncontended value.
+	 */
+	private final AtomicLong base = new AtomicLong();
+
+	/**
+	 * Stripes, null as long as the counter wasn't contended.
+	 * The first PADDING longs are left empty to keep the first stripe away from the array header.
+	 */
+	private volatile AtomicLongArray cells;
+
+	/**
+	 * Adds the given value to the sum.
+	 * @param aValue the value to add, may be negative.
+	 */
+	void add(long aValue){
+		AtomicLongArray cs = cells;
+		if (cs == null){
+			long b = base.get();
+			if (base.compareAndSet(b, b + aValue))
+				return;
+			cs = inflate();
+		}
+		cs.getAndAdd(slot(), aValue);
+	}
+
+	/**
+	 * Returns the current sum. The returned value is not an atomic snapshot, updates which are running concurrently
+	 * may or may not be contained.
+	 * @return the current sum.
+	 */
+	long sum(){
+		long sum = base.get();
+		AtomicLongArray cs = cells;
+		if (cs != null){
+			for (int i = PADDING; i < cs.length(); i += PADDING)
+				sum += cs.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns true if this counter was contended and is now striped. For tests and debug purposes.
+	 * @return true if the counter is striped.
+	 */
+	boolean isStriped(){
+		return cells != null;
+	}
+
+	private synchronized AtomicLongArray inflate(){
+		if (cells == null)
+			cells = new AtomicLongArray((STRIPES + 1) * PADDING);
+		return cells;
+	}
+
+	/**
+	 * Selects the stripe for the current thread. Thread ids are given out sequentially, so consecutive threads
+	 * land on different stripes.
+	 * @return index of the stripe in the cells array.
+	 */
+	private static int slot(){
+		return ((int)Thread.currentThread().getId() & (STRIPES - 1)) * PADDING + PADDING;
+	}
+
+	static int stripesFor(int processors){
+		int stripes = 2;
+		while (stripes < processors && stripes < MAX_STRIPES)
+			stripes <<= 1;
+		return stripes;
+	}
+
+	@Override public String toString(){
+		return String.valueOf(sum());
+	}
+}
@@ -0,0 +1,155 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+/**
+ * Long value holder that doesn't store the value itself, but reads it from a {@link StripedLongCounter} shared
+ * by all holders of the same {@link StripedStatValueImpl}. The holder only remembers the counter state at the
+ * beginning of its interval (the base), the current value is the difference between the counter and the base.
+ * This way an update of the stat value touches the counter only once, regardless of the number of intervals, and
+ * the interval update folds the finished window into the holder.
+ */
+class StripedLongValueHolder extends AbstractValueHolder {
+
+	/**
+	 * Shared counter.
+	 */
+	private final StripedLongCounter counter;
+
+	/**
+	 * Counter value at the start of the current interval minus default value, current value = counter - base.
+	 */
+	private volatile long base;
+
+	/**
+	 * The value of the last finished interval.
+	 */
+	private volatile long lastValue;
+
+	/**
+	 * This is the default value that this ValueHolder contains after a reset.
+	 */
+	private volatile long defaultValue;
+
+	/**
+	 * Creates a new holder.
+	 * @param aInterval the interval this holder is responsible for.
+	 * @param aCounter the shared counter.
+	 */
+	StripedLongValueHolder(Interval aInterval, StripedLongCounter aCounter) {
+		super(aInterval);
+		counter = aCounter;
+		defaultValue = LongValueHolder.DEFAULT_DEFAULT_VALUE;
+		base = counter.sum() - defaultValue;
+	}
+
+	@Override public synchronized void intervalUpdated(Interval caller) {
+		//the same counter value closes the old window and opens the new one, so no update gets lost in between.
+		long sum = counter.sum();
+		lastValue = sum - base;
+		base = sum - defaultValue;
+	}
+
+	@Override public String toString() {
+		return super.toString() + " S " + lastValue + " / " + getCurrentValueAsLong();
+	}
+
+	//the following update methods are only called if the holder is used outside of StripedStatValueImpl, which
+	//updates the counter directly. They move the base instead, since the counter is shared with other holders.
+	@Override public void increase() {
+		increaseByLong(1);
+	}
+
+	@Override public void decrease() {
+		increaseByLong(-1);
+	}
+
+	@Override public void increaseByInt(int aValue) {
+		increaseByLong(aValue);
+	}
+
+	@Override public synchronized void increaseByLong(long aValue) {
+		base -= aValue;
+	}
+
+	@Override public void increaseByDouble(double aValue) {
+		increaseByLong((long) aValue);
+	}
+
+	@Override public void decreaseByInt(int aValue) {
+		increaseByLong(-aValue);
+	}
+
+	@Override public void decreaseByLong(long aValue) {
+		increaseByLong(-aValue);
+	}
+
+	@Override public void decreaseByDouble(double aValue) {
+		increaseByLong(-(long) aValue);
+	}
+
+	@Override public int getValueAsInt() {
+		return (int) getValueAsLong();
+	}
+
+	@Override public long getValueAsLong() {
+		return lastValue;
+	}
+
+	@Override public double getValueAsDouble() {
+		return getValueAsLong();
+	}
+
+	@Override public String getValueAsString() {
+		return String.valueOf(lastValue);
+	}
+
+	@Override public int getCurrentValueAsInt() {
+		return (int) getCurrentValueAsLong();
+	}
+
+	@Override public long getCurrentValueAsLong() {
+		return counter.sum() - base;
+	}
+
+	@Override public double getCurrentValueAsDouble() {
+		return getCurrentValueAsLong();
+	}
+
+	@Override public String getCurrentValueAsString() {
+		return String.valueOf(getCurrentValueAsLong());
+	}
+
+	@Override public void setValueAsInt(int aValue) {
+		setValueAsLong(aValue);
+	}
+
+	@Override public synchronized void setValueAsLong(long aValue) {
+		base = counter.sum() - aValue;
+	}
+
+	@Override public void setValueAsDouble(double aValue) {
+		setValueAsLong((long) aValue);
+	}
+
+	@Override public void setValueAsString(String aValue) {
+		setValueAsLong(Long.parseLong(aValue));
+	}
+
+	@Override public void setDefaultValueAsInt(int aValue) {
+		setDefaultValueAsLong(aValue);
+	}
+
+	@Override public void setDefaultValueAsLong(long aValue) {
+		defaultValue = aValue;
+	}
+
+	@Override public void setDefaultValueAsDouble(double aValue) {
+		setDefaultValueAsLong((long) aValue);
+	}
+
+	@Override public synchronized void reset() {
+		base = counter.sum() - defaultValue;
+		lastValue = defaultValue;
+	}
+}
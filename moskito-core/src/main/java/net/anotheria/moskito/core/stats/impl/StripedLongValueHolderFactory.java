@@ -0,0 +1,24 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+
+/**
+ * This ValueHolderFactory implementation creates StripedLongValueHolder instances. Unlike the other factories
+ * it is not stateless, each instance is bound to the counter of exactly one stat value.
+ */
+class StripedLongValueHolderFactory extends AbstractValueHolderFactory {
+
+	/**
+	 * The counter all created holders are reading from.
+	 */
+	private final StripedLongCounter counter;
+
+	StripedLongValueHolderFactory(StripedLongCounter aCounter){
+		counter = aCounter;
+	}
+
+	@Override protected AbstractValueHolder createValueHolderObject(Interval aInterval) {
+		return new StripedLongValueHolder(aInterval, counter);
+	}
+
+}
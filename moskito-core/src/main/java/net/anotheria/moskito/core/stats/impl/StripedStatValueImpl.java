@@ -0,0 +1,63 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.StatValueTypes;
+
+/**
+ * Long StatValue optimized for heavily concurrent additive updates (increase, decrease, increaseBy...).
+ * The regular {@link StatValueImpl} updates one AtomicLong per registered interval on each call, this implementation
+ * records each update exactly once into a {@link StripedLongCounter}. The per interval
+ * {@link StripedLongValueHolder}s derive their values from the counter and fold the window on interval update.
+ * Non additive operations (set, setIfGreater, reset etc) are still delegated to the holders.
+ */
+class StripedStatValueImpl extends TypeAwareStatValueImpl {
+
+	/**
+	 * The counter shared by all value holders of this value.
+	 */
+	private final StripedLongCounter counter;
+
+	/**
+	 * Creates a new striped value.
+	 * @param aName the name of the statistic value.
+	 */
+	StripedStatValueImpl(String aName){
+		this(aName, new StripedLongCounter());
+	}
+
+	private StripedStatValueImpl(String aName, StripedLongCounter aCounter){
+		super(aName, StatValueTypes.LONG, new StripedLongValueHolderFactory(aCounter));
+		counter = aCounter;
+	}
+
+	@Override public void increase(){
+		counter.add(1);
+	}
+
+	@Override public void decrease(){
+		counter.add(-1);
+	}
+
+	@Override public void increaseByInt(int aValue){
+		counter.add(aValue);
+	}
+
+	@Override public void increaseByLong(long aValue){
+		counter.add(aValue);
+	}
+
+	@Override public void increaseByDouble(double aValue){
+		counter.add((long) aValue);
+	}
+
+	@Override public void decreaseByInt(int aValue){
+		counter.add(-aValue);
+	}
+
+	@Override public void decreaseByLong(long aValue){
+		counter.add(-aValue);
+	}
+
+	@Override public void decreaseByDouble(double aValue){
+		counter.add(-(long) aValue);
+	}
+}
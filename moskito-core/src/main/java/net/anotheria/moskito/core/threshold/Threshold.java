@@ -4,6 +4,9 @@ import net.anotheria.moskito.core.config.thresholds.ThresholdConfig;
 import net.anotheria.moskito.core.helper.AbstractTieable;
 import net.anotheria.moskito.core.helper.Tieable;
 import net.anotheria.moskito.core.producers.IStats;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import net.anotheria.moskito.core.threshold.alerts.AlertDispatcher;
 import net.anotheria.moskito.core.threshold.alerts.ThresholdAlert;
 import net.anotheria.moskito.core.threshold.guard.GuardedDirection;
@@ -36,6 +39,14 @@ public class Threshold extends AbstractTieable<ThresholdDefinition> implements T
 	 * Attached stats.
 	 */
 	private IStats stats;
+	/**
+	 * Accessor to the value of the attached stats, resolved on first update.
+	 */
+	private StatValueAccessor valueAccessor;
+	/**
+	 * The interval of the definition, resolved together with the accessor.
+	 */
+	private Interval valueInterval;
 	/**
 	 * Last measured value.
 	 */
@@ -69,6 +80,7 @@ public class Threshold extends AbstractTieable<ThresholdDefinition> implements T
 	}
 	
 	public void tieToStats(IStats aStatsObject){
+		valueAccessor = null;
 		stats = aStatsObject;
 	}
 
@@ -147,8 +159,14 @@ public class Threshold extends AbstractTieable<ThresholdDefinition> implements T
 			return;
 		}
 		
+		StatValueAccessor accessor = valueAccessor;
+		if (accessor == null){
+			valueInterval = IntervalRegistry.getInstance().resolveInterval(getDefinition().getIntervalName());
+			accessor = stats.resolveValueAccessor(getDefinition().getValueName());
+			valueAccessor = accessor;
+		}
 		String previousValue = lastValue;
-		lastValue = stats.getValueByNameAsString(getDefinition().getValueName(), getDefinition().getIntervalName(), getDefinition().getTimeUnit());
+		lastValue = accessor.getValueAsString(valueInterval, getDefinition().getTimeUnit());
 		
 		ThresholdStatus futureStatus = status == ThresholdStatus.OFF ? ThresholdStatus.OFF : ThresholdStatus.GREEN;
 		for (ThresholdConditionGuard guard : guards){
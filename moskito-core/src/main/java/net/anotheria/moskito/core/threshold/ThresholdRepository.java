@@ -11,6 +11,7 @@ import net.anotheria.moskito.core.helper.TieableRepository;
 import net.anotheria.moskito.core.producers.IStats;
 import net.anotheria.moskito.core.producers.IStatsProducer;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.threshold.alerts.AlertHistory;
 import net.anotheria.moskito.core.threshold.guard.DoubleBarrierPassGuard;
 import net.anotheria.moskito.core.threshold.guard.GuardedDirection;
 import net.anotheria.moskito.core.threshold.guard.LongBarrierPassGuard;
@@ -123,6 +124,8 @@ public class ThresholdRepository<S extends IStats> extends TieableRepository<Thr
      */
 	public Threshold createThreshold(ThresholdDefinition definition){
         Threshold ret = createTieable(definition);
+        //alerts of the previous run are shown as soon as their threshold exists.
+        AlertHistory.INSTANCE.bindRestoredAlerts(ret);
 
         try {
 	    	// Construct the ObjectName for the MBean we will register
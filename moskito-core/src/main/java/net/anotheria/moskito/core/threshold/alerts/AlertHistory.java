@@ -1,16 +1,23 @@
 package net.anotheria.moskito.core.threshold.alerts;
 
 import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.threshold.Threshold;
+import net.anotheria.moskito.core.threshold.ThresholdRepository;
+import net.anotheria.moskito.core.threshold.ThresholdStatus;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class contains all generated alerts at runtime. This class is an one-value-enum-singleton described by J. Bloch.
+ * Alerts of a previous run can be restored, they are added to the history as soon as their threshold exists.
  * @author lrosenberg
  *
  */
@@ -29,6 +36,14 @@ public enum AlertHistory {
 	 * Lock for write operations.
 	 */
 	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	/**
+	 * Listeners for new alerts.
+	 */
+	private final List<AlertHistoryListener> listeners = new CopyOnWriteArrayList<AlertHistoryListener>();
+	/**
+	 * Restored alerts whose threshold doesn't exist yet, by threshold name. Guarded by the write lock.
+	 */
+	private final Map<String, List<RestoredAlert>> unboundAlerts = new HashMap<String, List<RestoredAlert>>();
 
 	/**
 	 * Adds a new alert. If the number of totally saved alerts is greater than AlertHistoryConfig.getToleratedNumberOfItems() the list is cut.
@@ -50,7 +65,87 @@ public enum AlertHistory {
 		}finally{
 			lock.writeLock().unlock();
 		}
+		for (AlertHistoryListener listener : listeners)
+			listener.alertAdded(alert);
 	}
+
+	/**
+	 * Cuts the list to the max number of items if it exceeds the tolerated number. Must be called under the write lock.
+	 */
+	private void cut(List<ThresholdAlert> someAlerts){
+		if (someAlerts.size()>MoskitoConfigurationHolder.getConfiguration().getThresholdsAlertsConfig().getAlertHistoryConfig().getToleratedNumberOfItems()){
+			int from = someAlerts.size()-MoskitoConfigurationHolder.getConfiguration().getThresholdsAlertsConfig().getAlertHistoryConfig().getMaxNumberOfItems();
+			alerts = new CopyOnWriteArrayList<ThresholdAlert>(someAlerts.subList(Math.max(0, from), someAlerts.size()));
+		}else{
+			alerts = new CopyOnWriteArrayList<ThresholdAlert>(someAlerts);
+		}
+	}
+
+	/**
+	 * Restores an alert of a previous run. The alert is added to the history in order of its timestamp as soon as a
+	 * threshold with the given name exists. Listeners are not notified.
+	 * @param thresholdName name of the threshold.
+	 * @param timestamp timestamp of the alert.
+	 * @param oldStatus status before the change.
+	 * @param newStatus status after the change.
+	 * @param oldValue value before the change.
+	 * @param newValue value after the change.
+	 * @param flipCount flip count of the threshold.
+	 */
+	public void restoreAlert(String thresholdName, long timestamp, ThresholdStatus oldStatus, ThresholdStatus newStatus, String oldValue, String newValue, int flipCount){
+		lock.writeLock().lock();
+		try{
+			List<RestoredAlert> restored = unboundAlerts.get(thresholdName);
+			if (restored == null){
+				restored = new ArrayList<RestoredAlert>();
+				unboundAlerts.put(thresholdName, restored);
+			}
+			restored.add(new RestoredAlert(timestamp, oldStatus, newStatus, oldValue, newValue, flipCount));
+		}finally{
+			lock.writeLock().unlock();
+		}
+		Threshold threshold = ThresholdRepository.getInstance().getByName(thresholdName);
+		if (threshold != null)
+			bindRestoredAlerts(threshold);
+	}
+
+	/**
+	 * Adds the restored alerts of the threshold to the history. Called when a threshold is created.
+	 * @param threshold the threshold.
+	 */
+	public void bindRestoredAlerts(Threshold threshold){
+		lock.writeLock().lock();
+		try{
+			List<RestoredAlert> restored = unboundAlerts.remove(threshold.getName());
+			if (restored == null)
+				return;
+			List<ThresholdAlert> merged = new ArrayList<ThresholdAlert>(alerts);
+			for (RestoredAlert r : restored){
+				ThresholdAlert alert = new ThresholdAlert(threshold, r.oldStatus, r.newStatus, r.oldValue, r.newValue, r.flipCount);
+				alert.setTimestamp(r.timestamp);
+				alert.setFlipCount(r.flipCount);
+				merged.add(alert);
+			}
+			Collections.sort(merged, new Comparator<ThresholdAlert>() {
+				@Override
+				public int compare(ThresholdAlert a1, ThresholdAlert a2) {
+					return Long.compare(a1.getTimestamp(), a2.getTimestamp());
+				}
+			});
+			cut(merged);
+		}finally{
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void addListener(AlertHistoryListener listener){
+		listeners.add(listener);
+	}
+
+	public void removeListener(AlertHistoryListener listener){
+		listeners.remove(listener);
+	}
+
 	/**
 	 * Returns the alerts sofar.
 	 * @return
@@ -60,4 +155,25 @@ public enum AlertHistory {
 		Collections.reverse(ret);
 		return ret;
 	}
+
+	/**
+	 * An alert of a previous run, waiting for its threshold.
+	 */
+	private static final class RestoredAlert {
+		private final long timestamp;
+		private final ThresholdStatus oldStatus;
+		private final ThresholdStatus newStatus;
+		private final String oldValue;
+		private final String newValue;
+		private final int flipCount;
+
+		private RestoredAlert(long aTimestamp, ThresholdStatus anOldStatus, ThresholdStatus aNewStatus, String anOldValue, String aNewValue, int aFlipCount){
+			timestamp = aTimestamp;
+			oldStatus = anOldStatus;
+			newStatus = aNewStatus;
+			oldValue = anOldValue;
+			newValue = aNewValue;
+			flipCount = aFlipCount;
+		}
+	}
 }
@@ -0,0 +1,12 @@
+package net.anotheria.moskito.core.threshold.alerts;
+
+/**
+ * Listener that is notified about each alert added to the {@link AlertHistory}, for example to persist it.
+ */
+public interface AlertHistoryListener {
+	/**
+	 * Called after an alert was added to the history.
+	 * @param alert the new alert.
+	 */
+	void alertAdded(ThresholdAlert alert);
+}
@@ -0,0 +1,29 @@
+package net.anotheria.moskito.core.timing;
+
+import java.util.List;
+
+/**
+ * An updateable whose update consists of a part that has to be finished first and of independent listeners, which
+ * are notified afterwards. The UpdateTriggerService notifies the listeners in parallel and records the duration of
+ * each listener separately. Calling update() has to be equal to updateBeforeListeners() followed by notifyListener()
+ * for each listener.
+ */
+public interface IFanOutUpdateable<L> extends IUpdateable {
+
+	/**
+	 * Performs the part of the update that has to be finished before the listeners are notified.
+	 */
+	void updateBeforeListeners();
+
+	/**
+	 * Returns the listeners which are notified after updateBeforeListeners.
+	 * @return the listeners, the list must be safe for iteration while listeners are added or removed.
+	 */
+	List<L> getListeners();
+
+	/**
+	 * Notifies a single listener about the update.
+	 * @param aListener the listener.
+	 */
+	void notifyListener(L aListener);
+}
@@ -0,0 +1,91 @@
+package net.anotheria.moskito.core.timing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Notifies the listeners of an {@link IFanOutUpdateable} in a separate pool of threads and waits until all listeners
+ * are finished, so the update of an interval only ends when all of its listeners have seen the rolled values. The
+ * duration of each listener is recorded separately. Without a pool the listeners are notified one after another by
+ * the calling thread.
+ */
+final class ListenerFanOut {
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(ListenerFanOut.class);
+
+	/**
+	 * Threads that notify the listeners, null if the listeners are notified by the calling thread.
+	 */
+	private final ExecutorService notifiers;
+
+	/**
+	 * Creates a new fan out.
+	 * @param aNotifiers threads that notify the listeners, null to notify them by the calling thread.
+	 */
+	ListenerFanOut(ExecutorService aNotifiers) {
+		notifiers = aNotifiers;
+	}
+
+	/**
+	 * Updates the updateable and notifies its listeners.
+	 * @param aUpdateable the updateable.
+	 * @param aName name of the updateable, the listener durations are recorded as name/listener.
+	 */
+	<L> void update(final IFanOutUpdateable<L> aUpdateable, final String aName){
+		aUpdateable.updateBeforeListeners();
+		List<L> listeners = new ArrayList<>(aUpdateable.getListeners());
+		if (notifiers == null || listeners.size() < 2){
+			for (L listener : listeners)
+				notifyListener(aUpdateable, listener, aName);
+			return;
+		}
+
+		final CountDownLatch done = new CountDownLatch(listeners.size());
+		for (final L listener : listeners){
+			try{
+				notifiers.execute(new Runnable() {
+					@Override public void run() {
+						try{
+							notifyListener(aUpdateable, listener, aName);
+						}finally{
+							done.countDown();
+						}
+					}
+				});
+			}catch(RejectedExecutionException e){
+				//the service is shut down.
+				done.countDown();
+			}
+		}
+		try{
+			done.await();
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static <L> void notifyListener(IFanOutUpdateable<L> aUpdateable, L aListener, String aName){
+		boolean error = false;
+		long start = System.nanoTime();
+		try{
+			aUpdateable.notifyListener(aListener);
+		}catch(Exception e){
+			error = true;
+			log.warn("Listener "+aListener+" of "+aName+" failed", e);
+		}
+		try{
+			UpdateTriggerServiceImpl.recordUpdate(aName+'/'+UpdateTriggerServiceImpl.getSimpleName(aListener), System.nanoTime() - start, error);
+		}catch(Exception e){
+			log.warn("Can't record update duration of "+aListener, e);
+		}
+	}
+}
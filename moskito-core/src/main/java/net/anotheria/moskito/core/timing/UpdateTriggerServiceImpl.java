@@ -34,38 +34,256 @@
  */
 package net.anotheria.moskito.core.timing;
 
-import java.util.Timer;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.timing.UpdateTriggerConfig;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.util.AbstractBuiltInProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * This class implements the UpdateTriggerService. 
- * It depends on ITimerService that will be used to do the work.
- * 
+ * This class implements the UpdateTriggerService.
+ * A single scheduler thread calculates the due time of each updateable and hands the update over to a bounded pool
+ * of updater threads, so updates that are due at the same time run in parallel and a slow updateable neither delays
+ * other updateables nor shifts their schedule. Due times are calculated from the wall clock on each execution and
+ * are aligned to wall clock boundaries if configured, so there is no drift. If an update is due while the previous
+ * update of the same updateable still runs, it is executed right after the previous one, so no roll-over is lost.
+ * The listeners of intervals (snapshots, thresholds, accumulators etc) are notified in parallel by a separate pool
+ * of listener threads after the values were rolled.
+ * The duration of each update and of each interval listener is recorded in the builtin producer {@value #PRODUCER_ID}.
+ *
  * @author lrosenberg
  */
 class UpdateTriggerServiceImpl implements IUpdateTriggerService {
 
 	/**
-	 * Internal timer.
+	 * Logger.
+	 */
+	private static final Logger log = LoggerFactory.getLogger(UpdateTriggerServiceImpl.class);
+
+	/**
+	 * Id of the producer with the update durations.
+	 */
+	static final String PRODUCER_ID = "UpdateTriggers";
+
+	/**
+	 * Thread that triggers the updates.
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Threads that execute the updates.
+	 */
+	private final ExecutorService updaters;
+
+	/**
+	 * Threads that notify interval listeners, null if they are notified by the updater thread.
+	 */
+	private final ExecutorService listenerNotifiers;
+
+	/**
+	 * Notifies interval listeners.
 	 */
-	private Timer timer;
-	
+	private final ListenerFanOut fanOut;
+
+	/**
+	 * If true the executions are aligned to wall clock boundaries.
+	 */
+	private final boolean alignToWallClock;
+
+	/**
+	 * Source of the wall clock time.
+	 */
+	private final Clock clock;
+
 	/**
 	 * The constructor.
 	 */
 	UpdateTriggerServiceImpl() {
-		timer = new Timer("MoskitoIntervalUpdater", true);
+		this(MoskitoConfigurationHolder.getConfiguration().getUpdateTriggerConfig());
+	}
+
+	private UpdateTriggerServiceImpl(UpdateTriggerConfig config) {
+		this(config.isAlignToWallClock(), config.getUpdaterThreadPoolSize(), config.getListenerThreadPoolSize(), Clock.SYSTEM);
+	}
+
+	/**
+	 * Creates a new service, used by unit tests.
+	 * @param anAlignToWallClock if true the executions are aligned to wall clock boundaries.
+	 * @param anUpdaterThreadPoolSize amount of updater threads.
+	 * @param aListenerThreadPoolSize amount of threads that notify interval listeners, 1 to notify them by the updater.
+	 * @param aClock source of the wall clock time.
+	 */
+	UpdateTriggerServiceImpl(boolean anAlignToWallClock, int anUpdaterThreadPoolSize, int aListenerThreadPoolSize, Clock aClock) {
+		alignToWallClock = anAlignToWallClock;
+		clock = aClock;
+		scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("MoskitoIntervalUpdateScheduler"));
+		updaters = Executors.newFixedThreadPool(anUpdaterThreadPoolSize, new DaemonThreadFactory("MoskitoIntervalUpdater"));
+		listenerNotifiers = aListenerThreadPoolSize > 1 ?
+				Executors.newFixedThreadPool(aListenerThreadPoolSize, new DaemonThreadFactory("MoskitoIntervalListenerNotifier")) : null;
+		fanOut = new ListenerFanOut(listenerNotifiers);
 	}
 
 	public void addUpdateable(IUpdateable aUpdateable, int anUpdateSequenceInSeconds) {
 		if (anUpdateSequenceInSeconds==0)
 			return;
-		UpdateableWrapper adapter = new UpdateableWrapper(aUpdateable);
-		timer.scheduleAtFixedRate(adapter, 1000L*anUpdateSequenceInSeconds, 1000L*anUpdateSequenceInSeconds);
+		UpdateableWrapper wrapper = new UpdateableWrapper(aUpdateable, getUpdateableName(aUpdateable),
+				1000L*anUpdateSequenceInSeconds, alignToWallClock, clock.currentTimeMillis(), fanOut);
+		schedule(new Trigger(wrapper));
+	}
+
+	private void schedule(Trigger trigger){
+		long delay = trigger.wrapper.getNextExecution() - clock.currentTimeMillis();
+		try{
+			scheduler.schedule(trigger, delay < 0 ? 0 : delay, TimeUnit.MILLISECONDS);
+		}catch(RejectedExecutionException e){
+			log.debug("Can't schedule "+trigger.wrapper+", service is shut down");
+		}
 	}
 
 	@Override
 	public void cleanup() {
-		timer.cancel();
+		scheduler.shutdownNow();
+		updaters.shutdownNow();
+		if (listenerNotifiers != null)
+			listenerNotifiers.shutdownNow();
+	}
+
+	/**
+	 * Returns the name under which the durations of the updateable are recorded.
+	 * @param aUpdateable the updateable.
+	 * @return name of the updateable.
+	 */
+	static String getUpdateableName(IUpdateable aUpdateable){
+		if (aUpdateable instanceof Interval)
+			return "interval-"+((Interval)aUpdateable).getName();
+		return getSimpleName(aUpdateable);
+	}
+
+	/**
+	 * Returns the simple class name of the object or the full class name for anonymous classes.
+	 * @param o the object.
+	 * @return the name.
+	 */
+	static String getSimpleName(Object o){
+		String name = o.getClass().getSimpleName();
+		return name.length() == 0 ? o.getClass().getName() : name;
+	}
+
+	/**
+	 * Records the duration of an update.
+	 * @param aName name of the updateable.
+	 * @param aDuration the duration in nanoseconds.
+	 * @param anError true if the update failed.
+	 */
+	static void recordUpdate(String aName, long aDuration, boolean anError){
+		OnDemandStatsProducer<ServiceStats> producer = ProducerHolder.PRODUCER;
+		try{
+			record(producer.getStats(aName), aDuration, anError);
+		}catch(OnDemandStatsProducerException e){
+			log.debug("Can't record update of "+aName, e);
+		}
+		record(producer.getDefaultStats(), aDuration, anError);
+	}
+
+	private static void record(ServiceStats stats, long aDuration, boolean anError){
+		stats.addRequest();
+		stats.addExecutionTime(aDuration);
+		if (anError)
+			stats.notifyError();
+		stats.notifyRequestFinished();
+	}
+
+	/**
+	 * Executed by the scheduler thread when an updateable is due, hands the update over to the updaters and
+	 * schedules the next execution.
+	 */
+	private final class Trigger implements Runnable {
+		/**
+		 * The updateable.
+		 */
+		private final UpdateableWrapper wrapper;
+
+		private Trigger(UpdateableWrapper aWrapper) {
+			wrapper = aWrapper;
+		}
+
+		@Override public void run() {
+			if (wrapper.tryStart()){
+				try{
+					updaters.execute(wrapper);
+				}catch(RejectedExecutionException e){
+					wrapper.finished();
+					return;
+				}
+			}else if (log.isDebugEnabled()){
+				//the missed tick is coalesced into a run right after the current one, see UpdateableWrapper.
+				log.debug("Update of "+wrapper+" is delayed, previous update is still running");
+			}
+			wrapper.advance(clock.currentTimeMillis());
+			schedule(this);
+		}
+	}
+
+	/**
+	 * Source of the wall clock time, replaced by unit tests.
+	 */
+	interface Clock {
+		Clock SYSTEM = new Clock() {
+			@Override public long currentTimeMillis() {
+				return System.currentTimeMillis();
+			}
+		};
+
+		long currentTimeMillis();
+	}
+
+	/**
+	 * Daemon thread factory with named threads.
+	 */
+	private static final class DaemonThreadFactory implements ThreadFactory {
+		/**
+		 * Prefix of the thread names.
+		 */
+		private final String name;
+		/**
+		 * Counter for created threads.
+		 */
+		private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+		private DaemonThreadFactory(String aName) {
+			name = aName;
+		}
+
+		@Override public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, name+"-"+threadCounter.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
+	/**
+	 * Holder class for the producer. The producer is created on first recorded update, since its stats need the
+	 * IntervalRegistry, which itself needs this service.
+	 */
+	private static final class ProducerHolder {
+		private static final OnDemandStatsProducer<ServiceStats> PRODUCER = new OnDemandStatsProducer<>(PRODUCER_ID, "moskito", AbstractBuiltInProducer.SUBSYSTEM_BUILTIN, ServiceStatsFactory.DEFAULT_INSTANCE);
+		static {
+			ProducerRegistryFactory.getProducerRegistryInstance().registerProducer(PRODUCER);
+		}
 	}
 
 }
@@ -37,40 +37,176 @@ package net.anotheria.moskito.core.timing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
- * This class implements an adapter to handle IUpdatable instances as TimerTask.
+ * This class implements an adapter to execute IUpdatable instances in the update thread pool.
+ * It also holds the schedule of the updateable. If an update is due while the previous update still runs, it is
+ * executed right after the previous one finished, further due updates are coalesced into this one.
  *
  * @author lrosenberg
  */
-final class UpdateableWrapper extends TimerTask {
+final class UpdateableWrapper implements Runnable {
 
 	private static Logger log = LoggerFactory.getLogger(UpdateableWrapper.class);
 
 	/**
 	 * This is the delegate that will be called.
 	 */
-	private IUpdateable delegate;
-	
+	private final IUpdateable delegate;
+
+	/**
+	 * Name of the delegate in the update stats.
+	 */
+	private final String name;
+
+	/**
+	 * Update period in milliseconds.
+	 */
+	private final long period;
+
+	/**
+	 * If true executions are aligned to multiples of period.
+	 */
+	private final boolean alignToWallClock;
+
+	/**
+	 * Wall clock time of the next execution. Only accessed by the scheduler thread.
+	 */
+	private long nextExecution;
+
+	/**
+	 * No update is queued or running.
+	 */
+	private static final int IDLE = 0;
+	/**
+	 * An update is queued or running.
+	 */
+	private static final int RUNNING = 1;
+	/**
+	 * An update is running and another one is due afterwards.
+	 */
+	private static final int RUNNING_PENDING = 2;
+
+	/**
+	 * One of IDLE, RUNNING, RUNNING_PENDING.
+	 */
+	private final AtomicInteger state = new AtomicInteger(IDLE);
+
+	/**
+	 * Notifies the listeners of fan out updateables, null to update them like other updateables.
+	 */
+	private final ListenerFanOut fanOut;
+
 	/**
 	 * The constructor.
-	 * 
-	 * @param aDelegate the delegate to use 
+	 *
+	 * @param aDelegate the delegate to use
+	 * @param aName name of the delegate
+	 * @param aPeriod update period in milliseconds
+	 * @param anAlignToWallClock if true executions are aligned to multiples of period
+	 * @param now current wall clock time
+	 * @param aFanOut notifies the listeners of fan out updateables, may be null
 	 */
-	UpdateableWrapper(IUpdateable aDelegate){
+	UpdateableWrapper(IUpdateable aDelegate, String aName, long aPeriod, boolean anAlignToWallClock, long now, ListenerFanOut aFanOut){
 		delegate = aDelegate;
+		fanOut = aFanOut;
+		name = aName;
+		period = aPeriod;
+		alignToWallClock = anAlignToWallClock;
+		nextExecution = firstExecutionAfter(now);
+	}
+
+	private long firstExecutionAfter(long now){
+		return alignToWallClock ? (now / period + 1) * period : now + period;
+	}
+
+	/**
+	 * Moves the next execution one period forward. Executions that are already missed, because the VM was suspended
+	 * or the scheduler was blocked, are skipped.
+	 * @param now current wall clock time
+	 */
+	void advance(long now){
+		nextExecution += period;
+		if (nextExecution <= now)
+			nextExecution = firstExecutionAfter(now);
+	}
+
+	long getNextExecution(){
+		return nextExecution;
+	}
+
+	/**
+	 * Marks the delegate as running. If the previous update is still running, another update is marked as pending
+	 * and will be executed by the running one.
+	 * @return true if the caller has to execute the update, false if it was coalesced with a running one.
+	 */
+	boolean tryStart(){
+		while (true){
+			int current = state.get();
+			if (current == IDLE && state.compareAndSet(IDLE, RUNNING))
+				return true;
+			if (current == RUNNING_PENDING || (current == RUNNING && state.compareAndSet(RUNNING, RUNNING_PENDING)))
+				return false;
+		}
+	}
+
+	/**
+	 * Marks the delegate as not running anymore, discarding a pending update.
+	 */
+	void finished(){
+		state.set(IDLE);
+	}
+
+	/**
+	 * Called after an update, returns true if a pending update has to be executed.
+	 */
+	private boolean finishedOrPending(){
+		while (true){
+			if (state.compareAndSet(RUNNING_PENDING, RUNNING))
+				return true;
+			if (state.compareAndSet(RUNNING, IDLE))
+				return false;
+		}
 	}
-	
 
 	@Override public void run() {
+		boolean finished = false;
+		try{
+			do{
+				update();
+			}while(finishedOrPending());
+			finished = true;
+		}finally{
+			if (!finished)
+				finished();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void update(){
+		boolean error = false;
+		long start = System.nanoTime();
 		try{
-			delegate.update();
+			if (fanOut != null && delegate instanceof IFanOutUpdateable)
+				fanOut.update((IFanOutUpdateable<Object>)delegate, name);
+			else
+				delegate.update();
 		}catch(Exception e){
+			error = true;
 			if (log!=null)
 				log.warn("Delegate update failed on "+delegate, e);
 		}
+		try{
+			UpdateTriggerServiceImpl.recordUpdate(name, System.nanoTime() - start, error);
+		}catch(Exception e){
+			log.warn("Can't record update duration of "+name, e);
+		}
+	}
+
+	@Override public String toString(){
+		return name;
 	}
 
 }
@@ -1,14 +1,20 @@
 package net.anotheria.moskito.core.tracer;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import net.anotheria.moskito.core.calltrace.TracingUtil;
+import net.anotheria.moskito.core.config.journey.JourneyConfig;
+import net.anotheria.moskito.core.config.tracing.TracingConfiguration;
 import net.anotheria.util.BasicComparable;
 import net.anotheria.util.sorter.IComparable;
 
 import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Contains a single trace.
+ * Contains a single trace. To keep tracing cheap for traces that are discarded, the result of the call is only
+ * converted into a string and the stack trace is only captured when the trace is kept by the {@link Tracer}, see
+ * {@link #setCall(StringBuilder, Object, JourneyConfig)} and {@link #materialize(TracingConfiguration)}.
  *
  * @author lrosenberg
  * @since 05.05.15 17:54
@@ -38,15 +44,80 @@ public class Trace implements IComparable<Trace>{
      * Timestamp of the trace creation.
      */
     private long createdTimestamp;
+	/**
+	 * Call without the result, as long as the call string hasn't been built.
+	 */
+	private StringBuilder pendingCall;
+	/**
+	 * Result of the call, as long as the call string hasn't been built.
+	 */
+	private Object pendingResult;
+	/**
+	 * Journey config for the conversion of the result.
+	 */
+	private JourneyConfig journeyConfig;
 
     public Trace() {
         createdTimestamp = System.currentTimeMillis();
     }
 
     public String getCall() {
+		if (call == null && pendingCall != null){
+			pendingCall.append(" = ").append(TracingUtil.parameter2string(pendingResult, journeyConfig));
+			call = pendingCall.toString();
+			pendingCall = null;
+			pendingResult = null;
+			journeyConfig = null;
+		}
 		return call;
 	}
 
+	/**
+	 * Sets the call of this trace, the result is appended to the call when the call string is needed first.
+	 * @param aCall the call without result.
+	 * @param result the result of the call.
+	 * @param aJourneyConfig config for result conversion.
+	 */
+	public void setCall(StringBuilder aCall, Object result, JourneyConfig aJourneyConfig){
+		call = null;
+		pendingCall = aCall;
+		pendingResult = result;
+		journeyConfig = aJourneyConfig;
+	}
+
+	/**
+	 * Prepares a trace that is kept: builds the call string and captures the stack trace, if the trace is sampled or
+	 * exceeds the duration threshold. Must be called in the thread that executed the traced call.
+	 * @param config tracing config.
+	 */
+	void materialize(TracingConfiguration config){
+		getCall();
+		if (elements != null || !isStackTraceSampled(config))
+			return;
+		elements = captureStackTrace(config.getStackTraceDepth());
+	}
+
+	private boolean isStackTraceSampled(TracingConfiguration config){
+		long threshold = config.getStackTraceDurationThreshold();
+		if (threshold > 0 && duration >= threshold * 1000000L)
+			return true;
+		int percentage = config.getStackTraceSamplingPercentage();
+		return percentage >= 100 || (percentage > 0 && ThreadLocalRandom.current().nextInt(100) < percentage);
+	}
+
+	/**
+	 * Returns the stack trace of the current thread, without the frames of the tracer classes and limited to depth
+	 * elements.
+	 */
+	static StackTraceElement[] captureStackTrace(int depth){
+		StackTraceElement[] stack = new Throwable().getStackTrace();
+		int start = 0;
+		while (start < stack.length && isTracerFrame(stack[start]))
+			start++;
+		int end = depth > 0 ? Math.min(stack.length, start + depth) : stack.length;
+		return start == 0 && end == stack.length ? stack : Arrays.copyOfRange(stack, start, end);
+	}
+
 	public void setCall(String call) {
 		this.call = call;
 	}
@@ -69,8 +140,13 @@ public class Trace implements IComparable<Trace>{
 		this.elements = elements;
 	}
 
+	private static boolean isTracerFrame(StackTraceElement element){
+		String className = element.getClassName();
+		return className.equals(Trace.class.getName()) || className.equals(Tracer.class.getName()) || className.equals(TracerRepository.class.getName());
+	}
+
 	@Override public String toString(){
-		return id+" "+call+ ' ' +(elements==null? "no elements" : Arrays.toString(getElements()))+", dur: "+duration;
+		return id+" "+getCall()+ ' ' +(elements==null? "no elements" : Arrays.toString(getElements()))+", dur: "+duration;
 	}
 
 	public long getId(){
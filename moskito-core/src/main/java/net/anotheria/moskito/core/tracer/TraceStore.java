@@ -0,0 +1,131 @@
+package net.anotheria.moskito.core.tracer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded storage of the traces of a tracer. The store may grow up to the tolerated amount of traces, once it exceeds
+ * it, it shrinks to the max amount. Each add costs O(log n) for keep longest and O(1) for fifo, the traces are never
+ * copied or sorted on add. Not thread safe, the tracer synchronizes the access.
+ */
+abstract class TraceStore {
+
+	/**
+	 * Orders traces by duration, shorter traces first, and by id for traces with same duration.
+	 */
+	static final Comparator<Trace> BY_DURATION = new Comparator<Trace>() {
+		@Override
+		public int compare(Trace t1, Trace t2) {
+			if (t1.getDuration() != t2.getDuration())
+				return t1.getDuration() < t2.getDuration() ? -1 : 1;
+			return t1.getId() < t2.getId() ? -1 : (t1.getId() == t2.getId() ? 0 : 1);
+		}
+	};
+
+	/**
+	 * Returns false if the trace would be removed again by the next shrinking anyway.
+	 * @param trace the trace.
+	 * @param maxAmount max amount of traces after shrinking.
+	 * @return true if the trace should be added.
+	 */
+	abstract boolean isAdmissible(Trace trace, int maxAmount);
+
+	/**
+	 * Adds the trace and shrinks the store if needed.
+	 * @param trace the trace.
+	 * @param toleratedAmount max amount of traces before shrinking.
+	 * @param maxAmount max amount of traces after shrinking.
+	 * @return traces removed by shrinking.
+	 */
+	abstract List<Trace> add(Trace trace, int toleratedAmount, int maxAmount);
+
+	/**
+	 * Returns a copy of the stored traces in presentation order.
+	 */
+	abstract List<Trace> getTraces();
+
+	abstract int size();
+
+	/**
+	 * Keeps the longest traces in a min heap, so the shortest trace is removed first.
+	 */
+	static class KeepLongest extends TraceStore {
+		private final PriorityQueue<Trace> heap = new PriorityQueue<>(16, BY_DURATION);
+		/**
+		 * True once the store has been shrunk, before the store accepts all traces up to the tolerated amount.
+		 */
+		private boolean shrunk;
+
+		@Override
+		boolean isAdmissible(Trace trace, int maxAmount) {
+			return !shrunk || heap.size() < maxAmount || BY_DURATION.compare(trace, heap.peek()) > 0;
+		}
+
+		@Override
+		List<Trace> add(Trace trace, int toleratedAmount, int maxAmount) {
+			heap.add(trace);
+			if (heap.size() <= toleratedAmount)
+				return Collections.emptyList();
+			shrunk = true;
+			List<Trace> removed = new ArrayList<>(heap.size() - maxAmount);
+			while (heap.size() > maxAmount)
+				removed.add(heap.poll());
+			return removed;
+		}
+
+		/**
+		 * Returns the traces, longest first.
+		 */
+		@Override
+		List<Trace> getTraces() {
+			List<Trace> ret = new ArrayList<>(heap);
+			Collections.sort(ret, Collections.reverseOrder(BY_DURATION));
+			return ret;
+		}
+
+		@Override
+		int size() {
+			return heap.size();
+		}
+	}
+
+	/**
+	 * Keeps the latest traces in a ring, so the oldest trace is removed first.
+	 */
+	static class Fifo extends TraceStore {
+		private final ArrayDeque<Trace> ring = new ArrayDeque<>();
+
+		@Override
+		boolean isAdmissible(Trace trace, int maxAmount) {
+			return true;
+		}
+
+		@Override
+		List<Trace> add(Trace trace, int toleratedAmount, int maxAmount) {
+			ring.addLast(trace);
+			if (ring.size() <= toleratedAmount)
+				return Collections.emptyList();
+			List<Trace> removed = new ArrayList<>(ring.size() - maxAmount);
+			while (ring.size() > maxAmount)
+				removed.add(ring.pollFirst());
+			return removed;
+		}
+
+		/**
+		 * Returns the traces, oldest first.
+		 */
+		@Override
+		List<Trace> getTraces() {
+			return new ArrayList<>(ring);
+		}
+
+		@Override
+		int size() {
+			return ring.size();
+		}
+	}
+}
@@ -1,18 +1,17 @@
 package net.anotheria.moskito.core.tracer;
 
 import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.tracing.ShrinkingStrategy;
 import net.anotheria.moskito.core.config.tracing.TracingConfiguration;
 import net.anotheria.moskito.core.journey.JourneyManager;
 import net.anotheria.moskito.core.journey.JourneyManagerFactory;
-import net.anotheria.util.sorter.StaticQuickSorter;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * TODO comment this class
+ * Collects the traces of a producer. The amount of kept traces is limited, which traces are kept is decided by the
+ * configured shrinking strategy, see {@link TraceStore}.
  *
  * @author lrosenberg
  * @since 04.05.15 17:40
@@ -33,22 +32,25 @@ public class Tracer {
 	private static JourneyManager journeyManager = JourneyManagerFactory.getJourneyManager();
 
 	/**
-	 * Sorttype for keep longest strategy.
+	 * Lock for the trace store.
 	 */
-	private TraceSortType sortTypeForKeepLongest = new TraceSortType(TraceSortType.SORT_BY_DURATION, TraceSortType.DESC);
+	private final Object lock = new Object();
 
 	/**
-	 * Lock for deletion of traces in case we gather too many traces.
+	 * Strategy of the current store.
 	 */
-	private ReadWriteLock resizeLock = new ReentrantReadWriteLock();
+	private ShrinkingStrategy strategy;
+
+	/**
+	 * Stored traces.
+	 */
+	private TraceStore store;
 
-	private List<Trace> traces;
 	private int totalEntryCount;
 
 	public Tracer(String aProducerId){
 		producerId = aProducerId;
 		enabled = true;
-		traces = new CopyOnWriteArrayList<Trace>();
 	}
 
 	public String getProducerId(){
@@ -64,62 +66,77 @@ public class Tracer {
 	}
 
 	public int getEntryCount(){
-		return traces == null ? 0 : traces.size();
+		synchronized(lock){
+			return store == null ? 0 : store.size();
+		}
 	}
 
+	/**
+	 * Adds a new trace. The trace is only materialized (call string, stack trace) if it is kept, with the keep longest
+	 * strategy a trace that is shorter than all kept traces is rejected.
+	 * @param aTrace the trace.
+	 * @param toleratedAmount max amount of traces, after which the traces are shrunk to maxAmount.
+	 * @param maxAmount amount of traces after shrinking.
+	 */
 	public void addTrace(Trace aTrace, int toleratedAmount, int maxAmount){
-		totalEntryCount++;
-		try {
-			resizeLock.writeLock().lock();
-			traces.add(aTrace);
-			if (traces.size() <= toleratedAmount)
-				return;
-
-			TracingConfiguration config = MoskitoConfigurationHolder.getConfiguration().getTracingConfig();
-			List<Trace> oldTraces;
-
-			switch (config.getShrinkingStrategy()) {
-				case KEEPLONGEST:
-					oldTraces = StaticQuickSorter.sort(traces, sortTypeForKeepLongest);
-					traces = new CopyOnWriteArrayList<Trace>();
-					for (int i = 0; i < oldTraces.size(); i++) {
-						if (i < maxAmount) {
-							traces.add(oldTraces.get(i));
-						} else {
-							journeyManager.getOrCreateJourney(Tracers.getJourneyNameForTracers(producerId)).removeStepByName(Tracers.getCallName(oldTraces.get(i)));
-						}
-					}
-					break;
-				case FIFO:
-					oldTraces = traces;
-					traces = new CopyOnWriteArrayList<Trace>();
-					int offset = toleratedAmount - maxAmount;
-
-					for (int i=0; i<oldTraces.size(); i++){
-						if (i>=(1+offset) && i<=(maxAmount+offset)){
-							traces.add(oldTraces.get(i));
-						}else{
-							journeyManager.getOrCreateJourney(Tracers.getJourneyNameForTracers(producerId)).removeStepByName(Tracers.getCallName(oldTraces.get(i)));
-						}
-					}
-					break;
-
-				default:
-					throw new IllegalArgumentException("Shrinking strategy " + config.getShrinkingStrategy() + " is not supported");
-			}
-		}finally{
-			resizeLock.writeLock().unlock();
+		TracingConfiguration config = MoskitoConfigurationHolder.getConfiguration().getTracingConfig();
+		boolean admissible;
+		synchronized(lock){
+			totalEntryCount++;
+			admissible = getStore(config.getShrinkingStrategy()).isAdmissible(aTrace, maxAmount);
+		}
+		if (!admissible){
+			//the trace would be removed by the next shrinking anyway, so its call string and stack trace are never built.
+			removeFromJourney(aTrace);
+			return;
 		}
 
+		aTrace.materialize(config);
+		List<Trace> removed;
+		synchronized(lock){
+			removed = getStore(config.getShrinkingStrategy()).add(aTrace, toleratedAmount, maxAmount);
+		}
+		for (Trace t : removed)
+			removeFromJourney(t);
+	}
 
+	/**
+	 * Returns the store for the strategy, if the strategy has been changed, the existing traces are moved to a new store.
+	 */
+	private TraceStore getStore(ShrinkingStrategy aStrategy){
+		if (store != null && strategy == aStrategy)
+			return store;
+		TraceStore newStore;
+		switch (aStrategy) {
+			case KEEPLONGEST:
+				newStore = new TraceStore.KeepLongest();
+				break;
+			case FIFO:
+				newStore = new TraceStore.Fifo();
+				break;
+			default:
+				throw new IllegalArgumentException("Shrinking strategy " + aStrategy + " is not supported");
+		}
+		if (store != null){
+			for (Trace t : store.getTraces())
+				newStore.add(t, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+		store = newStore;
+		strategy = aStrategy;
+		return store;
 	}
 
+	private void removeFromJourney(Trace trace){
+		journeyManager.getOrCreateJourney(Tracers.getJourneyNameForTracers(producerId)).removeStepByName(Tracers.getCallName(trace));
+	}
+
+	/**
+	 * Returns a copy of the kept traces, longest first with keep longest strategy and oldest first with fifo.
+	 * @return kept traces.
+	 */
 	public List<Trace> getTraces(){
-		try{
-			resizeLock.readLock().lock();
-			return traces;
-		}finally {
-			resizeLock.readLock().unlock();
+		synchronized(lock){
+			return store == null ? new ArrayList<Trace>() : store.getTraces();
 		}
 	}
 
@@ -83,9 +83,12 @@ public class TracerRepository {
 		}
 
 		if (config.isLoggingEnabled()){
+			aNewTrace.materialize(config);
 			traceLog.info(NumberUtils.makeISO8601TimestampString()+", call: "+aNewTrace.getCall()+" duration: "+aNewTrace.getDuration());
-			for (StackTraceElement e : aNewTrace.getElements()){
-				traceLog.info('\t' +e.toString());
+			if (aNewTrace.getElements() != null){
+				for (StackTraceElement e : aNewTrace.getElements()){
+					traceLog.info('\t' +e.toString());
+				}
 			}
 		}
 	}
@@ -0,0 +1,45 @@
+package net.anotheria.moskito.core.util;
+
+/**
+ * Utility to classify values returned by IStats.getValueByNameAsString before parsing them into primitives. The checks
+ * are cheap and avoid NumberFormatExceptions for the common cases.
+ */
+public final class NumericStrings {
+
+	private NumericStrings(){
+	}
+
+	/**
+	 * Returns true if the value is a decimal number that can be parsed with Long.parseLong.
+	 * Numbers with more than 18 digits are not considered as long, they may overflow.
+	 * @param value the value.
+	 * @return true if the value is a long.
+	 */
+	public static boolean isLong(String value){
+		if (value == null || value.length() == 0)
+			return false;
+		int start = value.charAt(0) == '-' ? 1 : 0;
+		int length = value.length() - start;
+		if (length == 0 || length > 18)
+			return false;
+		for (int i = start; i < value.length(); i++){
+			char c = value.charAt(i);
+			if (c < '0' || c > '9')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the value may be a double, values for which this method returns false will certainly fail in
+	 * Double.parseDouble. Double.toString values always start with a digit, a sign, N(aN) or I(nfinity).
+	 * @param value the value.
+	 * @return true if the value is possibly a double.
+	 */
+	public static boolean mayBeDouble(String value){
+		if (value == null || value.length() == 0)
+			return false;
+		char first = value.charAt(0);
+		return (first >= '0' && first <= '9') || first == '-' || first == '.' || first == 'N' || first == 'I';
+	}
+}
@@ -0,0 +1,183 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.config.accumulators.AccumulatorsPersistenceConfig;
+import net.anotheria.moskito.core.threshold.Threshold;
+import net.anotheria.moskito.core.threshold.ThresholdDefinition;
+import net.anotheria.moskito.core.threshold.ThresholdRepository;
+import net.anotheria.moskito.core.threshold.ThresholdStatus;
+import net.anotheria.moskito.core.threshold.alerts.AlertHistory;
+import net.anotheria.moskito.core.threshold.alerts.ThresholdAlert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AccumulatorHistoryStoreTest {
+
+	private File directory;
+
+	@Before public void createDirectory(){
+		directory = new File(System.getProperty("java.io.tmpdir"), "moskito-accumulators-test-"+System.nanoTime());
+	}
+
+	@After public void deleteDirectory(){
+		File[] files = directory.listFiles();
+		if (files != null){
+			for (File f : files)
+				f.delete();
+		}
+		directory.delete();
+	}
+
+	private AccumulatorsPersistenceConfig createConfig(int segmentSizeInKb){
+		AccumulatorsPersistenceConfig config = new AccumulatorsPersistenceConfig();
+		config.setEnabled(true);
+		config.setDirectory(directory.getAbsolutePath());
+		config.setSegmentSizeInKb(segmentSizeInKb);
+		return config;
+	}
+
+	private static Accumulator createAccumulator(String name){
+		AccumulatorDefinition def = new AccumulatorDefinition();
+		def.setName(name);
+		def.setAccumulationAmount(100);
+		return new Accumulator(def);
+	}
+
+	@Test public void testRestoreAfterReopen() throws Exception{
+		long now = System.currentTimeMillis();
+		AccumulatorHistoryStore store = new AccumulatorHistoryStore(createConfig(1), 111, 10);
+		Accumulator a = createAccumulator("a");
+		Accumulator b = createAccumulator("b");
+		a.persistTo(store);
+		b.persistTo(store);
+		for (int i=0; i<150; i++){
+			a.addValue(new AccumulatedValue(String.valueOf(i), now+i));
+			b.addValue(new AccumulatedValue(String.valueOf(i/2.0), now+i));
+		}
+		b.addValue(new AccumulatedValue("not a number", now+1000));
+		store.close();
+
+		//300 records of 24 bytes don't fit into one segment of 1 kb.
+		assertTrue(directory.listFiles().length > 2);
+
+		store = new AccumulatorHistoryStore(createConfig(1), 111, 10);
+		Accumulator restoredA = createAccumulator("a");
+		Accumulator restoredB = createAccumulator("b");
+		store.restore(restoredA);
+		store.restore(restoredB);
+		store.close();
+
+		AccumulatedValuesView view = restoredA.getValuesView();
+		//111 restored values are trimmed to the accumulation amount.
+		assertEquals(100, view.size());
+		assertEquals("50", view.getValue(0));
+		assertEquals("149", view.getValue(view.size()-1));
+		assertEquals(now+149, view.getTimestamp(view.size()-1));
+		assertEquals(74.5, restoredB.getValuesView().getValueAsDouble(restoredB.getValuesView().size()-1), 0.0001);
+
+		//values are restored only once.
+		Accumulator again = createAccumulator("a");
+		store.restore(again);
+		assertEquals(0, again.getValuesView().size());
+	}
+
+	@Test public void testNamesWithLineBreaks() throws Exception{
+		String name = "line\nbreak\\n and \r return";
+		assertEquals(name, AccumulatorHistoryStore.unescapeName(AccumulatorHistoryStore.escapeName(name)));
+
+		AccumulatorHistoryStore store = new AccumulatorHistoryStore(createConfig(1), 10, 10);
+		Accumulator a = createAccumulator(name);
+		a.persistTo(store);
+		a.addValue(new AccumulatedValue("42", System.currentTimeMillis()));
+		store.close();
+
+		store = new AccumulatorHistoryStore(createConfig(1), 10, 10);
+		Accumulator restored = createAccumulator(name);
+		store.restore(restored);
+		store.close();
+		assertEquals(1, restored.getValuesView().size());
+		assertEquals("42", restored.getValuesView().getValue(0));
+	}
+
+	@Test public void testRestoreAlerts() throws Exception{
+		ThresholdDefinition definition = new ThresholdDefinition();
+		definition.setName("alert-restore-"+System.nanoTime());
+		definition.setProducerName("none");
+		Threshold threshold = new Threshold(definition);
+
+		long now = System.currentTimeMillis();
+		AccumulatorHistoryStore store = new AccumulatorHistoryStore(createConfig(1), 10, 2);
+		for (int i=0; i<3; i++){
+			ThresholdAlert alert = new ThresholdAlert(threshold, ThresholdStatus.GREEN, ThresholdStatus.RED, String.valueOf(i), i == 2 ? null : String.valueOf(i+1), 0);
+			alert.setTimestamp(now+i);
+			alert.setFlipCount(i);
+			store.alertAdded(alert);
+		}
+		store.close();
+
+		//only the newest two alerts are restored and kept in the file.
+		store = new AccumulatorHistoryStore(createConfig(1), 10, 2);
+		store.restoreAlerts();
+		store.close();
+		assertEquals(0, getAlerts(definition.getName()).size());
+
+		Threshold created = ThresholdRepository.getInstance().createThreshold(definition);
+		List<ThresholdAlert> restored = getAlerts(definition.getName());
+		assertEquals(2, restored.size());
+		//newest first.
+		assertEquals(now+2, restored.get(0).getTimestamp());
+		assertEquals(2, restored.get(0).getFlipCount());
+		assertEquals("2", restored.get(0).getOldValue());
+		assertNull(restored.get(0).getNewValue());
+		assertEquals(ThresholdStatus.RED, restored.get(0).getNewStatus());
+		assertEquals(now+1, restored.get(1).getTimestamp());
+		assertTrue(restored.get(1).getThreshold() == created);
+		ThresholdRepository.getInstance().removeTieable(definition.getName());
+	}
+
+	private static List<ThresholdAlert> getAlerts(String thresholdName){
+		List<ThresholdAlert> ret = new ArrayList<>();
+		for (ThresholdAlert alert : AlertHistory.INSTANCE.getAlerts()){
+			if (alert.getThreshold().getName().equals(thresholdName))
+				ret.add(alert);
+		}
+		return ret;
+	}
+
+	@Test public void testMaxTotalSize() throws Exception{
+		AccumulatorsPersistenceConfig config = createConfig(1);
+		config.setMaxTotalSizeInMb(0);
+		long now = System.currentTimeMillis();
+		AccumulatorHistoryStore store = new AccumulatorHistoryStore(config, 10, 10);
+		Accumulator a = createAccumulator("a");
+		a.persistTo(store);
+		for (int i=0; i<500; i++)
+			a.addValue(new AccumulatedValue(String.valueOf(i), now+i));
+		store.close();
+
+		//only the current segment and the names file are kept.
+		assertEquals(2, directory.listFiles().length);
+	}
+
+	@Test public void testUnmap() throws Exception{
+		assertTrue(directory.mkdirs());
+		File file = new File(directory, "mapped");
+		try(RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+			MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 1024);
+			buffer.putLong(0, 42);
+			assertTrue(AccumulatorHistoryStore.unmap(buffer));
+		}
+		assertTrue(file.delete());
+	}
+}
@@ -3,7 +3,9 @@ package net.anotheria.moskito.core.accumulation;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 
 public class AccumulatorTest {
@@ -38,4 +40,67 @@ public class AccumulatorTest {
 		//System.out.println(acc.getValues().get(200-1));
 		//System.out.println(acc.getValues().get(200-2));
 	}
-} 
+
+	@Test public void testValueTypes(){
+		Accumulator acc = new Accumulator(new AccumulatorDefinition());
+		acc.addValue("42");
+		acc.addValue("100.0");
+		acc.addValue("n/a");
+		acc.addValue(7L);
+		acc.addValue(1.5);
+		acc.addValue(new AccumulatedValue("-3", 1000));
+
+		AccumulatedValuesView view = acc.getValuesView();
+		assertEquals(6, view.size());
+		assertEquals("42", view.getValue(0));
+		assertEquals("100.0", view.getValue(1));
+		assertEquals("n/a", view.getValue(2));
+		assertTrue(Double.isNaN(view.getValueAsDouble(2)));
+		assertEquals("7", view.getValue(3));
+		assertEquals(1.5, view.getValueAsDouble(4), 0.0001);
+		assertEquals(-3, view.getValueAsDouble(5), 0.0001);
+		assertEquals(1000, view.getTimestamp(5));
+		assertEquals("n/a", acc.getValues().get(2).getValue());
+	}
+
+	@Test public void testWindowAndDownsample(){
+		AccumulatorDefinition def = new AccumulatorDefinition();
+		def.setAccumulationAmount(10);
+		Accumulator acc = new Accumulator(def);
+		for (int i=0; i<10; i++)
+			acc.addValue(new AccumulatedValue(String.valueOf(i), i*1000L));
+
+		AccumulatedValuesView view = acc.getValuesView();
+		AccumulatedValuesView window = view.window(2000, 5000);
+		assertEquals(3, window.size());
+		assertEquals("2", window.getValue(0));
+		assertEquals(0, view.window(20000, 30000).size());
+		assertEquals("9", view.last(1).getValue(0));
+
+		DownsampledValues downsampled = view.downsample(3);
+		assertEquals(3, downsampled.size());
+		assertEquals(0, downsampled.getTimestamp(0));
+		assertEquals(0, downsampled.getMin(0), 0.0001);
+		assertEquals(2, downsampled.getMax(0), 0.0001);
+		assertEquals(1, downsampled.getAvg(0), 0.0001);
+		assertEquals(9, downsampled.getMax(2), 0.0001);
+		assertEquals(10, view.downsample(100).size());
+	}
+
+	@Test public void testViewIsIntactUntilOverwritten(){
+		AccumulatorDefinition def = new AccumulatorDefinition();
+		def.setAccumulationAmount(10);
+		Accumulator acc = new Accumulator(def);
+		for (int i=0; i<10; i++)
+			acc.addValue(i);
+		AccumulatedValuesView view = acc.getValuesView();
+		//max is 11 values, the ring has space for 22
+		for (int i=0; i<12; i++)
+			acc.addValue(i);
+		assertTrue(view.isIntact());
+		assertEquals("0", view.getValue(0));
+		acc.addValue(12);
+		assertFalse(view.isIntact());
+		assertEquals(11, acc.getValuesView().size());
+	}
+}
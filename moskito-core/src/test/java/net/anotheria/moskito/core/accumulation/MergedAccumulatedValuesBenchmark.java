@@ -0,0 +1,147 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.config.accumulators.ChartDownsampling;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures allocated bytes and time for a combined, normalized chart of 20 accumulators with 10000 values each, once
+ * the way the chart was built before (a bucket map of string values, sorting, forward filling and float parsing of the
+ * whole history) and once via {@link MergedAccumulatedValues} with each downsampling algorithm.
+ * Not a unit test, run it manually via main method. Requires a HotSpot VM for allocation measurement.
+ */
+public class MergedAccumulatedValuesBenchmark {
+
+	private static final int ACCUMULATORS = 20;
+
+	private static final int VALUES = 10000;
+
+	private static final int ROWS = 200;
+
+	private static final int RUNS = 20;
+
+	private static final long MINUTE = 60000L;
+
+	public static void main(String a[]){
+		List<AccumulatedValuesView> series = new ArrayList<>(ACCUMULATORS);
+		List<String> names = new ArrayList<>(ACCUMULATORS);
+		for (int i=0; i<ACCUMULATORS; i++){
+			AccumulatorDefinition def = new AccumulatorDefinition();
+			def.setName("acc-"+i);
+			def.setAccumulationAmount(VALUES);
+			Accumulator acc = new Accumulator(def);
+			//every second accumulator has 5 minute values.
+			long step = i % 2 == 0 ? MINUTE : 5 * MINUTE;
+			for (int v=0; v<VALUES; v++)
+				acc.addValue(new AccumulatedValue(String.valueOf((v * 31 + i * 17) % 1000), v * step + i));
+			series.add(acc.getValuesView());
+			names.add(def.getName());
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		//warmup
+		for (int i=0; i<RUNS; i++){
+			byStrings(series, names);
+			for (ChartDownsampling downsampling : ChartDownsampling.values())
+				merged(series, downsampling);
+		}
+
+		System.out.println("method\tbytes/chart\tµs/chart");
+		long bytes = threadBean.getThreadAllocatedBytes(threadId);
+		long time = System.nanoTime();
+		for (int i=0; i<RUNS; i++)
+			byStrings(series, names);
+		print("strings", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+
+		for (ChartDownsampling downsampling : ChartDownsampling.values()){
+			bytes = threadBean.getThreadAllocatedBytes(threadId);
+			time = System.nanoTime();
+			for (int i=0; i<RUNS; i++)
+				merged(series, downsampling);
+			print(downsampling.name().toLowerCase(), threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+		}
+	}
+
+	/**
+	 * Builds the chart the way it was built before.
+	 */
+	private static List<String[]> byStrings(List<AccumulatedValuesView> series, List<String> names){
+		Map<Long, Map<String, String>> buckets = new HashMap<>();
+		for (int s=0; s<series.size(); s++){
+			AccumulatedValuesView view = series.get(s);
+			for (int i=0; i<view.size(); i++){
+				AccumulatedValue value = new AccumulatedValue(view.getValue(i), view.getTimestamp(i));
+				long timestamp = value.getTimestamp() / MINUTE * MINUTE;
+				Map<String, String> bucket = buckets.get(timestamp);
+				if (bucket == null){
+					bucket = new HashMap<>();
+					buckets.put(timestamp, bucket);
+				}
+				bucket.put(names.get(s), value.getValue());
+			}
+		}
+		List<Long> timestamps = new ArrayList<>(buckets.keySet());
+		Collections.sort(timestamps);
+
+		Map<String, String> last = new HashMap<>();
+		for (String name : names){
+			last.put(name, "0");
+			for (Long timestamp : timestamps){
+				String value = buckets.get(timestamp).get(name);
+				if (value != null){
+					last.put(name, value);
+					break;
+				}
+			}
+		}
+		for (Long timestamp : timestamps){
+			Map<String, String> bucket = buckets.get(timestamp);
+			for (String name : names){
+				String value = bucket.get(name);
+				if (value == null)
+					bucket.put(name, last.get(name));
+				else
+					last.put(name, value);
+			}
+		}
+
+		for (String name : names){
+			List<Float> copy = new ArrayList<>(timestamps.size());
+			float min = Float.MAX_VALUE, max = Float.MIN_VALUE;
+			for (Long timestamp : timestamps){
+				float value = Float.parseFloat(buckets.get(timestamp).get(name));
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				copy.add(value);
+			}
+			float multiplier = 100 / (max - min);
+			for (int i=0; i<timestamps.size(); i++)
+				buckets.get(timestamps.get(i)).put(name, String.valueOf((copy.get(i) - min) * multiplier));
+		}
+
+		List<String[]> rows = new ArrayList<>(timestamps.size());
+		for (Long timestamp : timestamps){
+			String[] row = new String[names.size()];
+			for (int s=0; s<row.length; s++)
+				row[s] = buckets.get(timestamp).get(names.get(s));
+			rows.add(row);
+		}
+		return new ArrayList<>(rows.subList(Math.max(0, rows.size() - ROWS), rows.size()));
+	}
+
+	private static MergedAccumulatedValues merged(List<AccumulatedValuesView> series, ChartDownsampling downsampling){
+		MergedAccumulatedValues merged = MergedAccumulatedValues.merge(series, MINUTE, downsampling == ChartDownsampling.NONE ? ROWS : -1);
+		return merged.downsample(ROWS, downsampling).normalize(100);
+	}
+
+	private static void print(String method, long bytes, long nanos){
+		System.out.println(method+"\t"+bytes/RUNS+"\t"+nanos/RUNS/1000);
+	}
+}
@@ -0,0 +1,95 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.config.accumulators.ChartDownsampling;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class MergedAccumulatedValuesTest {
+
+	private static final long MINUTE = 60000L;
+
+	private static AccumulatedValuesView series(long[] timestamps, String... values){
+		AccumulatorDefinition def = new AccumulatorDefinition();
+		def.setAccumulationAmount(1000);
+		Accumulator acc = new Accumulator(def);
+		for (int i=0; i<values.length; i++)
+			acc.addValue(new AccumulatedValue(values[i], timestamps[i]));
+		return acc.getValuesView();
+	}
+
+	@Test public void testMergeFillsMissingValues(){
+		//a has values in minute 0, 1 and 3, b in minute 1 (twice) and 2, c is empty.
+		AccumulatedValuesView a = series(new long[]{0, MINUTE + 10, 3 * MINUTE}, "1", "2", "n/a");
+		AccumulatedValuesView b = series(new long[]{MINUTE, MINUTE + 20, 2 * MINUTE}, "10", "11", "12");
+		AccumulatedValuesView c = series(new long[0]);
+
+		MergedAccumulatedValues merged = MergedAccumulatedValues.merge(Arrays.asList(a, b, c), MINUTE, -1);
+		assertEquals(4, merged.size());
+		assertEquals(3, merged.getSeriesCount());
+		assertEquals(3 * MINUTE, merged.getTimestamp(3));
+		//values before the first value of a series are filled with its first value.
+		assertEquals(10, merged.getValue(1, 0), 0);
+		//last value within a bucket wins.
+		assertEquals(11, merged.getValue(1, 1), 0);
+		//missing and non numeric values repeat the previous value.
+		assertEquals(2, merged.getValue(0, 2), 0);
+		assertEquals(2, merged.getValue(0, 3), 0);
+		assertEquals(12, merged.getValue(1, 3), 0);
+		assertEquals(0, merged.getValue(2, 3), 0);
+	}
+
+	@Test public void testMergeWindow(){
+		long[] timestamps = new long[100];
+		String[] values = new String[100];
+		for (int i=0; i<100; i++){
+			timestamps[i] = i * MINUTE;
+			values[i] = String.valueOf(i);
+		}
+		AccumulatedValuesView a = series(timestamps, values);
+		//b only has one old value, which has to be repeated in the window.
+		AccumulatedValuesView b = series(new long[]{5 * MINUTE}, "7");
+
+		MergedAccumulatedValues merged = MergedAccumulatedValues.merge(Arrays.asList(a, b), MINUTE, 10);
+		assertEquals(10, merged.size());
+		assertEquals(90 * MINUTE, merged.getTimestamp(0));
+		assertEquals(90, merged.getValue(0, 0), 0);
+		assertEquals(7, merged.getValue(1, 9), 0);
+
+		MergedAccumulatedValues all = MergedAccumulatedValues.merge(Arrays.asList(a, b), MINUTE, -1);
+		assertEquals(100, all.size());
+		MergedAccumulatedValues last = all.downsample(10, ChartDownsampling.NONE);
+		assertEquals(merged.getTimestamp(0), last.getTimestamp(0));
+
+		MergedAccumulatedValues avg = all.downsample(10, ChartDownsampling.AVERAGE);
+		assertEquals(10, avg.size());
+		assertEquals(4.5, avg.getValue(0, 0), 0.0001);
+		assertEquals(9, all.downsample(10, ChartDownsampling.MAX).getValue(0, 0), 0);
+		assertEquals(90, all.downsample(10, ChartDownsampling.MIN).getValue(0, 9), 0);
+
+		MergedAccumulatedValues normalized = all.normalize(100);
+		assertEquals(0, normalized.getValue(0, 0), 0.0001);
+		assertEquals(100, normalized.getValue(0, 99), 0.0001);
+		assertEquals(0, normalized.getValue(1, 50), 0.0001);
+	}
+
+	@Test public void testLttbKeepsPeaks(){
+		long[] timestamps = new long[1000];
+		String[] values = new String[1000];
+		for (int i=0; i<1000; i++){
+			timestamps[i] = i * MINUTE;
+			values[i] = i == 500 ? "1000" : "1";
+		}
+		MergedAccumulatedValues all = MergedAccumulatedValues.merge(Arrays.asList(series(timestamps, values)), MINUTE, -1);
+		MergedAccumulatedValues lttb = all.downsample(20, ChartDownsampling.LTTB);
+		assertEquals(20, lttb.size());
+		assertEquals(0, lttb.getTimestamp(0));
+		assertEquals(999 * MINUTE, lttb.getTimestamp(19));
+		double max = 0;
+		for (int i=0; i<lttb.size(); i++)
+			max = Math.max(max, lttb.getValue(0, i));
+		assertEquals(1000, max, 0);
+	}
+}
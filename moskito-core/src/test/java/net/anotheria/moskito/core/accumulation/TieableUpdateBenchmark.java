@@ -0,0 +1,96 @@
+package net.anotheria.moskito.core.accumulation;
+
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.threshold.Threshold;
+import net.anotheria.moskito.core.threshold.ThresholdDefinition;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures allocated bytes and time per interval tick for the update of 10000 accumulators and 10000 thresholds,
+ * once with a value lookup by name on each update (the way tieables worked before) and once via resolved accessors.
+ * Not a unit test, run it manually via main method. Requires a HotSpot VM for allocation measurement.
+ */
+public class TieableUpdateBenchmark {
+
+	private static final int TIEABLES = 10000;
+
+	private static final int TICKS = 50;
+
+	private static final String INTERVAL = "1m";
+
+	private static final String[] VALUE_NAMES = {"TR", "Avg", "TT", "ERR", "MCR"};
+
+	public static void main(String a[]){
+		Accumulator[] accumulators = new Accumulator[TIEABLES];
+		Threshold[] thresholds = new Threshold[TIEABLES];
+		ServiceStats[] stats = new ServiceStats[TIEABLES];
+		for (int i=0; i<TIEABLES; i++){
+			stats[i] = new ServiceStats("method-"+i);
+			stats[i].addRequest();
+			stats[i].addExecutionTime(100+i);
+
+			AccumulatorDefinition ad = new AccumulatorDefinition();
+			ad.setName("acc-"+i);
+			ad.setValueName(VALUE_NAMES[i % VALUE_NAMES.length]);
+			ad.setIntervalName(INTERVAL);
+			ad.setTimeUnit(TimeUnit.MILLISECONDS);
+			accumulators[i] = new Accumulator(ad);
+			accumulators[i].tieToStats(stats[i]);
+
+			ThresholdDefinition td = new ThresholdDefinition();
+			td.setName("threshold-"+i);
+			td.setValueName(VALUE_NAMES[i % VALUE_NAMES.length]);
+			td.setIntervalName(INTERVAL);
+			td.setTimeUnit(TimeUnit.MILLISECONDS);
+			thresholds[i] = new Threshold(td);
+			thresholds[i].tieToStats(stats[i]);
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		//warmup
+		for (int i=0; i<TICKS; i++){
+			updateByName(accumulators, stats);
+			update(accumulators, thresholds);
+		}
+
+		System.out.println("lookup\tbytes/tick\tµs/tick");
+		long bytes = threadBean.getThreadAllocatedBytes(threadId);
+		long time = System.nanoTime();
+		for (int i=0; i<TICKS; i++)
+			updateByName(accumulators, stats);
+		print("by name", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+
+		bytes = threadBean.getThreadAllocatedBytes(threadId);
+		time = System.nanoTime();
+		for (int i=0; i<TICKS; i++)
+			update(accumulators, thresholds);
+		print("accessor", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+	}
+
+	/**
+	 * Updates accumulators and thresholds the way they were updated before, thresholds only read the value.
+	 */
+	private static void updateByName(Accumulator[] accumulators, ServiceStats[] stats){
+		for (int i=0; i<accumulators.length; i++){
+			AccumulatorDefinition def = accumulators[i].getDefinition();
+			accumulators[i].addValue(stats[i].getValueByNameAsString(def.getValueName(), def.getIntervalName(), def.getTimeUnit()));
+			//threshold read
+			stats[i].getValueByNameAsString(def.getValueName(), def.getIntervalName(), def.getTimeUnit());
+		}
+	}
+
+	private static void update(Accumulator[] accumulators, Threshold[] thresholds){
+		for (int i=0; i<accumulators.length; i++){
+			accumulators[i].update();
+			thresholds[i].update();
+		}
+	}
+
+	private static void print(String lookup, long bytes, long nanos){
+		System.out.println(lookup+"\t"+bytes/TICKS+"\t"+nanos/TICKS/1000);
+	}
+}
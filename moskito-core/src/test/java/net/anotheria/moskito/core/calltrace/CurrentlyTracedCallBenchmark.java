@@ -0,0 +1,73 @@
+package net.anotheria.moskito.core.calltrace;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures allocated bytes and time for recording traced calls with 10000 steps the way the call handlers do it
+ * (start step, append the result, set the duration, end step), and for rendering them as trace, json and step count.
+ * Not a unit test, run it manually via main method. Requires a HotSpot VM for allocation measurement.
+ */
+public class CurrentlyTracedCallBenchmark {
+
+	private static final int STEPS = 10000;
+
+	/**
+	 * Each top level step has that many nested calls below it.
+	 */
+	private static final int DEPTH = 4;
+
+	private static final int ROUNDS = 50;
+
+	private static long blackhole;
+
+	public static void main(String a[]){
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		//warmup
+		for (int i=0; i<ROUNDS; i++)
+			render(record());
+
+		System.out.println("phase\tbytes/call\tms/call");
+		CurrentlyTracedCall[] calls = new CurrentlyTracedCall[ROUNDS];
+		long bytes = threadBean.getThreadAllocatedBytes(threadId);
+		long time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			calls[i] = record();
+		print("record", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+
+		bytes = threadBean.getThreadAllocatedBytes(threadId);
+		time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			render(calls[i]);
+		print("render", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+		System.out.println(blackhole == 42 ? "" : "steps: "+calls[0].getNumberOfSteps());
+	}
+
+	private static CurrentlyTracedCall record(){
+		CurrentlyTracedCall call = new CurrentlyTracedCall("benchmark");
+		for (int i=0; i<STEPS / DEPTH; i++)
+			recordStep(call, i, DEPTH);
+		return call;
+	}
+
+	private static void recordStep(CurrentlyTracedCall call, int i, int depth){
+		TraceStep step = call.startStep("Service"+depth+".method("+i+")", null);
+		if (depth > 1)
+			recordStep(call, i, depth - 1);
+		step.appendToCall(" = result"+i);
+		step.setDuration(1000L * depth + i);
+		call.endStep();
+	}
+
+	private static void render(CurrentlyTracedCall call){
+		blackhole += call.getTrace().length();
+		blackhole += call.getRootStep().toJSON().length();
+		blackhole += call.getNumberOfSteps();
+		blackhole += call.getRootStep().getDuration();
+	}
+
+	private static void print(String phase, long bytes, long nanos){
+		System.out.println(phase+"\t"+bytes/ROUNDS+"\t"+(double)nanos/ROUNDS/1000000);
+	}
+}
@@ -0,0 +1,119 @@
+package net.anotheria.moskito.core.calltrace;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CurrentlyTracedCallTest {
+
+	@Test
+	public void testRecording(){
+		CurrentlyTracedCall call = new CurrentlyTracedCall("test");
+		TraceStep a = call.startStep("a", null);
+		TraceStep b = call.startStep("b", null);
+		b.appendToCall(" = 1");
+		b.setDuration(30);
+		call.endStep();
+		TraceStep c = call.startStep("c", null);
+		c.setAborted();
+		c.setDuration(20);
+		call.endStep();
+		a.appendToCall(" = 2");
+		a.setDuration(100);
+		call.endStep();
+
+		assertEquals("[a = 2[b = 1, c]]", call.getTrace());
+		assertEquals(4, call.getNumberOfSteps());
+		assertEquals(100, call.getRootStep().getDuration());
+		assertEquals(0, call.getRootStep().getNetDuration());
+		assertEquals(50, a.getNetDuration());
+		assertEquals(a, call.getFirstStep());
+		assertEquals(c, call.getLastStep());
+		assertTrue(call.getLastStep().isAborted());
+		assertFalse(b.isAborted());
+		assertEquals(a, b.getParent());
+		assertNull(call.getRootStep().getParent());
+		assertEquals(call.getRootStep(), call.getCurrentStep());
+
+		List<TraceStep> children = a.getChildren();
+		assertEquals(2, children.size());
+		assertEquals("b = 1", children.get(0).getCall());
+		assertEquals("c D: 20 ns aborted.", children.get(1).toString());
+	}
+
+	@Test
+	public void testManySteps(){
+		CurrentlyTracedCall call = new CurrentlyTracedCall("many");
+		int steps = 1001;
+		long total = 0;
+		for (int i=0; i<steps; i++){
+			TraceStep step = call.startStep("s"+i, null);
+			step.setDuration(i);
+			total += i;
+			//every second step has a nested call.
+			if (i % 2 == 0){
+				call.startStep("nested"+i, null).setDuration(1);
+				call.endStep();
+			}
+			call.endStep();
+		}
+		assertEquals(1 + steps + (steps + 1) / 2, call.getNumberOfSteps());
+		assertEquals(total, call.getRootStep().getDuration());
+		List<TraceStep> children = call.getRootStep().getChildren();
+		assertEquals(steps, children.size());
+		assertEquals("s"+(steps-1), children.get(steps-1).getCall());
+		assertEquals("nested"+(steps-1), call.getLastStep().getCall());
+	}
+
+	@Test
+	public void testStandaloneSteps(){
+		TraceStep root = new TraceStep("root");
+		TraceStep child = new TraceStep("child");
+		TraceStep grandChild = new TraceStep("grandChild");
+		grandChild.setDuration(5);
+		child.addChild(grandChild);
+		child.setDuration(10);
+		root.addChild(child);
+
+		assertEquals("root[child[grandChild]]", root.generateTrace());
+		assertEquals(10, root.getDuration());
+		assertEquals(5, root.getChildren().get(0).getNetDuration());
+		assertEquals(root, child.getParent());
+		assertEquals("grandChild", root.getLastStep().getCall());
+		assertEquals("{\"call\":\"root\",\"duration\": 0,\"netDuration\": 0,\"children\": [{\"call\":\"child\",\"duration\": 10,\"netDuration\": 5,\"children\": [{\"call\":\"grandChild\",\"duration\": 5,\"netDuration\": 5,\"children\": []}]}]}", root.toJSON());
+	}
+
+	@Test
+	public void testDurationsFollowChanges(){
+		TraceStep root = new TraceStep("root");
+		TraceStep child = new TraceStep("child");
+		root.addChild(child);
+		child.setDuration(10);
+		TraceStep grandChild = new TraceStep("grandChild");
+		child.addChild(grandChild);
+		grandChild.setDuration(4);
+		grandChild.setDuration(6);
+
+		assertEquals(10, root.getDuration());
+		assertEquals(4, child.getNetDuration());
+		assertTrue(grandChild.getChildren().isEmpty());
+
+		//setting the parent doesn't add the step to the children of the parent.
+		TraceStep other = new TraceStep("other");
+		other.setParent(root);
+		other.setDuration(100);
+		assertEquals(root, other.getParent());
+		assertEquals(1, root.getChildren().size());
+		assertEquals(10, root.getDuration());
+
+		child.appendToCall(" = ");
+		child.appendToCall("result");
+		assertEquals("child = result", child.getCall());
+		assertEquals("root[child = result[grandChild]]", root.generateTrace());
+	}
+}
@@ -1,9 +1,23 @@
 package net.anotheria.moskito.core.journey;
 
+import net.anotheria.moskito.core.calltrace.CurrentlyTracedCall;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.journey.JourneyConfig;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -13,6 +27,9 @@ import static org.junit.Assert.fail;
  * @since 27.10.12 23:31
  */
 public class JourneyManagerImplTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testCreateDelete() throws Exception{
 		String journeyName = "myJourney";
@@ -39,4 +56,142 @@ public class JourneyManagerImplTest {
 		assertEquals(0, manager.getJourneys().size());
 
 	}
+
+	@Test
+	public void testLeastRecentlyActiveJourneysAreEvicted() throws Exception{
+		JourneyManagerImpl manager = new JourneyManagerImpl();
+		for (int i=0; i<3; i++)
+			manager.createJourney("j"+i).setLastActivityTimestamp(System.currentTimeMillis() + 1000 * i);
+		manager.getJourney("j0").setLastActivityTimestamp(System.currentTimeMillis() + 5000);
+
+		JourneyConfig config = new JourneyConfig();
+		config.setMaxJourneys(2);
+		manager.evict(config, System.currentTimeMillis());
+
+		assertEquals(2, manager.getJourneys().size());
+		manager.getJourney("j0");
+		manager.getJourney("j2");
+		try{
+			manager.getJourney("j1");
+			fail("Exception expected");
+		}catch(NoSuchJourneyException e){}
+	}
+
+	@Test
+	public void testEvictedJourneysAreSpilled() throws Exception{
+		File directory = folder.newFolder();
+		JourneyManagerImpl manager = new JourneyManagerImpl();
+		Journey journey = manager.createJourney("spilled");
+		journey.addUseCase(createCall("first"));
+		journey.addUseCase(createCall("second"));
+
+		JourneyConfig config = new JourneyConfig();
+		config.setMaxTotalJourneySize(1);
+		config.setSpillDirectory(directory.getAbsolutePath());
+		manager.evict(config, System.currentTimeMillis());
+
+		assertTrue(journey.isSpilled());
+		assertEquals(0, journey.getEstimatedSize());
+		assertEquals(1, directory.listFiles().length);
+		assertEquals(2, journey.getNumberOfTracedCalls());
+		List<CurrentlyTracedCall> calls = manager.getJourney("spilled").getTracedCalls();
+		assertEquals(2, calls.size());
+		assertEquals("second", calls.get(1).getName());
+		assertEquals("[a = 1[b]]", calls.get(1).getTrace());
+		assertEquals(30, calls.get(1).getRootStep().getDuration());
+		assertEquals(3, calls.get(1).getNumberOfSteps());
+		assertNotNull(journey.getStepByName("first"));
+
+		//calls added after spilling are kept in memory until the next spill, which appends them to the same file.
+		CurrentlyTracedCall third = createCall("third");
+		third.getLastStep().setAborted();
+		third.setTags(Collections.singletonMap("user", "ü"));
+		third.setEnded();
+		journey.addUseCase(third);
+		assertEquals(3, journey.getTracedCalls().size());
+		manager.evict(config, System.currentTimeMillis());
+		assertEquals(0, journey.getEstimatedSize());
+		assertEquals(1, directory.listFiles().length);
+		calls = journey.getTracedCalls();
+		assertEquals(3, calls.size());
+		assertEquals("first", calls.get(0).getName());
+		assertEquals("second", journey.getStepByName("second").getName());
+		CurrentlyTracedCall restored = journey.getStepByName("third");
+		assertEquals(third.getTrace(), restored.getTrace());
+		assertEquals(third.getCreated(), restored.getCreated());
+		assertEquals(third.getDurationNanos(), restored.getDurationNanos());
+		assertEquals("ü", restored.getTags().get("user"));
+		assertTrue(restored.getLastStep().isAborted());
+		assertFalse(restored.getFirstStep().isAborted());
+		assertNull(journey.getStepByName("fourth"));
+
+		config.setMaxSpilledJourneys(0);
+		manager.evict(config, System.currentTimeMillis());
+		assertEquals(0, manager.getJourneys().size());
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testJourneySizeIsLimited(){
+		Journey journey = new Journey("limited");
+		JourneyConfig config = MoskitoConfigurationHolder.getConfiguration().getJourneyConfig();
+		int maxCalls = config.getMaxCallsPerJourney();
+		config.setMaxCallsPerJourney(3);
+		try{
+			for (int i=0; i<5; i++)
+				journey.addUseCase(createCall("call"+i));
+		}finally{
+			config.setMaxCallsPerJourney(maxCalls);
+		}
+		assertEquals(3, journey.getNumberOfTracedCalls());
+		assertEquals("call2", journey.getTracedCalls().get(0).getName());
+		assertFalse(journey.isSpilled());
+	}
+
+	@Test
+	public void testCorruptSpillFileIsIgnored() throws Exception{
+		File directory = folder.newFolder();
+		Journey journey = new Journey("corrupt");
+		journey.addUseCase(createCall("first"));
+		journey.spill(directory);
+		File file = directory.listFiles()[0];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+			raf.setLength(file.length() - 1);
+		}
+		journey.addUseCase(createCall("second"));
+		assertEquals(1, journey.getTracedCalls().size());
+		assertNull(journey.getStepByName("first"));
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+			raf.seek(4);
+			raf.writeInt(Integer.MAX_VALUE);
+		}
+		assertEquals("second", journey.getTracedCalls().get(0).getName());
+		journey.deleteSpillFile();
+		assertEquals(0, directory.listFiles().length);
+	}
+
+	@Test
+	public void testNoLimitsByDefault(){
+		Journey journey = new Journey("unlimited");
+		for (int i=0; i<2000; i++)
+			journey.addUseCase(createCall("call"+i));
+		assertEquals(2000, journey.getNumberOfTracedCalls());
+
+		JourneyManagerImpl manager = new JourneyManagerImpl();
+		for (int i=0; i<200; i++)
+			manager.createJourney("j"+i);
+		manager.evict(new JourneyConfig(), System.currentTimeMillis());
+		assertEquals(200, manager.getJourneys().size());
+	}
+
+	private static CurrentlyTracedCall createCall(String name){
+		CurrentlyTracedCall call = new CurrentlyTracedCall(name);
+		call.startStep("a", null).setDuration(30);
+		call.startStep("b", null).setDuration(10);
+		call.endStep();
+		call.getCurrentStep().appendToCall(" = 1");
+		call.endStep();
+		return call;
+	}
 }
@@ -1,14 +1,22 @@
 package net.anotheria.moskito.core.predefined;
 
 import net.anotheria.moskito.core.producers.CallExecution;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
+import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.UnknownIntervalException;
 import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class RequestOrientedStatsTest {
@@ -47,6 +55,45 @@ public class RequestOrientedStatsTest {
 		assertNotNull(stats.toString());
 	}
 
+	@Test public void testResolvedAccessorsAreCached(){
+		RequestOrientedStats stats = new RequestOrientedStats(){};
+		stats.addRequest(); stats.addExecutionTime(5); stats.notifyRequestFinished();
+
+		List<String> names = stats.getAvailableValueNames();
+		StatValueAccessor[] accessors = stats.resolveValueAccessors(names);
+		assertEquals(names.size(), accessors.length);
+		assertSame(accessors, stats.resolveValueAccessors(names));
+		assertSame(accessors, stats.resolveValueAccessors(new ArrayList<>(names)));
+		assertEquals(1, accessors[names.indexOf("TR")].getValueAsLong(null, TimeUnit.NANOSECONDS));
+
+		//other value names are resolved again.
+		StatValueAccessor[] other = stats.resolveValueAccessors(Arrays.asList("Err", "TR"));
+		assertNotSame(accessors, other);
+		assertEquals(0, other[0].getValueAsLong(null, TimeUnit.NANOSECONDS));
+		assertEquals(1, other[1].getValueAsLong(null, TimeUnit.NANOSECONDS));
+	}
+
+	@Test public void testAccessorsReadByIntervalHandle(){
+		RequestOrientedStats stats = new RequestOrientedStats(){};
+		stats.addRequest(); stats.addExecutionTime(100000); stats.notifyRequestFinished();
+		stats.addRequest(); stats.addExecutionTime(150000); stats.notifyError(); stats.notifyRequestFinished();
+		stats.addRequest(); stats.addExecutionTime(50000); stats.notifyRequestFinished();
+		IntervalRegistry.getInstance().forceUpdateIntervalForTestingPurposes("1m");
+
+		Interval interval = IntervalRegistry.getInstance().resolveInterval("1m");
+		List<String> names = stats.getAvailableValueNames();
+		StatValueAccessor[] accessors = stats.resolveValueAccessors(names);
+		for (int i = 0; i < names.size(); i++){
+			assertEquals(names.get(i), stats.getValueByNameAsString(names.get(i), "1m", TimeUnit.MICROSECONDS), accessors[i].getValueAsString(interval, TimeUnit.MICROSECONDS));
+			assertEquals(names.get(i), stats.getValueByNameAsString(names.get(i), null, TimeUnit.MICROSECONDS), accessors[i].getValueAsString(null, TimeUnit.MICROSECONDS));
+		}
+	}
+
+	@Test(expected = UnknownIntervalException.class)
+	public void testUnknownIntervalHandle(){
+		IntervalRegistry.getInstance().resolveInterval("no-such-interval");
+	}
+
 	@Test public void testCallExecutor() throws Exception{
 		RequestOrientedStats stats = new RequestOrientedStats(){};
 		
@@ -0,0 +1,64 @@
+package net.anotheria.moskito.core.registry;
+
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
+import net.anotheria.moskito.core.registry.filters.CategoryFilter;
+import net.anotheria.moskito.core.registry.filters.SubsystemFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ProducerRegistryAPIImplTest {
+
+	private IProducerRegistry registry;
+
+	@Before public void setup(){
+		ProducerRegistryFactory.reset();
+		registry = ProducerRegistryFactory.getProducerRegistryInstance();
+		registry.cleanup();
+	}
+
+	@After public void cleanup(){
+		ProducerRegistryFactory.reset();
+	}
+
+	private OnDemandStatsProducer<ServiceStats> register(String id, String category, String subsystem){
+		OnDemandStatsProducer<ServiceStats> producer = new OnDemandStatsProducer<ServiceStats>(id, category, subsystem, ServiceStatsFactory.DEFAULT_INSTANCE);
+		registry.registerProducer(producer);
+		return producer;
+	}
+
+	@Test public void testIndexes(){
+		register("a", "service", "billing");
+		OnDemandStatsProducer<ServiceStats> b = register("b", "dao", "billing");
+		register("c", "service", "user");
+
+		IProducerRegistryAPI api = new ProducerRegistryAPIFactory().createProducerRegistryAPIForUnitTest();
+		assertEquals(Arrays.asList("dao", "service"), api.getCategories());
+		assertEquals(Arrays.asList("billing", "user"), api.getSubsystems());
+		assertEquals(2, api.getAllProducersByCategory("service").size());
+		assertEquals(0, api.getAllProducersByCategory("unknown").size());
+		assertEquals(2, api.getProducers(new SubsystemFilter("billing")).size());
+		assertEquals(1, api.getProducers(new CategoryFilter("service"), new SubsystemFilter("billing")).size());
+		assertSame(b, api.getProducer("b"));
+
+		//changes after the first read are visible in the next read.
+		register("d", "cache", "user");
+		assertEquals(Arrays.asList("cache", "dao", "service"), api.getCategories());
+		assertEquals(4, api.getAllProducers().size());
+
+		registry.unregisterProducer(b);
+		assertEquals(Arrays.asList("cache", "service"), api.getCategories());
+		try{
+			api.getProducer("b");
+			fail("Exception expected");
+		}catch(NoSuchProducerException e){}
+	}
+}
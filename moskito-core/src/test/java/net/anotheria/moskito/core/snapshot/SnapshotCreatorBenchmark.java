@@ -0,0 +1,68 @@
+package net.anotheria.moskito.core.snapshot;
+
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
+import net.anotheria.moskito.core.producers.IStatsProducer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures allocated bytes and time per interval tick for snapshot creation of 5000 producers with 3 stats each,
+ * once with a ProducerSnapshot per producer (the way SnapshotRepository worked before) and once as SnapshotBatch.
+ * Not a unit test, run it manually via main method. Requires a HotSpot VM for allocation measurement.
+ */
+public class SnapshotCreatorBenchmark {
+
+	private static final int PRODUCERS = 5000;
+
+	private static final int TICKS = 20;
+
+	private static final String INTERVAL = "1m";
+
+	public static void main(String a[]) throws OnDemandStatsProducerException{
+		List<IStatsProducer> producers = new ArrayList<>(PRODUCERS);
+		for (int i=0; i<PRODUCERS; i++){
+			OnDemandStatsProducer<ServiceStats> producer = new OnDemandStatsProducer<ServiceStats>("producer-"+i, "category", "subsystem", ServiceStatsFactory.DEFAULT_INSTANCE);
+			producer.getStats("first").addRequest();
+			producer.getStats("second").addExecutionTime(100);
+			producers.add(producer);
+		}
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		//warmup
+		for (int i=0; i<TICKS; i++){
+			createProducerSnapshots(producers);
+			SnapshotCreator.createSnapshotBatch(producers, INTERVAL);
+		}
+
+		System.out.println("format\tbytes/tick\tms/tick");
+		long bytes = threadBean.getThreadAllocatedBytes(threadId);
+		long time = System.nanoTime();
+		for (int i=0; i<TICKS; i++)
+			createProducerSnapshots(producers);
+		print("ProducerSnapshot", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+
+		bytes = threadBean.getThreadAllocatedBytes(threadId);
+		time = System.nanoTime();
+		for (int i=0; i<TICKS; i++)
+			SnapshotCreator.createSnapshotBatch(producers, INTERVAL);
+		print("SnapshotBatch", threadBean.getThreadAllocatedBytes(threadId) - bytes, System.nanoTime() - time);
+	}
+
+	private static List<ProducerSnapshot> createProducerSnapshots(List<IStatsProducer> producers){
+		List<ProducerSnapshot> ret = new ArrayList<>(producers.size());
+		for (IStatsProducer producer : producers)
+			ret.add(SnapshotCreator.createSnapshot(producer, INTERVAL));
+		return ret;
+	}
+
+	private static void print(String format, long bytes, long nanos){
+		System.out.println(format+"\t"+bytes/TICKS+"\t"+nanos/TICKS/1000000);
+	}
+}
@@ -4,9 +4,14 @@ import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
 import net.anotheria.moskito.core.predefined.ServiceStats;
 import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
+import net.anotheria.moskito.core.producers.IStatsProducer;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * TODO comment this class
@@ -66,4 +71,78 @@ public class SnapshotCreatorTest extends BaseSnapshotTest{
 		assertEquals("aSubsystem", snapshot.getSubsystem());
 		assertEquals("testProducerId", snapshot.getProducerId());
 	}
+
+	@Test public void testCreateSnapshotBatch() throws OnDemandStatsProducerException {
+		OnDemandStatsProducer<ServiceStats> producer = setupProducer();
+		OnDemandStatsProducer<ServiceStats> emptyProducer = new OnDemandStatsProducer<ServiceStats>("empty", "aCategory", "aSubsystem", new ServiceStatsFactory()){
+			@Override public List<ServiceStats> getStats() {
+				return null;
+			}
+		};
+		String intervalName = "5m";
+		forceIntervalUpdate(intervalName);
+		ServiceStats stat1 =  producer.getStats("case1");
+		for (int i=0; i<10; i++){
+			stat1.addRequest();
+			stat1.addExecutionTime(100);
+		}
+		forceIntervalUpdate(intervalName);
+
+		List<IStatsProducer> producers = Arrays.<IStatsProducer>asList(emptyProducer, producer);
+		SnapshotBatch batch = SnapshotCreator.createSnapshotBatch(producers, intervalName);
+		assertEquals(intervalName, batch.getIntervalName());
+		assertEquals(2, batch.getProducerCount());
+		assertEquals("empty", batch.getProducerId(0));
+		assertNull(batch.getStatClassName(0));
+		assertEquals(0, batch.getFirstStat(0));
+		assertEquals(0, batch.getFirstStat(1));
+		assertEquals(ServiceStats.class.getName(), batch.getStatClassName(1));
+		//cumulated and case1
+		assertEquals(2, batch.getFirstStat(2));
+
+		int case1 = batch.getStatName(0).equals("case1") ? 0 : 1;
+		assertEquals("case1", batch.getStatName(case1));
+		int values = 0;
+		for (int v = batch.getFirstValue(case1); v < batch.getFirstValue(case1 + 1); v++){
+			String valueName = SnapshotValueNames.nameOf(batch.getValueNameIndex(v));
+			if (valueName.equals("TR")){
+				assertEquals(SnapshotBatch.TYPE_LONG, batch.getValueType(v));
+				assertEquals(10, batch.getLongValue(v));
+				values++;
+			}
+			if (valueName.equals("Avg")){
+				assertEquals(SnapshotBatch.TYPE_DOUBLE, batch.getValueType(v));
+				assertEquals(100.0, batch.getDoubleValue(v), 0.0001);
+				assertEquals("100.0", batch.getStringValue(v));
+				values++;
+			}
+		}
+		assertEquals(2, values);
+
+		ProducerSnapshot snapshot = batch.toProducerSnapshot(1);
+		assertEquals("testProducerId", snapshot.getProducerId());
+		assertEquals("10", snapshot.getStatSnapshot("case1").getValue("TR"));
+	}
+
+	@Test public void testValueTypes(){
+		SnapshotBatch batch = new SnapshotBatch("1m", 0, 0);
+		batch.addProducer("p", "c", "s", "stat");
+		batch.addStat("stat");
+		for (String value : new String[]{"42", "-7", "1.5", "NaN", "Infinity", "1.0E20", "12345678901234567890", "n/a", "", null})
+			SnapshotCreator.addValue(batch, SnapshotValueNames.indexOf("test"), value);
+		assertEquals(10, batch.getValueCount());
+		assertEquals(42, batch.getLongValue(0));
+		assertEquals(-7, batch.getLongValue(1));
+		assertEquals(1.5, batch.getDoubleValue(2), 0.0001);
+		assertEquals(SnapshotBatch.TYPE_DOUBLE, batch.getValueType(3));
+		assertEquals(SnapshotBatch.TYPE_DOUBLE, batch.getValueType(4));
+		assertEquals("1.0E20", batch.getStringValue(5));
+		assertEquals(SnapshotBatch.TYPE_DOUBLE, batch.getValueType(6));
+		assertEquals(SnapshotBatch.TYPE_STRING, batch.getValueType(7));
+		assertEquals("n/a", batch.getStringValue(7));
+		assertEquals("", batch.getStringValue(8));
+		assertEquals(SnapshotBatch.TYPE_NONE, batch.getValueType(9));
+		assertNull(batch.getStringValue(9));
+		assertEquals(10, batch.getFirstValue(1));
+	}
 }
@@ -28,6 +28,11 @@ public class SnapshotRepositoryTest extends BaseSnapshotTest{
 		assertEquals(0, consumer.getConsumedCount());
 
 		SnapshotRepository.getInstance().addConsumer(consumer);
+		MySnapshotBatchConsumer batchConsumer = new MySnapshotBatchConsumer();
+		SnapshotRepository.getInstance().addBatchConsumer(batchConsumer);
+		//a slow consumer is served by its own thread and still gets all batches.
+		SlowSnapshotBatchConsumer slowBatchConsumer = new SlowSnapshotBatchConsumer();
+		SnapshotRepository.getInstance().addBatchConsumer(slowBatchConsumer);
 
 		String intervalName = "5m";
 		//force interval update
@@ -45,13 +50,53 @@ public class SnapshotRepositoryTest extends BaseSnapshotTest{
 		forceIntervalUpdate(intervalName);
 
 		assertEquals(1, consumer.getConsumedCount());
+		assertEquals(1, batchConsumer.getConsumedCount());
+		assertEquals(1, slowBatchConsumer.getConsumedCount());
+		assertEquals(intervalName, batchConsumer.getLastBatch().getIntervalName());
+		assertEquals(1, batchConsumer.getLastBatch().getProducerCount());
+		assertEquals("testProducerId", batchConsumer.getLastBatch().getProducerId(0));
 
 		SnapshotRepository.getInstance().removeConsumer(consumer);
+		SnapshotRepository.getInstance().removeBatchConsumer(batchConsumer);
+		SnapshotRepository.getInstance().removeBatchConsumer(slowBatchConsumer);
 		//force interval update
 		forceIntervalUpdate(intervalName);
 
 		assertEquals(1, consumer.getConsumedCount());
+		assertEquals(1, batchConsumer.getConsumedCount());
+		assertEquals(1, slowBatchConsumer.getConsumedCount());
+		assertEquals(0, SnapshotRepository.getInstance().getDroppedBatchesCount());
+	}
+
+	private static class SlowSnapshotBatchConsumer extends MySnapshotBatchConsumer{
+		@Override
+		public void consumeSnapshotBatch(SnapshotBatch batch) {
+			try{
+				Thread.sleep(100);
+			}catch(InterruptedException ignored){}
+			super.consumeSnapshotBatch(batch);
+		}
+	}
 
+	private static class MySnapshotBatchConsumer implements SnapshotBatchConsumer{
+
+		private volatile int consumedCount = 0;
+
+		private volatile SnapshotBatch lastBatch;
+
+		@Override
+		public void consumeSnapshotBatch(SnapshotBatch batch) {
+			lastBatch = batch;
+			consumedCount++;
+		}
+
+		public int getConsumedCount(){
+			return consumedCount;
+		}
+
+		public SnapshotBatch getLastBatch(){
+			return lastBatch;
+		}
 	}
 
 	private static class MySnapshotConsumer implements SnapshotConsumer{
@@ -0,0 +1,90 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares the throughput of the DoubleValueHolder with an unsynchronized double holder (the way DoubleValueHolder
+ * was implemented before) with 1, 8 and 32 writer threads. Prints the amount of lost updates too.
+ * Not a unit test, run it manually via main method.
+ */
+public class DoubleValueHolderBenchmark {
+
+	private static final int OPERATIONS_EACH_THREAD = 2000000;
+
+	private static final int[] THREAD_COUNTS = {1, 8, 32};
+
+	interface Adder {
+		void add(double aValue);
+		double get();
+	}
+
+	/**
+	 * The previous implementation: a plain double field.
+	 */
+	static class UnsynchronizedAdder implements Adder {
+		private double value;
+
+		@Override public void add(double aValue){
+			value += aValue;
+		}
+
+		@Override public double get(){
+			return value;
+		}
+	}
+
+	static class HolderAdder implements Adder {
+		private DoubleValueHolder holder = new DoubleValueHolder(null);
+
+		@Override public void add(double aValue){
+			holder.increaseByDouble(aValue);
+		}
+
+		@Override public double get(){
+			return holder.getCurrentValueAsDouble();
+		}
+	}
+
+	public static void main(String a[]) throws InterruptedException{
+		//warmup
+		for (int i=0; i<3; i++){
+			run(new UnsynchronizedAdder(), 4);
+			run(new HolderAdder(), 4);
+		}
+
+		System.out.println("threads\tunsynchronized ops/ms\tlost\tholder ops/ms\tlost");
+		for (int threads : THREAD_COUNTS){
+			UnsynchronizedAdder unsynchronized = new UnsynchronizedAdder();
+			long unsynchronizedOps = run(unsynchronized, threads);
+			HolderAdder holder = new HolderAdder();
+			long holderOps = run(holder, threads);
+			long expected = (long)OPERATIONS_EACH_THREAD * threads;
+			System.out.println(threads+"\t"+unsynchronizedOps+"\t"+(expected - (long)unsynchronized.get())+"\t"+holderOps+"\t"+(expected - (long)holder.get()));
+		}
+	}
+
+	/**
+	 * Runs the benchmark and returns the throughput in operations per millisecond.
+	 */
+	private static long run(final Adder adder, int threads) throws InterruptedException{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<OPERATIONS_EACH_THREAD; i++)
+						adder.add(1.0);
+					done.countDown();
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		done.await();
+		long duration = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+		return (long)OPERATIONS_EACH_THREAD * threads / duration;
+	}
+}
@@ -0,0 +1,68 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class DoubleValueHolderTest {
+	@Test public void testIncreaseBy(){
+		DoubleValueHolder h = new DoubleValueHolder(null);
+		h.increaseByDouble(0.5);
+		h.increaseByInt(25);
+		h.increaseByLong(250L);
+		assertEquals(275.5, h.getCurrentValueAsDouble(), 0.0001);
+		assertEquals(276, h.getCurrentValueAsLong());
+
+		h.decreaseByDouble(0.5);
+		h.decreaseByInt(25);
+		h.decreaseByLong(250L);
+		assertEquals(0.0, h.getCurrentValueAsDouble(), 0.0001);
+	}
+
+	@Test public void testUpdate(){
+		DoubleValueHolder h = new DoubleValueHolder(null);
+		h.setDefaultValueAsDouble(1.5);
+		h.reset();
+		assertEquals(1.5, h.getCurrentValueAsDouble(), 0.0001);
+
+		h.increaseByDouble(2.0);
+		h.intervalUpdated(null);
+		assertEquals(1.5, h.getCurrentValueAsDouble(), 0.0001);
+		assertEquals(3.5, h.getValueAsDouble(), 0.0001);
+		assertEquals("3.5", h.getValueAsString());
+	}
+
+	@Test public void testConcurrentIncrease() throws InterruptedException{
+		final DoubleValueHolder h = new DoubleValueHolder(null);
+		final int threads = 8;
+		final int operations = 100000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<operations; i++)
+						h.increaseByDouble(0.5);
+					done.countDown();
+				}
+			}.start();
+		}
+
+		double sumOfWindows = 0;
+		start.countDown();
+		while (done.getCount()>0){
+			h.intervalUpdated(null);
+			sumOfWindows += h.getValueAsDouble();
+		}
+		done.await();
+		h.intervalUpdated(null);
+		sumOfWindows += h.getValueAsDouble();
+
+		assertEquals(threads * operations * 0.5, sumOfWindows, 0.0001);
+	}
+}
@@ -0,0 +1,73 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.predefined.Constants;
+import net.anotheria.moskito.core.stats.StatValue;
+import net.anotheria.moskito.core.stats.StatValueTypes;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares the max update throughput of the regular long StatValue with the extremum one with 1 to 64 writer threads.
+ * The target for the extremum value is 10M updates per second. Not a unit test, run it manually via main method.
+ */
+public class ExtremumStatValueBenchmark {
+
+	private static final int OPERATIONS_EACH_THREAD = 2000000;
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+	/**
+	 * Target throughput in updates per second.
+	 */
+	private static final long TARGET = 10000000;
+
+	public static void main(String a[]) throws InterruptedException{
+		//warmup
+		for (int i=0; i<3; i++){
+			run(createRegular(), 4);
+			run(createExtremum(), 4);
+		}
+
+		System.out.println("threads\tregular updates/s\textremum updates/s\ttarget reached");
+		for (int threads : THREAD_COUNTS){
+			long regular = run(createRegular(), threads);
+			long extremum = run(createExtremum(), threads);
+			System.out.println(threads+"\t"+regular+"\t"+extremum+"\t"+(extremum >= TARGET));
+		}
+	}
+
+	private static StatValue createRegular(){
+		return StatValueFactory.createStatValue(StatValueTypes.LONG, "regular", Constants.getDefaultIntervals());
+	}
+
+	private static StatValue createExtremum(){
+		return StatValueFactory.createMaxStatValue("extremum", Constants.getDefaultIntervals());
+	}
+
+	/**
+	 * Runs the benchmark and returns the throughput in updates per second. Every thread submits increasing values,
+	 * which is the worst case since every update changes the maximum.
+	 */
+	private static long run(final StatValue value, int threads) throws InterruptedException{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			final long offset = t;
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<OPERATIONS_EACH_THREAD; i++)
+						value.setValueIfGreaterThanCurrentAsLong(offset + i);
+					done.countDown();
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		done.await();
+		long duration = Math.max(1, System.nanoTime() - startTime);
+		return (long)OPERATIONS_EACH_THREAD * threads * 1000000000L / duration;
+	}
+}
@@ -0,0 +1,102 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.StatValue;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExtremumStatValueImplTest {
+
+	@Test public void testMinAndMax(){
+		IntervalImpl interval = new IntervalImpl(2001, "extremum-1m", 60);
+		StatValue min = new ExtremumStatValueImpl("min", ExtremumValueHolderFactory.MIN);
+		StatValue max = new ExtremumStatValueImpl("max", ExtremumValueHolderFactory.MAX);
+		min.addInterval(interval);
+		max.addInterval(interval);
+
+		assertEquals(Long.MAX_VALUE, min.getValueAsLong());
+		assertEquals(Long.MIN_VALUE, max.getValueAsLong());
+
+		for (long l : new long[]{5, 3, 9, 7}){
+			min.setValueIfLesserThanCurrentAsLong(l);
+			max.setValueIfGreaterThanCurrentAsLong(l);
+		}
+		assertEquals(3, min.getValueAsLong());
+		assertEquals(9, max.getValueAsLong());
+
+		interval.update();
+		assertEquals(3, min.getValueAsLong("extremum-1m"));
+		assertEquals(9, max.getValueAsLong("extremum-1m"));
+
+		max.setValueIfGreaterThanCurrentAsLong(4);
+		interval.update();
+		assertEquals(4, max.getValueAsLong("extremum-1m"));
+		assertEquals(9, max.getValueAsLong());
+
+		//opposite direction falls back to regular behaviour
+		max.setValueIfLesserThanCurrentAsLong(1);
+		assertEquals(1, max.getValueAsLong());
+	}
+
+	@Test public void testDefaultValue(){
+		StatValue max = new ExtremumStatValueImpl("max", ExtremumValueHolderFactory.MAX);
+		max.setDefaultValueAsLong(0);
+		max.reset();
+		assertEquals(0, max.getValueAsLong());
+		max.setValueIfGreaterThanCurrentAsLong(-5);
+		assertEquals(0, max.getValueAsLong());
+	}
+
+	/**
+	 * Every thread submits its own range of values concurrently with interval roll-overs,
+	 * the extrema of all finished windows must match the global extrema exactly.
+	 */
+	@Test public void testNoLostExtremaUnderConcurrency() throws InterruptedException{
+		final IntervalImpl interval = new IntervalImpl(2002, "extremum-1m-parallel", 60);
+		final StatValue min = new ExtremumStatValueImpl("min", ExtremumValueHolderFactory.MIN);
+		final StatValue max = new ExtremumStatValueImpl("max", ExtremumValueHolderFactory.MAX);
+		min.addInterval(interval);
+		max.addInterval(interval);
+
+		final int threads = 8;
+		final int operations = 1000000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			final long offset = (long)t * operations;
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<operations; i++){
+						long value = offset + ((i * 7919L) % operations);
+						min.setValueIfLesserThanCurrentAsLong(value);
+						max.setValueIfGreaterThanCurrentAsLong(value);
+					}
+					done.countDown();
+				}
+			}.start();
+		}
+
+		long minOfWindows = Long.MAX_VALUE;
+		long maxOfWindows = Long.MIN_VALUE;
+		start.countDown();
+		while (done.getCount()>0){
+			interval.update();
+			minOfWindows = Math.min(minOfWindows, min.getValueAsLong("extremum-1m-parallel"));
+			maxOfWindows = Math.max(maxOfWindows, max.getValueAsLong("extremum-1m-parallel"));
+		}
+		done.await();
+		interval.update();
+		minOfWindows = Math.min(minOfWindows, min.getValueAsLong("extremum-1m-parallel"));
+		maxOfWindows = Math.max(maxOfWindows, max.getValueAsLong("extremum-1m-parallel"));
+
+		assertEquals(0, min.getValueAsLong());
+		assertEquals((long)threads * operations - 1, max.getValueAsLong());
+		assertEquals(0, minOfWindows);
+		assertEquals((long)threads * operations - 1, maxOfWindows);
+	}
+}
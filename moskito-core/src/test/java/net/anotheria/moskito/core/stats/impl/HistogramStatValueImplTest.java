@@ -0,0 +1,98 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.HistogramStatValue;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.StatValue;
+import net.anotheria.moskito.core.stats.StatValueTypes;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramStatValueImplTest {
+
+	@Test public void testBucketsAreContinuous(){
+		assertEquals(0, HistogramBuckets.bucketIndex(-1));
+		for (int i = 0; i < HistogramBuckets.BUCKETS - 2; i++){
+			long highest = HistogramBuckets.highestValueInBucket(i);
+			assertEquals(i, HistogramBuckets.bucketIndex(highest));
+			assertEquals(i + 1, HistogramBuckets.bucketIndex(highest + 1));
+		}
+		assertEquals(HistogramBuckets.BUCKETS - 1, HistogramBuckets.bucketIndex(Long.MAX_VALUE));
+	}
+
+	@Test public void testRelativeError(){
+		for (long value = 1; value < (1L << 40); value = value * 3 + 1){
+			long reported = HistogramBuckets.highestValueInBucket(HistogramBuckets.bucketIndex(value));
+			assertTrue(reported >= value);
+			assertTrue("error too big for " + value, (double)(reported - value) / value <= 1.0 / 16);
+		}
+	}
+
+	@Test public void testPercentilesPerInterval(){
+		IntervalImpl interval = new IntervalImpl(2101, "histogram-1m", 60);
+		HistogramStatValue value = StatValueFactory.createHistogramStatValue("durations", new Interval[]{interval});
+
+		for (int i = 1; i <= 1000; i++)
+			value.record(i);
+		assertEquals(1000, value.getCount(null));
+		assertEquals(0, value.getCount("histogram-1m"));
+		assertEquals(0, value.getValueAtPercentile(99, "histogram-1m"));
+		assertApproximately(500, value.getValueAtPercentile(50, null));
+
+		interval.update();
+		assertEquals(1000, value.getCount("histogram-1m"));
+		assertApproximately(500, value.getValueAtPercentile(50, "histogram-1m"));
+		assertApproximately(990, value.getValueAtPercentile(99, "histogram-1m"));
+		assertApproximately(1000, value.getValueAtPercentile(100, "histogram-1m"));
+
+		value.record(5);
+		interval.update();
+		assertEquals(1, value.getCount("histogram-1m"));
+		assertEquals(5, value.getValueAtPercentile(99.9, "histogram-1m"));
+		assertEquals(1001, value.getCount(null));
+
+		value.reset();
+		assertEquals(0, value.getCount(null));
+		assertEquals(0, value.getCount("histogram-1m"));
+	}
+
+	@Test public void testCurrentWindowIsReadRepeatedly(){
+		HistogramStatValue value = StatValueFactory.createHistogramStatValue("durations", new Interval[0]);
+		for (int i = 1; i <= 100; i++)
+			value.record(i);
+		assertApproximately(50, value.getValueAtPercentile(50, null));
+		value.record(1000);
+		//the buffer of the previous read must not leak into the next one.
+		assertApproximately(50, value.getValueAtPercentile(50, null));
+		assertApproximately(1000, value.getValueAtPercentile(100, null));
+	}
+
+	@Test public void testHistogramIsCreatedByType(){
+		StatValue value = StatValueFactory.createStatValue(StatValueTypes.HISTOGRAM, "durations", new Interval[0]);
+		assertTrue(value instanceof HistogramStatValue);
+		assertEquals(StatValueTypes.HISTOGRAM, ((HistogramStatValue)value).getType());
+	}
+
+	@Test public void testGenericMethodsRecordOnce(){
+		IntervalImpl interval = new IntervalImpl(2102, "histogram-generic", 60);
+		HistogramStatValue value = StatValueFactory.createHistogramStatValue("durations", new Interval[]{interval});
+		value.setValueAsLong(10);
+		value.setValueAsInt(20);
+		value.increaseByLong(30);
+		value.setValueIfGreaterThanCurrentAsLong(40);
+		//ignored, a recorded value can't be taken back.
+		value.increase();
+		value.decrease();
+		value.decreaseByLong(10);
+		assertEquals(4, value.getValueAsLong());
+
+		interval.update();
+		assertEquals(4, value.getCount("histogram-generic"));
+		assertApproximately(40, value.getValueAtPercentile(100, "histogram-generic"));
+	}
+
+	private static void assertApproximately(long expected, long actual){
+		assertTrue("expected about " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+	}
+}
@@ -0,0 +1,59 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.StatValue;
+import net.anotheria.moskito.core.stats.StatValueTypes;
+import net.anotheria.moskito.core.stats.UnknownIntervalException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatValueImplTest {
+
+	@Test public void testReadByInterval(){
+		Interval interval = IntervalRegistry.getInstance().getInterval("statvalue-read-1m", 60);
+		StatValue value = new StatValueImpl("test", StatValueTypeUtility.createValueHolderFactory(StatValueTypes.LONG));
+		value.addInterval(interval);
+
+		value.increaseByLong(10);
+		IntervalRegistry.getInstance().forceUpdateIntervalForTestingPurposes("statvalue-read-1m");
+		value.increaseByLong(5);
+
+		assertEquals(10, value.getIntervalValueAsLong(interval));
+		assertEquals(10, value.getValueAsLong("statvalue-read-1m"));
+		assertEquals(10, value.getIntervalValueAsInt(interval));
+		assertEquals(10.0, value.getIntervalValueAsDouble(interval), 0.0001);
+		//null is the absolute value.
+		assertEquals(15, value.getIntervalValueAsLong(null));
+	}
+
+	@Test public void testIntervalOutsideOfRegistry(){
+		//same id as an interval of the registry.
+		IntervalImpl foreign = new IntervalImpl(1, "statvalue-foreign", 60);
+		StatValue value = new StatValueImpl("test", StatValueTypeUtility.createValueHolderFactory(StatValueTypes.LONG));
+		value.addInterval(foreign);
+		value.increaseByLong(3);
+		foreign.update();
+		assertEquals(3, value.getIntervalValueAsLong(foreign));
+		assertEquals(3, value.getValueAsLong("statvalue-foreign"));
+
+		try{
+			value.getValueAsLong("statvalue-unknown");
+			fail("Exception expected");
+		}catch(UnknownIntervalException expected){
+			//expected
+		}
+	}
+
+	@Test public void testUpdateTimestamp(){
+		IntervalRegistry registry = IntervalRegistry.getInstance();
+		registry.getInterval("statvalue-timestamp-1m", 60);
+		assertNull(registry.getUpdateTimestamp("statvalue-timestamp-1m"));
+		registry.forceUpdateIntervalForTestingPurposes("statvalue-timestamp-1m");
+		assertTrue(registry.getUpdateTimestamp("statvalue-timestamp-1m") > 0);
+		assertEquals(Long.valueOf(0), registry.getUpdateTimestamp(null));
+	}
+}
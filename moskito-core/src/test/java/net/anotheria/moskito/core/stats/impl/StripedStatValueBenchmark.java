@@ -0,0 +1,66 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.predefined.Constants;
+import net.anotheria.moskito.core.stats.StatValue;
+import net.anotheria.moskito.core.stats.StatValueTypes;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares the throughput of the regular long StatValue with the striped one with 1 to 64 writer threads.
+ * Not a unit test, run it manually via main method.
+ */
+public class StripedStatValueBenchmark {
+
+	private static final int OPERATIONS_EACH_THREAD = 2000000;
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+	public static void main(String a[]) throws InterruptedException{
+		//warmup
+		for (int i=0; i<3; i++){
+			run(createRegular(), 4);
+			run(createStriped(), 4);
+		}
+
+		System.out.println("threads\tregular ops/ms\tstriped ops/ms");
+		for (int threads : THREAD_COUNTS){
+			long regular = run(createRegular(), threads);
+			long striped = run(createStriped(), threads);
+			System.out.println(threads+"\t"+regular+"\t"+striped);
+		}
+	}
+
+	private static StatValue createRegular(){
+		return StatValueFactory.createStatValue(StatValueTypes.LONG, "regular", Constants.getDefaultIntervals());
+	}
+
+	private static StatValue createStriped(){
+		return StatValueFactory.createStripedStatValue("striped", Constants.getDefaultIntervals());
+	}
+
+	/**
+	 * Runs the benchmark and returns the throughput in operations per millisecond.
+	 */
+	private static long run(final StatValue value, int threads) throws InterruptedException{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<OPERATIONS_EACH_THREAD; i++)
+						value.increaseByLong(i);
+					done.countDown();
+				}
+			}.start();
+		}
+		long startTime = System.nanoTime();
+		start.countDown();
+		done.await();
+		long duration = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+		return (long)OPERATIONS_EACH_THREAD * threads / duration;
+	}
+}
@@ -0,0 +1,121 @@
+package net.anotheria.moskito.core.stats.impl;
+
+import net.anotheria.moskito.core.stats.StatValue;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedStatValueImplTest {
+
+	@Test public void testIncreaseAndDecrease(){
+		StatValue value = new StripedStatValueImpl("test");
+		for (int i=0; i<100; i++)
+			value.increase();
+		value.increaseByInt(10);
+		value.increaseByLong(20L);
+		value.increaseByDouble(30.0);
+		assertEquals(160, value.getValueAsLong());
+
+		value.decreaseByInt(10);
+		value.decreaseByLong(20L);
+		value.decreaseByDouble(30.0);
+		for (int i=0; i<100; i++)
+			value.decrease();
+		assertEquals(0, value.getValueAsLong());
+	}
+
+	@Test public void testIntervalUpdate(){
+		IntervalImpl oneMinute = new IntervalImpl(1001, "striped-1m", 60);
+		IntervalImpl fiveMinutes = new IntervalImpl(1002, "striped-5m", 300);
+		StatValue value = new StripedStatValueImpl("test");
+		value.addInterval(oneMinute);
+		value.addInterval(fiveMinutes);
+
+		value.increaseByLong(10);
+		oneMinute.update();
+		assertEquals(10, value.getValueAsLong("striped-1m"));
+		assertEquals(0, value.getValueAsLong("striped-5m"));
+
+		value.increaseByLong(5);
+		oneMinute.update();
+		fiveMinutes.update();
+		assertEquals(5, value.getValueAsLong("striped-1m"));
+		assertEquals(15, value.getValueAsLong("striped-5m"));
+		assertEquals(15, value.getValueAsLong());
+
+		oneMinute.update();
+		assertEquals(0, value.getValueAsLong("striped-1m"));
+		assertEquals(15, value.getValueAsLong());
+	}
+
+	@Test public void testDefaultValueAndSet(){
+		IntervalImpl interval = new IntervalImpl(1003, "striped-1m-default", 60);
+		StatValue value = new StripedStatValueImpl("test");
+		value.addInterval(interval);
+		value.setDefaultValueAsLong(50);
+		value.reset();
+		assertEquals(50, value.getValueAsLong());
+
+		value.increaseByInt(25);
+		interval.update();
+		assertEquals(75, value.getValueAsLong("striped-1m-default"));
+
+		value.setValueAsLong(1000);
+		assertEquals(1000, value.getValueAsLong());
+		value.increase();
+		interval.update();
+		assertEquals(1001, value.getValueAsLong("striped-1m-default"));
+
+		value.setValueIfGreaterThanCurrentAsLong(2000);
+		assertEquals(2000, value.getValueAsLong());
+		value.setValueIfLesserThanCurrentAsLong(3000);
+		assertEquals(2000, value.getValueAsLong());
+	}
+
+	@Test public void testConcurrentUpdates() throws InterruptedException{
+		final IntervalImpl interval = new IntervalImpl(1004, "striped-1m-parallel", 60);
+		final StatValue value = new StripedStatValueImpl("test");
+		value.addInterval(interval);
+
+		final int threads = 16;
+		final int operations = 100000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int t=0; t<threads; t++){
+			new Thread(){
+				@Override public void run(){
+					try{
+						start.await();
+					}catch(InterruptedException ignored){}
+					for (int i=0; i<operations; i++)
+						value.increase();
+					done.countDown();
+				}
+			}.start();
+		}
+
+		//roll the interval over while threads are writing, no update should get lost in between.
+		long sumOfWindows = 0;
+		start.countDown();
+		while (done.getCount()>0){
+			interval.update();
+			sumOfWindows += value.getValueAsLong("striped-1m-parallel");
+		}
+		done.await();
+		interval.update();
+		sumOfWindows += value.getValueAsLong("striped-1m-parallel");
+
+		assertEquals(threads*operations, value.getValueAsLong());
+		assertEquals(threads*operations, sumOfWindows);
+	}
+
+	@Test public void testStripesFor(){
+		assertEquals(2, StripedLongCounter.stripesFor(1));
+		assertEquals(8, StripedLongCounter.stripesFor(6));
+		assertEquals(64, StripedLongCounter.stripesFor(1000));
+		assertTrue(Integer.bitCount(StripedLongCounter.STRIPES)==1);
+	}
+}
@@ -0,0 +1,168 @@
+package net.anotheria.moskito.core.timing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateTriggerServiceImplTest {
+
+	private UpdateTriggerServiceImpl service;
+
+	/**
+	 * Time of the test clock, used by tests which need a fixed time.
+	 */
+	private final AtomicLong now = new AtomicLong(0);
+
+	@Before public void setup(){
+		service = new UpdateTriggerServiceImpl(true, 2, 2, new UpdateTriggerServiceImpl.Clock() {
+			@Override public long currentTimeMillis() {
+				long time = now.get();
+				return time == 0 ? System.currentTimeMillis() : time;
+			}
+		});
+	}
+
+	@After public void cleanup(){
+		service.cleanup();
+	}
+
+	@Test public void testUpdatesAreAlignedToWallClock() throws InterruptedException{
+		//one millisecond before a full minute, an aligned 60 seconds update is due right away, a relative in a minute.
+		now.set(60000L * 1000 - 1);
+		final CountDownLatch latch = new CountDownLatch(1);
+		service.addUpdateable(new IUpdateable() {
+			@Override public void update() {
+				latch.countDown();
+			}
+		}, 60);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test public void testUpdateDueWhileRunningIsCoalesced() throws InterruptedException{
+		final CountDownLatch firstStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger updates = new AtomicInteger();
+		UpdateableWrapper wrapper = new UpdateableWrapper(new IUpdateable() {
+			@Override public void update() {
+				if (updates.incrementAndGet() == 1){
+					firstStarted.countDown();
+					try{
+						release.await();
+					}catch(InterruptedException ignored){}
+				}
+			}
+		}, "test", 1000L, false, 0L, null);
+
+		assertTrue(wrapper.tryStart());
+		Thread updater = new Thread(wrapper);
+		updater.start();
+		assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+		//both ticks missed during the running update are executed once afterwards.
+		assertFalse(wrapper.tryStart());
+		assertFalse(wrapper.tryStart());
+		release.countDown();
+		updater.join(5000);
+		assertEquals(2, updates.get());
+		assertTrue(wrapper.tryStart());
+	}
+
+	@Test public void testListenersAreNotifiedInParallelAfterUpdate() throws InterruptedException{
+		final CyclicBarrier bothRunning = new CyclicBarrier(2);
+		final AtomicBoolean updated = new AtomicBoolean(false);
+		final List<String> notified = new CopyOnWriteArrayList<>();
+		IFanOutUpdateable<String> updateable = new IFanOutUpdateable<String>() {
+			@Override public void updateBeforeListeners() {
+				updated.set(true);
+			}
+
+			@Override public List<String> getListeners() {
+				return Arrays.asList("a", "b");
+			}
+
+			@Override public void notifyListener(String aListener) {
+				assertTrue(updated.get());
+				try{
+					bothRunning.await(5, TimeUnit.SECONDS);
+				}catch(Exception e){
+					throw new IllegalStateException("listeners are not notified in parallel", e);
+				}
+				notified.add(aListener);
+			}
+
+			@Override public void update() {
+				throw new AssertionError("update of fan out updateables is not called");
+			}
+		};
+		ExecutorService notifiers = Executors.newFixedThreadPool(2);
+		try{
+			new ListenerFanOut(notifiers).update(updateable, "test");
+		}finally{
+			notifiers.shutdownNow();
+		}
+		assertEquals(2, notified.size());
+	}
+
+	@Test public void testSlowUpdateableDoesNotDelayOthers() throws InterruptedException{
+		final CountDownLatch slowStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch fastUpdated = new CountDownLatch(2);
+		service.addUpdateable(new IUpdateable() {
+			@Override public void update() {
+				slowStarted.countDown();
+				try{
+					release.await();
+				}catch(InterruptedException ignored){}
+			}
+		}, 1);
+		service.addUpdateable(new IUpdateable() {
+			@Override public void update() {
+				fastUpdated.countDown();
+			}
+		}, 1);
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+		assertTrue(fastUpdated.await(5, TimeUnit.SECONDS));
+		release.countDown();
+	}
+
+	@Test public void testFailingUpdateableIsStillScheduled() throws InterruptedException{
+		final CountDownLatch latch = new CountDownLatch(2);
+		service.addUpdateable(new IUpdateable() {
+			@Override public void update() {
+				latch.countDown();
+				throw new IllegalStateException("expected");
+			}
+		}, 1);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test public void testSchedule(){
+		UpdateableWrapper aligned = new UpdateableWrapper(null, "test", 60000L, true, 125000L, null);
+		assertEquals(180000L, aligned.getNextExecution());
+		aligned.advance(180003L);
+		assertEquals(240000L, aligned.getNextExecution());
+		//missed executions are skipped
+		aligned.advance(500000L);
+		assertEquals(540000L, aligned.getNextExecution());
+
+		UpdateableWrapper relative = new UpdateableWrapper(null, "test", 60000L, false, 125000L, null);
+		assertEquals(185000L, relative.getNextExecution());
+		relative.advance(185003L);
+		assertEquals(245000L, relative.getNextExecution());
+	}
+}
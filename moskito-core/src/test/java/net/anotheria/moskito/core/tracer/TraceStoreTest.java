@@ -0,0 +1,54 @@
+package net.anotheria.moskito.core.tracer;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TraceStoreTest {
+
+	private static Trace trace(long duration){
+		Trace t = new Trace();
+		t.setCall(String.valueOf(duration));
+		t.setDuration(duration);
+		return t;
+	}
+
+	@Test
+	public void testKeepLongest(){
+		TraceStore store = new TraceStore.KeepLongest();
+		for (int i=1; i<=5; i++)
+			assertTrue(store.add(trace(i*10), 5, 3).isEmpty());
+		List<Trace> removed = store.add(trace(25), 5, 3);
+		assertEquals(3, removed.size());
+		assertEquals(3, store.size());
+
+		List<Trace> traces = store.getTraces();
+		assertEquals(50, traces.get(0).getDuration());
+		assertEquals(40, traces.get(1).getDuration());
+		assertEquals(30, traces.get(2).getDuration());
+
+		//after the first shrinking shorter traces than the shortest kept one aren't admitted anymore.
+		assertFalse(store.isAdmissible(trace(20), 3));
+		assertTrue(store.isAdmissible(trace(35), 3));
+	}
+
+	@Test
+	public void testFifo(){
+		TraceStore store = new TraceStore.Fifo();
+		for (int i=0; i<5; i++)
+			store.add(trace(i), 5, 3);
+		List<Trace> removed = store.add(trace(5), 5, 3);
+		assertEquals(3, removed.size());
+		assertEquals(0, removed.get(0).getDuration());
+
+		List<Trace> traces = store.getTraces();
+		assertEquals(3, traces.size());
+		assertEquals(3, traces.get(0).getDuration());
+		assertEquals(5, traces.get(2).getDuration());
+		assertTrue(store.isAdmissible(trace(0), 3));
+	}
+}
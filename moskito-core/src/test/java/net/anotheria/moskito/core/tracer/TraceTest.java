@@ -0,0 +1,91 @@
+package net.anotheria.moskito.core.tracer;
+
+import net.anotheria.moskito.core.config.MoskitoConfiguration;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.journey.JourneyConfig;
+import net.anotheria.moskito.core.config.tracing.ShrinkingStrategy;
+import net.anotheria.moskito.core.config.tracing.TracingConfiguration;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TraceTest {
+
+	@Test
+	public void testDeferredCall(){
+		Trace trace = new Trace();
+		StringBuilder result = new StringBuilder("result");
+		trace.setCall(new StringBuilder("Producer.method(a)"), result, new JourneyConfig());
+		assertEquals("Producer.method(a) = result", trace.getCall());
+		//the call is built once.
+		result.append(" changed");
+		assertEquals("Producer.method(a) = result", trace.getCall());
+	}
+
+	@Test
+	public void testStackTraceSampling(){
+		TracingConfiguration config = new TracingConfiguration();
+		config.setStackTraceSamplingPercentage(0);
+		config.setStackTraceDurationThreshold(10);
+		config.setStackTraceDepth(3);
+
+		Trace fast = new Trace();
+		fast.setCall("fast");
+		fast.setDuration(1000000L);
+		fast.materialize(config);
+		assertNull(fast.getElements());
+
+		Trace slow = new Trace();
+		slow.setCall("slow");
+		slow.setDuration(10000000L);
+		slow.materialize(config);
+		assertNotNull(slow.getElements());
+		assertEquals(3, slow.getElements().length);
+		//frames of the tracer itself are cut off.
+		assertEquals(TraceTest.class.getName(), slow.getElements()[0].getClassName());
+
+		config.setStackTraceSamplingPercentage(100);
+		config.setStackTraceDepth(0);
+		Trace sampled = new Trace();
+		sampled.setCall("sampled");
+		sampled.materialize(config);
+		assertNotNull(sampled.getElements());
+		assertEquals(new Throwable().getStackTrace().length, sampled.getElements().length);
+	}
+
+	@Test
+	public void testShortTracesAreRejected(){
+		MoskitoConfiguration configuration = new MoskitoConfiguration();
+		TracingConfiguration tc = new TracingConfiguration();
+		tc.setMaxTraces(10);
+		tc.setShrinkingStrategy(ShrinkingStrategy.KEEPLONGEST);
+		tc.setStackTraceSamplingPercentage(100);
+		configuration.setTracingConfig(tc);
+		MoskitoConfigurationHolder.INSTANCE.setConfiguration(configuration);
+
+		Tracer tracer = new Tracer("rejecting");
+		for (int i=0; i<12; i++){
+			Trace t = new Trace();
+			t.setCall(String.valueOf(i));
+			t.setDuration(100 + i);
+			tracer.addTrace(t, 11, 10);
+		}
+		assertEquals(10, tracer.getEntryCount());
+
+		Trace rejected = new Trace();
+		rejected.setCall("rejected");
+		rejected.setDuration(50);
+		tracer.addTrace(rejected, 11, 10);
+		assertEquals(10, tracer.getEntryCount());
+		assertEquals(13, tracer.getTotalEntryCount());
+		//rejected traces never get a stack trace.
+		assertNull(rejected.getElements());
+	}
+
+	@After public void cleanup(){
+		MoskitoConfigurationHolder.resetConfiguration();
+	}
+}
@@ -0,0 +1,92 @@
+package net.anotheria.moskito.extensions.sampling;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses samples in the line protocol used for batch submission. Each sample is one line of the form
+ * <pre>producerId mapperId name=value&amp;name=value...</pre>
+ * for example <pre>OrderService servicerequest stat=createOrder&amp;tt=12&amp;err=false</pre>
+ * Names and values are url-encoded, names are lowercased like the parameters of a single sample get request.
+ * Empty lines and lines starting with # are ignored.
+ */
+public final class SampleLineParser {
+
+	/**
+	 * Encoding of names and values.
+	 */
+	private static final String ENCODING = "UTF-8";
+
+	private SampleLineParser(){
+	}
+
+	/**
+	 * Returns true if the line carries no sample.
+	 * @param line the line.
+	 * @return true if the line is empty or a comment.
+	 */
+	public static boolean isIgnorable(String line){
+		for (int i=0; i<line.length(); i++){
+			char c = line.charAt(i);
+			if (c == '#')
+				return true;
+			if (!Character.isWhitespace(c))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a sample line.
+	 * @param line the line.
+	 * @return the sample.
+	 * @throws IllegalArgumentException if the line is malformed.
+	 */
+	public static Sample parse(String line){
+		String trimmed = line.trim();
+		int firstSpace = trimmed.indexOf(' ');
+		if (firstSpace <= 0)
+			throw new IllegalArgumentException("Malformed sample line '"+line+"', expected producerId mapperId values");
+		int secondSpace = trimmed.indexOf(' ', firstSpace + 1);
+		String mapperId = secondSpace == -1 ? trimmed.substring(firstSpace + 1) : trimmed.substring(firstSpace + 1, secondSpace);
+		if (mapperId.length() == 0)
+			throw new IllegalArgumentException("Malformed sample line '"+line+"', mapper id may not be empty");
+
+		Map<String, String> values = new HashMap<>();
+		if (secondSpace != -1){
+			String query = trimmed.substring(secondSpace + 1).trim();
+			int start = 0;
+			while (start < query.length()){
+				int end = query.indexOf('&', start);
+				if (end == -1)
+					end = query.length();
+				int eq = query.indexOf('=', start);
+				if (eq == -1 || eq > end)
+					eq = end;
+				if (eq > start){
+					String name = decode(query.substring(start, eq)).toLowerCase();
+					values.put(name, eq < end ? decode(query.substring(eq + 1, end)) : "");
+				}
+				start = end + 1;
+			}
+		}
+
+		Sample sample = new Sample();
+		sample.setProducerId(trimmed.substring(0, firstSpace));
+		sample.setStatMapperId(mapperId);
+		sample.setValues(values);
+		return sample;
+	}
+
+	private static String decode(String s){
+		if (s.indexOf('%') == -1 && s.indexOf('+') == -1)
+			return s;
+		try{
+			return URLDecoder.decode(s, ENCODING);
+		}catch(UnsupportedEncodingException e){
+			throw new AssertionError(ENCODING+" not supported");
+		}
+	}
+}
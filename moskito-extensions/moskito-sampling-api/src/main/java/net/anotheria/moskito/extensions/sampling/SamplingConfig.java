@@ -0,0 +1,106 @@
+package net.anotheria.moskito.extensions.sampling;
+
+import org.configureme.ConfigurationManager;
+import org.configureme.annotations.Configure;
+import org.configureme.annotations.ConfigureMe;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Configuration of the sampling engine, read from moskito-sampling.json. All values have defaults, so the file is
+ * optional.
+ */
+@ConfigureMe(name = "moskito-sampling")
+public class SamplingConfig {
+
+	/**
+	 * Number of worker threads that process samples.
+	 */
+	@Configure
+	private int workers = 2;
+
+	/**
+	 * Max number of batches waiting for processing, further batches are dropped.
+	 */
+	@Configure
+	private int queueSize = 1000;
+
+	/**
+	 * Category of producers that are registered on the fly, if the sample has no category.
+	 */
+	@Configure
+	private String defaultCategory = "sampling";
+
+	/**
+	 * Subsystem of producers that are registered on the fly, if the sample has no subsystem.
+	 */
+	@Configure
+	private String defaultSubsystem = "sampling";
+
+	/**
+	 * Additional mappers, the servicerequest mapper is always available.
+	 */
+	@Configure
+	private SamplingMapperConfig[] mappers = new SamplingMapperConfig[0];
+
+	/**
+	 * Creates a new config which is configured by configureme, if moskito-sampling.json is present.
+	 * @return the config.
+	 */
+	public static SamplingConfig loadConfig(){
+		SamplingConfig config = new SamplingConfig();
+		try{
+			ConfigurationManager.INSTANCE.configure(config);
+		}catch(IllegalArgumentException e){
+			LoggerFactory.getLogger(SamplingConfig.class).info("moskito-sampling.json not present, using defaults");
+		}
+		return config;
+	}
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public String getDefaultCategory() {
+		return defaultCategory;
+	}
+
+	public void setDefaultCategory(String defaultCategory) {
+		this.defaultCategory = defaultCategory;
+	}
+
+	public String getDefaultSubsystem() {
+		return defaultSubsystem;
+	}
+
+	public void setDefaultSubsystem(String defaultSubsystem) {
+		this.defaultSubsystem = defaultSubsystem;
+	}
+
+	public SamplingMapperConfig[] getMappers() {
+		return mappers;
+	}
+
+	public void setMappers(SamplingMapperConfig[] mappers) {
+		this.mappers = mappers;
+	}
+
+	@Override
+	public String toString(){
+		return "SamplingConfig{workers="+workers+", queueSize="+queueSize+", defaultCategory="+defaultCategory+
+				", defaultSubsystem="+defaultSubsystem+", mappers="+Arrays.toString(mappers)+'}';
+	}
+}
@@ -2,6 +2,8 @@ package net.anotheria.moskito.extensions.sampling;
 
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
 import net.anotheria.moskito.core.producers.IStats;
 import net.anotheria.moskito.core.registry.IProducerRegistry;
 import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
@@ -9,8 +11,26 @@ import net.anotheria.moskito.extensions.sampling.mappers.ServiceRequestStatsMapp
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * TODO comment this class
+ * Receives samples from the endpoints and applies them to the producers. Samples are submitted in batches into a
+ * bounded queue and processed by a small pool of worker threads, a batch that doesn't fit into the queue is dropped
+ * and the submitter is notified, so it can slow down (back-pressure). The ingestion lag is monitored by the
+ * SamplingIngestion producer, dropped batches and samples are counted. Workers, queue size, defaults for producers
+ * registered on the fly and additional mappers are configured by {@link SamplingConfig}.
  *
  * @author lrosenberg
  * @since 24.04.15 18:00
@@ -27,25 +47,149 @@ public class SamplingEngine {
 	 */
 	private static SamplingEngine instance = new SamplingEngine();
 
+	/**
+	 * Id of the producer that monitors the ingestion.
+	 */
+	public static final String PRODUCER_ID = "SamplingIngestion";
+
+	/**
+	 * Name of the stats with the lag between submission and processing of a batch.
+	 */
+	public static final String STATS_PROCESSED = "processed";
+
 	private IProducerRegistry producerRegistry;
 
 	public static final Boolean FLAG_REGISTER_PRODUCER_ON_THE_FLY = Boolean.TRUE;
 
+	/**
+	 * Configuration.
+	 */
+	private final SamplingConfig config;
+
+	/**
+	 * Mappers by id. Mappers are stateless and shared.
+	 */
+	private final Map<String, StatsMapper> mappers;
+
+	/**
+	 * Producers that have been resolved or registered by this engine, by producer id.
+	 */
+	private final ConcurrentMap<String, OnDemandStatsProducer> producers = new ConcurrentHashMap<>();
+
+	/**
+	 * Executor that processes the batches.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Number of processed samples.
+	 */
+	private final AtomicLong processedSamplesCount = new AtomicLong();
+
+	/**
+	 * Number of dropped samples.
+	 */
+	private final AtomicLong droppedSamplesCount = new AtomicLong();
+
+	/**
+	 * Number of dropped batches.
+	 */
+	private final AtomicLong droppedBatchesCount = new AtomicLong();
+
 	private SamplingEngine(){
-		producerRegistry = ProducerRegistryFactory.getProducerRegistryInstance();
+		this(SamplingConfig.loadConfig(), ProducerRegistryFactory.getProducerRegistryInstance());
 	}
 
-
+	SamplingEngine(SamplingConfig aConfig, IProducerRegistry aProducerRegistry){
+		config = aConfig;
+		producerRegistry = aProducerRegistry;
+		mappers = createMappers(aConfig);
+		int workers = Math.max(1, aConfig.getWorkers());
+		executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, aConfig.getQueueSize())), new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MoskitoSamplingWorker-"+counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
 
 	public static final SamplingEngine getInstance(){
 		return instance;
 	}
 
-	public void addSample(Sample sample){
-		//do queue later
+	private static Map<String, StatsMapper> createMappers(SamplingConfig aConfig){
+		Map<String, StatsMapper> m = new HashMap<>();
+		m.put("servicerequest", new ServiceRequestStatsMapper());
+		if (aConfig.getMappers() != null){
+			for (SamplingMapperConfig mapperConfig : aConfig.getMappers()){
+				try{
+					m.put(mapperConfig.getMapperId(), (StatsMapper)Class.forName(mapperConfig.getMapperClass()).newInstance());
+				}catch(Exception e){
+					log.error("Can't instantiate mapper "+mapperConfig, e);
+				}
+			}
+		}
+		return Collections.unmodifiableMap(m);
+	}
+
+	/**
+	 * Submits a single sample.
+	 * @param sample the sample.
+	 * @return true if the sample has been accepted, false if it has been dropped.
+	 */
+	public boolean addSample(Sample sample){
+		return addSamples(Collections.singletonList(sample));
+	}
+
+	/**
+	 * Submits a batch of samples. The batch is either accepted as whole or dropped as whole.
+	 * @param samples the samples.
+	 * @return true if the batch has been accepted, false if it has been dropped because the queue is full.
+	 */
+	public boolean addSamples(List<Sample> samples){
+		if (samples.isEmpty())
+			return true;
+		try{
+			executor.execute(new Batch(samples, System.nanoTime()));
+			return true;
+		}catch(RejectedExecutionException e){
+			droppedBatchesCount.incrementAndGet();
+			droppedSamplesCount.addAndGet(samples.size());
+			log.debug("Sampling queue full, dropped batch of "+samples.size()+" samples");
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of processed samples since start.
+	 */
+	public long getProcessedSamplesCount(){
+		return processedSamplesCount.get();
+	}
 
-		processSample(sample);
+	/**
+	 * Returns the number of samples that have been dropped since start.
+	 */
+	public long getDroppedSamplesCount(){
+		return droppedSamplesCount.get();
+	}
 
+	/**
+	 * Returns the number of batches that have been dropped since start.
+	 */
+	public long getDroppedBatchesCount(){
+		return droppedBatchesCount.get();
+	}
+
+	/**
+	 * Returns the number of batches waiting for processing.
+	 */
+	public int getQueuedBatchesCount(){
+		return executor.getQueue().size();
 	}
 
 	private void processSample(Sample sample){
@@ -58,25 +202,10 @@ public class SamplingEngine {
 			return;
 		}
 
-		OnDemandStatsProducer producer = (OnDemandStatsProducer)producerRegistry.getProducer(producerId);
-		if (producer == null){
-			//we have to register producer.
-			if (!FLAG_REGISTER_PRODUCER_ON_THE_FLY){
-				log.warn("Submitted new sample for "+producerId+", which is not registered and producer auto-register is off");
-				return ;
-			}
-			log.info("Registering producer "+producerId+" on the fly");
-			String category = sample.getValues().get("category");
-			if (category == null)
-				category = "sampling"; // TODO make configurable
-			String subsystem = sample.getValues().get("subsystem");
-			if (subsystem == null)
-				subsystem = "sampling"; // TODO make configurable
-			producer = new OnDemandStatsProducer(producerId, category, subsystem, mapper.getFactory());
-			producerRegistry.registerProducer(producer);
-		}
+		OnDemandStatsProducer producer = getProducer(sample, mapper);
+		if (producer == null)
+			return;
 
-		log.debug("Have to add sampling value to producer "+producer);
 		String statName = sample.getValues().get("stat");
 		if (statName == null){
 			IStats stats = producer.getDefaultStats();
@@ -97,10 +226,102 @@ public class SamplingEngine {
 
 	}
 
+	/**
+	 * Returns the producer for the sample, the registry is only consulted the first time a producer id is seen.
+	 * Registration is synchronized, so that concurrent workers don't register the same producer twice.
+	 */
+	private OnDemandStatsProducer getProducer(Sample sample, StatsMapper mapper){
+		String producerId = sample.getProducerId();
+		OnDemandStatsProducer producer = producers.get(producerId);
+		if (producer != null)
+			return producer;
+
+		synchronized(producers){
+			producer = producers.get(producerId);
+			if (producer != null)
+				return producer;
+			producer = (OnDemandStatsProducer)producerRegistry.getProducer(producerId);
+			if (producer == null){
+				//we have to register producer.
+				if (!FLAG_REGISTER_PRODUCER_ON_THE_FLY){
+					log.warn("Submitted new sample for "+producerId+", which is not registered and producer auto-register is off");
+					return null;
+				}
+				log.info("Registering producer "+producerId+" on the fly");
+				String category = sample.getValues().get("category");
+				if (category == null)
+					category = config.getDefaultCategory();
+				String subsystem = sample.getValues().get("subsystem");
+				if (subsystem == null)
+					subsystem = config.getDefaultSubsystem();
+				producer = new OnDemandStatsProducer(producerId, category, subsystem, mapper.getFactory());
+				producerRegistry.registerProducer(producer);
+			}
+			producers.put(producerId, producer);
+			return producer;
+		}
+	}
+
 	private StatsMapper getMapper(String mapperId){
-		//TODO configuration.
-		if (mapperId.equals("servicerequest"))
-			return new ServiceRequestStatsMapper();
-		return null;
+		return mappers.get(mapperId);
+	}
+
+	private static void recordProcessed(long lag, boolean error){
+		OnDemandStatsProducer<ServiceStats> producer = ProducerHolder.PRODUCER;
+		try{
+			ServiceStats stats = producer.getStats(STATS_PROCESSED);
+			stats.addRequest();
+			stats.addExecutionTime(lag);
+			if (error)
+				stats.notifyError();
+			stats.notifyRequestFinished();
+		}catch(OnDemandStatsProducerException e){
+			log.debug("Can't record processed batch", e);
+		}
+	}
+
+	/**
+	 * A batch of samples in the queue.
+	 */
+	private final class Batch implements Runnable {
+		/**
+		 * The samples.
+		 */
+		private final List<Sample> samples;
+		/**
+		 * Nano timestamp of the submission.
+		 */
+		private final long submitted;
+
+		Batch(List<Sample> samples, long submitted){
+			this.samples = samples;
+			this.submitted = submitted;
+		}
+
+		@Override
+		public void run() {
+			long lag = System.nanoTime() - submitted;
+			boolean error = false;
+			for (Sample sample : samples){
+				try{
+					processSample(sample);
+				}catch(RuntimeException e){
+					log.warn("Can't process sample "+sample, e);
+					error = true;
+				}
+			}
+			processedSamplesCount.addAndGet(samples.size());
+			recordProcessed(lag, error);
+		}
+	}
+
+	/**
+	 * Holds the ingestion producer, which is registered on first use.
+	 */
+	private static final class ProducerHolder {
+		private static final OnDemandStatsProducer<ServiceStats> PRODUCER = new OnDemandStatsProducer<>(PRODUCER_ID, "moskito", "sampling", ServiceStatsFactory.DEFAULT_INSTANCE);
+		static {
+			ProducerRegistryFactory.getProducerRegistryInstance().registerProducer(PRODUCER);
+		}
 	}
 }
@@ -0,0 +1,45 @@
+package net.anotheria.moskito.extensions.sampling;
+
+import org.configureme.annotations.Configure;
+import org.configureme.annotations.ConfigureMe;
+
+/**
+ * Configuration of an additional mapper. The mapper class has to implement {@link StatsMapper} and have a public
+ * default constructor.
+ */
+@ConfigureMe
+public class SamplingMapperConfig {
+
+	/**
+	 * Id of the mapper, as submitted with the samples.
+	 */
+	@Configure
+	private String mapperId;
+
+	/**
+	 * Class name of the mapper.
+	 */
+	@Configure
+	private String mapperClass;
+
+	public String getMapperId() {
+		return mapperId;
+	}
+
+	public void setMapperId(String mapperId) {
+		this.mapperId = mapperId;
+	}
+
+	public String getMapperClass() {
+		return mapperClass;
+	}
+
+	public void setMapperClass(String mapperClass) {
+		this.mapperClass = mapperClass;
+	}
+
+	@Override
+	public String toString(){
+		return mapperId+"="+mapperClass;
+	}
+}
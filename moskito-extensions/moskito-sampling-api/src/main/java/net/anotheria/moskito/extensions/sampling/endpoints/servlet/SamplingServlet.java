@@ -1,6 +1,7 @@
 package net.anotheria.moskito.extensions.sampling.endpoints.servlet;
 
 import net.anotheria.moskito.extensions.sampling.Sample;
+import net.anotheria.moskito.extensions.sampling.SampleLineParser;
 import net.anotheria.moskito.extensions.sampling.SamplingEngine;
 import net.anotheria.moskito.web.MoskitoHttpServlet;
 
@@ -8,13 +9,20 @@ import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
- * TODO comment this class
+ * Endpoint for samples. A single sample is submitted via get request with producer id, mapper id and values as
+ * parameters. Batches are submitted via post request with one sample per line, see {@link SampleLineParser}. If the
+ * sampling engine can't keep up, the samples are dropped and the servlet answers with 503, so the client can retry
+ * later.
  *
  * @author lrosenberg
  * @since 24.04.15 17:55
@@ -36,6 +44,16 @@ public class SamplingServlet extends MoskitoHttpServlet{
 	 */
 	public static final String PARAM_STAT_MAPPER_ID = "mapper";
 
+	/**
+	 * Max number of samples in one post request.
+	 */
+	public static final int MAX_BATCH_SIZE = 10000;
+
+	/**
+	 * Seconds after which a client should retry a dropped batch.
+	 */
+	private static final String RETRY_AFTER_SECONDS = "1";
+
 	/**
 	 * Engine.
 	 */
@@ -75,7 +93,43 @@ public class SamplingServlet extends MoskitoHttpServlet{
 		sample.setStatMapperId(mapperId);
 		sample.setValues(parameters);
 
-		engine.addSample(sample);
+		if (!engine.addSample(sample))
+			rejectOverload(res);
 		//don't return anything, just status ok.
 	}
+
+	@Override
+	protected void moskitoDoPost(HttpServletRequest req, HttpServletResponse res) throws ServletException, IOException {
+		List<Sample> samples = new ArrayList<>();
+		int malformed = 0;
+		BufferedReader reader = req.getReader();
+		String line;
+		while ((line = reader.readLine()) != null){
+			if (SampleLineParser.isIgnorable(line))
+				continue;
+			if (samples.size() == MAX_BATCH_SIZE){
+				res.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Max "+MAX_BATCH_SIZE+" samples per request");
+				return;
+			}
+			try{
+				samples.add(SampleLineParser.parse(line));
+			}catch(IllegalArgumentException e){
+				malformed++;
+			}
+		}
+
+		if (!engine.addSamples(samples)){
+			rejectOverload(res);
+			return;
+		}
+		res.setContentType("text/plain");
+		PrintWriter out = res.getWriter();
+		out.println("accepted="+samples.size());
+		out.println("malformed="+malformed);
+	}
+
+	private void rejectOverload(HttpServletResponse res) throws IOException {
+		res.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+		res.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Sampling queue full, retry later");
+	}
 }
@@ -0,0 +1,62 @@
+package net.anotheria.moskito.extensions.sampling;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the line protocol of batch submission.
+ */
+public class SampleLineParserTest {
+
+	@Test
+	public void testParse(){
+		Sample sample = SampleLineParser.parse("OrderService servicerequest stat=createOrder&TT=12&err=false");
+		assertEquals("OrderService", sample.getProducerId());
+		assertEquals("servicerequest", sample.getStatMapperId());
+		assertEquals(3, sample.getValues().size());
+		assertEquals("createOrder", sample.getValues().get("stat"));
+		assertEquals("12", sample.getValues().get("tt"));
+		assertEquals("false", sample.getValues().get("err"));
+	}
+
+	@Test
+	public void testDecodeAndEmptyValues(){
+		Sample sample = SampleLineParser.parse("  OrderService servicerequest  stat=create%20order+now&flag&empty=&&=ignored  ");
+		assertEquals("OrderService", sample.getProducerId());
+		assertEquals("create order now", sample.getValues().get("stat"));
+		assertEquals("", sample.getValues().get("flag"));
+		assertEquals("", sample.getValues().get("empty"));
+		assertEquals(3, sample.getValues().size());
+	}
+
+	@Test
+	public void testWithoutValues(){
+		Sample sample = SampleLineParser.parse("OrderService servicerequest");
+		assertEquals("servicerequest", sample.getStatMapperId());
+		assertTrue(sample.getValues().isEmpty());
+	}
+
+	@Test
+	public void testMalformed(){
+		for (String line : new String[]{"OrderService", " servicerequest", "OrderService  tt=1"}){
+			try{
+				SampleLineParser.parse(line);
+				fail("Expected exception for '"+line+"'");
+			}catch(IllegalArgumentException expected){
+			}
+		}
+	}
+
+	@Test
+	public void testIgnorable(){
+		assertTrue(SampleLineParser.isIgnorable(""));
+		assertTrue(SampleLineParser.isIgnorable(" \t"));
+		assertTrue(SampleLineParser.isIgnorable("# comment"));
+		assertTrue(SampleLineParser.isIgnorable("  #comment"));
+		assertFalse(SampleLineParser.isIgnorable("OrderService servicerequest #tt=1"));
+	}
+}
@@ -0,0 +1,148 @@
+package net.anotheria.moskito.extensions.sampling;
+
+import net.anotheria.moskito.core.dynamic.IOnDemandStatsFactory;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServiceStatsFactory;
+import net.anotheria.moskito.core.producers.IStats;
+import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.registry.IProducerRegistry;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the queue and the workers of the sampling engine.
+ */
+public class SamplingEngineTest {
+
+	private IProducerRegistry registry;
+
+	@Before
+	public void reset(){
+		ProducerRegistryFactory.reset();
+		registry = ProducerRegistryFactory.getProducerRegistryInstance();
+		BlockingMapper.entered = new CountDownLatch(1);
+		BlockingMapper.release = new CountDownLatch(1);
+	}
+
+	@Test
+	public void testSamplesAreApplied() throws Exception{
+		SamplingConfig config = new SamplingConfig();
+		config.setDefaultCategory("remote");
+		SamplingEngine engine = new SamplingEngine(config, registry);
+
+		assertTrue(engine.addSamples(Arrays.asList(
+				SampleLineParser.parse("OrderService servicerequest stat=create&tt=10&cumulate=true"),
+				SampleLineParser.parse("OrderService servicerequest stat=create&tt=20&err=true"),
+				SampleLineParser.parse("OrderService unknownmapper tt=20"),
+				SampleLineParser.parse("OrderService servicerequest subsystem=orders&tt=5")
+		)));
+		awaitProcessed(engine, 4);
+
+		IStatsProducer producer = registry.getProducer("OrderService");
+		assertNotNull(producer);
+		assertEquals("remote", producer.getCategory());
+		assertEquals("sampling", producer.getSubsystem());
+
+		ServiceStats create = findStats(producer, "create");
+		assertEquals(2, create.getTotalRequests());
+		assertEquals(30, create.getTotalTime());
+		assertEquals(1, create.getErrors());
+
+		ServiceStats cumulated = findStats(producer, "cumulated");
+		assertEquals(2, cumulated.getTotalRequests());
+		assertEquals(15, cumulated.getTotalTime());
+		assertEquals(0, engine.getDroppedBatchesCount());
+	}
+
+	@Test
+	public void testFullQueueDropsBatch() throws Exception{
+		SamplingConfig config = new SamplingConfig();
+		config.setWorkers(1);
+		config.setQueueSize(1);
+		SamplingMapperConfig mapperConfig = new SamplingMapperConfig();
+		mapperConfig.setMapperId("blocking");
+		mapperConfig.setMapperClass(BlockingMapper.class.getName());
+		config.setMappers(new SamplingMapperConfig[]{mapperConfig});
+		SamplingEngine engine = new SamplingEngine(config, registry);
+
+		//the only worker blocks in the first batch, the second waits in the queue, the third doesn't fit.
+		assertTrue(engine.addSample(SampleLineParser.parse("Blocked blocking tt=1")));
+		assertTrue(BlockingMapper.entered.await(10, TimeUnit.SECONDS));
+		assertTrue(engine.addSamples(createSamples(2)));
+		assertFalse(engine.addSamples(createSamples(3)));
+		assertEquals(1, engine.getQueuedBatchesCount());
+		assertEquals(1, engine.getDroppedBatchesCount());
+		assertEquals(3, engine.getDroppedSamplesCount());
+
+		BlockingMapper.release.countDown();
+		awaitProcessed(engine, 3);
+		assertEquals(0, engine.getQueuedBatchesCount());
+		assertEquals(1, engine.getDroppedBatchesCount());
+		assertEquals(2, findStats(registry.getProducer("Queued"), "cumulated").getTotalRequests());
+	}
+
+	@Test
+	public void testEmptyBatchIsAccepted(){
+		SamplingEngine engine = new SamplingEngine(new SamplingConfig(), registry);
+		assertTrue(engine.addSamples(Collections.<Sample>emptyList()));
+		assertEquals(0, engine.getDroppedBatchesCount());
+	}
+
+	private static List<Sample> createSamples(int count){
+		List<Sample> ret = new ArrayList<>(count);
+		for (int i=0; i<count; i++)
+			ret.add(SampleLineParser.parse("Queued servicerequest tt="+i));
+		return ret;
+	}
+
+	private static ServiceStats findStats(IStatsProducer producer, String name){
+		for (Object s : producer.getStats()){
+			if (((IStats)s).getName().equals(name))
+				return (ServiceStats)s;
+		}
+		throw new AssertionError("No stats "+name+" in "+producer.getProducerId());
+	}
+
+	private static void awaitProcessed(SamplingEngine engine, long expected) throws InterruptedException{
+		long deadline = System.currentTimeMillis() + 10000;
+		while (engine.getProcessedSamplesCount() < expected && System.currentTimeMillis() < deadline)
+			Thread.sleep(5);
+		assertEquals(expected, engine.getProcessedSamplesCount());
+	}
+
+	/**
+	 * Mapper that blocks the worker until released.
+	 */
+	public static class BlockingMapper implements StatsMapper {
+		static volatile CountDownLatch entered;
+		static volatile CountDownLatch release;
+
+		@Override
+		public IOnDemandStatsFactory getFactory() {
+			return ServiceStatsFactory.DEFAULT_INSTANCE;
+		}
+
+		@Override
+		public void updateStats(IStats statsObject, Sample sample) {
+			entered.countDown();
+			try{
+				release.await(10, TimeUnit.SECONDS);
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package net.anotheria.moskito.extensions.sampling.endpoints.servlet;
+
+import net.anotheria.anoprise.mocking.MockFactory;
+import net.anotheria.anoprise.mocking.Mocking;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the batch submission via post request.
+ */
+public class SamplingServletTest {
+
+	private SamplingServlet servlet;
+
+	@Before
+	public void init() throws Exception{
+		ProducerRegistryFactory.reset();
+		servlet = new SamplingServlet();
+		servlet.init(MockFactory.createMock(ServletConfig.class));
+	}
+
+	@Test
+	public void testPostBatch() throws Exception{
+		RecordingResponse response = new RecordingResponse();
+		servlet.moskitoDoPost(createRequest(
+				"# comment\n" +
+				"OrderService servicerequest stat=create&tt=10\n" +
+				"\n" +
+				"OrderService\n" +
+				"OrderService servicerequest stat=cancel&tt=20&err=true\n"
+		), MockFactory.createMock(HttpServletResponse.class, response));
+
+		assertEquals(0, response.error);
+		assertEquals("text/plain", response.contentType);
+		assertEquals("accepted=2\nmalformed=1\n", response.body.toString().replace(System.lineSeparator(), "\n"));
+	}
+
+	@Test
+	public void testTooLargeBatch() throws Exception{
+		StringBuilder body = new StringBuilder();
+		for (int i=0; i<=SamplingServlet.MAX_BATCH_SIZE; i++)
+			body.append("OrderService servicerequest tt=1\n");
+		RecordingResponse response = new RecordingResponse();
+		servlet.moskitoDoPost(createRequest(body.toString()), MockFactory.createMock(HttpServletResponse.class, response));
+
+		assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, response.error);
+		assertEquals(0, response.body.getBuffer().length());
+	}
+
+	private static HttpServletRequest createRequest(String body){
+		return MockFactory.createMock(HttpServletRequest.class, new RequestBody(body));
+	}
+
+	/**
+	 * Provides the body of a post request.
+	 */
+	public static class RequestBody implements Mocking {
+		private final String body;
+
+		public RequestBody(String aBody){
+			body = aBody;
+		}
+
+		public BufferedReader getReader(){
+			return new BufferedReader(new StringReader(body));
+		}
+	}
+
+	/**
+	 * Records what the servlet writes to the response.
+	 */
+	public static class RecordingResponse implements Mocking {
+		private int error;
+		private String contentType;
+		private final StringWriter body = new StringWriter();
+
+		public void sendError(int sc, String msg){
+			error = sc;
+		}
+
+		public void setHeader(String name, String value){
+		}
+
+		public void setContentType(String type){
+			contentType = type;
+		}
+
+		public PrintWriter getWriter(){
+			return new PrintWriter(body, true);
+		}
+	}
+}
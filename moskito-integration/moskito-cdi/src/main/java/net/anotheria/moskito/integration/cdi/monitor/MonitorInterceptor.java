@@ -179,10 +179,9 @@ public class MonitorInterceptor extends AbstractInterceptor<ServiceStats> implem
             }
 
             if (tracePassingOfThisProducer) {
-                call.append(" = ").append(TracingUtil.parameter2string(ret));
-                trace.setCall(call.toString());
+                //result conversion and stack trace are deferred until the tracer keeps the trace.
+                trace.setCall(call, ret, currentTrace.getJourneyConfig());
                 trace.setDuration(exTime);
-                trace.setElements(Thread.currentThread().getStackTrace());
 
                 if (journeyStartedByMe) {
                     //now finish the journey.
@@ -4,10 +4,13 @@ import net.anotheria.moskito.core.calltrace.CurrentlyTracedCall;
 import net.anotheria.moskito.core.calltrace.RunningTraceContainer;
 import net.anotheria.moskito.core.calltrace.TraceStep;
 import net.anotheria.moskito.core.calltrace.TracedCall;
+import net.anotheria.moskito.core.dynamic.EntryCountLimitedOnDemandStatsProducer;
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
 import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
 import net.anotheria.moskito.sql.stats.QueryStats;
 import net.anotheria.moskito.sql.stats.QueryStatsFactory;
+import net.anotheria.moskito.sql.util.SqlNormalizer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -55,17 +58,41 @@ public class ConnectionCallAspect {
 	 * Empty string .
 	 */
 	private static final String EMPTY = "";
+	/**
+	 * Max amount of distinct statements with own stats, further statements are counted in OTHER_STATEMENTS.
+	 */
+	private static final int MAX_STATEMENTS = 1000;
+	/**
+	 * Name of the stats for statements beyond MAX_STATEMENTS.
+	 */
+	static final String OTHER_STATEMENTS = "other statements";
 
 	/**
 	 * Query stats producer.
 	 */
 	private OnDemandStatsProducer<QueryStats> producer;
 
+	/**
+	 * Stats for statements beyond the limit.
+	 */
+	private QueryStats otherStatementsStats;
+
+	/**
+	 * Normalizer with cache of normalized statements.
+	 */
+	private final SqlNormalizer normalizer = new SqlNormalizer();
+
 	/**
 	 * Constructor.
 	 */
 	public ConnectionCallAspect() {
-		producer = new OnDemandStatsProducer<QueryStats>("SQLQueries", "sql", "sql", QueryStatsFactory.DEFAULT_INSTANCE);
+		producer = new EntryCountLimitedOnDemandStatsProducer<QueryStats>("SQLQueries", "sql", "sql", QueryStatsFactory.DEFAULT_INSTANCE, MAX_STATEMENTS);
+		try {
+			//created before the limit can be reached.
+			otherStatementsStats = producer.getStats(OTHER_STATEMENTS);
+		} catch (OnDemandStatsProducerException e) {
+			throw new IllegalStateException("Can't create stats for "+OTHER_STATEMENTS, e);
+		}
 		ProducerRegistryFactory.getProducerRegistryInstance().registerProducer(producer);
 	}
 
@@ -84,9 +111,7 @@ public class ConnectionCallAspect {
 
 	@Around(value = "preparedStatementExecuteCalls()", argNames = "pjp")
 	public Object doBasicProfiling(ProceedingJoinPoint pjp) throws Throwable {
-		String preparedStatement = pjp.getTarget().toString();
-		String statement = preparedStatement.substring(preparedStatement.indexOf(":") + 2);
-		return doMoskitoProfiling(pjp, statement);
+		return doMoskitoProfiling(pjp, normalizer.normalizePrepared(pjp.getTarget()));
 	}
 
 	/**
@@ -98,11 +123,15 @@ public class ConnectionCallAspect {
 	 * @throws Throwable on errors
 	 */
 	private Object doMoskitoProfiling(ProceedingJoinPoint pjp, String statement) throws Throwable {
-		String statementGeneralized = statement.replaceAll("'.+?'", "?").replaceAll(",\\s*\\d+", ", ?")
-				.replaceAll("\\(\\s*\\d+", "(?").replaceAll("=\\s*\\d+", "=?");
+		String statementGeneralized = normalizer.normalizeCached(statement);
 		long callTime = System.nanoTime();
 		QueryStats cumulatedStats = producer.getDefaultStats();
-		QueryStats statementStats = producer.getStats(statementGeneralized);
+		QueryStats statementStats;
+		try {
+			statementStats = producer.getStats(statementGeneralized);
+		} catch (OnDemandStatsProducerException e) {
+			statementStats = otherStatementsStats;
+		}
 		//add Request Count, increase CR,MCR
 		cumulatedStats.addRequest();
 		if (statementStats != null)
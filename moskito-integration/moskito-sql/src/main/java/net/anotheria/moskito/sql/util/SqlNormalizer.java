@@ -0,0 +1,265 @@
+package net.anotheria.moskito.sql.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Normalizes sql statements into a generalized form that is used as stats name, in a single pass over the statement.
+ * String and numeric literals are replaced by ?, lists of values in IN clauses are collapsed into a single ?, comments
+ * are removed and whitespace is collapsed. For example
+ * <pre>select * from t where id in (1, 2, 3) and name = 'x' -- comment</pre>
+ * becomes
+ * <pre>select * from t where id in (?) and name = ?</pre>
+ * Normalized statements are kept in a bounded LRU cache by statement text, and for prepared statements additionally
+ * by statement object, since the text of a prepared statement never changes.
+ */
+public final class SqlNormalizer {
+
+	/**
+	 * Default size of the statement cache.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	/**
+	 * Placeholder for literals.
+	 */
+	private static final char PLACEHOLDER = '?';
+
+	/**
+	 * Normalized statements by statement text.
+	 */
+	private final Map<String, String> cache;
+
+	/**
+	 * Normalized statements by prepared statement object, entries are removed with the statement.
+	 */
+	private final Map<Object, String> preparedCache = Collections.synchronizedMap(new WeakHashMap<Object, String>());
+
+	public SqlNormalizer(){
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	public SqlNormalizer(final int cacheSize){
+		cache = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	/**
+	 * Returns the normalized statement, from cache if possible.
+	 * @param statement the statement.
+	 * @return normalized statement.
+	 */
+	public String normalizeCached(String statement){
+		String ret = cache.get(statement);
+		if (ret == null){
+			ret = normalize(statement);
+			cache.put(statement, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the normalized statement of a prepared statement. The statement text is only obtained on first call per
+	 * prepared statement.
+	 * @param preparedStatement the prepared statement.
+	 * @return normalized statement.
+	 */
+	public String normalizePrepared(Object preparedStatement){
+		String ret = preparedCache.get(preparedStatement);
+		if (ret == null){
+			ret = normalizeCached(getPreparedStatementText(preparedStatement));
+			preparedCache.put(preparedStatement, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the text of a prepared statement from its toString representation. Most drivers return the statement
+	 * after a colon, for example com.mysql.jdbc.JDBC4PreparedStatement@3d4eac69: select ...
+	 */
+	static String getPreparedStatementText(Object preparedStatement){
+		String text = String.valueOf(preparedStatement);
+		int colon = text.indexOf(':');
+		return colon == -1 ? text : text.substring(Math.min(text.length(), colon + 2));
+	}
+
+	/**
+	 * Normalizes a statement without cache.
+	 * @param statement the statement.
+	 * @return normalized statement.
+	 */
+	public static String normalize(String statement){
+		final int length = statement.length();
+		final StringBuilder out = new StringBuilder(length);
+		int depth = 0;
+		//depth of the parentheses of the IN clause we are in, -1 if not in an IN clause.
+		int inListDepth = -1;
+		boolean afterIn = false;
+		int i = 0;
+		while (i < length){
+			char c = statement.charAt(i);
+
+			if (c == '\''){
+				i = skipString(statement, i);
+				appendPlaceholder(out, inListDepth != -1 && depth == inListDepth);
+				afterIn = false;
+				continue;
+			}
+
+			if (c == '-' && i + 1 < length && statement.charAt(i + 1) == '-'){
+				while (i < length && statement.charAt(i) != '\n')
+					i++;
+				appendSpace(out);
+				continue;
+			}
+
+			if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*'){
+				int end = statement.indexOf("*/", i + 2);
+				i = end == -1 ? length : end + 2;
+				appendSpace(out);
+				continue;
+			}
+
+			if (Character.isWhitespace(c)){
+				appendSpace(out);
+				i++;
+				continue;
+			}
+
+			if (isNumberStart(statement, i)){
+				i = skipNumber(statement, i);
+				appendPlaceholder(out, inListDepth != -1 && depth == inListDepth);
+				afterIn = false;
+				continue;
+			}
+
+			if (isIdentifierPart(c)){
+				int start = i;
+				while (i < length && isIdentifierPart(statement.charAt(i)))
+					i++;
+				out.append(statement, start, i);
+				afterIn = i - start == 2 && statement.regionMatches(true, start, "in", 0, 2);
+				continue;
+			}
+
+			if (c == '('){
+				depth++;
+				if (afterIn)
+					inListDepth = depth;
+			} else if (c == ')'){
+				if (depth == inListDepth)
+					inListDepth = -1;
+				depth--;
+			} else if (c == PLACEHOLDER){
+				appendPlaceholder(out, inListDepth != -1 && depth == inListDepth);
+				afterIn = false;
+				i++;
+				continue;
+			}
+			afterIn = false;
+			out.append(c);
+			i++;
+		}
+
+		int end = out.length();
+		while (end > 0 && out.charAt(end - 1) == ' ')
+			end--;
+		out.setLength(end);
+		return out.toString();
+	}
+
+	private static void appendSpace(StringBuilder out){
+		if (out.length() > 0 && out.charAt(out.length() - 1) != ' ')
+			out.append(' ');
+	}
+
+	/**
+	 * Appends a placeholder, in IN lists a placeholder that follows another placeholder and a comma is dropped
+	 * together with the comma.
+	 */
+	private static void appendPlaceholder(StringBuilder out, boolean inList){
+		if (inList){
+			int pos = out.length() - 1;
+			while (pos >= 0 && out.charAt(pos) == ' ')
+				pos--;
+			if (pos >= 0 && out.charAt(pos) == ','){
+				int beforeComma = pos - 1;
+				while (beforeComma >= 0 && out.charAt(beforeComma) == ' ')
+					beforeComma--;
+				if (beforeComma >= 0 && out.charAt(beforeComma) == PLACEHOLDER){
+					out.setLength(beforeComma + 1);
+					return;
+				}
+			}
+		}
+		out.append(PLACEHOLDER);
+	}
+
+	/**
+	 * Returns the index after the string literal starting at the given index, quotes are escaped by doubling or backslash.
+	 */
+	private static int skipString(String statement, int start){
+		int i = start + 1;
+		while (i < statement.length()){
+			char c = statement.charAt(i);
+			if (c == '\\'){
+				i += 2;
+				continue;
+			}
+			if (c == '\''){
+				if (i + 1 < statement.length() && statement.charAt(i + 1) == '\''){
+					i += 2;
+					continue;
+				}
+				return i + 1;
+			}
+			i++;
+		}
+		return statement.length();
+	}
+
+	/**
+	 * A number starts with a digit or a dot followed by a digit, and is not part of an identifier like t1.
+	 */
+	private static boolean isNumberStart(String statement, int i){
+		char c = statement.charAt(i);
+		boolean start = Character.isDigit(c) || (c == '.' && i + 1 < statement.length() && Character.isDigit(statement.charAt(i + 1)));
+		return start && (i == 0 || !isIdentifierPart(statement.charAt(i - 1)));
+	}
+
+	private static int skipNumber(String statement, int start){
+		int i = start;
+		final int length = statement.length();
+		//hex literals like 0x1F.
+		if (statement.charAt(i) == '0' && i + 1 < length && (statement.charAt(i + 1) == 'x' || statement.charAt(i + 1) == 'X')){
+			i += 2;
+			while (i < length && Character.digit(statement.charAt(i), 16) != -1)
+				i++;
+			return i;
+		}
+		while (i < length){
+			char c = statement.charAt(i);
+			if (Character.isDigit(c) || c == '.'){
+				i++;
+			} else if ((c == 'e' || c == 'E') && i + 1 < length && (Character.isDigit(statement.charAt(i + 1)) ||
+					((statement.charAt(i + 1) == '-' || statement.charAt(i + 1) == '+') && i + 2 < length && Character.isDigit(statement.charAt(i + 2))))){
+				i += 2;
+			} else {
+				break;
+			}
+		}
+		return i;
+	}
+
+	private static boolean isIdentifierPart(char c){
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+}
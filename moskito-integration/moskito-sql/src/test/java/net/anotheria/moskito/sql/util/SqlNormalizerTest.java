@@ -0,0 +1,46 @@
+package net.anotheria.moskito.sql.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SqlNormalizerTest {
+
+	@Test
+	public void testLiterals() {
+		assertEquals("SELECT * FROM t WHERE name = ? AND id=?", SqlNormalizer.normalize("SELECT * FROM t WHERE name = 'it''s' AND id=42"));
+		assertEquals("INSERT INTO t1 (a, b, c) VALUES (?, ?, ?)", SqlNormalizer.normalize("INSERT INTO t1 (a, b, c) VALUES (1, 2.5e-3, 'x')"));
+		assertEquals("SELECT col1 FROM t2 WHERE x > ? LIMIT ?", SqlNormalizer.normalize("SELECT col1 FROM t2 WHERE x > 0x1F LIMIT 10"));
+		assertEquals("UPDATE t SET v = ? WHERE s = ?", SqlNormalizer.normalize("UPDATE t SET v = 'a\\'b' WHERE s = ''"));
+	}
+
+	@Test
+	public void testInLists() {
+		assertEquals("SELECT * FROM t WHERE id IN (?) AND x in (?)", SqlNormalizer.normalize("SELECT * FROM t WHERE id IN (1, 2,3) AND x in ('a','b')"));
+		assertEquals("SELECT * FROM t WHERE id IN (?)", SqlNormalizer.normalize("SELECT * FROM t WHERE id IN (?, ?, ?)"));
+		assertEquals("SELECT * FROM t WHERE id IN (SELECT id FROM u WHERE v = ?)", SqlNormalizer.normalize("SELECT * FROM t WHERE id IN (SELECT id FROM u WHERE v = 5)"));
+	}
+
+	@Test
+	public void testCommentsAndWhitespace() {
+		assertEquals("SELECT a FROM t WHERE b = ?", SqlNormalizer.normalize("SELECT a /* hint */ FROM t\n\t WHERE b = 1 -- trailing"));
+	}
+
+	@Test
+	public void testCache() {
+		SqlNormalizer normalizer = new SqlNormalizer(2);
+		String first = normalizer.normalizeCached("SELECT 1");
+		assertEquals("SELECT ?", first);
+		assertSame(first, normalizer.normalizeCached("SELECT 1"));
+
+		Object prepared = new Object() {
+			@Override
+			public String toString() {
+				return "Statement@1: SELECT * FROM t WHERE id = 3";
+			}
+		};
+		assertEquals("SELECT * FROM t WHERE id = ?", normalizer.normalizePrepared(prepared));
+		assertSame(normalizer.normalizePrepared(prepared), normalizer.normalizePrepared(prepared));
+	}
+}
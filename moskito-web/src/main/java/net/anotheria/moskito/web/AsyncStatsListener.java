@@ -0,0 +1,91 @@
+package net.anotheria.moskito.web;
+
+import net.anotheria.moskito.core.predefined.FilterStats;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+/**
+ * Finishes the monitoring of a request that went async. Filters only see the dispatch of an async request, so they
+ * register this listener instead of recording the execution time themselves, and the listener records duration,
+ * errors and the end of the request when the async exchange completes, times out or fails.
+ */
+public class AsyncStatsListener implements AsyncListener {
+
+	/**
+	 * Nano timestamp of the start of the request.
+	 */
+	private final long startTime;
+
+	/**
+	 * Stats objects to update, null elements are ignored.
+	 */
+	private final FilterStats[] stats;
+
+	/**
+	 * Set once the request has been recorded, since a timeout or error is followed by a complete.
+	 */
+	private volatile boolean recorded;
+
+	/**
+	 * Creates a new listener.
+	 * @param startTime nano timestamp of the start of the request.
+	 * @param stats stats objects to update, may contain nulls.
+	 */
+	public AsyncStatsListener(long startTime, FilterStats... stats){
+		this.startTime = startTime;
+		this.stats = stats;
+	}
+
+	@Override
+	public void onComplete(AsyncEvent event) throws IOException {
+		record(null, false);
+	}
+
+	@Override
+	public void onTimeout(AsyncEvent event) throws IOException {
+		record(null, true);
+	}
+
+	@Override
+	public void onError(AsyncEvent event) throws IOException {
+		record(event.getThrowable(), true);
+	}
+
+	@Override
+	public void onStartAsync(AsyncEvent event) throws IOException {
+		//listeners are removed when the request is put into async mode again, stay registered until the real end.
+		event.getAsyncContext().addListener(this);
+	}
+
+	private void record(Throwable t, boolean error){
+		if (recorded)
+			return;
+		recorded = true;
+		long exTime = System.nanoTime() - startTime;
+		for (FilterStats s : stats){
+			if (s == null)
+				continue;
+			s.addExecutionTime(exTime);
+			if (error)
+				notifyError(s, t);
+			s.notifyRequestFinished();
+		}
+	}
+
+	private static void notifyError(FilterStats s, Throwable t){
+		if (t == null){
+			s.notifyError();
+		}else if (t instanceof ServletException){
+			s.notifyServletException(t);
+		}else if (t instanceof IOException){
+			s.notifyIOException(t);
+		}else if (t instanceof RuntimeException){
+			s.notifyRuntimeException(t);
+		}else{
+			s.notifyError(t);
+		}
+	}
+}
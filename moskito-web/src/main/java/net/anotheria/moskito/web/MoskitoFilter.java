@@ -45,6 +45,7 @@ import net.anotheria.moskito.core.stats.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -54,7 +55,8 @@ import javax.servlet.ServletResponse;
 import java.io.IOException;
 
 /**
- * Base class for filter based traffic monitoring.
+ * Base class for filter based traffic monitoring. If a request goes async, the request is finished by an
+ * {@link AsyncStatsListener} at the end of the async exchange instead of when the filter chain returns.
  */
 public abstract class MoskitoFilter implements Filter{
 	
@@ -96,6 +98,12 @@ public abstract class MoskitoFilter implements Filter{
 			chain.doFilter(req, res);
 			return;
 		}
+
+		if (req != null && req.getDispatcherType() == DispatcherType.ASYNC){
+			//the request has already been counted on initial dispatch and is finished by the async listener.
+			chain.doFilter(req, res);
+			return;
+		}
 		
 		FilterStats defaultStats = onDemandProducer.getDefaultStats();
 		FilterStats caseStats = null;
@@ -112,9 +120,15 @@ public abstract class MoskitoFilter implements Filter{
 		if (caseStats!=null)
 			caseStats.addRequest();
 		
+		boolean async = false;
 		try{
 			long startTime = System.nanoTime();
 			chain.doFilter(req, res);
+			if (req != null && req.isAsyncStarted()){
+				req.getAsyncContext().addListener(new AsyncStatsListener(startTime, defaultStats, caseStats));
+				async = true;
+				return;
+			}
 			long exTime = System.nanoTime() - startTime;
 			defaultStats.addExecutionTime(exTime);
 			if (caseStats!=null)
@@ -140,9 +154,11 @@ public abstract class MoskitoFilter implements Filter{
 				caseStats.notifyError();
 			throw e;
 		}finally{
-			defaultStats.notifyRequestFinished();
-			if (caseStats!=null)
-				caseStats.notifyRequestFinished();
+			if (!async){
+				defaultStats.notifyRequestFinished();
+				if (caseStats!=null)
+					caseStats.notifyRequestFinished();
+			}
 		}
 	}
 
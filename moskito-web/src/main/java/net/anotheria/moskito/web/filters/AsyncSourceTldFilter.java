@@ -4,21 +4,22 @@ import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
 import net.anotheria.moskito.core.dynamic.OnDemandStatsProducerException;
 import net.anotheria.moskito.core.predefined.FilterStats;
 import net.anotheria.moskito.web.MoskitoFilter;
-import net.anotheria.util.queue.IQueueWorker;
-import net.anotheria.util.queue.QueuedProcessor;
-import net.anotheria.util.queue.UnrecoverableQueueOverflowException;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import java.io.IOException;
-import java.net.InetAddress;
 
 /**
  * This is a safe alternative to the SourceTldFilter. It processes incoming ips asynchronously therefore
- * not slowing down the processing of the request.
+ * not slowing down the processing of the request. Resolved tlds are cached, see {@link SourceTldResolver}; the
+ * resolver is configured via the init parameters resolverThreads, resolverQueueSize, cacheSize, ttl and negativeTtl
+ * (ttls in seconds).
  *
  * @author lrosenberg
  * @since 25.04.13 18:48
@@ -31,15 +32,64 @@ public class AsyncSourceTldFilter extends MoskitoFilter{
 	public static final int TLD_LENGTH_LIMIT = 20;
 
 	/**
-	 * Processor for asynchronous processing of incoming ip adresses.
+	 * Init parameter for the number of resolver threads.
 	 */
-	private QueuedProcessor<TemporaryStatsStorage> asyncProcessor;
+	public static final String INIT_PARAM_RESOLVER_THREADS = "resolverThreads";
+	/**
+	 * Init parameter for the max number of addresses waiting for resolution.
+	 */
+	public static final String INIT_PARAM_RESOLVER_QUEUE_SIZE = "resolverQueueSize";
+	/**
+	 * Init parameter for the max number of cached addresses.
+	 */
+	public static final String INIT_PARAM_CACHE_SIZE = "cacheSize";
+	/**
+	 * Init parameter for the ttl of resolved addresses in seconds.
+	 */
+	public static final String INIT_PARAM_TTL = "ttl";
+	/**
+	 * Init parameter for the ttl of unresolved addresses in seconds.
+	 */
+	public static final String INIT_PARAM_NEGATIVE_TTL = "negativeTtl";
+
+	/**
+	 * Resolver for incoming ip adresses.
+	 */
+	private SourceTldResolver<TemporaryStatsStorage> resolver;
 
 	@Override
 	public void init(FilterConfig config) throws ServletException {
 		super.init(config);
-		asyncProcessor = new QueuedProcessor<TemporaryStatsStorage>("async-tld-resolver", new QueueWorker(this), 10000, log);
-		asyncProcessor.start();
+		resolver = new SourceTldResolver<>(getProducerId(), new SourceTldResolver.Callback<TemporaryStatsStorage>() {
+			@Override
+			public void tldResolved(String tld, TemporaryStatsStorage context) {
+				writeStatsToProducer(tld, context);
+			}
+		},
+				getIntParameter(config, INIT_PARAM_RESOLVER_THREADS, 4),
+				getIntParameter(config, INIT_PARAM_RESOLVER_QUEUE_SIZE, 10000),
+				getIntParameter(config, INIT_PARAM_CACHE_SIZE, 100000),
+				getIntParameter(config, INIT_PARAM_TTL, 3600) * 1000L,
+				getIntParameter(config, INIT_PARAM_NEGATIVE_TTL, 300) * 1000L);
+	}
+
+	@Override
+	public void destroy() {
+		if (resolver != null)
+			resolver.shutdown();
+		super.destroy();
+	}
+
+	private int getIntParameter(FilterConfig config, String name, int defaultValue){
+		String value = config.getInitParameter(name);
+		if (value == null)
+			return defaultValue;
+		try{
+			return Integer.parseInt(value);
+		}catch(NumberFormatException e){
+			log.warn("couldn't parse "+name+" \""+value+"\", assume "+defaultValue);
+			return defaultValue;
+		}
 	}
 
 	private void writeStatsToProducer(String caseName, TemporaryStatsStorage tss){
@@ -99,10 +149,6 @@ public class AsyncSourceTldFilter extends MoskitoFilter{
 	 * Temporary object to save request data between the request and asynchronous processing.
 	 */
 	private static class TemporaryStatsStorage{
-		/**
-		 * Clients ip.
-		 */
-		private String ip;
 		/**
 		 * Execution time.
 		 */
@@ -130,46 +176,6 @@ public class AsyncSourceTldFilter extends MoskitoFilter{
 		private Throwable errorInstance;
 	}
 
-	/**
-	 * Internal class the processes the queue elements.
-	 */
-	private static class QueueWorker implements IQueueWorker<TemporaryStatsStorage> {
-
-		/**
-		 * Link to the filter.
-		 */
-		private AsyncSourceTldFilter parent;
-
-		QueueWorker(AsyncSourceTldFilter parent){
-			this.parent = parent;
-		}
-
-		@Override
-		public void doWork(TemporaryStatsStorage workingElement) throws Exception {
-			//resolve ip
-			String ip = workingElement.ip;
-			String hostName = InetAddress.getByName(ip).getHostName();
-			int indexOfTld = hostName.lastIndexOf('.');
-			if (indexOfTld!=-1){
-				hostName = hostName.substring(indexOfTld+1);
-			}
-			if (hostName.length()>SourceTldFilter.TLD_LENGTH_LIMIT){
-				hostName = hostName.substring(0, SourceTldFilter.TLD_LENGTH_LIMIT);
-			}
-
-			if (Character.isDigit(hostName.charAt(hostName.length()-1))){
-				hostName = "-unresolved-";
-			}
-
-
-
-			//add to stats
-			parent.writeStatsToProducer(hostName, workingElement);
-
-
-		}
-	}
-
 	@Override public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
 
 		OnDemandStatsProducer<FilterStats> onDemandProducer = getProducer();
@@ -179,11 +185,23 @@ public class AsyncSourceTldFilter extends MoskitoFilter{
 			return;
 		}
 
+		if (req.getDispatcherType() == DispatcherType.ASYNC){
+			//the request is recorded by the async listener registered on initial dispatch.
+			chain.doFilter(req, res);
+			return;
+		}
+
 		TemporaryStatsStorage tss = new TemporaryStatsStorage();
+		boolean async = false;
 
 		try{
 			long startTime = System.nanoTime();
 			chain.doFilter(req, res);
+			if (req.isAsyncStarted()){
+				req.getAsyncContext().addListener(new TldAsyncListener(startTime, req.getRemoteAddr(), tss));
+				async = true;
+				return;
+			}
 			tss.exTime = System.nanoTime() - startTime;
 		}catch(ServletException e){
 			tss.servletException = true;
@@ -201,16 +219,67 @@ public class AsyncSourceTldFilter extends MoskitoFilter{
 			tss.errorInstance = e;
 			throw e;
 		}finally{
-			tss.finished = true;
-			tss.ip = req.getRemoteAddr();
-			try {
-				asyncProcessor.addToQueueDontWait(tss);
-			} catch (UnrecoverableQueueOverflowException e) {
-				e.printStackTrace();  //To change body of catch statement use File | Settings | File Templates.
+			if (!async){
+				tss.finished = true;
+				resolver.resolve(req.getRemoteAddr(), tss);
 			}
 		}
 	}
 
+	/**
+	 * Records a request that went async when the async exchange ends.
+	 */
+	private class TldAsyncListener implements AsyncListener {
+		private final long startTime;
+		private final String ip;
+		private final TemporaryStatsStorage tss;
+		/**
+		 * Set once the request has been recorded, since a timeout or error is followed by a complete.
+		 */
+		private volatile boolean recorded;
+
+		TldAsyncListener(long startTime, String ip, TemporaryStatsStorage tss){
+			this.startTime = startTime;
+			this.ip = ip;
+			this.tss = tss;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) throws IOException {
+			record();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) throws IOException {
+			tss.errorInstance = new ServletException("Async request timed out");
+			record();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) throws IOException {
+			Throwable t = event.getThrowable();
+			tss.errorInstance = t;
+			tss.servletException = t instanceof ServletException;
+			tss.ioException = t instanceof IOException;
+			tss.runtimeException = t instanceof RuntimeException;
+			record();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) throws IOException {
+			event.getAsyncContext().addListener(this);
+		}
+
+		private void record(){
+			if (recorded)
+				return;
+			recorded = true;
+			tss.exTime = System.nanoTime() - startTime;
+			tss.finished = true;
+			resolver.resolve(ip, tss);
+		}
+	}
+
 
 		/**
 		 * Overwrite this to provide a name allocation mechanism to make request -&gt; name mapping.
@@ -10,10 +10,12 @@ import net.anotheria.moskito.core.predefined.FilterStats;
 import net.anotheria.moskito.core.predefined.FilterStatsFactory;
 import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
 import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.web.AsyncStatsListener;
 import net.anotheria.moskito.web.filters.caseextractor.FilterCaseExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -22,12 +24,13 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 /**
  * A generic filter that supports multiple tag extractors. This filter replaced the single-use filters like RefererFilter, RequestURIFilter etc. Main purpose was to reduce code as well as get shorter stack traces.
+ * Requests that go async are finished by an {@link AsyncStatsListener} at the end of the async exchange.
  *
  * @author lrosenberg
  * @since 26.04.16 19:04
@@ -52,20 +55,37 @@ public class GenericMonitoringFilter implements Filter {
 	/**
 	 * Case extractors. Each extractor can extract the monitoring cases by some parameter, for example URI, Referer, User-Agent etc.
 	 */
-	private Map<FilterCaseExtractor, OnDemandStatsProducer<FilterStats>> extractorMap = new HashMap<>();
+	private FilterCaseExtractor[] extractors = new FilterCaseExtractor[0];
 
-	private void beforeExecution(HttpServletRequest req){
-		for (Map.Entry<FilterCaseExtractor, OnDemandStatsProducer<FilterStats>> extractorEntry : extractorMap.entrySet()) {
-			OnDemandStatsProducer<FilterStats> producer = extractorEntry.getValue();
+	/**
+	 * Producers of the extractors, by index of the extractor.
+	 */
+	private OnDemandStatsProducer<FilterStats>[] producers = createProducerArray(0);
+
+	@SuppressWarnings("unchecked")
+	private static OnDemandStatsProducer<FilterStats>[] createProducerArray(int size){
+		return (OnDemandStatsProducer<FilterStats>[])new OnDemandStatsProducer[size];
+	}
+
+	/**
+	 * Extracts the case of each extractor once and resolves the stats of the request. The default stats of extractor i
+	 * are stored at 2*i, the case stats (or null) at 2*i+1.
+	 */
+	private FilterStats[] beforeExecution(HttpServletRequest req){
+		FilterStats[] stats = new FilterStats[extractors.length * 2];
+		for (int i=0; i<extractors.length; i++){
+			OnDemandStatsProducer<FilterStats> producer = producers[i];
 			FilterStats defaultStats = producer.getDefaultStats();
-			String caseName = extractorEntry.getKey().extractCaseName(req);
-			FilterStats caseStats = getCaseStats(caseName, producer);
+			FilterStats caseStats = getCaseStats(extractors[i].extractCaseName(req), producer);
 
 			defaultStats.addRequest();
 			if (caseStats != null) {
 				caseStats.addRequest();
 			}
+			stats[2*i] = defaultStats;
+			stats[2*i+1] = caseStats;
 		}
+		return stats;
 	}
 
 	private FilterStats getCaseStats(String caseName, OnDemandStatsProducer<FilterStats> producer){
@@ -84,13 +104,10 @@ public class GenericMonitoringFilter implements Filter {
 		return null;
 	}
 
-	private void afterExecution(HttpServletRequest req, long executionTime, Throwable t){
-		for (Map.Entry<FilterCaseExtractor, OnDemandStatsProducer<FilterStats>> extractorEntry : extractorMap.entrySet()){
-			OnDemandStatsProducer<FilterStats> producer = extractorEntry.getValue();
-			FilterStats defaultStats = producer.getDefaultStats();
-			String caseName = extractorEntry.getKey().extractCaseName(req);
-
-			FilterStats caseStats = getCaseStats(caseName, producer);
+	private void afterExecution(FilterStats[] stats, long executionTime, Throwable t){
+		for (int i=0; i<stats.length; i+=2){
+			FilterStats defaultStats = stats[i];
+			FilterStats caseStats = stats[i+1];
 
 			defaultStats.addExecutionTime(executionTime);
 			defaultStats.notifyRequestFinished();
@@ -123,12 +140,13 @@ public class GenericMonitoringFilter implements Filter {
 	}
 
 	@Override public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
-		if (! (req instanceof  HttpServletRequest)){
+		if (! (req instanceof  HttpServletRequest) || req.getDispatcherType() == DispatcherType.ASYNC){
+			//async dispatches have been counted on initial dispatch and are finished by the async listener.
 			chain.doFilter(req, res);
 			return;
 		}
 
-		beforeExecution((HttpServletRequest)req);
+		FilterStats[] stats = beforeExecution((HttpServletRequest)req);
 
 		long startTime = System.nanoTime();
 		Throwable t = null;
@@ -144,8 +162,12 @@ public class GenericMonitoringFilter implements Filter {
 		}catch(Error e){
 			t = e;
 		}finally{
-			long exTime = System.nanoTime() - startTime;
-			afterExecution( (HttpServletRequest)req, exTime, t);
+			if (t == null && req.isAsyncStarted()){
+				req.getAsyncContext().addListener(new AsyncStatsListener(startTime, stats));
+			}else{
+				long exTime = System.nanoTime() - startTime;
+				afterExecution(stats, exTime, t);
+			}
 		}
 	}
 
@@ -163,6 +185,8 @@ public class GenericMonitoringFilter implements Filter {
 		net.anotheria.moskito.core.config.filter.FilterConfig filterConfig = configuration.getFilterConfig();
 		String[] extractorNames = filterConfig.getCaseExtractors();
 		System.out.println("ConfiguredExtractors: "+ Arrays.toString(extractorNames));
+		List<FilterCaseExtractor> extractorList = new ArrayList<>();
+		List<OnDemandStatsProducer<FilterStats>> producerList = new ArrayList<>();
 		if (extractorNames != null && extractorNames.length>0){
 			for (String extractorName : extractorNames){
 				try {
@@ -171,7 +195,8 @@ public class GenericMonitoringFilter implements Filter {
 							new OnDemandStatsProducer<FilterStats>(extractor.getProducerId(), extractor.getCategory(), extractor.getSubsystem(), new FilterStatsFactory(getMonitoringIntervals())) :
 							new EntryCountLimitedOnDemandStatsProducer<FilterStats>(extractor.getProducerId(), extractor.getCategory(), extractor.getSubsystem(), new FilterStatsFactory(getMonitoringIntervals()), limit);
 					ProducerRegistryFactory.getProducerRegistryInstance().registerProducer(onDemandProducer);
-					extractorMap.put(extractor, onDemandProducer);
+					extractorList.add(extractor);
+					producerList.add(onDemandProducer);
 					//force request uri filter to create 'other' stats.
 					try{
 						//force creation of 'other' stats.
@@ -187,8 +212,8 @@ public class GenericMonitoringFilter implements Filter {
 
 			}
 		}
-
-
+		extractors = extractorList.toArray(new FilterCaseExtractor[extractorList.size()]);
+		producers = producerList.toArray(createProducerArray(producerList.size()));
 	}
 
 	@Override public void destroy(){
@@ -0,0 +1,406 @@
+package net.anotheria.moskito.web.filters;
+
+import net.anotheria.moskito.core.predefined.CacheStats;
+import net.anotheria.moskito.core.predefined.Constants;
+import net.anotheria.moskito.core.predefined.QueueStats;
+import net.anotheria.moskito.core.producers.IStats;
+import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the top level domain of ip addresses via reverse lookup. Resolved tlds are cached for a ttl, failed or
+ * numeric lookups for a shorter negative ttl. If the cache is full, expired entries and then the entries that expire
+ * first are evicted, so a full cache doesn't cause a burst of lookups. Cache misses are resolved by a pool of resolver threads, concurrent
+ * misses for the same address are coalesced into one lookup, so each address is resolved at most once per ttl.
+ * The callback is executed by the calling thread on a cache hit and by a resolver thread otherwise. If the resolver
+ * queue is full the callback receives {@link #UNRESOLVED} instead of dropping the request.
+ * Cache hit rate and queue depth are exposed by two producers, &lt;name&gt;-DNSCache and &lt;name&gt;-DNSQueue.
+ *
+ * @param <T> type of the context passed to the callback.
+ */
+public class SourceTldResolver<T> {
+
+	/**
+	 * Logger.
+	 */
+	private static Logger log = LoggerFactory.getLogger(SourceTldResolver.class);
+
+	/**
+	 * Tld name for addresses that couldn't be resolved.
+	 */
+	public static final String UNRESOLVED = "-unresolved-";
+
+	/**
+	 * Percentage of the cache size that is evicted if the cache is full and no entries are expired.
+	 */
+	static final int EVICTION_PERCENTAGE = 10;
+
+	/**
+	 * Orders cache entries by expiry, the entries that expire first come first.
+	 */
+	private static final Comparator<Map.Entry<String, CacheEntry>> EXPIRY_ORDER = new Comparator<Map.Entry<String, CacheEntry>>() {
+		@Override
+		public int compare(Map.Entry<String, CacheEntry> o1, Map.Entry<String, CacheEntry> o2) {
+			return Long.compare(o1.getValue().expires, o2.getValue().expires);
+		}
+	};
+
+	/**
+	 * Callback for resolved tlds.
+	 * @param <T> type of the context.
+	 */
+	public interface Callback<T> {
+		/**
+		 * Called when the tld of an address is known.
+		 * @param tld the tld or {@link #UNRESOLVED}.
+		 * @param context the context passed to resolve.
+		 */
+		void tldResolved(String tld, T context);
+	}
+
+	/**
+	 * Cached tlds by ip.
+	 */
+	private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Lookups in progress by ip.
+	 */
+	private final ConcurrentMap<String, Lookup> pending = new ConcurrentHashMap<>();
+
+	private final Callback<T> callback;
+
+	private final long positiveTtl;
+
+	private final long negativeTtl;
+
+	private final int cacheSize;
+
+	private final int queueSize;
+
+	private final ThreadPoolExecutor executor;
+
+	private final CacheStats cacheStats;
+
+	private final QueueStats queueStats;
+
+	private final List<IStatsProducer<?>> producers;
+
+	/**
+	 * Creates a new resolver.
+	 * @param name name of the resolver, used for threads and producer ids.
+	 * @param callback the callback.
+	 * @param threads number of resolver threads.
+	 * @param queueSize max number of addresses waiting for resolution.
+	 * @param cacheSize max number of cached addresses.
+	 * @param positiveTtl ttl of resolved tlds in milliseconds.
+	 * @param negativeTtl ttl of unresolved addresses in milliseconds.
+	 */
+	public SourceTldResolver(final String name, Callback<T> callback, int threads, int queueSize, int cacheSize, long positiveTtl, long negativeTtl){
+		this.callback = callback;
+		this.queueSize = queueSize;
+		this.cacheSize = cacheSize;
+		this.positiveTtl = positiveTtl;
+		this.negativeTtl = negativeTtl;
+
+		executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name+"-resolver-"+counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		cacheStats = new CacheStats("cache", Constants.getDefaultIntervals());
+		queueStats = new QueueStats("queue");
+		queueStats.setTotalSize(queueSize);
+		List<IStatsProducer<?>> p = new ArrayList<>(2);
+		p.add(new ResolverProducer<>(name+"-DNSCache", cacheStats));
+		p.add(new ResolverProducer<>(name+"-DNSQueue", queueStats));
+		producers = Collections.unmodifiableList(p);
+		for (IStatsProducer<?> producer : producers)
+			ProducerRegistryFactory.getProducerRegistryInstance().registerProducer(producer);
+	}
+
+	/**
+	 * Resolves the tld of the ip and passes it to the callback together with the context.
+	 * @param ip the ip address.
+	 * @param context the context for the callback.
+	 */
+	public void resolve(String ip, T context){
+		if (ip == null || ip.length() == 0){
+			callback.tldResolved(UNRESOLVED, context);
+			return;
+		}
+
+		cacheStats.addRequest();
+		String tld = getCached(ip);
+		if (tld != null){
+			cacheStats.addHit();
+			callback.tldResolved(tld, context);
+			return;
+		}
+
+		while (true){
+			Lookup lookup = pending.get(ip);
+			if (lookup == null){
+				Lookup newLookup = new Lookup(ip);
+				lookup = pending.putIfAbsent(ip, newLookup);
+				if (lookup == null){
+					newLookup.add(context);
+					submit(newLookup);
+					return;
+				}
+			}
+			if (lookup.add(context))
+				return;
+			//lookup completed in between, the result is in the cache now.
+			tld = getCached(ip);
+			if (tld != null){
+				callback.tldResolved(tld, context);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached tld or null if the ip isn't cached or the entry is expired.
+	 */
+	private String getCached(String ip){
+		CacheEntry entry = cache.get(ip);
+		if (entry == null)
+			return null;
+		if (entry.expires < System.currentTimeMillis()){
+			cacheStats.addExpired();
+			cache.remove(ip, entry);
+			return null;
+		}
+		return entry.tld;
+	}
+
+	private void submit(Lookup lookup){
+		queueStats.addRequest();
+		queueStats.setOnRequestLastSize(executor.getQueue().size());
+		try{
+			executor.execute(lookup);
+			queueStats.addEnqueued();
+		}catch(RejectedExecutionException e){
+			log.debug("Resolver queue full ("+queueSize+"), skipping resolution of "+lookup.ip);
+			lookup.complete(UNRESOLVED);
+		}
+	}
+
+	private void store(String ip, String tld){
+		if (cache.size() >= cacheSize){
+			synchronized(cache){
+				if (cache.size() >= cacheSize)
+					evict();
+			}
+		}
+		long ttl = UNRESOLVED.equals(tld) ? negativeTtl : positiveTtl;
+		cache.put(ip, new CacheEntry(tld, System.currentTimeMillis() + ttl));
+		cacheStats.addWrite();
+	}
+
+	/**
+	 * Removes the expired entries and, if the cache is still full, the entries that expire first.
+	 */
+	private void evict(){
+		cacheStats.addCacheFull();
+		long now = System.currentTimeMillis();
+		for (Iterator<Map.Entry<String, CacheEntry>> it = cache.entrySet().iterator(); it.hasNext(); ){
+			if (it.next().getValue().expires < now){
+				it.remove();
+				cacheStats.addExpired();
+			}
+		}
+		if (cache.size() < cacheSize)
+			return;
+
+		List<Map.Entry<String, CacheEntry>> entries = new ArrayList<>(cache.entrySet());
+		Collections.sort(entries, EXPIRY_ORDER);
+		int toEvict = Math.min(entries.size(), entries.size() - cacheSize + Math.max(1, cacheSize * EVICTION_PERCENTAGE / 100));
+		for (int i=0; i<toEvict; i++){
+			Map.Entry<String, CacheEntry> entry = entries.get(i);
+			if (cache.remove(entry.getKey(), entry.getValue()))
+				cacheStats.addDelete();
+		}
+	}
+
+	/**
+	 * Returns the number of cached addresses.
+	 * @return number of cached addresses.
+	 */
+	int getCachedCount(){
+		return cache.size();
+	}
+
+	/**
+	 * Performs the reverse lookup and returns the tld.
+	 * @param ip the ip address.
+	 * @return tld or {@link #UNRESOLVED}.
+	 */
+	protected String lookupTld(String ip){
+		String hostName;
+		try{
+			hostName = InetAddress.getByName(ip).getHostName();
+		}catch(Exception e){
+			log.debug("Can't resolve "+ip, e);
+			return UNRESOLVED;
+		}
+		return extractTld(hostName);
+	}
+
+	/**
+	 * Returns the tld of the host name or {@link #UNRESOLVED} if the host name is numeric.
+	 * @param hostName the host name.
+	 * @return the tld.
+	 */
+	static String extractTld(String hostName){
+		if (hostName == null || hostName.length() == 0)
+			return UNRESOLVED;
+		String tld = hostName;
+		int indexOfTld = tld.lastIndexOf('.');
+		if (indexOfTld != -1){
+			tld = tld.substring(indexOfTld+1);
+		}
+		if (tld.length() == 0 || Character.isDigit(tld.charAt(tld.length()-1)) || hostName.indexOf(':') != -1){
+			return UNRESOLVED;
+		}
+		if (tld.length() > SourceTldFilter.TLD_LENGTH_LIMIT){
+			tld = tld.substring(0, SourceTldFilter.TLD_LENGTH_LIMIT);
+		}
+		return tld;
+	}
+
+	/**
+	 * Stops the resolver threads and unregisters the producers.
+	 */
+	public void shutdown(){
+		executor.shutdownNow();
+		for (IStatsProducer<?> producer : producers)
+			ProducerRegistryFactory.getProducerRegistryInstance().unregisterProducer(producer);
+	}
+
+	/**
+	 * Returns the producers of this resolver.
+	 * @return cache and queue producer.
+	 */
+	public List<IStatsProducer<?>> getProducers(){
+		return producers;
+	}
+
+	/**
+	 * Cached tld of an ip.
+	 */
+	private static final class CacheEntry {
+		private final String tld;
+		private final long expires;
+
+		CacheEntry(String tld, long expires){
+			this.tld = tld;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * A lookup in progress, collects the contexts of all requests from the same ip until the lookup completes.
+	 */
+	private final class Lookup implements Runnable {
+		private final String ip;
+		private List<T> contexts = new ArrayList<>(1);
+
+		Lookup(String ip){
+			this.ip = ip;
+		}
+
+		/**
+		 * Adds a context to the lookup.
+		 * @return false if the lookup has already completed.
+		 */
+		synchronized boolean add(T context){
+			if (contexts == null)
+				return false;
+			contexts.add(context);
+			return true;
+		}
+
+		@Override
+		public void run() {
+			queueStats.addDequeued();
+			String tld = lookupTld(ip);
+			store(ip, tld);
+			complete(tld);
+		}
+
+		void complete(String tld){
+			List<T> toNotify;
+			synchronized(this){
+				toNotify = contexts;
+				contexts = null;
+			}
+			pending.remove(ip, this);
+			for (T context : toNotify){
+				try{
+					callback.tldResolved(tld, context);
+				}catch(RuntimeException e){
+					log.warn("Callback failed for "+ip, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Producer for the stats object of the resolver.
+	 * @param <S> type of the stats.
+	 */
+	private static final class ResolverProducer<S extends IStats> implements IStatsProducer<S> {
+		private final String producerId;
+		private final List<S> stats;
+
+		ResolverProducer(String producerId, S stats){
+			this.producerId = producerId;
+			this.stats = Collections.singletonList(stats);
+		}
+
+		@Override
+		public List<S> getStats() {
+			return stats;
+		}
+
+		@Override
+		public String getProducerId() {
+			return producerId;
+		}
+
+		@Override
+		public String getCategory() {
+			return "filter";
+		}
+
+		@Override
+		public String getSubsystem() {
+			return "default";
+		}
+	}
+}
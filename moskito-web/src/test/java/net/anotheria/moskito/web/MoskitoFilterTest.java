@@ -1,10 +1,19 @@
 package net.anotheria.moskito.web;
 
+import net.anotheria.anoprise.mocking.MockFactory;
+import net.anotheria.anoprise.mocking.Mocking;
+import net.anotheria.moskito.core.predefined.FilterStats;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
 import org.junit.Test;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 public class MoskitoFilterTest {
 	@Test public void testProducerId(){
@@ -26,4 +35,58 @@ public class MoskitoFilterTest {
 		filter.init(config);
 		//if we passed the config has been read properly
 	}
+
+	@Test public void testAsyncRequest() throws Exception{
+		ProducerRegistryFactory.getProducerRegistryInstance().cleanup();
+		TestFilter filter = new TestFilter();
+		filter.init(TestingUtil.createFilterConfig());
+		AsyncRequest asyncRequest = new AsyncRequest();
+		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, asyncRequest);
+
+		filter.doFilter(req, null, TestingUtil.createFilterChain());
+		FilterStats stats = filter.getProducer().getDefaultStats();
+		assertEquals(1, stats.getTotalRequests());
+		//the request is still running.
+		assertEquals(1, stats.getCurrentRequests(null));
+		assertNotNull(asyncRequest.listener);
+
+		//async dispatch isn't counted again.
+		asyncRequest.dispatcherType = DispatcherType.ASYNC;
+		filter.doFilter(req, null, TestingUtil.createFilterChain());
+		assertEquals(1, stats.getTotalRequests());
+
+		asyncRequest.listener.onTimeout(null);
+		asyncRequest.listener.onComplete(null);
+		assertEquals(0, stats.getCurrentRequests(null));
+		assertEquals(1, stats.getErrors());
+	}
+
+	public static class AsyncRequest implements Mocking{
+		private DispatcherType dispatcherType = DispatcherType.REQUEST;
+		private AsyncListener listener;
+
+		public DispatcherType getDispatcherType(){
+			return dispatcherType;
+		}
+
+		public boolean isAsyncStarted(){
+			return true;
+		}
+
+		public AsyncContext getAsyncContext(){
+			return MockFactory.createMock(AsyncContext.class, new AsyncContextAddListener(this));
+		}
+	}
+
+	public static class AsyncContextAddListener implements Mocking{
+		private final AsyncRequest request;
+
+		public AsyncContextAddListener(AsyncRequest request){
+			this.request = request;
+		}
+
+		public void addListener(AsyncListener listener){
+			request.listener = listener;
+		}
+	}
 }
@@ -3,6 +3,7 @@ package net.anotheria.moskito.web;
 import net.anotheria.anoprise.mocking.MockFactory;
 import net.anotheria.anoprise.mocking.Mocking;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
@@ -41,6 +42,19 @@ public class TestingUtil {
 		}
 	}
 
+	/**
+	 * Mocks the async related methods of a synchronous request.
+	 */
+	public static class SyncRequest implements Mocking{
+		public DispatcherType getDispatcherType(){
+			return DispatcherType.REQUEST;
+		}
+
+		public boolean isAsyncStarted(){
+			return false;
+		}
+	}
+
 	public static class FilterChainDoFilter implements Mocking{
 		public void doFilter(ServletRequest req, ServletResponse response) throws ServletException{
 			//do nothing
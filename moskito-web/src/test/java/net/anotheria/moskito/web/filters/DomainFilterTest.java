@@ -31,7 +31,7 @@ public class DomainFilterTest {
 		DomainFilter filter = new DomainFilter();
 		
 		filter.init(TestingUtil.createFilterConfig());
-		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetDomain());
+		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetDomain(), new TestingUtil.SyncRequest());
 		FilterChain chain = TestingUtil.createFilterChain();
 		
 		for (int i=0; i<DOMAINS.length; i++){
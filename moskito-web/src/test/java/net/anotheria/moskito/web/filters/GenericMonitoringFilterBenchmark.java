@@ -0,0 +1,119 @@
+package net.anotheria.moskito.web.filters;
+
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.web.TestingUtil;
+import net.anotheria.moskito.web.filters.caseextractor.DomainCaseExtractor;
+import net.anotheria.moskito.web.filters.caseextractor.MethodCaseExtractor;
+import net.anotheria.moskito.web.filters.caseextractor.RefererCaseExtractor;
+import net.anotheria.moskito.web.filters.caseextractor.RequestURICaseExtractor;
+import net.anotheria.moskito.web.filters.caseextractor.UserAgentCaseExtractor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Measures the overhead of the GenericMonitoringFilter per request with all case extractors enabled, compared to
+ * calling the filter chain directly. Requests are spread over 100 uris and user agents.
+ * Not a unit test, run it manually via main method.
+ */
+public class GenericMonitoringFilterBenchmark {
+
+	private static final int REQUESTS = 2000000;
+
+	private static final int ROUNDS = 5;
+
+	private static final int CASES = 100;
+
+	public static void main(String a[]) throws Exception{
+		MoskitoConfigurationHolder.getConfiguration().getFilterConfig().setCaseExtractors(new String[]{
+				DomainCaseExtractor.class.getName(),
+				MethodCaseExtractor.class.getName(),
+				RefererCaseExtractor.class.getName(),
+				RequestURICaseExtractor.class.getName(),
+				UserAgentCaseExtractor.class.getName()
+		});
+		GenericMonitoringFilter filter = new GenericMonitoringFilter();
+		filter.init(TestingUtil.createFilterConfig());
+
+		HttpServletRequest[] requests = new HttpServletRequest[CASES];
+		for (int i=0; i<CASES; i++)
+			requests[i] = createRequest(i);
+		FilterChain chain = new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) {
+			}
+		};
+
+		//warmup
+		for (int i=0; i<ROUNDS; i++){
+			runFiltered(filter, requests, chain);
+			runPlain(requests, chain);
+		}
+
+		System.out.println("call\tns/request");
+		long time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			runPlain(requests, chain);
+		long plainNanos = System.nanoTime() - time;
+		print("plain", plainNanos);
+
+		time = System.nanoTime();
+		for (int i=0; i<ROUNDS; i++)
+			runFiltered(filter, requests, chain);
+		long filteredNanos = System.nanoTime() - time;
+		print("filtered", filteredNanos);
+		print("overhead", filteredNanos - plainNanos);
+		System.exit(0);
+	}
+
+	private static void runFiltered(GenericMonitoringFilter filter, HttpServletRequest[] requests, FilterChain chain) throws Exception{
+		for (int i=0; i<REQUESTS; i++)
+			filter.doFilter(requests[i % CASES], null, chain);
+	}
+
+	private static void runPlain(HttpServletRequest[] requests, FilterChain chain) throws Exception{
+		for (int i=0; i<REQUESTS; i++)
+			chain.doFilter(requests[i % CASES], null);
+	}
+
+	private static void print(String call, long nanos){
+		System.out.println(call+"\t"+((double)nanos/ROUNDS/REQUESTS));
+	}
+
+	/**
+	 * Creates a request via dynamic proxy, which costs the same in both runs.
+	 */
+	private static HttpServletRequest createRequest(final int index){
+		return (HttpServletRequest)Proxy.newProxyInstance(GenericMonitoringFilterBenchmark.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+			private final String uri = "/page/"+index;
+			private final String userAgent = "Mozilla/5.0 (Benchmark "+index+")";
+			private final String referer = "http://example.com/from/"+index;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				switch (method.getName()){
+					case "getRequestURI":
+						return uri;
+					case "getMethod":
+						return index % 4 == 0 ? "POST" : "GET";
+					case "getServerName":
+						return "www.example.com";
+					case "getHeader":
+						return "referer".equalsIgnoreCase((String)args[0]) ? referer : userAgent;
+					case "getDispatcherType":
+						return DispatcherType.REQUEST;
+					case "isAsyncStarted":
+						return Boolean.FALSE;
+					default:
+						return null;
+				}
+			}
+		});
+	}
+}
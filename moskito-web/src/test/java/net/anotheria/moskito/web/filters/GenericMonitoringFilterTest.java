@@ -0,0 +1,179 @@
+package net.anotheria.moskito.web.filters;
+
+import net.anotheria.anoprise.mocking.MockFactory;
+import net.anotheria.anoprise.mocking.Mocking;
+import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.dynamic.OnDemandStatsProducer;
+import net.anotheria.moskito.core.predefined.FilterStats;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import net.anotheria.moskito.web.TestingUtil;
+import net.anotheria.moskito.web.filters.caseextractor.AbstractFilterCaseExtractor;
+import net.anotheria.moskito.web.filters.caseextractor.MethodCaseExtractor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests that the GenericMonitoringFilter extracts the case of each extractor once per request and finishes the
+ * request on the stats resolved before the chain.
+ */
+public class GenericMonitoringFilterTest {
+
+	private String[] previousExtractors;
+
+	private GenericMonitoringFilter filter;
+
+	@Before public void setup() throws Exception{
+		ProducerRegistryFactory.getProducerRegistryInstance().cleanup();
+		CountingCaseExtractor.calls.set(0);
+		previousExtractors = MoskitoConfigurationHolder.getConfiguration().getFilterConfig().getCaseExtractors();
+		MoskitoConfigurationHolder.getConfiguration().getFilterConfig().setCaseExtractors(new String[]{
+				MethodCaseExtractor.class.getName(),
+				CountingCaseExtractor.class.getName()
+		});
+		filter = new GenericMonitoringFilter();
+		filter.init(TestingUtil.createFilterConfig());
+	}
+
+	@After public void restore(){
+		MoskitoConfigurationHolder.getConfiguration().getFilterConfig().setCaseExtractors(previousExtractors);
+	}
+
+	@Test public void testCasesAreExtractedOncePerRequest() throws Exception{
+		filter.doFilter(createRequest("GET", "/a"), null, TestingUtil.createFilterChain());
+		filter.doFilter(createRequest("GET", "/b"), null, TestingUtil.createFilterChain());
+		filter.doFilter(createRequest("POST", "/a"), null, TestingUtil.createFilterChain());
+
+		assertEquals(3, CountingCaseExtractor.calls.get());
+		assertFinished(getStats("Method", "cumulated"), 3, 0);
+		assertFinished(getStats("Method", "GET"), 2, 0);
+		assertFinished(getStats("Method", "POST"), 1, 0);
+		assertFinished(getStats("Counting", "cumulated"), 3, 0);
+		assertFinished(getStats("Counting", "/a"), 2, 0);
+		assertFinished(getStats("Counting", "/b"), 1, 0);
+	}
+
+	@Test public void testExceptionIsRecordedOnCaseStats() throws Exception{
+		try{
+			filter.doFilter(createRequest("GET", "/fail"), null, new FilterChain() {
+				@Override
+				public void doFilter(ServletRequest request, ServletResponse response) {
+					throw new IllegalStateException("test");
+				}
+			});
+		}catch(IllegalStateException ignored){
+			//the stats are checked below.
+		}
+
+		assertEquals(1, CountingCaseExtractor.calls.get());
+		assertFinished(getStats("Method", "cumulated"), 1, 1);
+		assertFinished(getStats("Method", "GET"), 1, 1);
+		assertFinished(getStats("Counting", "/fail"), 1, 1);
+	}
+
+	@Test public void testAsyncRequestIsFinishedByListener() throws Exception{
+		AsyncRequest async = new AsyncRequest();
+		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new Request("GET", "/async"), async);
+		filter.doFilter(req, null, TestingUtil.createFilterChain());
+
+		FilterStats caseStats = getStats("Counting", "/async");
+		assertEquals(1, caseStats.getCurrentRequests());
+		assertEquals(0, caseStats.getTotalTime());
+		assertNotNull(async.listener);
+
+		async.listener.onComplete(null);
+		assertEquals(1, CountingCaseExtractor.calls.get());
+		assertFinished(getStats("Method", "GET"), 1, 0);
+		assertFinished(caseStats, 1, 0);
+	}
+
+	private static void assertFinished(FilterStats stats, long requests, long runtimeExceptions){
+		assertEquals(stats.getName(), requests, stats.getTotalRequests());
+		assertEquals(stats.getName(), 0, stats.getCurrentRequests());
+		assertEquals(stats.getName(), runtimeExceptions, stats.getRuntimeExceptions());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static FilterStats getStats(String producerId, String statsName) throws Exception{
+		OnDemandStatsProducer<FilterStats> producer = (OnDemandStatsProducer<FilterStats>)ProducerRegistryFactory.getProducerRegistryInstance().getProducer(producerId);
+		return statsName.equals("cumulated") ? producer.getDefaultStats() : producer.getStats(statsName);
+	}
+
+	private static HttpServletRequest createRequest(String method, String uri){
+		return MockFactory.createMock(HttpServletRequest.class, new Request(method, uri), new TestingUtil.SyncRequest());
+	}
+
+	/**
+	 * Extractor that counts its calls.
+	 */
+	public static class CountingCaseExtractor extends AbstractFilterCaseExtractor {
+		static final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public String extractCaseName(HttpServletRequest req) {
+			calls.incrementAndGet();
+			return req.getRequestURI();
+		}
+	}
+
+	public static class Request implements Mocking {
+		private final String method;
+		private final String uri;
+
+		public Request(String method, String uri){
+			this.method = method;
+			this.uri = uri;
+		}
+
+		public String getMethod(){
+			return method;
+		}
+
+		public String getRequestURI(){
+			return uri;
+		}
+	}
+
+	/**
+	 * Mocks a request that has been put into async mode by the chain and captures the listener.
+	 */
+	public static class AsyncRequest implements Mocking {
+		private AsyncListener listener;
+
+		public DispatcherType getDispatcherType(){
+			return DispatcherType.REQUEST;
+		}
+
+		public boolean isAsyncStarted(){
+			return true;
+		}
+
+		public AsyncContext getAsyncContext(){
+			return MockFactory.createMock(AsyncContext.class, new ListenerCapture(this));
+		}
+	}
+
+	public static class ListenerCapture implements Mocking {
+		private final AsyncRequest request;
+
+		public ListenerCapture(AsyncRequest request){
+			this.request = request;
+		}
+
+		public void addListener(AsyncListener listener){
+			request.listener = listener;
+		}
+	}
+}
@@ -56,7 +56,7 @@ public class MethodFilterTest {
 		MethodFilter filter = new MethodFilter();
 		
 		filter.init(TestingUtil.createFilterConfig());
-		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetMethod());
+		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetMethod(), new TestingUtil.SyncRequest());
 		FilterChain chain = TestingUtil.createFilterChain();
 		
 		for (int i=0; i<METHODS.length; i++){
@@ -0,0 +1,114 @@
+package net.anotheria.moskito.web.filters;
+
+import net.anotheria.moskito.core.predefined.CacheStats;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SourceTldResolverTest {
+
+	@Before public void cleanup(){
+		ProducerRegistryFactory.getProducerRegistryInstance().cleanup();
+	}
+
+	@Test public void testExtractTld(){
+		assertEquals("com", SourceTldResolver.extractTld("www.example.com"));
+		assertEquals("localhost", SourceTldResolver.extractTld("localhost"));
+		assertEquals(SourceTldResolver.UNRESOLVED, SourceTldResolver.extractTld("10.0.0.1"));
+		assertEquals(SourceTldResolver.UNRESOLVED, SourceTldResolver.extractTld("fe80:0:0:0:0:0:0:1"));
+		assertEquals(SourceTldFilter.TLD_LENGTH_LIMIT, SourceTldResolver.extractTld("a.abcdefghijklmnopqrstuvwxyz").length());
+	}
+
+	@Test public void testCoalescingAndCache() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger lookups = new AtomicInteger();
+		final List<String> results = new CopyOnWriteArrayList<>();
+		final CountDownLatch resolved = new CountDownLatch(3);
+		final CountDownLatch done = new CountDownLatch(5);
+
+		SourceTldResolver<Integer> resolver = new SourceTldResolver<Integer>("test", new SourceTldResolver.Callback<Integer>() {
+			@Override
+			public void tldResolved(String tld, Integer context) {
+				results.add(tld);
+				resolved.countDown();
+				done.countDown();
+			}
+		}, 2, 10, 10, 60000, 1000){
+			@Override
+			protected String lookupTld(String ip) {
+				lookups.incrementAndGet();
+				try{
+					release.await();
+				}catch(InterruptedException e){
+					throw new AssertionError(e);
+				}
+				return "com";
+			}
+		};
+
+		//three requests while the lookup is in progress are coalesced.
+		for (int i=0; i<3; i++)
+			resolver.resolve("192.0.2.1", i);
+		release.countDown();
+		//wait for the resolution, after it the address is served from cache.
+		assertTrue(resolved.await(5, TimeUnit.SECONDS));
+		resolver.resolve("192.0.2.1", 3);
+		resolver.resolve("192.0.2.1", 4);
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(1, lookups.get());
+		for (String tld : results)
+			assertEquals("com", tld);
+
+		CacheStats stats = (CacheStats)resolver.getProducers().get(0).getStats().get(0);
+		assertEquals(5, stats.getRequests(null));
+		assertEquals(2, stats.getHits(null));
+		assertEquals(1, stats.getWrites(null));
+		resolver.shutdown();
+	}
+
+	@Test public void testFullCacheEvictsOnlyOldestEntries() throws Exception {
+		final AtomicInteger lookups = new AtomicInteger();
+		final int cacheSize = 20;
+		SourceTldResolver<CountDownLatch> resolver = new SourceTldResolver<CountDownLatch>("test", new SourceTldResolver.Callback<CountDownLatch>() {
+			@Override
+			public void tldResolved(String tld, CountDownLatch context) {
+				context.countDown();
+			}
+		}, 1, 10, cacheSize, 60000, 1000){
+			@Override
+			protected String lookupTld(String ip) {
+				lookups.incrementAndGet();
+				return "com";
+			}
+		};
+
+		for (int i=0; i<=cacheSize; i++){
+			CountDownLatch latch = new CountDownLatch(1);
+			resolver.resolve("192.0.2."+i, latch);
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		}
+		assertEquals(cacheSize + 1, lookups.get());
+		//only a part of the cache was evicted to make room for the last address.
+		int evicted = cacheSize * SourceTldResolver.EVICTION_PERCENTAGE / 100;
+		assertEquals(cacheSize - evicted + 1, resolver.getCachedCount());
+		CacheStats stats = (CacheStats)resolver.getProducers().get(0).getStats().get(0);
+		assertEquals(evicted, stats.getDeletes(null));
+
+		//the last address is still cached.
+		CountDownLatch latch = new CountDownLatch(1);
+		resolver.resolve("192.0.2."+cacheSize, latch);
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(cacheSize + 1, lookups.get());
+		resolver.shutdown();
+	}
+}
@@ -31,7 +31,7 @@ public class UserAgentFilterTest {
 		UserAgentFilter filter = new UserAgentFilter();
 		
 		filter.init(TestingUtil.createFilterConfig());
-		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetHeader());
+		HttpServletRequest req = MockFactory.createMock(HttpServletRequest.class, new GetHeader(), new TestingUtil.SyncRequest());
 		FilterChain chain = TestingUtil.createFilterChain();
 		
 		for (int i=0; i<AGENTS.length; i++){
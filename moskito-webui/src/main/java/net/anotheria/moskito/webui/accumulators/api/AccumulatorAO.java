@@ -1,6 +1,6 @@
 package net.anotheria.moskito.webui.accumulators.api;
 
-import net.anotheria.moskito.core.accumulation.AccumulatedValue;
+import net.anotheria.moskito.core.accumulation.AccumulatedValuesView;
 import net.anotheria.moskito.core.accumulation.Accumulator;
 import net.anotheria.util.NumberUtils;
 
@@ -39,13 +39,15 @@ public class AccumulatorAO implements Serializable {
 		name = acc.getName();
 		id = acc.getId();
 		values = new LinkedList<AccumulatedValueAO>();
-		for (AccumulatedValue v : acc.getValues()){
-			long timestamp = v.getTimestamp()/1000*1000;
+		AccumulatedValuesView view = acc.getValuesView();
+		for (int i=0; i<view.size(); i++){
+			long numericTimestamp = view.getTimestamp(i);
+			long timestamp = numericTimestamp/1000*1000;
 			//for single graph data
 			AccumulatedValueAO ao = new AccumulatedValueAO(NumberUtils.makeTimeString(timestamp));
-			ao.addValue(v.getValue());
-			ao.setIsoTimestamp(NumberUtils.makeISO8601TimestampString(v.getTimestamp()));
-			ao.setNumericTimestamp(v.getTimestamp());
+			ao.addValue(view.getValue(i));
+			ao.setIsoTimestamp(NumberUtils.makeISO8601TimestampString(numericTimestamp));
+			ao.setNumericTimestamp(numericTimestamp);
 			values.add(ao);
 		}
 	}
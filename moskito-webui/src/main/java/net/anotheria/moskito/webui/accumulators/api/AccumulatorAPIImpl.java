@@ -1,11 +1,14 @@
 package net.anotheria.moskito.webui.accumulators.api;
 
 import net.anotheria.anoplass.api.APIException;
-import net.anotheria.moskito.core.accumulation.AccumulatedValue;
+import net.anotheria.moskito.core.accumulation.AccumulatedValuesView;
 import net.anotheria.moskito.core.accumulation.Accumulator;
 import net.anotheria.moskito.core.accumulation.AccumulatorDefinition;
 import net.anotheria.moskito.core.accumulation.AccumulatorRepository;
+import net.anotheria.moskito.core.accumulation.MergedAccumulatedValues;
 import net.anotheria.moskito.core.config.MoskitoConfigurationHolder;
+import net.anotheria.moskito.core.config.accumulators.AccumulatorsConfig;
+import net.anotheria.moskito.core.config.accumulators.ChartDownsampling;
 import net.anotheria.moskito.core.config.thresholds.GuardConfig;
 import net.anotheria.moskito.core.stats.TimeUnit;
 import net.anotheria.moskito.core.threshold.Threshold;
@@ -13,7 +16,6 @@ import net.anotheria.moskito.core.threshold.ThresholdConditionGuard;
 import net.anotheria.moskito.core.threshold.ThresholdDefinition;
 import net.anotheria.moskito.core.threshold.ThresholdRepository;
 import net.anotheria.moskito.core.threshold.guard.BarrierPassGuard;
-import net.anotheria.moskito.webui.accumulators.bean.AccumulatedValuesBean;
 import net.anotheria.moskito.webui.shared.api.AbstractMoskitoAPIImpl;
 import net.anotheria.util.NumberUtils;
 import net.anotheria.util.sorter.DummySortType;
@@ -81,10 +83,10 @@ public class AccumulatorAPIImpl extends AbstractMoskitoAPIImpl implements Accumu
 		bean.setName(a.getName());
 		bean.setPath(a.getDefinition().describe());
 		bean.setId(a.getId());
-		List<AccumulatedValue> values = a.getValues();
-		if (values!=null && values.size()>0){
+		AccumulatedValuesView values = a.getValuesView();
+		if (!values.isEmpty()){
 			bean.setNumberOfValues(values.size());
-			bean.setLastValueTimestamp(values.get(values.size()-1).getISO8601Timestamp());
+			bean.setLastValueTimestamp(NumberUtils.makeISO8601TimestampString(values.getTimestamp(values.size()-1)));
 		}else{
 			bean.setNumberOfValues(0);
 			bean.setLastValueTimestamp("none");
@@ -139,10 +141,10 @@ public class AccumulatorAPIImpl extends AbstractMoskitoAPIImpl implements Accumu
 			bean.setPath(a.getDefinition().describe());
 			bean.setId(a.getId());
 			bean.setMaxNumberOfValues(a.getDefinition().getMaxAmountOfAccumulatedItems());
-			List<AccumulatedValue> values = a.getValues();
-			if (values!=null && values.size()>0){
+			AccumulatedValuesView values = a.getValuesView();
+			if (!values.isEmpty()){
 				bean.setNumberOfValues(values.size());
-				bean.setLastValueTimestamp(values.get(values.size()-1).getISO8601Timestamp());
+				bean.setLastValueTimestamp(NumberUtils.makeISO8601TimestampString(values.getTimestamp(values.size()-1)));
 			}else{
 				bean.setNumberOfValues(0);
 				bean.setLastValueTimestamp("none");
@@ -169,94 +171,49 @@ public class AccumulatorAPIImpl extends AbstractMoskitoAPIImpl implements Accumu
 	public MultilineChartAO getAccumulatorGraphData(List<String> ids, boolean normalized) throws APIException {
 
 		int normalizeBase = 100;
-		//TODO actually this limit is hardcoded, we should make it dynamic.
-		int maxValues = 200;
 
 		int numberOfIds = ids.size();
 		if (numberOfIds == 0) {
 			throw new APIException("No accumulators selected");
 		}
 
-		List<AccumulatedSingleGraphAO> singleGraphDataBeans = new ArrayList<>(numberOfIds);
+		AccumulatorsConfig config = MoskitoConfigurationHolder.getConfiguration().getAccumulatorsConfig();
+		int maxValues = config.getChartValuesAmount();
+		ChartDownsampling downsampling = config.getChartDownsampling() == null ? ChartDownsampling.NONE : config.getChartDownsampling();
 
-		//prepare values
-		Map<Long, AccumulatedValuesBean> values = new HashMap<>(numberOfIds);
+		List<AccumulatedSingleGraphAO> singleGraphDataBeans = new ArrayList<>(numberOfIds);
+		List<AccumulatedValuesView> series = new ArrayList<>(numberOfIds);
 		List<String> accNames = new ArrayList<>(numberOfIds);
 
 		for (String id : ids){
-			AccumulatorAO acc = getAccumulator(id);
-			AccumulatedSingleGraphAO singleGraphDataBean = getAccumulatorGraphData(id);
-			singleGraphDataBeans.add(singleGraphDataBean);
-
+			Accumulator acc = AccumulatorRepository.getInstance().getById(id);
+			singleGraphDataBeans.add(getAccumulatorGraphData(id));
 			accNames.add(acc.getName());
-			List<AccumulatedValueAO> accValues = acc.getValues();
-			for (AccumulatedValueAO v : accValues){
-				long timestamp = v.getNumericTimestamp();
-				timestamp = timestamp /  MINUTE * MINUTE;
-				AccumulatedValuesBean bean = values.get(timestamp);
-				if (bean==null){
-					bean = new AccumulatedValuesBean(timestamp);
-					values.put(timestamp, bean);
-				}
-				bean.setValue(acc.getName(), v.getFirstValue());
-
-			}
-		}
-		List<AccumulatedValuesBean> valuesList = StaticQuickSorter.sort(values.values(), SORT_TYPE);
-
-		//now check if the data is complete
-		//Stores last known values to allow filling in of missing values (combining 1m and 5m values)
-		Map<String, String> lastValue = new HashMap<>(accNames.size());
-
-		//filling last (or first) values.
-		for (String accName : accNames){
-			//first put 'some' initial value.
-			lastValue.put(accName, "0");
-			//now search for first non-null value
-			for(AccumulatedValuesBean accValueBean : valuesList){
-				String aValue = accValueBean.getValue(accName);
-				if (aValue!=null){
-					lastValue.put(accName, aValue);
-					break;
-				}
-			}
-		}
-
-		for(AccumulatedValuesBean accValueBean : valuesList){
-			for (String accName : accNames){
-				String value = accValueBean.getValue(accName);
-				if (value==null){
-					accValueBean.setValue(accName, lastValue.get(accName));
-				}else{
-					lastValue.put(accName, value);
-				}
-			}
+			series.add(acc.getValuesView());
 		}
 
+		//without downsampling only the latest rows are needed, so the merge can skip everything before them.
+		MergedAccumulatedValues merged = MergedAccumulatedValues.merge(series, MINUTE,
+				downsampling == ChartDownsampling.NONE ? maxValues : -1);
+		merged = merged.downsample(maxValues, downsampling);
 		if (normalized){
-			normalize(valuesList, accNames, normalizeBase);
+			merged = merged.normalize(normalizeBase);
 		}
 
 		//now create final data
-		List<AccumulatedValueAO> dataBeans = new ArrayList<>(valuesList.size());
-		for(AccumulatedValuesBean avb : valuesList){
-			AccumulatedValueAO bean = new AccumulatedValueAO(avb.getTime());
-			bean.setIsoTimestamp(NumberUtils.makeISO8601TimestampString(avb.getTimestamp()));
-			bean.setNumericTimestamp(avb.getTimestamp());
-
-			for (String accName : accNames){
-				bean.addValue(avb.getValue(accName));
+		List<AccumulatedValueAO> dataBeans = new ArrayList<>(merged.size());
+		for (int row = 0; row < merged.size(); row++){
+			long timestamp = merged.getTimestamp(row);
+			AccumulatedValueAO bean = new AccumulatedValueAO(NumberUtils.makeTimeString(timestamp));
+			bean.setIsoTimestamp(NumberUtils.makeISO8601TimestampString(timestamp));
+			bean.setNumericTimestamp(timestamp);
+
+			for (int s = 0; s < merged.getSeriesCount(); s++){
+				bean.addValue(formatValue(merged.getValue(s, row)));
 			}
 			dataBeans.add(bean);
 		}
 
-		//generally its not always a good idea to use subList, but since that list isn't reused,
-		//as in subList or subList of subList, its ok.
-		if (dataBeans.size()>maxValues) {
-			List<AccumulatedValueAO> shorterList = new ArrayList<AccumulatedValueAO>(dataBeans.subList(dataBeans.size() - maxValues, dataBeans.size()));
-			dataBeans = shorterList;
-		}
-
 		MultilineChartAO ret = new MultilineChartAO();
 		ret.setData(dataBeans);
 		ret.setNames(accNames);
@@ -264,35 +221,15 @@ public class AccumulatorAPIImpl extends AbstractMoskitoAPIImpl implements Accumu
 		return ret;
 	}
 
-
-	/*test visibility */ static void normalize(List<AccumulatedValuesBean> values, List<String> names, int limit){
-		for (String name : names){
-			//System.out.println("normalizing "+name);
-			ArrayList<Float> valueCopy = new ArrayList<Float>(values.size());
-			//step1 transform everything to float
-			float min = Float.MAX_VALUE, max = Float.MIN_VALUE;
-			for (AccumulatedValuesBean v : values){
-				float val = Float.parseFloat(v.getValue(name));
-				if (val>max)
-					max = val;
-				if (val<min)
-					min = val;
-				valueCopy.add(val);
-			}
-			//System.out.println("1: "+valueCopy);
-			float range = max - min;
-			float multiplier = limit / range;
-			//System.out.println("range "+range+", multiplier "+multiplier);
-
-			//step2 recalculate
-			for (int i=0; i<values.size(); i++){
-				float newValue = (valueCopy.get(i)-min)*multiplier;
-				values.get(i).setValue(name, String.valueOf(newValue));
-			}
-		}
+	/**
+	 * Formats a chart value as json number, integral values without fraction.
+	 */
+	private static String formatValue(double value){
+		if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < Long.MAX_VALUE)
+			return String.valueOf((long) value);
+		return String.valueOf(value);
 	}
 
-
 	@Override
 	public List<AccumulatedSingleGraphAO> getChartsForMultipleAccumulators(List<String> names) throws APIException {
 		LinkedList<AccumulatedSingleGraphAO> ret = new LinkedList<>();
@@ -0,0 +1,34 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.anoplass.api.API;
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoprise.metafactory.Service;
+import net.anotheria.moskito.core.stats.TimeUnit;
+
+/**
+ * API for the cluster view, which aggregates the producers of all configured remote instances. The remote instances
+ * are queried in parallel, instances that fail or don't reply within the configured timeout are reported in the
+ * result and left out of the aggregation.
+ */
+public interface ClusterAPI extends API, Service {
+
+	/**
+	 * Returns the producers of all remote instances, merged by producer id. Only the first stats of each producer are
+	 * included.
+	 * @param intervalName name of the interval.
+	 * @param timeUnit time unit of the values.
+	 * @return merged producers and state of the remote instances.
+	 * @throws APIException
+	 */
+	ClusterProducersAO getProducers(String intervalName, TimeUnit timeUnit) throws APIException;
+
+	/**
+	 * Returns a producer with all its stats merged over all remote instances.
+	 * @param producerId id of the producer.
+	 * @param intervalName name of the interval.
+	 * @param timeUnit time unit of the values.
+	 * @return merged producer and state of the remote instances, the producer list is empty if no instance has it.
+	 * @throws APIException
+	 */
+	ClusterProducersAO getProducer(String producerId, String intervalName, TimeUnit timeUnit) throws APIException;
+}
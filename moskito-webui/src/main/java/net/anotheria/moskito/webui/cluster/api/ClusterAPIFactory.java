@@ -0,0 +1,21 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.anoplass.api.APIFactory;
+import net.anotheria.anoplass.api.APIFinder;
+import net.anotheria.anoprise.metafactory.ServiceFactory;
+
+/**
+ * Factory for the ClusterAPI.
+ */
+public class ClusterAPIFactory implements APIFactory<ClusterAPI>, ServiceFactory<ClusterAPI> {
+	@Override
+	public ClusterAPI createAPI() {
+		return new ClusterAPIImpl();
+	}
+
+	@Override
+	public ClusterAPI create() {
+		APIFinder.addAPIFactory(ClusterAPI.class, this);
+		return APIFinder.findAPI(ClusterAPI.class);
+	}
+}
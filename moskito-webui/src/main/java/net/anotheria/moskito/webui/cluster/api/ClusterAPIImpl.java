@@ -0,0 +1,292 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoplass.api.APIInitException;
+import net.anotheria.moskito.core.registry.NoSuchProducerException;
+import net.anotheria.moskito.core.stats.IIntervalListener;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.IntervalRegistryListener;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
+import net.anotheria.moskito.webui.producers.api.ProducerAO;
+import net.anotheria.moskito.webui.producers.api.ProducerAPI;
+import net.anotheria.moskito.webui.shared.api.AbstractMoskitoAPIImpl;
+import net.anotheria.moskito.webui.util.APILookupUtility;
+import net.anotheria.moskito.webui.util.RemoteInstance;
+import net.anotheria.moskito.webui.util.WebUIConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of the ClusterAPI. All remote instances are queried at once, each in its own thread, the result of
+ * each instance is waited for until the configured timeout elapsed since its call started. The aggregated views are
+ * cached until the next local
+ * update of the requested interval and removed from the cache on this update. Intervals which are never updated (like
+ * snapshot) aren't cached, at most {@link #MAX_CACHED_VIEWS} views are cached at once.
+ */
+public class ClusterAPIImpl extends AbstractMoskitoAPIImpl implements ClusterAPI, IIntervalListener, IntervalRegistryListener {
+
+	/**
+	 * Max number of cached views, views requested while the cache is full aren't cached.
+	 */
+	static final int MAX_CACHED_VIEWS = 1000;
+
+	/**
+	 * System property with the read timeout of rmi calls in milliseconds. Without it a call to a stuck instance blocks
+	 * its thread forever, even after it has been cancelled.
+	 */
+	static final String RMI_RESPONSE_TIMEOUT = "sun.rmi.transport.tcp.responseTimeout";
+
+	/**
+	 * Executor for the requests to the remote instances, starts a thread for each request if no idle thread is left.
+	 */
+	private ExecutorService executor;
+
+	/**
+	 * Cached views by request.
+	 */
+	private final ConcurrentMap<String, CachedView> cache = new ConcurrentHashMap<>();
+
+	@Override
+	public void init() throws APIInitException {
+		super.init();
+		final AtomicInteger threadNumber = new AtomicInteger();
+		WebUIConfig config = WebUIConfig.getInstance();
+		if (config.getRemotes() != null && config.getRemotes().length > 0 && System.getProperty(RMI_RESPONSE_TIMEOUT) == null)
+			System.setProperty(RMI_RESPONSE_TIMEOUT, String.valueOf(config.getClusterTimeout()));
+		executor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "moskito-cluster-" + threadNumber.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		IntervalRegistry intervalRegistry = IntervalRegistry.getInstance();
+		intervalRegistry.addIntervalRegistryListener(this);
+		for (Interval interval : intervalRegistry.getIntervals())
+			interval.addSecondaryIntervalListener(this);
+	}
+
+	@Override
+	public void deInit() {
+		IntervalRegistry intervalRegistry = IntervalRegistry.getInstance();
+		intervalRegistry.removeIntervalRegistryListener(this);
+		for (Interval interval : intervalRegistry.getIntervals())
+			interval.removeSecondaryIntervalListener(this);
+		cache.clear();
+		executor.shutdownNow();
+		super.deInit();
+	}
+
+	@Override
+	public void intervalUpdated(Interval aCaller) {
+		for (Iterator<CachedView> it = cache.values().iterator(); it.hasNext(); ) {
+			if (aCaller.getName().equals(it.next().intervalName))
+				it.remove();
+		}
+	}
+
+	@Override
+	public void intervalCreated(Interval aInterval) {
+		aInterval.addSecondaryIntervalListener(this);
+	}
+
+	@Override
+	public ClusterProducersAO getProducers(final String intervalName, final TimeUnit timeUnit) throws APIException {
+		return getView("producers-" + intervalName + '-' + timeUnit, intervalName, new NodeRequest() {
+			@Override
+			public List<ProducerAO> execute(ProducerAPI api) throws APIException {
+				return api.getAllProducers(intervalName, timeUnit);
+			}
+		});
+	}
+
+	@Override
+	public ClusterProducersAO getProducer(final String producerId, final String intervalName, final TimeUnit timeUnit) throws APIException {
+		return getView("producer-" + producerId + '-' + intervalName + '-' + timeUnit, intervalName, new NodeRequest() {
+			@Override
+			public List<ProducerAO> execute(ProducerAPI api) throws APIException {
+				try {
+					return Collections.singletonList(api.getProducer(producerId, intervalName, timeUnit));
+				} catch (NoSuchProducerException e) {
+					//the producer doesn't exist on every instance.
+					return Collections.emptyList();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns the cached view if the interval wasn't updated since it was created, otherwise aggregates a new view.
+	 * Concurrent requests for the same view wait for one aggregation.
+	 */
+	private ClusterProducersAO getView(String key, String intervalName, NodeRequest request) {
+		CachedView cached = cache.get(key);
+		if (cached == null) {
+			if (IntervalRegistry.getInstance().getUpdateTimestamp(intervalName) == null || cache.size() >= MAX_CACHED_VIEWS)
+				return aggregate(request);
+			cached = new CachedView(intervalName);
+			CachedView old = cache.putIfAbsent(key, cached);
+			if (old != null)
+				cached = old;
+		}
+		synchronized (cached) {
+			Long intervalTimestamp = IntervalRegistry.getInstance().getUpdateTimestamp(intervalName);
+			if (cached.view != null && intervalTimestamp != null && intervalTimestamp.equals(cached.intervalTimestamp))
+				return cached.view;
+			cached.view = aggregate(request);
+			cached.intervalTimestamp = intervalTimestamp;
+			return cached.view;
+		}
+	}
+
+	/**
+	 * Returns the number of cached views.
+	 */
+	int getCachedViewsCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the producer api of a remote instance.
+	 */
+	ProducerAPI getRemoteProducerAPI(RemoteInstance instance) {
+		return APILookupUtility.getRemoteProducerAPI(instance);
+	}
+
+	/**
+	 * Sends the request to all remote instances in parallel and merges the results of all instances which replied in
+	 * time.
+	 */
+	private ClusterProducersAO aggregate(NodeRequest request) {
+		RemoteInstance[] remotes = WebUIConfig.getInstance().getRemotes();
+		long timeout = WebUIConfig.getInstance().getClusterTimeout();
+
+		List<NodeCall> calls = new ArrayList<>(remotes.length);
+		List<Future<List<ProducerAO>>> futures = new ArrayList<>(remotes.length);
+		for (RemoteInstance remote : remotes) {
+			NodeCall call = new NodeCall(remote, request);
+			calls.add(call);
+			futures.add(executor.submit(call));
+		}
+
+		List<List<ProducerAO>> results = new ArrayList<>(remotes.length);
+		List<ClusterNodeAO> nodes = new ArrayList<>(remotes.length);
+		for (int i = 0; i < remotes.length; i++) {
+			ClusterNodeAO node = new ClusterNodeAO();
+			node.setName(remotes[i].getName());
+			node.setHost(remotes[i].getHost());
+			node.setPort(remotes[i].getPort());
+			Future<List<ProducerAO>> future = futures.get(i);
+			try {
+				List<ProducerAO> producers = waitFor(calls.get(i), future, timeout);
+				node.setSuccess(true);
+				node.setLatency(calls.get(i).duration);
+				node.setNumberOfProducers(producers.size());
+				results.add(producers);
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				node.setLatency(timeout);
+				node.setError("No reply within " + timeout + " ms");
+			} catch (ExecutionException e) {
+				node.setLatency(calls.get(i).duration);
+				node.setError(String.valueOf(e.getCause()));
+				if (log.isDebugEnabled())
+					log.debug("Request to " + remotes[i] + " failed", e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				future.cancel(true);
+				node.setError("Interrupted");
+			}
+			nodes.add(node);
+		}
+
+		ClusterProducersAO ret = new ClusterProducersAO();
+		ret.setProducers(ProducerAOMerger.mergeProducers(results));
+		ret.setNodes(nodes);
+		ret.setTimestamp(System.currentTimeMillis());
+		return ret;
+	}
+
+	/**
+	 * Waits for the result of the call until the timeout elapsed since the call started.
+	 */
+	private static List<ProducerAO> waitFor(NodeCall call, Future<List<ProducerAO>> future, long timeout) throws InterruptedException, ExecutionException, TimeoutException {
+		while (true) {
+			long start = call.start;
+			long wait = start == 0 ? timeout : start + timeout - System.currentTimeMillis();
+			try {
+				return future.get(Math.max(0, wait), java.util.concurrent.TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				//the call may have started while we were waiting, its timeout starts then.
+				if (call.start == 0 || call.start + timeout <= System.currentTimeMillis())
+					throw e;
+			}
+		}
+	}
+
+	/**
+	 * Request sent to each remote instance.
+	 */
+	private interface NodeRequest {
+		List<ProducerAO> execute(ProducerAPI api) throws APIException;
+	}
+
+	/**
+	 * Executes a request on one remote instance and measures its duration.
+	 */
+	private final class NodeCall implements Callable<List<ProducerAO>> {
+		private final RemoteInstance instance;
+		private final NodeRequest request;
+		/**
+		 * Start timestamp of the request, 0 until it started.
+		 */
+		private volatile long start;
+		/**
+		 * Duration of the request in milliseconds.
+		 */
+		private volatile long duration;
+
+		NodeCall(RemoteInstance anInstance, NodeRequest aRequest) {
+			instance = anInstance;
+			request = aRequest;
+		}
+
+		@Override
+		public List<ProducerAO> call() throws Exception {
+			start = System.currentTimeMillis();
+			try {
+				return request.execute(getRemoteProducerAPI(instance));
+			} finally {
+				duration = System.currentTimeMillis() - start;
+			}
+		}
+	}
+
+	/**
+	 * A view with the update timestamp of the interval it was created for.
+	 */
+	private static final class CachedView {
+		private final String intervalName;
+		private Long intervalTimestamp;
+		private ClusterProducersAO view;
+
+		CachedView(String anIntervalName) {
+			intervalName = anIntervalName;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import java.io.Serializable;
+
+/**
+ * Result of a request to one remote instance during aggregation of the cluster view.
+ */
+public class ClusterNodeAO implements Serializable {
+	/**
+	 * SerialVersionUID.
+	 */
+	private static final long serialVersionUID = -2207348016853612903L;
+
+	/**
+	 * Name of the remote instance.
+	 */
+	private String name;
+	/**
+	 * Host of the remote instance.
+	 */
+	private String host;
+	/**
+	 * Port of the remote instance.
+	 */
+	private int port;
+	/**
+	 * True if the remote instance replied within the timeout.
+	 */
+	private boolean success;
+	/**
+	 * Duration of the request in milliseconds, the timeout if the instance didn't reply in time.
+	 */
+	private long latency;
+	/**
+	 * Reason of the failure, null on success.
+	 */
+	private String error;
+	/**
+	 * Number of producers the instance returned.
+	 */
+	private int numberOfProducers;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	public void setSuccess(boolean success) {
+		this.success = success;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	public void setLatency(long latency) {
+		this.latency = latency;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public int getNumberOfProducers() {
+		return numberOfProducers;
+	}
+
+	public void setNumberOfProducers(int numberOfProducers) {
+		this.numberOfProducers = numberOfProducers;
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterNodeAO{" +
+				"name='" + name + '\'' +
+				", host='" + host + '\'' +
+				", port=" + port +
+				", success=" + success +
+				", latency=" + latency +
+				", error='" + error + '\'' +
+				", numberOfProducers=" + numberOfProducers +
+				'}';
+	}
+}
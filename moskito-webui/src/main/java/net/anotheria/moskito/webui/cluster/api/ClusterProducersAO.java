@@ -0,0 +1,64 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.moskito.webui.producers.api.ProducerAO;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Producers merged over all remote instances together with the state of each instance.
+ */
+public class ClusterProducersAO implements Serializable {
+	/**
+	 * SerialVersionUID.
+	 */
+	private static final long serialVersionUID = 5317824905728371170L;
+
+	/**
+	 * Merged producers.
+	 */
+	private List<ProducerAO> producers;
+
+	/**
+	 * State of the requests to the remote instances.
+	 */
+	private List<ClusterNodeAO> nodes;
+
+	/**
+	 * Creation time of this view.
+	 */
+	private long timestamp;
+
+	public List<ProducerAO> getProducers() {
+		return producers;
+	}
+
+	public void setProducers(List<ProducerAO> producers) {
+		this.producers = producers;
+	}
+
+	public List<ClusterNodeAO> getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(List<ClusterNodeAO> nodes) {
+		this.nodes = nodes;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterProducersAO{" +
+				"producers=" + producers +
+				", nodes=" + nodes +
+				", timestamp=" + timestamp +
+				'}';
+	}
+}
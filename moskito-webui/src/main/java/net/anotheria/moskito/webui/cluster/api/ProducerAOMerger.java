@@ -0,0 +1,332 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.moskito.core.counter.CounterStats;
+import net.anotheria.moskito.core.counter.GuestBasicPremiumStats;
+import net.anotheria.moskito.core.counter.MaleFemaleStats;
+import net.anotheria.moskito.core.decorators.predefined.PageInBrowserStatsDecorator.PageInBrowserStatsDecoratorValueName;
+import net.anotheria.moskito.core.decorators.value.DoubleValueAO;
+import net.anotheria.moskito.core.decorators.value.LongValueAO;
+import net.anotheria.moskito.core.decorators.value.StatValueAO;
+import net.anotheria.moskito.core.decorators.value.StringValueAO;
+import net.anotheria.moskito.core.predefined.ActionStats;
+import net.anotheria.moskito.core.predefined.CacheStats;
+import net.anotheria.moskito.core.predefined.ErrorStats;
+import net.anotheria.moskito.core.predefined.FilterStats;
+import net.anotheria.moskito.core.predefined.GCStats;
+import net.anotheria.moskito.core.predefined.MemoryPoolStats;
+import net.anotheria.moskito.core.predefined.MemoryStats;
+import net.anotheria.moskito.core.predefined.OSStats;
+import net.anotheria.moskito.core.predefined.PageInBrowserStats;
+import net.anotheria.moskito.core.predefined.RuntimeStats;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.predefined.ServletStats;
+import net.anotheria.moskito.core.predefined.ThreadCountStats;
+import net.anotheria.moskito.core.predefined.ThreadStateStats;
+import net.anotheria.moskito.core.predefined.VirtualMemoryPoolStats;
+import net.anotheria.moskito.core.util.session.SessionCountStats;
+import net.anotheria.moskito.core.util.storage.StorageStats;
+import net.anotheria.moskito.webui.producers.api.ProducerAO;
+import net.anotheria.moskito.webui.producers.api.StatLineAO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the producers of multiple instances into one producer per producer id. How a value is merged depends on the
+ * stats class of the producer and the value name, as produced by the decorator of the stats class: maxima are merged
+ * as max of the maxima, minima as min of the minima, averages, rates and last values as average weighted by the number
+ * of requests of the instance (if the stat has a request value) and everything else is treated as counter and summed
+ * up. Values of unknown stats classes are merged like the values of request oriented stats with the same name. Values
+ * which aren't set (NoR) are ignored.
+ */
+final class ProducerAOMerger {
+
+	/**
+	 * How values are merged.
+	 */
+	enum Rule {
+		SUM, MIN, MAX, AVERAGE
+	}
+
+	/**
+	 * Rules of the values of request oriented stats, also used for unknown stats classes.
+	 */
+	private static final Map<String, Rule> REQUEST_RULES = rules(
+			"CR", Rule.SUM, "MCR", Rule.MAX, "Min", Rule.MIN, "Max", Rule.MAX, "Avg", Rule.AVERAGE,
+			"Last", Rule.AVERAGE, "ERate", Rule.AVERAGE);
+
+	/**
+	 * Rules of the values which aren't summed up by stats class name.
+	 */
+	private static final Map<String, Map<String, Rule>> RULES_BY_STATS_CLASS = new HashMap<>();
+
+	static {
+		for (Class<?> c : new Class<?>[]{ServiceStats.class, ActionStats.class, ServletStats.class, FilterStats.class})
+			RULES_BY_STATS_CLASS.put(c.getName(), REQUEST_RULES);
+		RULES_BY_STATS_CLASS.put(CacheStats.class.getName(), rules("HR", Rule.AVERAGE, "FR", Rule.AVERAGE));
+		RULES_BY_STATS_CLASS.put(StorageStats.class.getName(), rules(
+				"mGet_R", Rule.AVERAGE, "hGet_R", Rule.AVERAGE, "owPut_R", Rule.AVERAGE, "newPut_R", Rule.AVERAGE,
+				"no_Rem_R", Rule.AVERAGE, "Put/Get_R", Rule.AVERAGE, "Put/Rem_R", Rule.AVERAGE,
+				"cKeyHR", Rule.AVERAGE, "cValHR", Rule.AVERAGE));
+		RULES_BY_STATS_CLASS.put(MemoryStats.class.getName(), rules(
+				"Min", Rule.MIN, "Max", Rule.MAX, "Min Mb", Rule.MIN, "Max Mb", Rule.MAX));
+		Map<String, Rule> memoryPoolRules = rules(
+				"Min Used", Rule.MIN, "Min Used MB", Rule.MIN, "Max Used", Rule.MAX, "Max Used MB", Rule.MAX,
+				"Min Commited", Rule.MIN, "Min Commited MB", Rule.MIN, "Max Commited", Rule.MAX, "Max Commited MB", Rule.MAX);
+		RULES_BY_STATS_CLASS.put(MemoryPoolStats.class.getName(), memoryPoolRules);
+		RULES_BY_STATS_CLASS.put(VirtualMemoryPoolStats.class.getName(), memoryPoolRules);
+		RULES_BY_STATS_CLASS.put(ThreadCountStats.class.getName(), rules("Min Cur", Rule.MIN, "Max Cur", Rule.MAX));
+		RULES_BY_STATS_CLASS.put(ThreadStateStats.class.getName(), rules("Min", Rule.MIN, "Max", Rule.MAX));
+		RULES_BY_STATS_CLASS.put(OSStats.class.getName(), rules(
+				"MinOpenFiles", Rule.MIN, "MaxOpenFiles", Rule.MAX, "ProcessCPULoad", Rule.AVERAGE, "SystemCPULoad", Rule.AVERAGE));
+		//the cluster is up since the oldest instance started.
+		RULES_BY_STATS_CLASS.put(RuntimeStats.class.getName(), rules("StartTime", Rule.MIN, "Uptime", Rule.MAX, "Uphours", Rule.MAX));
+		RULES_BY_STATS_CLASS.put(ErrorStats.class.getName(), rules(
+				"AVG Rethrown", Rule.AVERAGE, "Max initial per Minute", Rule.MAX, "Max total per Minute", Rule.MAX,
+				"Max rethrown per Minute", Rule.MAX));
+		RULES_BY_STATS_CLASS.put(PageInBrowserStats.class.getName(), rules(
+				PageInBrowserStatsDecoratorValueName.DOM_MIN.getCaption(), Rule.MIN,
+				PageInBrowserStatsDecoratorValueName.DOM_MAX.getCaption(), Rule.MAX,
+				PageInBrowserStatsDecoratorValueName.DOM_AVG.getCaption(), Rule.AVERAGE,
+				PageInBrowserStatsDecoratorValueName.DOM_LAST.getCaption(), Rule.AVERAGE,
+				PageInBrowserStatsDecoratorValueName.WIN_MIN.getCaption(), Rule.MIN,
+				PageInBrowserStatsDecoratorValueName.WIN_MAX.getCaption(), Rule.MAX,
+				PageInBrowserStatsDecoratorValueName.WIN_AVG.getCaption(), Rule.AVERAGE,
+				PageInBrowserStatsDecoratorValueName.WIN_LAST.getCaption(), Rule.AVERAGE));
+		RULES_BY_STATS_CLASS.put(SessionCountStats.class.getName(), rules("Min", Rule.MIN, "Max", Rule.MAX));
+		Map<String, Rule> counters = Collections.emptyMap();
+		for (Class<?> c : new Class<?>[]{GCStats.class, CounterStats.class, MaleFemaleStats.class, GuestBasicPremiumStats.class})
+			RULES_BY_STATS_CLASS.put(c.getName(), counters);
+	}
+
+	/**
+	 * Names of values which contain the number of requests, used as weight for averages.
+	 */
+	private static final String[] WEIGHT_VALUE_NAMES = {"Req", "TR", "Requests"};
+
+	private ProducerAOMerger(){
+	}
+
+	private static Map<String, Rule> rules(Object... nameAndRule){
+		Map<String, Rule> ret = new HashMap<>(nameAndRule.length);
+		for (int i=0; i<nameAndRule.length; i+=2)
+			ret.put((String)nameAndRule[i], (Rule)nameAndRule[i+1]);
+		return Collections.unmodifiableMap(ret);
+	}
+
+	/**
+	 * Returns the rules for the values of the stats class.
+	 * @param statsClazzName name of the stats class of the producer.
+	 * @return rules by value name, values without rule are summed up.
+	 */
+	static Map<String, Rule> getRules(String statsClazzName){
+		Map<String, Rule> rules = statsClazzName == null ? null : RULES_BY_STATS_CLASS.get(statsClazzName);
+		return rules == null ? REQUEST_RULES : rules;
+	}
+
+	/**
+	 * Merges the producers of all instances, the producers are returned in order of their first occurrence.
+	 * @param producersByInstance producers of each instance.
+	 * @return merged producers.
+	 */
+	static List<ProducerAO> mergeProducers(List<List<ProducerAO>> producersByInstance){
+		Map<String, List<ProducerAO>> byId = new LinkedHashMap<>();
+		for (List<ProducerAO> producers : producersByInstance){
+			for (ProducerAO producer : producers){
+				List<ProducerAO> same = byId.get(producer.getProducerId());
+				if (same == null){
+					same = new ArrayList<>(producersByInstance.size());
+					byId.put(producer.getProducerId(), same);
+				}
+				same.add(producer);
+			}
+		}
+		List<ProducerAO> ret = new ArrayList<>(byId.size());
+		for (List<ProducerAO> same : byId.values())
+			ret.add(mergeProducer(same));
+		return ret;
+	}
+
+	/**
+	 * Merges instances of the same producer. Descriptive data is taken from the first producer, stat lines are matched
+	 * by name. Creation info and tracing state are instance specific and not set.
+	 * @param producers the same producer of different instances.
+	 * @return merged producer.
+	 */
+	static ProducerAO mergeProducer(List<ProducerAO> producers){
+		ProducerAO first = producers.get(0);
+		ProducerAO ret = new ProducerAO();
+		ret.setProducerId(first.getProducerId());
+		ret.setCategory(first.getCategory());
+		ret.setSubsystem(first.getSubsystem());
+		ret.setProducerClassName(first.getProducerClassName());
+		ret.setFullProducerClassName(first.getFullProducerClassName());
+		ret.setDecoratorName(first.getDecoratorName());
+		ret.setStatsClazzName(first.getStatsClazzName());
+
+		Map<String, Rule> rules = getRules(first.getStatsClazzName());
+		List<List<StatValueAO>> firstValues = new ArrayList<>(producers.size());
+		Map<String, List<List<StatValueAO>>> lines = new LinkedHashMap<>();
+		for (ProducerAO producer : producers){
+			if (producer.getFirstStatsValues() != null)
+				firstValues.add(producer.getFirstStatsValues());
+			for (StatLineAO line : producer.getLines()){
+				List<List<StatValueAO>> values = lines.get(line.getStatName());
+				if (values == null){
+					values = new ArrayList<>(producers.size());
+					lines.put(line.getStatName(), values);
+				}
+				if (line.getValues() != null)
+					values.add(line.getValues());
+			}
+		}
+
+		ret.setFirstStatsValues(mergeValues(firstValues, rules));
+		for (Map.Entry<String, List<List<StatValueAO>>> line : lines.entrySet()){
+			StatLineAO merged = new StatLineAO();
+			merged.setStatName(line.getKey());
+			merged.setValues(mergeValues(line.getValue(), rules));
+			ret.addStatLine(merged);
+		}
+		return ret;
+	}
+
+	/**
+	 * Merges the values of the same stat of different instances, values are matched by name.
+	 * @param valuesByInstance values of each instance.
+	 * @param rules rules by value name.
+	 * @return merged values in order of their first occurrence.
+	 */
+	static List<StatValueAO> mergeValues(List<List<StatValueAO>> valuesByInstance, Map<String, Rule> rules){
+		Map<String, MergedValue> merged = new LinkedHashMap<>();
+		for (List<StatValueAO> values : valuesByInstance){
+			double weight = getWeight(values);
+			for (StatValueAO value : values){
+				MergedValue mergedValue = merged.get(value.getName());
+				if (mergedValue == null){
+					Rule rule = rules.get(value.getName());
+					mergedValue = new MergedValue(value.getName(), rule == null ? Rule.SUM : rule);
+					merged.put(value.getName(), mergedValue);
+				}
+				mergedValue.add(value, weight);
+			}
+		}
+		List<StatValueAO> ret = new ArrayList<>(merged.size());
+		for (MergedValue mergedValue : merged.values())
+			ret.add(mergedValue.toValueAO());
+		return ret;
+	}
+
+	/**
+	 * Returns the number of requests in the values or 0 if there is no such value.
+	 */
+	private static double getWeight(List<StatValueAO> values){
+		for (String weightName : WEIGHT_VALUE_NAMES){
+			for (StatValueAO value : values){
+				if (weightName.equals(value.getName())){
+					double weight = toDouble(value);
+					return Double.isNaN(weight) || weight < 0 ? 0 : weight;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the numeric value or NaN if the value isn't numeric or not set.
+	 */
+	private static double toDouble(StatValueAO value){
+		if (value instanceof LongValueAO){
+			long l = Long.parseLong(value.getRawValue());
+			return l == Long.MAX_VALUE || l == Long.MIN_VALUE ? Double.NaN : l;
+		}
+		if (value instanceof DoubleValueAO){
+			double d = Double.parseDouble(value.getRawValue());
+			return Double.isInfinite(d) ? Double.NaN : d;
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Values of the same name of all instances.
+	 */
+	private static final class MergedValue {
+		private final String name;
+		private final Rule rule;
+		private boolean allLong = true;
+		private boolean numeric;
+		private int count;
+		private double sum;
+		private double weightedSum;
+		private double weights;
+		private double min = Double.MAX_VALUE;
+		private double max = -Double.MAX_VALUE;
+		/**
+		 * Exact aggregates as long as all values are longs.
+		 */
+		private long longSum;
+		private long longMin = Long.MAX_VALUE;
+		private long longMax = Long.MIN_VALUE;
+		/**
+		 * Value of non numeric values, null if they differ between the instances.
+		 */
+		private String text;
+		private boolean textSet;
+
+		MergedValue(String aName, Rule aRule){
+			name = aName;
+			rule = aRule;
+		}
+
+		void add(StatValueAO value, double weight){
+			if (value instanceof StringValueAO){
+				if (!textSet){
+					text = value.getValue();
+					textSet = true;
+				}else if (text != null && !text.equals(value.getValue())){
+					text = null;
+				}
+				return;
+			}
+			numeric = true;
+			if (!(value instanceof LongValueAO))
+				allLong = false;
+			double d = toDouble(value);
+			if (Double.isNaN(d))
+				return;
+			if (value instanceof LongValueAO){
+				long l = Long.parseLong(value.getRawValue());
+				longSum += l;
+				longMin = Math.min(longMin, l);
+				longMax = Math.max(longMax, l);
+			}
+			count++;
+			sum += d;
+			weightedSum += d * weight;
+			weights += weight;
+			min = Math.min(min, d);
+			max = Math.max(max, d);
+		}
+
+		StatValueAO toValueAO(){
+			if (!numeric)
+				return new StringValueAO(name, text == null ? "*" : text);
+			if (count == 0)
+				return allLong ? new LongValueAO(name, Long.MAX_VALUE) : new DoubleValueAO(name, Double.POSITIVE_INFINITY);
+			switch (rule){
+				case MIN:
+					return allLong ? new LongValueAO(name, longMin) : new DoubleValueAO(name, min);
+				case MAX:
+					return allLong ? new LongValueAO(name, longMax) : new DoubleValueAO(name, max);
+				case AVERAGE:
+					return new DoubleValueAO(name, weights > 0 ? weightedSum / weights : sum / count);
+				default:
+					return allLong ? new LongValueAO(name, longSum) : new DoubleValueAO(name, sum);
+			}
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package net.anotheria.moskito.webui.cluster.resource;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoplass.api.APIFinder;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.webui.cluster.api.ClusterAPI;
+import net.anotheria.moskito.webui.shared.resource.AbstractResource;
+import net.anotheria.moskito.webui.shared.resource.ReplyObject;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+
+/**
+ * Resource for the cluster view, producers aggregated over all configured remote instances.
+ */
+@Path("cluster")
+public class ClusterResource extends AbstractResource {
+
+	/**
+	 * ClusterAPI.
+	 */
+	private ClusterAPI clusterAPI = APIFinder.findAPI(ClusterAPI.class);
+
+	@GET @Path("producers/{interval}/{timeunit}")
+	public ReplyObject getProducers(@PathParam("interval") String intervalName, @PathParam("timeunit") String timeUnitParam){
+		TimeUnit unit = TimeUnit.fromString(timeUnitParam);
+		try{
+			return ReplyObject.success("cluster", clusterAPI.getProducers(intervalName, unit));
+		}catch(APIException e){
+			return ReplyObject.error(e);
+		}
+	}
+
+	@GET @Path("producers/{producerId}/{interval}/{timeunit}")
+	public ReplyObject getProducer(@PathParam("producerId") String producerId, @PathParam("interval") String intervalName, @PathParam("timeunit") String timeUnitParam){
+		TimeUnit unit = TimeUnit.fromString(timeUnitParam);
+		try{
+			return ReplyObject.success("cluster", clusterAPI.getProducer(producerId, intervalName, unit));
+		}catch(APIException e){
+			return ReplyObject.error(e);
+		}
+	}
+}
@@ -56,6 +56,11 @@ public class DashboardAO implements Serializable{
 	@XmlElement
 	private List<String> producers;
 
+	/**
+	 * Version of the dashboard data, changes whenever the dashboard is rebuilt.
+	 */
+	@XmlElement
+	private long version;
 
 	public List<GaugeAO> getGauges() {
 		return gauges;
@@ -97,6 +102,14 @@ public class DashboardAO implements Serializable{
 		this.producers = producers;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
 		return "DashboardAO{" +
@@ -104,6 +117,7 @@ public class DashboardAO implements Serializable{
 				", name='" + name + '\'' +
 				", gauges=" + gauges +
 				", thresholds=" + thresholds +
+				", version=" + version +
 				'}';
 	}
 }
@@ -14,9 +14,7 @@ import net.anotheria.moskito.core.config.dashboards.DashboardConfig;
 import net.anotheria.moskito.core.config.dashboards.DashboardsConfig;
 import net.anotheria.moskito.core.producers.IStatsProducer;
 import net.anotheria.moskito.core.registry.ProducerRegistryAPIFactory;
-import net.anotheria.moskito.webui.accumulators.api.AccumulatorAO;
 import net.anotheria.moskito.webui.accumulators.api.AccumulatorAPI;
-import net.anotheria.moskito.webui.accumulators.api.MultilineChartAO;
 import net.anotheria.moskito.webui.gauges.api.GaugeAPI;
 import net.anotheria.moskito.webui.producers.api.ProducerAPI;
 import net.anotheria.moskito.webui.shared.api.AbstractMoskitoAPIImpl;
@@ -64,6 +62,11 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 	 */
 	private ProducerAPI producerAPI;
 
+	/**
+	 * Rendered dashboards.
+	 */
+	private final DashboardCache cache = new DashboardCache();
+
 
 	@Override
 	public void init() throws APIInitException {
@@ -73,9 +76,16 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 		thresholdAPI = APIFinder.findAPI(ThresholdAPI.class);
 		accumulatorAPI = APIFinder.findAPI(AccumulatorAPI.class);
 		producerAPI = APIFinder.findAPI(ProducerAPI.class);
+		cache.attach();
 
 	}
 
+	@Override
+	public void deInit() {
+		cache.detach();
+		super.deInit();
+	}
+
 	@Override
 	public String getDefaultDashboardName() {
 		MoskitoConfiguration config = MoskitoConfigurationHolder.getConfiguration();
@@ -107,6 +117,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void createDashboard(String dashboardName) throws APIException {
+		cache.invalidate(dashboardName);
 		if (StringUtils.isEmpty(dashboardName))
 			return;
 
@@ -125,6 +136,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void removeDashboard(String dashboardName) throws APIException {
+		cache.invalidate(dashboardName);
 		if (StringUtils.isEmpty(dashboardName))
 			return;
 
@@ -149,6 +161,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void addGaugeToDashboard(String dashboardName, String gaugeName) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -167,6 +180,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void removeGaugeFromDashboard(String dashboardName, String gaugeName) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -201,6 +215,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void addThresholdToDashboard(String dashboardName, String thresholdName) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -219,6 +234,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void removeThresholdFromDashboard(String dashboardName, String thresholdName) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -253,6 +269,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void addChartToDashboard(String dashboardName, String[] accNames) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -274,6 +291,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void removeChartFromDashboard(String dashboardName, String[] accNames) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -312,6 +330,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
 	@Override
 	public void addProducerToDashboard(String dashboardName, String producerName) throws APIException {
+		cache.invalidate(dashboardName);
 		DashboardConfig config = getDashboardConfig(dashboardName);
 		if (config == null)
 			return;
@@ -333,6 +352,7 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 
     @Override
     public void removeProducerFromDashboard(String dashboardName, String producerName) throws APIException {
+        cache.invalidate(dashboardName);
         DashboardConfig config = getDashboardConfig(dashboardName);
         if (config == null)
             return;
@@ -431,8 +451,30 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 			throw new APIException("Dashboard "+name+" not found.");
 
 
+		DashboardCache.Entry entry = cache.getEntry(name);
+		synchronized (entry){
+			if (!entry.isStructureValid(config)){
+				long producerGeneration = cache.getProducerGeneration();
+				long accumulatorModifications = AccumulatorRepository.getInstance().getModificationCount();
+				entry.setStructure(config, producerGeneration, accumulatorModifications, resolveProducers(config), resolveCharts(config));
+			}
+			DashboardAO ret = entry.getDashboard();
+			if (ret == null){
+				long dataGeneration = cache.getDataGeneration();
+				ret = buildDashboard(config, entry);
+				entry.setDashboard(ret, dataGeneration);
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * Creates the dashboard with current data for the resolved structure.
+	 */
+	private DashboardAO buildDashboard(DashboardConfig config, DashboardCache.Entry entry) throws APIException {
 		DashboardAO ret = new DashboardAO();
 		ret.setName(config.getName());
+		ret.setVersion(cache.nextVersion());
 		if (config.getGauges()!=null && config.getGauges().length>0){
 			ret.setGauges(gaugeAPI.getGauges(config.getGauges()));
 		}
@@ -441,7 +483,28 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 			ret.setThresholds(thresholdAPI.getThresholdStatuses(config.getThresholds()));
 		}
 
+		if (!entry.getProducers().isEmpty()){
+			ret.setProducers(entry.getProducers());
+		}
+
+		if (!entry.getCharts().isEmpty()){
+			LinkedList<DashboardChartAO> chartBeans = new LinkedList<DashboardChartAO>();
+			for (DashboardCache.ResolvedChart chart : entry.getCharts()){
+				DashboardChartAO bean = new DashboardChartAO();
+				bean.setCaption(chart.getCaption());
+				bean.setChart(accumulatorAPI.getCombinedAccumulatorGraphData(chart.getAccumulatorIds()));
+				chartBeans.add(bean);
+			}
+			ret.setCharts(chartBeans);
+		}
+
+		return ret;
+	}
 
+	/**
+	 * Resolves the configured producers and the producers matching the configured producer name patterns.
+	 */
+	private List<String> resolveProducers(DashboardConfig config){
 		List<String> producers = new LinkedList<String>();
 
 		if (config.getProducers() != null && config.getProducers().length > 0) {
@@ -459,12 +522,14 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 			}
 		}
 
-		if(!producers.isEmpty()){
-			ret.setProducers(Arrays.asList(producers.toArray(new String[producers.size()])));
-		}
-
-		//// CHARTS //////
+		return Collections.unmodifiableList(Arrays.asList(producers.toArray(new String[producers.size()])));
+	}
 
+	/**
+	 * Resolves the configured charts and the charts for the chart patterns to the ids of their accumulators.
+	 * Charts without any existing accumulator are skipped.
+	 */
+	private List<DashboardCache.ResolvedChart> resolveCharts(DashboardConfig config){
 		List<ChartConfig> charts = new LinkedList<>();
 		if (config.getCharts() != null && config.getCharts().length > 0) {
 			charts.addAll(Arrays.asList(config.getCharts()));
@@ -516,44 +581,29 @@ public class DashboardAPIImpl extends AbstractMoskitoAPIImpl implements Dashboar
 			}
 		}
 
-		if (!charts.isEmpty()){
-			LinkedList<DashboardChartAO> chartBeans = new LinkedList<DashboardChartAO>();
-			for (ChartConfig cc : charts){
-
-				DashboardChartAO bean = new DashboardChartAO();
-				if (cc.getCaption()!=null){
-					bean.setCaption(cc.getCaption());
-				} else{
-					bean.setCaption(StringUtils.trimString(cc.buildCaption(),"", 50));
-				}
-
-				LinkedList<String> chartIds = new LinkedList<String>();
-				for (String cName : cc.getAccumulators()){
-					try{
-						AccumulatorAO accumulatorAO = accumulatorAPI.getAccumulatorByName(cName);
-						if (accumulatorAO!=null)
-							chartIds.add(accumulatorAO.getId());
-					}catch(IllegalArgumentException e){
-						//this exception is thrown if there is no accumulator with this name registered (yet).
-						//we just skip it here, because we don't want the whole screen to crash.
-						if (log.isDebugEnabled())
-							log.debug("attempted to access non existing accumulator with name "+cName);
-					}
-
-				}
-
-				if (chartIds.size()==0){
-					log.warn("Couldn't retrieve any chart ids for chart "+cc.toString()+", skipping this bean");
-				}else {
-					MultilineChartAO chartAO = accumulatorAPI.getCombinedAccumulatorGraphData(chartIds);
-					bean.setChart(chartAO);
-					chartBeans.add(bean);
+		List<DashboardCache.ResolvedChart> ret = new ArrayList<>(charts.size());
+		for (ChartConfig cc : charts){
+			String caption = cc.getCaption()!=null ? cc.getCaption() : StringUtils.trimString(cc.buildCaption(),"", 50);
+
+			List<String> chartIds = new ArrayList<String>(cc.getAccumulators().length);
+			for (String cName : cc.getAccumulators()){
+				Accumulator accumulator = AccumulatorRepository.getInstance().getByName(cName);
+				if (accumulator!=null){
+					chartIds.add(accumulator.getId());
+				}else{
+					//there is no accumulator with this name registered (yet).
+					//we just skip it here, because we don't want the whole screen to crash.
+					if (log.isDebugEnabled())
+						log.debug("attempted to access non existing accumulator with name "+cName);
 				}
+			}
 
+			if (chartIds.size()==0){
+				log.warn("Couldn't retrieve any chart ids for chart "+cc.toString()+", skipping this bean");
+			}else {
+				ret.add(new DashboardCache.ResolvedChart(caption, Collections.unmodifiableList(chartIds)));
 			}
-			ret.setCharts(chartBeans);
 		}
-
 		return ret;
 	}
 
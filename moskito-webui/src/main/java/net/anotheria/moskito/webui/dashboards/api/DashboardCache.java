@@ -0,0 +1,224 @@
+package net.anotheria.moskito.webui.dashboards.api;
+
+import net.anotheria.moskito.core.accumulation.AccumulatorRepository;
+import net.anotheria.moskito.core.config.dashboards.DashboardConfig;
+import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.registry.IProducerRegistryListener;
+import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
+import net.anotheria.moskito.core.stats.IIntervalListener;
+import net.anotheria.moskito.core.stats.Interval;
+import net.anotheria.moskito.core.stats.IntervalRegistryListener;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of rendered dashboards. A dashboard consists of a structure (producers and charts resolved from the configured
+ * names and patterns) and of data (gauges, thresholds and chart values). The structure is only resolved again if the
+ * dashboard config changes or producers or accumulators are added or removed. The data is only rebuilt after an
+ * interval was updated, since gauges, thresholds and accumulators don't change in between.
+ */
+class DashboardCache implements IIntervalListener, IntervalRegistryListener, IProducerRegistryListener {
+
+	/**
+	 * Incremented on every interval update.
+	 */
+	private final AtomicLong dataGeneration = new AtomicLong();
+
+	/**
+	 * Incremented on every producer registration or unregistration.
+	 */
+	private final AtomicLong producerGeneration = new AtomicLong();
+
+	/**
+	 * Source of dashboard versions, every rendered dashboard gets a new version.
+	 */
+	private final AtomicLong versions = new AtomicLong();
+
+	/**
+	 * Cached dashboards by name.
+	 */
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers the cache as listener at the interval and producer registries.
+	 */
+	void attach(){
+		IntervalRegistry intervalRegistry = IntervalRegistry.getInstance();
+		intervalRegistry.addIntervalRegistryListener(this);
+		for (Interval interval : intervalRegistry.getIntervals())
+			interval.addSecondaryIntervalListener(this);
+		ProducerRegistryFactory.getProducerRegistryInstance().addListener(this);
+	}
+
+	/**
+	 * Removes the cache from the listeners of the interval and producer registries.
+	 */
+	void detach(){
+		IntervalRegistry intervalRegistry = IntervalRegistry.getInstance();
+		intervalRegistry.removeIntervalRegistryListener(this);
+		for (Interval interval : intervalRegistry.getIntervals())
+			interval.removeSecondaryIntervalListener(this);
+		ProducerRegistryFactory.getProducerRegistryInstance().removeListener(this);
+		entries.clear();
+	}
+
+	/**
+	 * Returns the cache entry for the dashboard, callers have to synchronize on it.
+	 * @param name name of the dashboard.
+	 * @return the entry.
+	 */
+	Entry getEntry(String name){
+		Entry entry = entries.get(name);
+		if (entry != null)
+			return entry;
+		entry = new Entry();
+		Entry old = entries.putIfAbsent(name, entry);
+		return old == null ? entry : old;
+	}
+
+	/**
+	 * Removes the cached dashboard, used when the dashboard config is changed.
+	 * @param name name of the dashboard.
+	 */
+	void invalidate(String name){
+		if (name != null)
+			entries.remove(name);
+	}
+
+	long getDataGeneration(){
+		return dataGeneration.get();
+	}
+
+	long getProducerGeneration(){
+		return producerGeneration.get();
+	}
+
+	long nextVersion(){
+		return versions.incrementAndGet();
+	}
+
+	@Override
+	public void intervalUpdated(Interval aCaller) {
+		dataGeneration.incrementAndGet();
+	}
+
+	@Override
+	public void intervalCreated(Interval aInterval) {
+		aInterval.addSecondaryIntervalListener(this);
+	}
+
+	@Override
+	public void notifyProducerRegistered(IStatsProducer producer) {
+		producerGeneration.incrementAndGet();
+	}
+
+	@Override
+	public void notifyProducerUnregistered(IStatsProducer producer) {
+		producerGeneration.incrementAndGet();
+	}
+
+	/**
+	 * A cached dashboard.
+	 */
+	class Entry {
+		/**
+		 * The config the structure was resolved from.
+		 */
+		private DashboardConfig config;
+		/**
+		 * Config arrays the structure was resolved from, the config setters replace the arrays.
+		 */
+		private Object[] configState;
+		private long producerGenerationOfStructure = -1;
+		private long accumulatorModificationsOfStructure = -1;
+
+		/**
+		 * Resolved producer names.
+		 */
+		private List<String> producers;
+		/**
+		 * Resolved charts.
+		 */
+		private List<ResolvedChart> charts;
+
+		private long dataGenerationOfDashboard = -1;
+		private DashboardAO dashboard;
+
+		/**
+		 * Returns true if the resolved structure is still valid for the config.
+		 */
+		boolean isStructureValid(DashboardConfig aConfig){
+			return config == aConfig && Arrays.equals(configState, configState(aConfig)) &&
+					producerGenerationOfStructure == producerGeneration.get() &&
+					accumulatorModificationsOfStructure == AccumulatorRepository.getInstance().getModificationCount();
+		}
+
+		/**
+		 * Stores a newly resolved structure, the dashboard has to be rebuilt afterwards.
+		 * The generations have to be read before the structure was resolved.
+		 */
+		void setStructure(DashboardConfig aConfig, long aProducerGeneration, long anAccumulatorModifications, List<String> someProducers, List<ResolvedChart> someCharts){
+			config = aConfig;
+			configState = configState(aConfig);
+			producerGenerationOfStructure = aProducerGeneration;
+			accumulatorModificationsOfStructure = anAccumulatorModifications;
+			producers = someProducers;
+			charts = someCharts;
+			dashboard = null;
+		}
+
+		List<String> getProducers() {
+			return producers;
+		}
+
+		List<ResolvedChart> getCharts() {
+			return charts;
+		}
+
+		/**
+		 * Returns the cached dashboard or null if there was an interval update since it was built.
+		 */
+		DashboardAO getDashboard(){
+			return dataGenerationOfDashboard == dataGeneration.get() ? dashboard : null;
+		}
+
+		/**
+		 * Stores a rebuilt dashboard, the data generation has to be read before the dashboard was built.
+		 */
+		void setDashboard(DashboardAO aDashboard, long aDataGeneration){
+			dashboard = aDashboard;
+			dataGenerationOfDashboard = aDataGeneration;
+		}
+	}
+
+	private static Object[] configState(DashboardConfig config){
+		return new Object[]{config.getProducers(), config.getProducerNamePatterns(), config.getPatterns(),
+				config.getCharts(), config.getChartPatterns(), config.getGauges(), config.getThresholds()};
+	}
+
+	/**
+	 * A chart with resolved accumulator ids.
+	 */
+	static class ResolvedChart {
+		private final String caption;
+		private final List<String> accumulatorIds;
+
+		ResolvedChart(String aCaption, List<String> someAccumulatorIds){
+			caption = aCaption;
+			accumulatorIds = someAccumulatorIds;
+		}
+
+		String getCaption() {
+			return caption;
+		}
+
+		List<String> getAccumulatorIds() {
+			return accumulatorIds;
+		}
+	}
+}
@@ -8,6 +8,7 @@ import net.anotheria.moskito.webui.shared.resource.ReplyObject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * The REST Resource for Dashboards API.
@@ -29,15 +30,22 @@ public class DashboardResource extends AbstractResource {
 	}
 
 	/**
-	 * Returns a dashboard by its name.
-	 * @param name
+	 * Returns a dashboard by its name. Clients that poll a dashboard can pass the version of the dashboard they already
+	 * have, the dashboard is only returned if it changed since then.
+	 * @param name name of the dashboard.
+	 * @param version version known to the client, 0 if none.
 	 * @return
 	 */
 	@GET @Path("/{name}")
-	public ReplyObject getDashboard(@PathParam("name")String name){
+	public ReplyObject getDashboard(@PathParam("name")String name, @QueryParam("version")long version){
 		try{
 			ReplyObject ret = ReplyObject.success();
 			DashboardAO dashboard = getDashboardAPI().getDashboard(name);
+			ret.addResult("version", dashboard.getVersion());
+			if (version != 0 && version == dashboard.getVersion()){
+				ret.addResult("unchanged", Boolean.TRUE);
+				return ret;
+			}
 			ret.addResult("dashboard", dashboard);
 			return ret;
 		}catch(APIException e){
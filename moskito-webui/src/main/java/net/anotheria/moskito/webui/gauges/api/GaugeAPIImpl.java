@@ -18,10 +18,13 @@ import net.anotheria.moskito.core.decorators.value.StatValueAO;
 import net.anotheria.moskito.core.decorators.value.StringValueAO;
 import net.anotheria.moskito.core.producers.IStats;
 import net.anotheria.moskito.core.producers.IStatsProducer;
+import net.anotheria.moskito.core.producers.StatValueAccessor;
 import net.anotheria.moskito.core.registry.IProducerRegistryAPI;
 import net.anotheria.moskito.core.registry.NoSuchProducerException;
 import net.anotheria.moskito.core.registry.ProducerRegistryAPIFactory;
+import net.anotheria.moskito.core.stats.Interval;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import net.anotheria.moskito.webui.shared.api.AbstractMoskitoAPIImpl;
 
 /**
@@ -163,7 +166,19 @@ public class GaugeAPIImpl extends AbstractMoskitoAPIImpl implements GaugeAPI {
 			return new StringValueAO(null, "no producer");
 		for (IStats s : producer.getStats()){
 			if (s.getName().equals(config.getStatName())){
-				String value = s.getValueByNameAsString(config.getValueName(), config.getIntervalName(), TimeUnit.valueOf(config.getTimeUnit()));				
+				StatValueAccessor accessor = s.resolveValueAccessor(config.getValueName());
+				Interval interval = IntervalRegistry.getInstance().resolveInterval(config.getIntervalName());
+				TimeUnit timeUnit = TimeUnit.valueOf(config.getTimeUnit());
+				switch (accessor.getType()){
+					case LONG:
+						return new LongValueAO(null, accessor.getValueAsLong(interval, timeUnit));
+					case DOUBLE:
+						double doubleValue = accessor.getValueAsDouble(interval, timeUnit);
+						return Double.isNaN(doubleValue) ? new StringValueAO(null, "n.A.") : new DoubleValueAO(null, doubleValue);
+					default:
+						//the value is only available as string.
+				}
+				String value = accessor.getValueAsString(interval, timeUnit);
 
 				if ("NaN".equals(value) || value == null) {
 					return new StringValueAO(null, "n.A.");
@@ -47,7 +47,7 @@ public class JourneyAPIImpl extends AbstractMoskitoAPIImpl implements  JourneyAP
 			bean.setActive(j.isActive());
 			bean.setCreated(NumberUtils.makeISO8601TimestampString(j.getCreatedTimestamp()));
 			bean.setLastActivity(NumberUtils.makeISO8601TimestampString(j.getLastActivityTimestamp()));
-			bean.setNumberOfCalls(j.getTracedCalls().size());
+			bean.setNumberOfCalls(j.getNumberOfTracedCalls());
 			beans.add(bean);
 		}
 
@@ -188,12 +188,7 @@ public class JourneyAPIImpl extends AbstractMoskitoAPIImpl implements  JourneyAP
 		b.setLevel(depthLevel);
 		b.setAborted(traceStep.isAborted());
 
-		long timeSpentInChildren = 0;
-		for (TraceStep p : traceStep.getChildren()) {
-			timeSpentInChildren += p.getDuration();
-		}
-
-		b.setTimespent(unit.transformNanos((traceStep.getDuration() - timeSpentInChildren)));
+		b.setTimespent(unit.transformNanos(traceStep.getNetDuration()));
 
 		container.add(b);
 	}
@@ -0,0 +1,236 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoplass.api.APIInitException;
+import net.anotheria.moskito.core.registry.IProducerFilter;
+import net.anotheria.moskito.core.registry.NoSuchProducerException;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.webui.util.WebUIConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.rmi.UnmarshalException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Client side of the compact producer transfer. Wraps the stub of a remote ProducerAPI and requests all producers, the
+ * producers of a category or subsystem and single producers in the compact encoding, keeping the last received
+ * snapshot per request, so that the remote only has to send the changed values. All other calls are passed through to
+ * the remote. If the remote doesn't support the compact transfer (older backend without the method or with another
+ * format), the producers are requested as objects and the compact transfer is tried again after
+ * {@link #RETRY_INTERVAL}. Other failures of the compact request only affect the failed request.
+ */
+public class CompactRemoteProducerAPI implements ProducerAPI {
+
+	/**
+	 * Logger.
+	 */
+	private static Logger log = LoggerFactory.getLogger(CompactRemoteProducerAPI.class);
+
+	/**
+	 * Time in milliseconds after which the compact transfer is tried again on a remote which didn't support it.
+	 */
+	static final long RETRY_INTERVAL = 10L * 60 * 1000;
+
+	/**
+	 * Max number of kept snapshots, snapshots of other requests aren't kept and these requests always get full messages.
+	 */
+	static final int MAX_SNAPSHOTS = 1000;
+
+	/**
+	 * The remote api.
+	 */
+	private final ProducerAPI remote;
+
+	/**
+	 * Last received snapshot by request.
+	 */
+	private final ConcurrentMap<String, ProducerSnapshot> snapshots = new ConcurrentHashMap<>();
+
+	/**
+	 * Timestamp until which the compact transfer isn't used, because the remote didn't support it.
+	 */
+	private volatile long unsupportedUntil;
+
+	public CompactRemoteProducerAPI(ProducerAPI aRemote){
+		remote = aRemote;
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit) throws APIException {
+		return getAllProducers(intervalName, timeUnit, false);
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducers(final String intervalName, final TimeUnit timeUnit, final boolean createAllStats) throws APIException {
+		return getCompact(ProducerSelection.ALL, null, intervalName, timeUnit, createAllStats, new ObjectRequest() {
+			@Override
+			public List<ProducerAO> execute() throws APIException {
+				return remote.getAllProducers(intervalName, timeUnit, createAllStats);
+			}
+		});
+	}
+
+	/**
+	 * Requests the producers in the compact encoding, or as objects if the remote doesn't support it.
+	 */
+	private List<ProducerAO> getCompact(ProducerSelection selection, String selectionValue, String intervalName, TimeUnit timeUnit, boolean createAllStats, ObjectRequest objectRequest) throws APIException {
+		if (unsupportedUntil != 0 && System.currentTimeMillis() < unsupportedUntil)
+			return objectRequest.execute();
+
+		String key = selection + "-" + selectionValue + '-' + intervalName + '-' + timeUnit + '-' + createAllStats;
+		ProducerSnapshot known = snapshots.get(key);
+		byte[] message;
+		try{
+			message = remote.getEncodedProducers(selection, selectionValue, intervalName, timeUnit, createAllStats,
+					known == null ? ProducerSnapshotCodec.NO_VERSION : known.getVersion(),
+					WebUIConfig.getInstance().getRemoteTransferMode().isCompressed());
+		}catch(NoSuchProducerException e){
+			//the object request would fail the same way.
+			throw e;
+		}catch(APIException | RuntimeException e){
+			if (isMissingMethod(e)){
+				markUnsupported("remote doesn't know the compact transfer", e);
+			}else if (log.isDebugEnabled()){
+				log.debug("Compact transfer failed, requesting objects", e);
+			}
+			return objectRequest.execute();
+		}
+		if (!ProducerSnapshotCodec.isSupportedFormat(message)){
+			markUnsupported("remote uses another format", null);
+			snapshots.clear();
+			return objectRequest.execute();
+		}
+		unsupportedUntil = 0;
+
+		ProducerSnapshot current;
+		try{
+			current = ProducerSnapshotCodec.decode(message, known);
+		}catch(IOException e){
+			//can happen if another thread replaced the known snapshot in between, the next request will be a full one.
+			log.debug("Can't decode producers, requesting objects", e);
+			snapshots.remove(key);
+			return objectRequest.execute();
+		}
+		if (known != null || snapshots.size() < MAX_SNAPSHOTS)
+			snapshots.put(key, current);
+		return current.copyProducers();
+	}
+
+	private void markUnsupported(String reason, Throwable cause){
+		log.warn("Compact transfer not supported, "+reason+", falling back to object transfer for "+(RETRY_INTERVAL/1000)+" seconds", cause);
+		unsupportedUntil = System.currentTimeMillis() + RETRY_INTERVAL;
+	}
+
+	/**
+	 * Returns true if the failure is caused by a remote which doesn't implement the compact transfer.
+	 */
+	static boolean isMissingMethod(Throwable failure){
+		for (Throwable t = failure; t != null; t = t.getCause()){
+			if (t instanceof NoSuchMethodException || t instanceof NoSuchMethodError || t instanceof AbstractMethodError ||
+					t instanceof UnsupportedOperationException)
+				return true;
+			//rmi skeletons of older backends reject methods they don't know with this message.
+			if (t instanceof UnmarshalException && t.getMessage() != null && t.getMessage().contains("unrecognized method"))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public byte[] getEncodedProducers(ProducerSelection selection, String selectionValue, String intervalName, TimeUnit timeUnit, boolean createAllStats, long knownVersion, boolean compress) throws APIException {
+		return remote.getEncodedProducers(selection, selectionValue, intervalName, timeUnit, createAllStats, knownVersion, compress);
+	}
+
+	@Override
+	public List<UnitCountAO> getCategories() throws APIException {
+		return remote.getCategories();
+	}
+
+	@Override
+	public List<UnitCountAO> getSubsystems() throws APIException {
+		return remote.getSubsystems();
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducersByCategory(String currentCategory, String intervalName, TimeUnit timeUnit) throws APIException {
+		return getAllProducersByCategory(currentCategory, intervalName, timeUnit, false);
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducersByCategory(final String currentCategory, final String intervalName, final TimeUnit timeUnit, final boolean createAllStats) throws APIException {
+		return getCompact(ProducerSelection.CATEGORY, currentCategory, intervalName, timeUnit, createAllStats, new ObjectRequest() {
+			@Override
+			public List<ProducerAO> execute() throws APIException {
+				return remote.getAllProducersByCategory(currentCategory, intervalName, timeUnit, createAllStats);
+			}
+		});
+	}
+
+	@Override
+	public List<ProducerAO> getProducers(IProducerFilter[] iProducerFilters, String intervalName, TimeUnit timeUnit) throws APIException {
+		return remote.getProducers(iProducerFilters, intervalName, timeUnit);
+	}
+
+	@Override
+	public List<ProducerAO> getProducers(List<String> producerIds, String intervalName, TimeUnit timeUnit) throws APIException {
+		return remote.getProducers(producerIds, intervalName, timeUnit);
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducersBySubsystem(String currentSubsystem, String intervalName, TimeUnit timeUnit) throws APIException {
+		return getAllProducersBySubsystem(currentSubsystem, intervalName, timeUnit, false);
+	}
+
+	@Override
+	public List<ProducerAO> getAllProducersBySubsystem(final String currentSubsystem, final String intervalName, final TimeUnit timeUnit, final boolean createAllStats) throws APIException {
+		return getCompact(ProducerSelection.SUBSYSTEM, currentSubsystem, intervalName, timeUnit, createAllStats, new ObjectRequest() {
+			@Override
+			public List<ProducerAO> execute() throws APIException {
+				return remote.getAllProducersBySubsystem(currentSubsystem, intervalName, timeUnit, createAllStats);
+			}
+		});
+	}
+
+	@Override
+	public ProducerAO getProducer(final String producerId, final String intervalName, final TimeUnit timeUnit) throws APIException {
+		List<ProducerAO> producers = getCompact(ProducerSelection.PRODUCER, producerId, intervalName, timeUnit, true, new ObjectRequest() {
+			@Override
+			public List<ProducerAO> execute() throws APIException {
+				return Collections.singletonList(remote.getProducer(producerId, intervalName, timeUnit));
+			}
+		});
+		return producers.get(0);
+	}
+
+	@Override
+	public String getSingleValue(String producerId, String statName, String valueName, String intervalName, TimeUnit timeUnit) throws APIException {
+		return remote.getSingleValue(producerId, statName, valueName, intervalName, timeUnit);
+	}
+
+	@Override
+	public List<ValueResponseAO> getMultipleValues(List<ValueRequestPO> requests) throws APIException {
+		return remote.getMultipleValues(requests);
+	}
+
+	@Override
+	public void init() throws APIInitException {
+		remote.init();
+	}
+
+	@Override
+	public void deInit() {
+		remote.deInit();
+	}
+
+	/**
+	 * Request of the producers as objects.
+	 */
+	private interface ObjectRequest {
+		List<ProducerAO> execute() throws APIException;
+	}
+}
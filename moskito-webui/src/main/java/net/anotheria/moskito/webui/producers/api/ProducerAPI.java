@@ -48,6 +48,22 @@ public interface ProducerAPI extends API, Service {
 
 	List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit, boolean createAllStats) throws APIException;
 
+	/**
+	 * Returns the same producers as getAllProducers, getAllProducersByCategory, getAllProducersBySubsystem or
+	 * getProducer in a compact binary encoding for remote clients. If the client passes the version of the data it
+	 * received before for the same request, only the values which changed since then are sent.
+	 * @param selection which producers are returned.
+	 * @param selectionValue category, subsystem or producer id depending on the selection.
+	 * @param intervalName
+	 * @param timeUnit time unit for duration calculation.
+	 * @param createAllStats if true all stat lines are created, ignored for a single producer.
+	 * @param knownVersion version of the data the client already has, 0 if none.
+	 * @param compress if true the data is deflated.
+	 * @return the encoded producers.
+	 * @throws APIException
+	 */
+	byte[] getEncodedProducers(ProducerSelection selection, String selectionValue, String intervalName, TimeUnit timeUnit, boolean createAllStats, long knownVersion, boolean compress) throws APIException;
+
 	/**
 	 * Returns all producers in given category.
 	 * @param currentCategory category filter.
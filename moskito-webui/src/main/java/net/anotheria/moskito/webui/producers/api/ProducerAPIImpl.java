@@ -14,6 +14,7 @@ import net.anotheria.moskito.core.registry.IProducerRegistryAPI;
 import net.anotheria.moskito.core.registry.NoSuchProducerException;
 import net.anotheria.moskito.core.registry.ProducerRegistryAPIFactory;
 import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import net.anotheria.moskito.core.tracer.TracerRepository;
 import net.anotheria.moskito.core.tracer.TracingAwareProducer;
 import net.anotheria.moskito.webui.Features;
@@ -30,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -45,6 +47,11 @@ public class ProducerAPIImpl extends AbstractMoskitoAPIImpl implements ProducerA
 
 	private volatile List<ProducerFilter> producerFilters;
 
+	/**
+	 * Snapshots for the compact transfer to remote clients.
+	 */
+	private final ProducerSnapshotCache snapshotCache = new ProducerSnapshotCache();
+
 	/**
 	 * Logger.
 	 */
@@ -221,6 +228,28 @@ public class ProducerAPIImpl extends AbstractMoskitoAPIImpl implements ProducerA
 		return filterProducersAndConvertToAO(allProducers, intervalName, timeUnit, createAllStats);
 	}
 
+	@Override
+	public byte[] getEncodedProducers(final ProducerSelection selection, final String selectionValue, final String intervalName, final TimeUnit timeUnit, final boolean createAllStats, long knownVersion, boolean compress) throws APIException {
+		String key = selection + "-" + selectionValue + '-' + intervalName + '-' + timeUnit + '-' + createAllStats;
+		return snapshotCache.getMessage(key, intervalName, knownVersion, compress, new ProducerSnapshotCache.Source() {
+			@Override
+			public List<ProducerAO> getProducers() throws APIException {
+				switch (selection){
+					case ALL:
+						return getAllProducers(intervalName, timeUnit, createAllStats);
+					case CATEGORY:
+						return getAllProducersByCategory(selectionValue, intervalName, timeUnit, createAllStats);
+					case SUBSYSTEM:
+						return getAllProducersBySubsystem(selectionValue, intervalName, timeUnit, createAllStats);
+					case PRODUCER:
+						return Collections.singletonList(getProducer(selectionValue, intervalName, timeUnit));
+					default:
+						throw new IllegalArgumentException("Unsupported selection "+selection);
+				}
+			}
+		});
+	}
+
 	@Override
 	public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit) {
 		return getAllProducers(intervalName, timeUnit, false);
@@ -281,7 +310,7 @@ public class ProducerAPIImpl extends AbstractMoskitoAPIImpl implements ProducerA
 			List<IStats> stats = producer.getStats();
 			for (IStats stat : stats){
 				if (stat.getName().equals(statName)){
-					return stat.getValueByNameAsString(valueName, intervalName, timeUnit);
+					return stat.resolveValueAccessor(valueName).getValueAsString(IntervalRegistry.getInstance().resolveInterval(intervalName), timeUnit);
 				}
 			}
 			throw new APIException("No such stat found "+statName+" in producer "+producerId);
@@ -0,0 +1,23 @@
+package net.anotheria.moskito.webui.producers.api;
+
+/**
+ * Selects the producers of a compact producer transfer, see {@link ProducerAPI#getEncodedProducers}.
+ */
+public enum ProducerSelection {
+	/**
+	 * All producers like getAllProducers, the selection value is ignored.
+	 */
+	ALL,
+	/**
+	 * Producers of the category given as selection value like getAllProducersByCategory.
+	 */
+	CATEGORY,
+	/**
+	 * Producers of the subsystem given as selection value like getAllProducersBySubsystem.
+	 */
+	SUBSYSTEM,
+	/**
+	 * The producer with the id given as selection value like getProducer, always with all stat lines.
+	 */
+	PRODUCER
+}
@@ -0,0 +1,191 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.moskito.core.decorators.value.StatValueAO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A list of producers with all their values in one flat array, ordered by producer, first stats values and stat lines.
+ * Snapshots with the same structure (same producers, stats and value names and types in the same order) only differ in
+ * the values, so the values can be transferred by their index. Creation info and decorator name belong to the
+ * structure.
+ */
+final class ProducerSnapshot {
+
+	/**
+	 * Version of the snapshot, assigned by the instance which created it.
+	 */
+	private final long version;
+
+	/**
+	 * The producers, the values in the producers are the values of the array.
+	 */
+	private final List<ProducerAO> producers;
+
+	/**
+	 * All values of all producers.
+	 */
+	private final StatValueAO[] values;
+
+	ProducerSnapshot(long aVersion, List<ProducerAO> someProducers){
+		version = aVersion;
+		//the producers are accessed by index and the api returns linked lists.
+		producers = new ArrayList<>(someProducers);
+		List<StatValueAO> allValues = new ArrayList<>();
+		for (ProducerAO producer : producers){
+			if (producer.getFirstStatsValues() != null)
+				allValues.addAll(producer.getFirstStatsValues());
+			for (StatLineAO line : producer.getLines()){
+				if (line.getValues() != null)
+					allValues.addAll(line.getValues());
+			}
+		}
+		values = allValues.toArray(new StatValueAO[allValues.size()]);
+	}
+
+	private ProducerSnapshot(long aVersion, List<ProducerAO> someProducers, StatValueAO[] someValues){
+		version = aVersion;
+		producers = someProducers;
+		values = someValues;
+	}
+
+	/**
+	 * Creates a snapshot with the same structure and other values.
+	 * @param aVersion version of the new snapshot.
+	 * @param someValues the new values, as many as in this snapshot.
+	 * @return the new snapshot.
+	 */
+	ProducerSnapshot withValues(long aVersion, StatValueAO[] someValues){
+		if (someValues.length != values.length)
+			throw new IllegalArgumentException("Expected "+values.length+" values, got "+someValues.length);
+		return new ProducerSnapshot(aVersion, copyProducers(someValues), someValues);
+	}
+
+	long getVersion() {
+		return version;
+	}
+
+	int getValueCount(){
+		return values.length;
+	}
+
+	StatValueAO getValue(int index){
+		return values[index];
+	}
+
+	/**
+	 * Returns a copy of the values.
+	 * @return the values.
+	 */
+	StatValueAO[] getValues(){
+		return Arrays.copyOf(values, values.length);
+	}
+
+	/**
+	 * Returns the producers of the snapshot, they are not copied and must not be modified.
+	 * @return the producers.
+	 */
+	List<ProducerAO> getProducers(){
+		return producers;
+	}
+
+	/**
+	 * Returns a copy of the producers which can be modified by the caller. The value objects are immutable and shared.
+	 * @return copies of the producers.
+	 */
+	List<ProducerAO> copyProducers(){
+		return copyProducers(values);
+	}
+
+	private List<ProducerAO> copyProducers(StatValueAO[] someValues){
+		List<ProducerAO> ret = new ArrayList<>(producers.size());
+		int index = 0;
+		for (ProducerAO producer : producers){
+			ProducerAO copy = new ProducerAO();
+			copy.setProducerId(producer.getProducerId());
+			copy.setCategory(producer.getCategory());
+			copy.setSubsystem(producer.getSubsystem());
+			copy.setProducerClassName(producer.getProducerClassName());
+			copy.setFullProducerClassName(producer.getFullProducerClassName());
+			copy.setStatsClazzName(producer.getStatsClazzName());
+			copy.setTraceable(producer.isTraceable());
+			copy.setTraced(producer.isTraced());
+			//both are only read by the ui, they are shared like the values.
+			copy.setDecoratorName(producer.getDecoratorName());
+			copy.setCreationInfo(producer.getCreationInfo());
+			if (producer.getFirstStatsValues() != null){
+				int size = producer.getFirstStatsValues().size();
+				copy.setFirstStatsValues(new ArrayList<>(Arrays.asList(someValues).subList(index, index + size)));
+				index += size;
+			}
+			for (StatLineAO line : producer.getLines()){
+				StatLineAO lineCopy = new StatLineAO();
+				lineCopy.setStatName(line.getStatName());
+				if (line.getValues() != null){
+					int size = line.getValues().size();
+					lineCopy.setValues(new ArrayList<>(Arrays.asList(someValues).subList(index, index + size)));
+					index += size;
+				}
+				copy.addStatLine(lineCopy);
+			}
+			ret.add(copy);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns true if the other snapshot contains the same producers with the same stats and values.
+	 * @param other the snapshot to compare with.
+	 * @return true if the values of both snapshots can be compared by index.
+	 */
+	boolean hasSameStructure(ProducerSnapshot other){
+		if (values.length != other.values.length || producers.size() != other.producers.size())
+			return false;
+		for (int i=0; i<values.length; i++){
+			if (!same(values[i].getName(), other.values[i].getName()) || values[i].getClass() != other.values[i].getClass())
+				return false;
+		}
+		for (int i=0; i<producers.size(); i++){
+			ProducerAO a = producers.get(i), b = other.producers.get(i);
+			if (!same(a.getProducerId(), b.getProducerId()) || !same(a.getCategory(), b.getCategory()) ||
+					!same(a.getSubsystem(), b.getSubsystem()) || !same(a.getFullProducerClassName(), b.getFullProducerClassName()) ||
+					!same(a.getStatsClazzName(), b.getStatsClazzName()) ||
+					a.isTraceable() != b.isTraceable() || a.isTraced() != b.isTraced() ||
+					!same(ProducerSnapshotCodec.getKey(a.getDecoratorName()), ProducerSnapshotCodec.getKey(b.getDecoratorName())) ||
+					creationTimestamp(a) != creationTimestamp(b) ||
+					size(a.getFirstStatsValues()) != size(b.getFirstStatsValues()) ||
+					a.getLines().size() != b.getLines().size())
+				return false;
+			//lines are a linked list.
+			Iterator<StatLineAO> linesB = b.getLines().iterator();
+			for (StatLineAO lineA : a.getLines()){
+				StatLineAO lineB = linesB.next();
+				if (!same(lineA.getStatName(), lineB.getStatName()) || size(lineA.getValues()) != size(lineB.getValues()))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the creation timestamp of the producer or 0 if it has no creation info. A producer with the same id but
+	 * another timestamp has been replaced.
+	 */
+	private static long creationTimestamp(ProducerAO producer){
+		return producer.getCreationInfo() == null ? 0 : producer.getCreationInfo().getTimestamp();
+	}
+
+	private static boolean same(String a, String b){
+		return a == null ? b == null : a.equals(b);
+	}
+
+	/**
+	 * Returns the size of the list or -1 for null, so that missing and empty lists are distinguished.
+	 */
+	private static int size(List<?> list){
+		return list == null ? -1 : list.size();
+	}
+}
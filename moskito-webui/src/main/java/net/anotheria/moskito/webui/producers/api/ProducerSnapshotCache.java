@@ -0,0 +1,127 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server side of the compact producer transfer. Keeps the current and the previous snapshot per request, a new snapshot
+ * is only created after the requested interval was updated, since the values don't change in between. Intervals which
+ * are never updated (like snapshot) get a new snapshot on every request. The encoded messages are cached, so that
+ * multiple clients polling the same interval are served with one encoding. At most {@link #MAX_ENTRIES} requests are
+ * cached, other requests are answered with a full message.
+ */
+class ProducerSnapshotCache {
+
+	/**
+	 * Max number of cached requests.
+	 */
+	static final int MAX_ENTRIES = 1000;
+
+	/**
+	 * Source of snapshot versions. Starts at a random value, so that a client doesn't mistake the versions of a
+	 * restarted instance for the versions it already knows.
+	 */
+	private final AtomicLong versions = new AtomicLong(new Random().nextLong());
+
+	/**
+	 * Snapshots by request.
+	 */
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the producers for a new snapshot.
+	 */
+	interface Source {
+		List<ProducerAO> getProducers() throws APIException;
+	}
+
+	/**
+	 * Returns the message which brings a client from the known version to the current snapshot.
+	 * @param key key of the request, the same source has to be used for the same key.
+	 * @param intervalName the interval of the values.
+	 * @param knownVersion version of the snapshot the client has.
+	 * @param compress true to deflate the message body.
+	 * @param source source of the producers if a new snapshot is needed.
+	 * @return the encoded message.
+	 * @throws APIException if the source fails.
+	 */
+	byte[] getMessage(String key, String intervalName, long knownVersion, boolean compress, Source source) throws APIException{
+		Entry entry = entries.get(key);
+		if (entry == null){
+			if (entries.size() >= MAX_ENTRIES)
+				return ProducerSnapshotCodec.encodeFull(new ProducerSnapshot(nextVersion(), source.getProducers()), compress);
+			entry = new Entry();
+			Entry old = entries.putIfAbsent(key, entry);
+			if (old != null)
+				entry = old;
+		}
+		synchronized (entry){
+			Long intervalTimestamp = IntervalRegistry.getInstance().getUpdateTimestamp(intervalName);
+			if (entry.current == null || intervalTimestamp == null || !intervalTimestamp.equals(entry.intervalTimestamp)){
+				List<ProducerAO> producers;
+				try{
+					producers = source.getProducers();
+				}catch(APIException | RuntimeException e){
+					//don't keep entries for requests which never succeeded, like unknown producers.
+					if (entry.current == null)
+						entries.remove(key, entry);
+					throw e;
+				}
+				entry.update(new ProducerSnapshot(nextVersion(), producers), intervalTimestamp);
+			}
+			return entry.getMessage(knownVersion, compress);
+		}
+	}
+
+	private long nextVersion(){
+		long version = versions.incrementAndGet();
+		//NO_VERSION is reserved for clients without snapshot.
+		return version == ProducerSnapshotCodec.NO_VERSION ? versions.incrementAndGet() : version;
+	}
+
+	/**
+	 * Current and previous snapshot of a request with the encoded messages.
+	 */
+	private static final class Entry {
+		private Long intervalTimestamp;
+		private ProducerSnapshot previous;
+		private ProducerSnapshot current;
+		/**
+		 * True if the previous snapshot has the same structure as the current, so that a delta can be sent.
+		 */
+		private boolean deltaPossible;
+		/**
+		 * Encoded messages, uncompressed at index 0 and compressed at index 1.
+		 */
+		private final byte[][] full = new byte[2][];
+		private final byte[][] delta = new byte[2][];
+
+		void update(ProducerSnapshot snapshot, Long anIntervalTimestamp){
+			previous = current;
+			current = snapshot;
+			intervalTimestamp = anIntervalTimestamp;
+			deltaPossible = previous != null && previous.hasSameStructure(current);
+			full[0] = full[1] = delta[0] = delta[1] = null;
+		}
+
+		byte[] getMessage(long knownVersion, boolean compress){
+			if (knownVersion == current.getVersion())
+				return ProducerSnapshotCodec.encodeUnchanged(knownVersion);
+			int index = compress ? 1 : 0;
+			if (deltaPossible && knownVersion == previous.getVersion()){
+				if (delta[index] == null)
+					delta[index] = ProducerSnapshotCodec.encodeDelta(previous, current, compress);
+				return delta[index];
+			}
+			if (full[index] == null)
+				full[index] = ProducerSnapshotCodec.encodeFull(current, compress);
+			return full[index];
+		}
+	}
+}
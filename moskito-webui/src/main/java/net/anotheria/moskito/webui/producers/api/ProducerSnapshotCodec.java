@@ -0,0 +1,481 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.moskito.core.decorators.DecoratorName;
+import net.anotheria.moskito.core.decorators.value.DoubleValueAO;
+import net.anotheria.moskito.core.decorators.value.LongValueAO;
+import net.anotheria.moskito.core.decorators.value.StatValueAO;
+import net.anotheria.moskito.core.decorators.value.StringValueAO;
+import net.anotheria.moskito.core.inspection.CreationInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary encoding of producer snapshots for the transfer to a remote moskito-inspect. There are three kinds of messages:
+ * <ul>
+ *     <li>full: the complete snapshot. Strings (producer ids, stat and value names and so on) are sent once and
+ *     referenced by their id afterwards, numbers are sent as numbers instead of formatted strings. Creation info and
+ *     decorator name are java serialized, equal decorator names are sent once.</li>
+ *     <li>delta: only the values which changed since the snapshot the client already has, addressed by their index.
+ *     Only possible if both snapshots have the same structure.</li>
+ *     <li>unchanged: the client already has the current snapshot.</li>
+ * </ul>
+ * The header (format, kind, version, base version and compression flag) is never compressed, the body can be deflated.
+ */
+final class ProducerSnapshotCodec {
+
+	/**
+	 * Version of the format, changes whenever the format changes.
+	 */
+	private static final byte FORMAT = 2;
+
+	private static final byte FULL = 0;
+	private static final byte DELTA = 1;
+	private static final byte UNCHANGED = 2;
+
+	private static final byte TYPE_LONG = 'L';
+	private static final byte TYPE_DOUBLE = 'D';
+	private static final byte TYPE_STRING = 'S';
+
+	/**
+	 * Version sent by clients which have no snapshot yet.
+	 */
+	static final long NO_VERSION = 0;
+
+	private ProducerSnapshotCodec(){
+	}
+
+	/**
+	 * Encodes the whole snapshot.
+	 * @param snapshot the snapshot.
+	 * @param compress true to deflate the body.
+	 * @return the message.
+	 */
+	static byte[] encodeFull(ProducerSnapshot snapshot, boolean compress){
+		try{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + snapshot.getValueCount() * 4);
+			DataOutputStream body = startMessage(bytes, FULL, snapshot.getVersion(), NO_VERSION, compress);
+			Writer writer = new Writer(body);
+			List<ProducerAO> producers = snapshot.getProducers();
+			writer.writeInt(producers.size());
+			for (ProducerAO producer : producers){
+				writer.writeString(producer.getProducerId());
+				writer.writeString(producer.getCategory());
+				writer.writeString(producer.getSubsystem());
+				writer.writeString(producer.getProducerClassName());
+				writer.writeString(producer.getFullProducerClassName());
+				writer.writeString(producer.getStatsClazzName());
+				body.writeByte((producer.isTraceable() ? 1 : 0) | (producer.isTraced() ? 2 : 0));
+				writer.writeObject(getKey(producer.getDecoratorName()), producer.getDecoratorName());
+				writer.writeObject(null, producer.getCreationInfo());
+				writer.writeValues(producer.getFirstStatsValues());
+				writer.writeInt(producer.getLines().size());
+				for (StatLineAO line : producer.getLines()){
+					writer.writeString(line.getStatName());
+					writer.writeValues(line.getValues());
+				}
+			}
+			body.close();
+			return bytes.toByteArray();
+		}catch(IOException e){
+			throw new IllegalStateException("Can't happen, writing to memory", e);
+		}
+	}
+
+	/**
+	 * Encodes the values of the current snapshot which differ from the values in the base snapshot. Both snapshots
+	 * must have the same structure.
+	 * @param base the snapshot the client has.
+	 * @param current the current snapshot.
+	 * @param compress true to deflate the body.
+	 * @return the message.
+	 */
+	static byte[] encodeDelta(ProducerSnapshot base, ProducerSnapshot current, boolean compress){
+		try{
+			List<Integer> changed = new ArrayList<>();
+			for (int i=0; i<current.getValueCount(); i++){
+				if (!sameValue(base.getValue(i), current.getValue(i)))
+					changed.add(i);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + changed.size() * 4);
+			DataOutputStream body = startMessage(bytes, DELTA, current.getVersion(), base.getVersion(), compress);
+			Writer writer = new Writer(body);
+			writer.writeInt(changed.size());
+			int last = -1;
+			for (int index : changed){
+				//indexes are ascending, the gaps are smaller than the indexes.
+				writer.writeInt(index - last - 1);
+				writer.writeValueData(current.getValue(index));
+				last = index;
+			}
+			body.close();
+			return bytes.toByteArray();
+		}catch(IOException e){
+			throw new IllegalStateException("Can't happen, writing to memory", e);
+		}
+	}
+
+	/**
+	 * Encodes the message that the client has the current version.
+	 * @param version the current version.
+	 * @return the message.
+	 */
+	static byte[] encodeUnchanged(long version){
+		try{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(20);
+			startMessage(bytes, UNCHANGED, version, version, false).close();
+			return bytes.toByteArray();
+		}catch(IOException e){
+			throw new IllegalStateException("Can't happen, writing to memory", e);
+		}
+	}
+
+	private static DataOutputStream startMessage(ByteArrayOutputStream bytes, byte kind, long version, long baseVersion, boolean compress) throws IOException{
+		DataOutputStream header = new DataOutputStream(bytes);
+		header.writeByte(FORMAT);
+		header.writeByte(kind);
+		header.writeLong(version);
+		header.writeLong(baseVersion);
+		header.writeBoolean(compress);
+		header.flush();
+		if (!compress)
+			return new DataOutputStream(bytes);
+		//speed matters more than the last percent of size, the deflater has to be released explicitly.
+		return new DataOutputStream(new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)){
+			@Override
+			public void close() throws IOException {
+				try{
+					super.close();
+				}finally{
+					def.end();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns true if the message is in the format of this codec.
+	 * @param message the message.
+	 * @return false if the message was encoded by another version of the codec.
+	 */
+	static boolean isSupportedFormat(byte[] message){
+		return message != null && message.length > 0 && message[0] == FORMAT;
+	}
+
+	/**
+	 * Decodes a message.
+	 * @param message the message.
+	 * @param known the snapshot the client has, null if it has none.
+	 * @return the current snapshot.
+	 * @throws IOException if the message is malformed or is a delta to another snapshot than the known one.
+	 */
+	static ProducerSnapshot decode(byte[] message, ProducerSnapshot known) throws IOException{
+		DataInputStream header = new DataInputStream(new ByteArrayInputStream(message));
+		byte format = header.readByte();
+		if (format != FORMAT)
+			throw new IOException("Unsupported format "+format);
+		byte kind = header.readByte();
+		long version = header.readLong();
+		long baseVersion = header.readLong();
+		boolean compressed = header.readBoolean();
+		if (kind != FULL && (known == null || known.getVersion() != baseVersion))
+			throw new IOException("Message is based on version "+baseVersion+" which is unknown");
+		if (kind == UNCHANGED)
+			return known;
+
+		InputStream body = compressed ? new InflaterInputStream(header) : header;
+		try{
+			return decodeBody(kind, version, new Reader(new DataInputStream(body)), known);
+		}finally{
+			body.close();
+		}
+	}
+
+	private static ProducerSnapshot decodeBody(byte kind, long version, Reader reader, ProducerSnapshot known) throws IOException{
+		if (kind == DELTA){
+			StatValueAO[] values = known.getValues();
+			int changed = reader.readInt();
+			int index = -1;
+			for (int i=0; i<changed; i++){
+				index += reader.readInt() + 1;
+				if (index >= values.length)
+					throw new IOException("Value index "+index+" out of range");
+				values[index] = reader.readValueData(values[index].getName(), typeOf(values[index]));
+			}
+			return known.withValues(version, values);
+		}
+		if (kind != FULL)
+			throw new IOException("Unknown message kind "+kind);
+
+		int producerCount = reader.readInt();
+		List<ProducerAO> producers = new ArrayList<>(producerCount);
+		for (int p=0; p<producerCount; p++){
+			ProducerAO producer = new ProducerAO();
+			producer.setProducerId(reader.readString());
+			producer.setCategory(reader.readString());
+			producer.setSubsystem(reader.readString());
+			producer.setProducerClassName(reader.readString());
+			producer.setFullProducerClassName(reader.readString());
+			producer.setStatsClazzName(reader.readString());
+			int flags = reader.in.readByte();
+			producer.setTraceable((flags & 1) != 0);
+			producer.setTraced((flags & 2) != 0);
+			producer.setDecoratorName(reader.readObject(DecoratorName.class));
+			producer.setCreationInfo(reader.readObject(CreationInfo.class));
+			producer.setFirstStatsValues(reader.readValues());
+			int lineCount = reader.readInt();
+			for (int l=0; l<lineCount; l++){
+				StatLineAO line = new StatLineAO();
+				line.setStatName(reader.readString());
+				line.setValues(reader.readValues());
+				producer.addStatLine(line);
+			}
+			producers.add(producer);
+		}
+		return new ProducerSnapshot(version, producers);
+	}
+
+	/**
+	 * Returns the key of the decorator name, decorator names with the same key are equal.
+	 * @param name the decorator name, may be null.
+	 * @return the key or null for null.
+	 */
+	static String getKey(DecoratorName name){
+		return name == null ? null : name.getStatsClass() + '/' + name.isCustomDecorator() + '/' + name.getDecoratorId();
+	}
+
+	private static boolean sameValue(StatValueAO a, StatValueAO b){
+		if (a.getClass() != b.getClass())
+			return false;
+		if (a instanceof StringValueAO){
+			String valueA = a.getValue();
+			return valueA == null ? b.getValue() == null : valueA.equals(b.getValue());
+		}
+		return a.getRawValue().equals(b.getRawValue());
+	}
+
+	private static byte typeOf(StatValueAO value) throws IOException{
+		if (value instanceof LongValueAO)
+			return TYPE_LONG;
+		if (value instanceof DoubleValueAO)
+			return TYPE_DOUBLE;
+		if (value instanceof StringValueAO)
+			return TYPE_STRING;
+		throw new IOException("Unsupported value type "+value.getClass());
+	}
+
+	/**
+	 * Writes ints as var ints and strings with ids, a string is only written the first time it occurs in a message.
+	 */
+	private static final class Writer {
+		private final DataOutputStream out;
+		private final Map<String, Integer> ids = new HashMap<>();
+		private final Map<String, Integer> objectIds = new HashMap<>();
+		private int objectCount;
+
+		Writer(DataOutputStream anOut){
+			out = anOut;
+		}
+
+		void writeInt(int value) throws IOException{
+			writeLong(value & 0xFFFFFFFFL);
+		}
+
+		/**
+		 * Writes an unsigned var long, 7 bits per byte.
+		 */
+		void writeLong(long value) throws IOException{
+			while ((value & ~0x7FL) != 0){
+				out.writeByte((int)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int)value);
+		}
+
+		/**
+		 * Writes 0 for null, 1 followed by the string if it wasn't written yet and id + 2 otherwise.
+		 */
+		void writeString(String value) throws IOException{
+			if (value == null){
+				writeInt(0);
+				return;
+			}
+			Integer id = ids.get(value);
+			if (id != null){
+				writeInt(id + 2);
+				return;
+			}
+			ids.put(value, ids.size());
+			writeInt(1);
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			writeInt(utf8.length);
+			out.write(utf8);
+		}
+
+		/**
+		 * Writes 0 for null, 1 followed by the serialized object if it wasn't written yet and id + 2 otherwise. Objects
+		 * with the same key are written once, objects without key every time.
+		 */
+		void writeObject(String key, Serializable value) throws IOException{
+			if (value == null){
+				writeInt(0);
+				return;
+			}
+			Integer id = key == null ? null : objectIds.get(key);
+			if (id != null){
+				writeInt(id + 2);
+				return;
+			}
+			if (key != null)
+				objectIds.put(key, objectCount);
+			objectCount++;
+			writeInt(1);
+			ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+			try (ObjectOutputStream objectOut = new ObjectOutputStream(serialized)){
+				objectOut.writeObject(value);
+			}
+			writeInt(serialized.size());
+			serialized.writeTo(out);
+		}
+
+		/**
+		 * Writes the size + 1 (0 for null) followed by name, type and data of each value.
+		 */
+		void writeValues(List<StatValueAO> values) throws IOException{
+			if (values == null){
+				writeInt(0);
+				return;
+			}
+			writeInt(values.size() + 1);
+			for (StatValueAO value : values){
+				writeString(value.getName());
+				out.writeByte(typeOf(value));
+				writeValueData(value);
+			}
+		}
+
+		void writeValueData(StatValueAO value) throws IOException{
+			if (value instanceof LongValueAO){
+				long l = Long.parseLong(value.getRawValue());
+				//zig zag, small negative values stay small.
+				writeLong((l << 1) ^ (l >> 63));
+			}else if (value instanceof DoubleValueAO){
+				out.writeDouble(Double.parseDouble(value.getRawValue()));
+			}else{
+				writeString(value.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Counterpart of the writer.
+	 */
+	private static final class Reader {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+		private final List<Object> objects = new ArrayList<>();
+
+		Reader(DataInputStream anIn){
+			in = anIn;
+		}
+
+		int readInt() throws IOException{
+			long value = readLong();
+			if (value > Integer.MAX_VALUE)
+				throw new IOException("Int out of range "+value);
+			return (int)value;
+		}
+
+		long readLong() throws IOException{
+			long value = 0;
+			for (int shift=0; shift<64; shift+=7){
+				int b = in.readUnsignedByte();
+				value |= (long)(b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+			}
+			throw new IOException("Malformed var long");
+		}
+
+		String readString() throws IOException{
+			int id = readInt();
+			if (id == 0)
+				return null;
+			if (id > 1){
+				if (id - 2 >= strings.size())
+					throw new IOException("Unknown string id "+(id - 2));
+				return strings.get(id - 2);
+			}
+			byte[] utf8 = new byte[readInt()];
+			in.readFully(utf8);
+			String value = new String(utf8, StandardCharsets.UTF_8);
+			strings.add(value);
+			return value;
+		}
+
+		<T> T readObject(Class<T> type) throws IOException{
+			int id = readInt();
+			if (id == 0)
+				return null;
+			Object value;
+			if (id > 1){
+				if (id - 2 >= objects.size())
+					throw new IOException("Unknown object id "+(id - 2));
+				value = objects.get(id - 2);
+			}else{
+				byte[] serialized = new byte[readInt()];
+				in.readFully(serialized);
+				try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(serialized))){
+					value = objectIn.readObject();
+				}catch(ClassNotFoundException e){
+					throw new IOException("Unknown class in message", e);
+				}
+				objects.add(value);
+			}
+			if (!type.isInstance(value))
+				throw new IOException("Expected "+type.getName()+", got "+value.getClass().getName());
+			return type.cast(value);
+		}
+
+		List<StatValueAO> readValues() throws IOException{
+			int size = readInt();
+			if (size == 0)
+				return null;
+			List<StatValueAO> values = new ArrayList<>(size - 1);
+			for (int i=0; i<size-1; i++){
+				String name = readString();
+				values.add(readValueData(name, in.readByte()));
+			}
+			return values;
+		}
+
+		StatValueAO readValueData(String name, byte type) throws IOException{
+			switch (type){
+				case TYPE_LONG:
+					long zigZag = readLong();
+					return new LongValueAO(name, (zigZag >>> 1) ^ -(zigZag & 1));
+				case TYPE_DOUBLE:
+					return new DoubleValueAO(name, in.readDouble());
+				case TYPE_STRING:
+					return new StringValueAO(name, readString());
+				default:
+					throw new IOException("Unknown value type "+type);
+			}
+		}
+	}
+}
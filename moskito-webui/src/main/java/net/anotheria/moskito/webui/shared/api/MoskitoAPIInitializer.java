@@ -5,6 +5,8 @@ import net.anotheria.moskito.webui.accumulators.api.AccumulatorAPI;
 import net.anotheria.moskito.webui.accumulators.api.AccumulatorAPIFactory;
 import net.anotheria.moskito.webui.auth.api.AuthApi;
 import net.anotheria.moskito.webui.auth.api.AuthApiFactory;
+import net.anotheria.moskito.webui.cluster.api.ClusterAPI;
+import net.anotheria.moskito.webui.cluster.api.ClusterAPIFactory;
 import net.anotheria.moskito.webui.dashboards.api.DashboardAPI;
 import net.anotheria.moskito.webui.dashboards.api.DashboardAPIFactory;
 import net.anotheria.moskito.webui.gauges.api.GaugeAPI;
@@ -48,6 +50,7 @@ public class MoskitoAPIInitializer {
 		APIFinder.addAPIFactory(TracerAPI.class, new TracerAPIFactory());
 		APIFinder.addAPIFactory(AuthApi.class, new AuthApiFactory());
 		APIFinder.addAPIFactory(TagAPI.class, new TagAPIFactory());
+		APIFinder.addAPIFactory(ClusterAPI.class, new ClusterAPIFactory());
 
 	}
 }
@@ -100,17 +100,20 @@ public class TracerAPIImpl extends AbstractMoskitoAPIImpl implements TracerAPI {
 
 			ao.setId(String.valueOf(t.getId()));
 			ao.setCall(t.getCall());
-			ao.setElements(Arrays.asList(t.getElements()));
+			//stack traces are only captured for sampled traces.
+			ao.setElements(t.getElements() == null ? Collections.<StackTraceElement>emptyList() : Arrays.asList(t.getElements()));
 			ao.setDuration(timeUnit.transformNanos(t.getDuration()));
             ao.setCreated(NumberUtils.makeISO8601TimestampString(t.getCreatedTimestamp()));
 
             if(producerJourney != null) {
 
-				CurrentlyTracedCall tracedCall = producerJourney.getTracedCalls().get((int) t.getId() - 1);
+				CurrentlyTracedCall tracedCall = producerJourney.getStepByName(Tracers.getCallName(t));
 
-				ao.setTags(
-						TagsUtil.tagsMapToTagEntries(tracedCall.getTags())
-				);
+				if (tracedCall != null) {
+					ao.setTags(
+							TagsUtil.tagsMapToTagEntries(tracedCall.getTags())
+					);
+				}
 
 			}
 
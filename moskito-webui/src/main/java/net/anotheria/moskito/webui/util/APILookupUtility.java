@@ -8,6 +8,7 @@ import net.anotheria.moskito.webui.auth.api.AuthApi;
 import net.anotheria.moskito.webui.dashboards.api.DashboardAPI;
 import net.anotheria.moskito.webui.gauges.api.GaugeAPI;
 import net.anotheria.moskito.webui.journey.api.JourneyAPI;
+import net.anotheria.moskito.webui.producers.api.CompactRemoteProducerAPI;
 import net.anotheria.moskito.webui.producers.api.ProducerAPI;
 import net.anotheria.moskito.webui.shared.api.AdditionalFunctionalityAPI;
 import net.anotheria.moskito.webui.tags.api.TagAPI;
@@ -41,6 +42,11 @@ public class APILookupUtility {
 	 */
 	private static ConcurrentMap<RemoteInstance, ConcurrentMap<Class<? extends API>, API>> remotes = new ConcurrentHashMap<>(1);
 
+	/**
+	 * Producer apis with compact transfer by remote instance, they keep the last received producers.
+	 */
+	private static ConcurrentMap<RemoteInstance, CompactRemoteProducerAPI> compactProducerAPIs = new ConcurrentHashMap<>(1);
+
 	/**
 	 * Currently configured ConnectivityMode (local or remote).
 	 */
@@ -126,7 +132,28 @@ public class APILookupUtility {
 	public static ProducerAPI getProducerAPI() {
 		return isLocal() ?
 				APIFinder.findAPI(ProducerAPI.class) :
-				findRemote(ProducerAPI.class);
+				withTransferMode(findRemote(ProducerAPI.class), getCurrentRemoteInstance());
+	}
+
+	/**
+	 * Returns the producer api of the given remote instance regardless of the current connectivity mode, using the
+	 * configured remote transfer mode.
+	 * @param instance the remote instance.
+	 * @return the producer api.
+	 */
+	public static ProducerAPI getRemoteProducerAPI(RemoteInstance instance){
+		return withTransferMode(getRemoteAPI(ProducerAPI.class, instance), instance);
+	}
+
+	private static ProducerAPI withTransferMode(ProducerAPI remote, RemoteInstance ri){
+		if (!WebUIConfig.getInstance().getRemoteTransferMode().isCompact())
+			return remote;
+		CompactRemoteProducerAPI compact = compactProducerAPIs.get(ri);
+		if (compact != null)
+			return compact;
+		compact = new CompactRemoteProducerAPI(remote);
+		CompactRemoteProducerAPI old = compactProducerAPIs.putIfAbsent(ri, compact);
+		return old == null ? compact : old;
 	}
 
 	public static AdditionalFunctionalityAPI getAdditionalFunctionalityAPI() {
@@ -163,7 +190,23 @@ public class APILookupUtility {
 		setCurrentConnectivityMode(ConnectivityMode.LOCAL);
 	}
 
+	/**
+	 * Returns the api of the given remote instance regardless of the current connectivity mode. Unlike the lookup for
+	 * the current remote instance, a failed connection doesn't reset the connectivity mode, so it can be used outside of
+	 * a web request.
+	 * @param targetClass the api interface.
+	 * @param instance the remote instance.
+	 * @return the remote stub.
+	 */
+	public static <T extends API> T getRemoteAPI(Class<T> targetClass, RemoteInstance instance){
+		return findRemote(targetClass, instance, false);
+	}
+
 	private static <T extends API> T findRemote(Class<T> targetClass){
+		return findRemote(targetClass, getCurrentRemoteInstance(), true);
+	}
+
+	private static <T extends API> T findRemote(Class<T> targetClass, RemoteInstance ri, boolean resetOnFailure){
 		String serviceId = null;
 		try{
 			Class constantsClass = Class.forName(targetClass.getPackage().getName()+".generated."+targetClass.getSimpleName()+"Constants");
@@ -186,11 +229,10 @@ public class APILookupUtility {
 			throw new AssertionError("Can not find supporting classes for "+targetClass);
 		}
 
-		return findRemote(targetClass, remoteStubClass, serviceId);
+		return findRemote(targetClass, remoteStubClass, serviceId, ri, resetOnFailure);
 	}
 
-	private static <T extends API> T findRemote(Class<T> targetClass, Class<? extends T> remoteStubClass, String serviceId){
-		RemoteInstance ri = getCurrentRemoteInstance();
+	private static <T extends API> T findRemote(Class<T> targetClass, Class<? extends T> remoteStubClass, String serviceId, RemoteInstance ri, boolean resetOnFailure){
 		ConcurrentMap<Class<? extends API>, API> stubsByInterface = remotes.get(ri);
 		if (stubsByInterface==null){
 			ConcurrentHashMap<Class<? extends API>, API> newStubsByInterface = new ConcurrentHashMap<>(0);
@@ -212,10 +254,12 @@ public class APILookupUtility {
 		}catch (NoSuchMethodException e) {
 			throw new IllegalStateException("Constructor with ServiceDescriptor parameter not found in remote stub", e);
 		} catch (InvocationTargetException e) {
-			resetConnection();
+			if (resetOnFailure)
+				resetConnection();
 			throw new IllegalStateException("Cannot connect to "+ri+", due: "+e.getTargetException().getMessage()+". Server at "+ri.getHost()+", port: "+ri.getPort()+" is down or not properly configured", e);
 		} catch (InstantiationException | IllegalAccessException e) {
-			resetConnection();
+			if (resetOnFailure)
+				resetConnection();
 			throw new IllegalStateException("Cannot connect to "+ri+", due: "+e.getMessage()+". Server at "+ri.getHost()+", port: "+ri.getPort()+" is down or not properly configured", e);
 		}
 	}
@@ -0,0 +1,27 @@
+package net.anotheria.moskito.webui.util;
+
+/**
+ * Defines how producers are transferred from a remote instance.
+ */
+public enum RemoteTransferMode {
+	/**
+	 * Producers are transferred as serialized objects.
+	 */
+	OBJECTS,
+	/**
+	 * Producers are transferred in a compact binary encoding, subsequent requests only receive the changed values.
+	 */
+	COMPACT,
+	/**
+	 * Like compact, but deflated. Reduces the size further at the cost of cpu time, useful for slow links.
+	 */
+	COMPACT_COMPRESSED;
+
+	public boolean isCompact(){
+		return this != OBJECTS;
+	}
+
+	public boolean isCompressed(){
+		return this == COMPACT_COMPRESSED;
+	}
+}
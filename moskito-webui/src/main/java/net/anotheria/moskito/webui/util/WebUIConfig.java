@@ -92,6 +92,18 @@ public class WebUIConfig {
 
 	private ThresholdGraphColor[] thresholdGraphColors;
 
+	/**
+	 * Max time in milliseconds to wait for a remote instance when aggregating the cluster view. Unless the
+	 * sun.rmi.transport.tcp.responseTimeout system property is set, it's also used as the read timeout of remote calls
+	 * if remote instances are configured.
+	 */
+	private long clusterTimeout = 5000;
+
+	/**
+	 * How producers are transferred from remote instances, compact modes require a backend of the same version.
+	 */
+	private RemoteTransferMode remoteTransferMode = RemoteTransferMode.OBJECTS;
+
 	public int getProducerChartWidth() {
 		return producerChartWidth;
 	}
@@ -239,5 +251,20 @@ public class WebUIConfig {
 	public void setThresholdGraphColors(ThresholdGraphColor[] thresholdGraphColors) {
 		this.thresholdGraphColors = thresholdGraphColors;
 	}
-}
 
+	public long getClusterTimeout() {
+		return clusterTimeout;
+	}
+
+	public void setClusterTimeout(long clusterTimeout) {
+		this.clusterTimeout = clusterTimeout;
+	}
+
+	public RemoteTransferMode getRemoteTransferMode() {
+		return remoteTransferMode;
+	}
+
+	public void setRemoteTransferMode(RemoteTransferMode remoteTransferMode) {
+		this.remoteTransferMode = remoteTransferMode;
+	}
+}
@@ -44,6 +44,7 @@ public class getAccumulatorGraphDataTest {
 
     @Before
     public void startUp() {
+        APIFinder.cleanUp();
         APIFinder.addAPIFactory(AccumulatorAPI.class, new AccumulatorAPIFactory());
         APIFinder.addAPIFactory(ThresholdAPI.class, new ThresholdAPIFactory());
 
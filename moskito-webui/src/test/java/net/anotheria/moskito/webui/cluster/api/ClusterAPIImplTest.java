@@ -0,0 +1,171 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoprise.mocking.MockFactory;
+import net.anotheria.anoprise.mocking.Mocking;
+import net.anotheria.moskito.core.stats.DefaultIntervals;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
+import net.anotheria.moskito.webui.producers.api.ProducerAO;
+import net.anotheria.moskito.webui.producers.api.ProducerAPI;
+import net.anotheria.moskito.webui.util.RemoteInstance;
+import net.anotheria.moskito.webui.util.WebUIConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the aggregation of the remote instances and the cache of aggregated views.
+ */
+public class ClusterAPIImplTest {
+
+	private RemoteInstance[] previousRemotes;
+	private long previousTimeout;
+	private String previousResponseTimeout;
+	private TestClusterAPI api;
+
+	@Before
+	public void setup() throws Exception{
+		WebUIConfig config = WebUIConfig.getInstance();
+		previousRemotes = config.getRemotes();
+		previousTimeout = config.getClusterTimeout();
+		previousResponseTimeout = System.clearProperty(ClusterAPIImpl.RMI_RESPONSE_TIMEOUT);
+		config.setRemotes(new RemoteInstance[]{remote("ok"), remote("failing"), remote("slow")});
+		config.setClusterTimeout(200);
+		SlowProducers.release = new CountDownLatch(1);
+		api = new TestClusterAPI();
+		api.init();
+	}
+
+	@After
+	public void restore(){
+		SlowProducers.release.countDown();
+		api.deInit();
+		WebUIConfig.getInstance().setRemotes(previousRemotes);
+		WebUIConfig.getInstance().setClusterTimeout(previousTimeout);
+		if (previousResponseTimeout == null)
+			System.clearProperty(ClusterAPIImpl.RMI_RESPONSE_TIMEOUT);
+		else
+			System.setProperty(ClusterAPIImpl.RMI_RESPONSE_TIMEOUT, previousResponseTimeout);
+	}
+
+	@Test
+	public void testRemoteCallsTimeOut(){
+		assertEquals("200", System.getProperty(ClusterAPIImpl.RMI_RESPONSE_TIMEOUT));
+	}
+
+	@Test
+	public void testSlowInstancesDontDelayOthers() throws Exception{
+		RemoteInstance[] remotes = new RemoteInstance[21];
+		for (int i = 0; i < remotes.length - 1; i++)
+			remotes[i] = remote("slow");
+		remotes[remotes.length - 1] = remote("ok");
+		WebUIConfig.getInstance().setRemotes(remotes);
+
+		long start = System.currentTimeMillis();
+		ClusterProducersAO view = api.getProducers("unknown-interval", TimeUnit.MILLISECONDS);
+		assertTrue("instances have to be queried in parallel", System.currentTimeMillis() - start < 2000);
+		ClusterNodeAO ok = view.getNodes().get(remotes.length - 1);
+		assertTrue(ok.getError(), ok.isSuccess());
+		assertEquals(1, view.getProducers().size());
+	}
+
+	@Test
+	public void testFailuresAndTimeoutsAreReported() throws Exception{
+		long start = System.currentTimeMillis();
+		ClusterProducersAO view = api.getProducers("unknown-interval", TimeUnit.MILLISECONDS);
+		assertTrue("aggregation has to stop at the timeout", System.currentTimeMillis() - start < 5000);
+
+		assertEquals(1, view.getProducers().size());
+		assertEquals("p", view.getProducers().get(0).getProducerId());
+		List<ClusterNodeAO> nodes = view.getNodes();
+		assertEquals(3, nodes.size());
+
+		assertEquals("ok", nodes.get(0).getName());
+		assertTrue(nodes.get(0).isSuccess());
+		assertEquals(1, nodes.get(0).getNumberOfProducers());
+
+		assertEquals("failing", nodes.get(1).getName());
+		assertFalse(nodes.get(1).isSuccess());
+		assertTrue(nodes.get(1).getError(), nodes.get(1).getError().contains("remote failure"));
+
+		assertEquals("slow", nodes.get(2).getName());
+		assertFalse(nodes.get(2).isSuccess());
+		assertEquals("No reply within 200 ms", nodes.get(2).getError());
+		assertEquals(200, nodes.get(2).getLatency());
+		assertEquals(0, api.getCachedViewsCount());
+	}
+
+	@Test
+	public void testViewsAreEvictedOnIntervalUpdate() throws Exception{
+		String interval = DefaultIntervals.ONE_MINUTE.getName();
+		IntervalRegistry.getInstance().forceUpdateIntervalForTestingPurposes(interval);
+		SlowProducers.release.countDown();
+
+		ClusterProducersAO view = api.getProducers(interval, TimeUnit.MILLISECONDS);
+		assertEquals(1, api.getCachedViewsCount());
+		assertTrue(view == api.getProducers(interval, TimeUnit.MILLISECONDS));
+
+		IntervalRegistry.getInstance().forceUpdateIntervalForTestingPurposes(interval);
+		assertEquals(0, api.getCachedViewsCount());
+	}
+
+	private static RemoteInstance remote(String name){
+		RemoteInstance ret = new RemoteInstance();
+		ret.setName(name);
+		ret.setHost(name);
+		ret.setPort(9401);
+		return ret;
+	}
+
+	/**
+	 * Cluster api with mocked remote instances.
+	 */
+	private static class TestClusterAPI extends ClusterAPIImpl {
+		@Override
+		ProducerAPI getRemoteProducerAPI(RemoteInstance instance) {
+			switch (instance.getName()){
+				case "ok":
+					return MockFactory.createMock(ProducerAPI.class, new Producers());
+				case "failing":
+					return MockFactory.createMock(ProducerAPI.class, new FailingProducers());
+				default:
+					return MockFactory.createMock(ProducerAPI.class, new SlowProducers());
+			}
+		}
+	}
+
+	public static class Producers implements Mocking {
+		public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit){
+			ProducerAO producer = new ProducerAO();
+			producer.setProducerId("p");
+			return Collections.singletonList(producer);
+		}
+	}
+
+	public static class FailingProducers implements Mocking {
+		public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit) throws APIException{
+			throw new APIException("remote failure");
+		}
+	}
+
+	/**
+	 * Replies after the release.
+	 */
+	public static class SlowProducers implements Mocking {
+		static volatile CountDownLatch release;
+
+		public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit) throws InterruptedException{
+			release.await();
+			return Collections.emptyList();
+		}
+	}
+}
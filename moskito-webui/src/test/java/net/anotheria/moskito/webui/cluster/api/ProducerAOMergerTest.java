@@ -0,0 +1,167 @@
+package net.anotheria.moskito.webui.cluster.api;
+
+import net.anotheria.moskito.core.decorators.DecoratorRegistryFactory;
+import net.anotheria.moskito.core.decorators.value.DoubleValueAO;
+import net.anotheria.moskito.core.decorators.value.LongValueAO;
+import net.anotheria.moskito.core.decorators.value.StatValueAO;
+import net.anotheria.moskito.core.decorators.value.StringValueAO;
+import net.anotheria.moskito.core.predefined.MemoryStats;
+import net.anotheria.moskito.core.predefined.RuntimeStats;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.producers.IStats;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import net.anotheria.moskito.webui.producers.api.ProducerAO;
+import net.anotheria.moskito.webui.producers.api.StatLineAO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProducerAOMergerTest {
+
+	private static List<StatValueAO> values(long requests, long time, long min, long max, double avg, String text){
+		return Arrays.<StatValueAO>asList(
+				new LongValueAO("Req", requests),
+				new LongValueAO("Time", time),
+				new LongValueAO("Min", min),
+				new LongValueAO("Max", max),
+				new DoubleValueAO("Avg", avg),
+				new StringValueAO("Info", text));
+	}
+
+	private static String valueOf(List<StatValueAO> values, String name){
+		for (StatValueAO value : values){
+			if (value.getName().equals(name))
+				return value instanceof StringValueAO ? value.getValue() : value.getRawValue();
+		}
+		throw new AssertionError("No value "+name+" in "+values);
+	}
+
+	@Test public void testMergeValues(){
+		List<StatValueAO> merged = ProducerAOMerger.mergeValues(Arrays.asList(
+				values(10, 100, 2, 30, 10, "a"),
+				values(30, 600, 5, 50, 20, "a"),
+				//no requests, min and max are not set.
+				values(0, 0, Long.MAX_VALUE, Long.MIN_VALUE, 0, "b")), ProducerAOMerger.getRules(ServiceStats.class.getName()));
+
+		assertEquals(6, merged.size());
+		assertEquals("40", valueOf(merged, "Req"));
+		assertEquals("700", valueOf(merged, "Time"));
+		assertEquals("2", valueOf(merged, "Min"));
+		assertEquals("50", valueOf(merged, "Max"));
+		//weighted by requests: (10*10 + 20*30) / 40
+		assertEquals("17.5", valueOf(merged, "Avg"));
+		assertEquals("*", valueOf(merged, "Info"));
+	}
+
+	@Test public void testMergeProducers(){
+		ProducerAO a1 = producer("a", 1);
+		ProducerAO b1 = producer("b", 2);
+		ProducerAO a2 = producer("a", 3);
+		StatLineAO extra = new StatLineAO();
+		extra.setStatName("extra");
+		extra.setValues(Collections.<StatValueAO>singletonList(new LongValueAO("Req", 5)));
+		a2.addStatLine(extra);
+
+		List<ProducerAO> merged = ProducerAOMerger.mergeProducers(Arrays.asList(
+				Arrays.asList(a1, b1), Collections.singletonList(a2), Collections.<ProducerAO>emptyList()));
+		assertEquals(2, merged.size());
+		ProducerAO a = merged.get(0);
+		assertEquals("a", a.getProducerId());
+		assertEquals("4", valueOf(a.getFirstStatsValues(), "Req"));
+		assertEquals(2, a.getLines().size());
+		assertEquals("cumulated", a.getLines().get(0).getStatName());
+		assertEquals("4", valueOf(a.getLines().get(0).getValues(), "Req"));
+		assertEquals("5", valueOf(a.getLines().get(1).getValues(), "Req"));
+		assertEquals("2", valueOf(merged.get(1).getFirstStatsValues(), "Req"));
+	}
+
+	@Test public void testMergeServiceStats(){
+		ServiceStats s1 = new ServiceStats("cumulated");
+		request(s1, 10);
+		request(s1, 30);
+		ServiceStats s2 = new ServiceStats("cumulated");
+		request(s2, 20);
+		s2.notifyError();
+
+		List<StatValueAO> merged = mergeDecorated(s1, s2);
+		assertEquals("3", valueOf(merged, "Req"));
+		assertEquals("60", valueOf(merged, "Time"));
+		assertEquals("10", valueOf(merged, "Min"));
+		assertEquals("30", valueOf(merged, "Max"));
+		assertEquals("1", valueOf(merged, "MCR"));
+		assertEquals("0", valueOf(merged, "CR"));
+		assertEquals("20.0", valueOf(merged, "Avg"));
+		assertEquals("1", valueOf(merged, "Err"));
+	}
+
+	@Test public void testMergeMemoryStats(){
+		MemoryStats m1 = new MemoryStats("Heap");
+		m1.updateMemoryValue(300);
+		m1.updateMemoryValue(100);
+		MemoryStats m2 = new MemoryStats("Heap");
+		m2.updateMemoryValue(200);
+
+		List<StatValueAO> merged = mergeDecorated(m1, m2);
+		assertEquals("300", valueOf(merged, "Current"));
+		assertEquals("300", valueOf(merged, "Max"));
+		assertEquals("0", valueOf(merged, "Max Mb"));
+	}
+
+	@Test public void testMergeRuntimeStats(){
+		RuntimeStats r1 = new RuntimeStats("Runtime");
+		r1.update("a", 1000, 7200000);
+		RuntimeStats r2 = new RuntimeStats("Runtime");
+		r2.update("b", 2000, 3600000);
+
+		List<StatValueAO> merged = mergeDecorated(r1, r2);
+		assertEquals("*", valueOf(merged, "Name"));
+		assertEquals("1000", valueOf(merged, "StartTime"));
+		assertEquals("7200000", valueOf(merged, "Uptime"));
+		assertEquals("2", valueOf(merged, "Uphours"));
+	}
+
+	@Test public void testUnknownStatsClass(){
+		assertEquals(ProducerAOMerger.Rule.MAX, ProducerAOMerger.getRules("com.example.CustomStats").get("MCR"));
+		assertEquals(ProducerAOMerger.Rule.AVERAGE, ProducerAOMerger.getRules(null).get("Avg"));
+		assertEquals(null, ProducerAOMerger.getRules(null).get("Err"));
+	}
+
+	private static void request(ServiceStats stats, long millis){
+		stats.addRequest();
+		stats.addExecutionTime(millis * 1000000);
+		stats.notifyRequestFinished();
+	}
+
+	/**
+	 * Merges the stats of two instances as decorated by their registered decorator.
+	 */
+	private static List<StatValueAO> mergeDecorated(IStats first, IStats second){
+		List<ProducerAO> producers = new ArrayList<>(2);
+		for (IStats stats : new IStats[]{first, second}){
+			ProducerAO ao = new ProducerAO();
+			ao.setProducerId("producer");
+			ao.setStatsClazzName(stats.getClass().getName());
+			ao.setFirstStatsValues(DecoratorRegistryFactory.getDecoratorRegistry().getDecorator(stats.getClass()).getValues(stats, null, TimeUnit.MILLISECONDS));
+			producers.add(ao);
+		}
+		return ProducerAOMerger.mergeProducer(producers).getFirstStatsValues();
+	}
+
+	private static ProducerAO producer(String id, long requests){
+		ProducerAO ao = new ProducerAO();
+		ao.setProducerId(id);
+		List<StatValueAO> values = new ArrayList<>();
+		values.add(new LongValueAO("Req", requests));
+		ao.setFirstStatsValues(values);
+		StatLineAO line = new StatLineAO();
+		line.setStatName("cumulated");
+		line.setValues(values);
+		ao.addStatLine(line);
+		return ao;
+	}
+}
@@ -16,6 +16,7 @@ import net.anotheria.moskito.core.registry.IProducerRegistry;
 import net.anotheria.moskito.core.registry.ProducerRegistryAPIFactory;
 import net.anotheria.moskito.core.registry.ProducerRegistryFactory;
 import net.anotheria.moskito.core.stats.DefaultIntervals;
+import net.anotheria.moskito.core.stats.impl.IntervalRegistry;
 import net.anotheria.moskito.webui.accumulators.api.AccumulatorAPI;
 import net.anotheria.moskito.webui.accumulators.api.AccumulatorAPIFactory;
 import net.anotheria.moskito.webui.accumulators.api.AccumulatorPO;
@@ -95,6 +96,7 @@ public class getDashboardTest {
 
     @After
     public void shutDown() {
+        api.deInit();
         APIFinder.cleanUp();
         ProducerRegistryAPIFactory.resetForUnitTest();
         ProducerRegistryFactory.reset();
@@ -319,6 +321,29 @@ public class getDashboardTest {
         }
     }
 
+    @Test
+    public void testDashboardIsCachedUntilChange() throws APIException {
+        //the registry api has to listen to the registry which was reset after it in startUp().
+        ProducerRegistryAPIFactory.resetForUnitTest();
+        registerFakeProducers(new String[]{"pr1"});
+        testDashboard.setProducerNamePatterns(new String[]{"pr(.*)"});
+
+        DashboardAO dashboard = api.getDashboard(testDashboard.getName());
+        assertSame(dashboard, api.getDashboard(testDashboard.getName()));
+        assertEquals(Arrays.asList("pr1"), dashboard.getProducers());
+
+        //new producers have to be matched again.
+        registerFakeProducers(new String[]{"pr2"});
+        DashboardAO withNewProducer = api.getDashboard(testDashboard.getName());
+        assertNotSame(dashboard, withNewProducer);
+        assertTrue(withNewProducer.getProducers().containsAll(Arrays.asList("pr1", "pr2")));
+        assertTrue(withNewProducer.getVersion() > dashboard.getVersion());
+
+        //data is rebuilt after an interval update.
+        IntervalRegistry.getInstance().forceUpdateIntervalForTestingPurposes(DefaultIntervals.FIVE_MINUTES.getName());
+        assertNotSame(withNewProducer, api.getDashboard(testDashboard.getName()));
+    }
+
     private class FakeProducer implements IStatsProducer {
 
         private String id;
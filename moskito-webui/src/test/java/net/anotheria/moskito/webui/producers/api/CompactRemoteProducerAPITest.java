@@ -0,0 +1,139 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.anoplass.api.APIException;
+import net.anotheria.anoprise.mocking.MockFactory;
+import net.anotheria.anoprise.mocking.Mocking;
+import net.anotheria.moskito.core.decorators.DecoratorName;
+import net.anotheria.moskito.core.inspection.CreationInfo;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import net.anotheria.moskito.core.stats.TimeUnit;
+import org.junit.Test;
+
+import java.rmi.UnmarshalException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests when the compact transfer falls back to the object transfer.
+ */
+public class CompactRemoteProducerAPITest {
+
+	@Test
+	public void testFailureDoesntDisableCompactTransfer() throws Exception{
+		Remote remote = new Remote(new APIException("temporarily unavailable"));
+		CompactRemoteProducerAPI api = new CompactRemoteProducerAPI(MockFactory.createMock(ProducerAPI.class, remote));
+
+		assertEquals(1, api.getAllProducers("default", TimeUnit.MILLISECONDS).size());
+		assertEquals(1, api.getAllProducers("default", TimeUnit.MILLISECONDS).size());
+		assertEquals(2, remote.encodedRequests);
+		assertEquals(2, remote.objectRequests);
+	}
+
+	@Test
+	public void testMissingMethodDisablesCompactTransfer() throws Exception{
+		Remote remote = new Remote(new UnsupportedOperationException());
+		CompactRemoteProducerAPI api = new CompactRemoteProducerAPI(MockFactory.createMock(ProducerAPI.class, remote));
+
+		api.getAllProducers("default", TimeUnit.MILLISECONDS);
+		api.getAllProducers("default", TimeUnit.MILLISECONDS);
+		assertEquals(1, remote.encodedRequests);
+		assertEquals(2, remote.objectRequests);
+	}
+
+	@Test
+	public void testOtherFormatDisablesCompactTransfer() throws Exception{
+		Remote remote = new Remote(null);
+		CompactRemoteProducerAPI api = new CompactRemoteProducerAPI(MockFactory.createMock(ProducerAPI.class, remote));
+
+		assertEquals(1, api.getAllProducers("default", TimeUnit.MILLISECONDS).size());
+		api.getAllProducers("default", TimeUnit.MILLISECONDS);
+		assertEquals(1, remote.encodedRequests);
+		assertEquals(2, remote.objectRequests);
+	}
+
+	@Test
+	public void testSingleProducerIsTransferredCompact() throws Exception{
+		CompactRemote remote = new CompactRemote();
+		CompactRemoteProducerAPI api = new CompactRemoteProducerAPI(MockFactory.createMock(ProducerAPI.class, remote));
+
+		ProducerAO producer = api.getProducer("p", "default", TimeUnit.MILLISECONDS);
+		assertEquals("p", producer.getProducerId());
+		assertEquals(ServiceStats.class.getCanonicalName(), producer.getDecoratorName().getStatsClass());
+		assertEquals(remote.creationInfo.getTimestamp(), producer.getCreationInfo().getTimestamp());
+		assertEquals(ProducerSelection.PRODUCER, remote.selection);
+		assertEquals("p", remote.selectionValue);
+		assertEquals(ProducerSnapshotCodec.NO_VERSION, remote.knownVersion);
+
+		//the second request only asks for changes.
+		api.getProducer("p", "default", TimeUnit.MILLISECONDS);
+		assertEquals(1, remote.knownVersion);
+
+		api.getAllProducersByCategory("service", "default", TimeUnit.MILLISECONDS);
+		assertEquals(ProducerSelection.CATEGORY, remote.selection);
+		assertEquals("service", remote.selectionValue);
+		assertEquals(ProducerSnapshotCodec.NO_VERSION, remote.knownVersion);
+
+		api.getAllProducersBySubsystem("default", "default", TimeUnit.MILLISECONDS);
+		assertEquals(ProducerSelection.SUBSYSTEM, remote.selection);
+	}
+
+	@Test
+	public void testIsMissingMethod(){
+		assertTrue(CompactRemoteProducerAPI.isMissingMethod(new RuntimeException(new UnmarshalException("unrecognized method hash: method not supported by remote object"))));
+		assertTrue(CompactRemoteProducerAPI.isMissingMethod(new APIException("failed", new NoSuchMethodException("getEncodedProducers"))));
+		assertFalse(CompactRemoteProducerAPI.isMissingMethod(new APIException("failed", new UnmarshalException("error unmarshalling return"))));
+		assertFalse(CompactRemoteProducerAPI.isMissingMethod(new RuntimeException("connection refused")));
+	}
+
+	/**
+	 * Remote which fails the compact request with the given exception or replies in an unknown format.
+	 */
+	public static class Remote implements Mocking {
+		private final Exception failure;
+		private int encodedRequests;
+		private int objectRequests;
+
+		public Remote(Exception aFailure){
+			failure = aFailure;
+		}
+
+		public byte[] getEncodedProducers(ProducerSelection selection, String selectionValue, String intervalName, TimeUnit timeUnit, boolean createAllStats, long knownVersion, boolean compress) throws Exception{
+			encodedRequests++;
+			if (failure != null)
+				throw failure;
+			return new byte[]{99, 0};
+		}
+
+		public List<ProducerAO> getAllProducers(String intervalName, TimeUnit timeUnit, boolean createAllStats){
+			objectRequests++;
+			ProducerAO producer = new ProducerAO();
+			producer.setProducerId("p");
+			return Collections.singletonList(producer);
+		}
+	}
+
+	/**
+	 * Remote which replies with a full message containing one producer.
+	 */
+	public static class CompactRemote implements Mocking {
+		private ProducerSelection selection;
+		private String selectionValue;
+		private long knownVersion;
+		private final CreationInfo creationInfo = new CreationInfo(new Exception().getStackTrace());
+
+		public byte[] getEncodedProducers(ProducerSelection aSelection, String aSelectionValue, String intervalName, TimeUnit timeUnit, boolean createAllStats, long aKnownVersion, boolean compress){
+			selection = aSelection;
+			selectionValue = aSelectionValue;
+			knownVersion = aKnownVersion;
+			ProducerAO producer = new ProducerAO();
+			producer.setProducerId("p");
+			producer.setDecoratorName(new DecoratorName(new ServiceStats("test")));
+			producer.setCreationInfo(creationInfo);
+			return ProducerSnapshotCodec.encodeFull(new ProducerSnapshot(1, Collections.singletonList(producer)), compress);
+		}
+	}
+}
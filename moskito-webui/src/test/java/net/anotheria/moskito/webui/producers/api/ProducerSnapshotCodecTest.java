@@ -0,0 +1,192 @@
+package net.anotheria.moskito.webui.producers.api;
+
+import net.anotheria.moskito.core.decorators.DecoratorName;
+import net.anotheria.moskito.core.decorators.value.DoubleValueAO;
+import net.anotheria.moskito.core.decorators.value.LongValueAO;
+import net.anotheria.moskito.core.decorators.value.StatValueAO;
+import net.anotheria.moskito.core.decorators.value.StringValueAO;
+import net.anotheria.moskito.core.inspection.CreationInfo;
+import net.anotheria.moskito.core.predefined.ActionStats;
+import net.anotheria.moskito.core.predefined.ServiceStats;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the compact producer transfer encoding.
+ */
+public class ProducerSnapshotCodecTest {
+
+	private static final DecoratorName DECORATOR_NAME = new DecoratorName(new ServiceStats("test"));
+
+	private static final CreationInfo CREATION_INFO = new CreationInfo(new Exception().getStackTrace());
+
+	@Test
+	public void testFullRoundTrip() throws IOException{
+		for (boolean compress : new boolean[]{false, true}){
+			ProducerSnapshot original = new ProducerSnapshot(42, createProducers(100, 0));
+			ProducerSnapshot decoded = ProducerSnapshotCodec.decode(ProducerSnapshotCodec.encodeFull(original, compress), null);
+			assertEquals(42, decoded.getVersion());
+			assertEqualProducers(original.getProducers(), decoded.copyProducers());
+		}
+	}
+
+	@Test
+	public void testDeltaContainsOnlyChangedValues() throws IOException{
+		ProducerSnapshot base = new ProducerSnapshot(1, createProducers(100, 0));
+		ProducerSnapshot current = new ProducerSnapshot(2, createProducers(100, 1));
+		assertTrue(base.hasSameStructure(current));
+
+		byte[] full = ProducerSnapshotCodec.encodeFull(current, false);
+		byte[] delta = ProducerSnapshotCodec.encodeDelta(base, current, false);
+		assertTrue("delta "+delta.length+" should be much smaller than full "+full.length, delta.length * 5 < full.length);
+
+		ProducerSnapshot client = ProducerSnapshotCodec.decode(ProducerSnapshotCodec.encodeFull(base, false), null);
+		ProducerSnapshot updated = ProducerSnapshotCodec.decode(delta, client);
+		assertEquals(2, updated.getVersion());
+		assertEqualProducers(current.getProducers(), updated.copyProducers());
+
+		ProducerSnapshot unchanged = ProducerSnapshotCodec.decode(ProducerSnapshotCodec.encodeUnchanged(2), updated);
+		assertSame(updated, unchanged);
+
+		try{
+			ProducerSnapshotCodec.decode(delta, updated);
+			fail("delta to unknown version must not be applied");
+		}catch(IOException expected){
+		}
+	}
+
+	@Test
+	public void testStructureChange(){
+		ProducerSnapshot base = new ProducerSnapshot(1, createProducers(10, 0));
+		assertFalse(base.hasSameStructure(new ProducerSnapshot(2, createProducers(11, 0))));
+		List<ProducerAO> renamed = createProducers(10, 0);
+		renamed.get(5).setProducerId("other");
+		assertFalse(base.hasSameStructure(new ProducerSnapshot(2, renamed)));
+		List<ProducerAO> recreated = createProducers(10, 0);
+		recreated.get(1).setCreationInfo(null);
+		assertFalse(base.hasSameStructure(new ProducerSnapshot(2, recreated)));
+	}
+
+	@Test
+	public void testDecoratorNamesAreSentOnce() throws IOException{
+		List<ProducerAO> producers = createProducers(10, 0);
+		int singleDecoratorSize = ProducerSnapshotCodec.encodeFull(new ProducerSnapshot(1, producers), false).length;
+		producers.get(3).setDecoratorName(new DecoratorName(new ActionStats("other")));
+		int twoDecoratorsSize = ProducerSnapshotCodec.encodeFull(new ProducerSnapshot(1, producers), false).length;
+		assertTrue("second decorator name has to be sent", twoDecoratorsSize > singleDecoratorSize + 50);
+	}
+
+	@Test
+	public void testCacheSendsDeltaToPreviousVersion() throws Exception{
+		final int[] round = new int[1];
+		ProducerSnapshotCache cache = new ProducerSnapshotCache();
+		ProducerSnapshotCache.Source source = new ProducerSnapshotCache.Source() {
+			@Override
+			public List<ProducerAO> getProducers() {
+				return createProducers(20, round[0]++);
+			}
+		};
+		//snapshot is never updated, so every request creates a new snapshot.
+		ProducerSnapshot first = ProducerSnapshotCodec.decode(cache.getMessage("k", "snapshot", ProducerSnapshotCodec.NO_VERSION, true, source), null);
+		ProducerSnapshot second = ProducerSnapshotCodec.decode(cache.getMessage("k", "snapshot", first.getVersion(), true, source), first);
+		assertTrue(second.getVersion() != first.getVersion());
+		assertEqualProducers(createProducers(20, 1), second.copyProducers());
+	}
+
+	private static List<ProducerAO> createProducers(int count, int round){
+		List<ProducerAO> ret = new ArrayList<>(count);
+		for (int i=0; i<count; i++){
+			ProducerAO producer = new ProducerAO();
+			producer.setProducerId("producer-"+i);
+			producer.setCategory(i % 2 == 0 ? "service" : "action");
+			producer.setSubsystem("default");
+			producer.setProducerClassName("OnDemandStatsProducer");
+			producer.setFullProducerClassName("net.anotheria.moskito.core.producers.OnDemandStatsProducer");
+			producer.setStatsClazzName("net.anotheria.moskito.core.predefined.ServiceStats");
+			producer.setTraceable(i % 3 == 0);
+			producer.setDecoratorName(DECORATOR_NAME);
+			if (i % 2 == 1)
+				producer.setCreationInfo(CREATION_INFO);
+			producer.setFirstStatsValues(createValues(i, round));
+			for (int l=0; l<3; l++){
+				StatLineAO line = new StatLineAO();
+				line.setStatName(l == 0 ? "cumulated" : "method"+l);
+				line.setValues(createValues(i * 10 + l, round));
+				producer.addStatLine(line);
+			}
+			if (i == 0){
+				StatLineAO empty = new StatLineAO();
+				empty.setStatName("empty");
+				producer.addStatLine(empty);
+			}
+			ret.add(producer);
+		}
+		return ret;
+	}
+
+	/**
+	 * Only the request counter of every tenth value set changes between rounds.
+	 */
+	private static List<StatValueAO> createValues(int seed, int round){
+		List<StatValueAO> values = new ArrayList<>();
+		values.add(new LongValueAO("Req", seed % 10 == 0 ? seed + round : seed));
+		values.add(new LongValueAO("Err", -seed));
+		values.add(new LongValueAO("Min", Long.MAX_VALUE));
+		values.add(new DoubleValueAO("Avg", seed / 7.0));
+		values.add(new DoubleValueAO("Max", Double.POSITIVE_INFINITY));
+		values.add(new StringValueAO("Info", seed % 2 == 0 ? "text "+seed : null));
+		return values;
+	}
+
+	private static void assertEqualProducers(List<ProducerAO> expected, List<ProducerAO> actual){
+		assertEquals(expected.size(), actual.size());
+		for (int i=0; i<expected.size(); i++){
+			ProducerAO e = expected.get(i), a = actual.get(i);
+			assertEquals(e.getProducerId(), a.getProducerId());
+			assertEquals(e.getCategory(), a.getCategory());
+			assertEquals(e.getSubsystem(), a.getSubsystem());
+			assertEquals(e.getProducerClassName(), a.getProducerClassName());
+			assertEquals(e.getFullProducerClassName(), a.getFullProducerClassName());
+			assertEquals(e.getStatsClazzName(), a.getStatsClazzName());
+			assertEquals(e.isTraceable(), a.isTraceable());
+			assertEquals(e.isTraced(), a.isTraced());
+			assertEquals(ProducerSnapshotCodec.getKey(e.getDecoratorName()), ProducerSnapshotCodec.getKey(a.getDecoratorName()));
+			if (e.getCreationInfo() == null){
+				assertNull(a.getCreationInfo());
+			}else{
+				assertEquals(e.getCreationInfo().getTimestamp(), a.getCreationInfo().getTimestamp());
+				assertEquals(Arrays.asList(e.getCreationInfo().getStackTrace()), Arrays.asList(a.getCreationInfo().getStackTrace()));
+			}
+			assertEqualValues(e.getFirstStatsValues(), a.getFirstStatsValues());
+			assertEquals(e.getLines().size(), a.getLines().size());
+			for (int l=0; l<e.getLines().size(); l++){
+				assertEquals(e.getLines().get(l).getStatName(), a.getLines().get(l).getStatName());
+				assertEqualValues(e.getLines().get(l).getValues(), a.getLines().get(l).getValues());
+			}
+		}
+	}
+
+	private static void assertEqualValues(List<StatValueAO> expected, List<StatValueAO> actual){
+		if (expected == null){
+			assertNull(actual);
+			return;
+		}
+		assertEquals(expected.size(), actual.size());
+		for (int i=0; i<expected.size(); i++){
+			assertEquals(expected.get(i).getClass(), actual.get(i).getClass());
+			assertEquals(expected.get(i).getName(), actual.get(i).getName());
+			assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+		}
+	}
+}